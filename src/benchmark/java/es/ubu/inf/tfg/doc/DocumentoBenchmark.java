@@ -0,0 +1,141 @@
+package es.ubu.inf.tfg.doc;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import es.ubu.inf.tfg.regex.asu.AhoSethiUllman;
+import es.ubu.inf.tfg.regex.datos.CacheImagenes;
+import es.ubu.inf.tfg.regex.datos.ExpresionRegular;
+import es.ubu.inf.tfg.regex.datos.Generador;
+import es.ubu.inf.tfg.regex.thompson.ConstruccionSubconjuntos;
+
+/**
+ * Mide cada una de las formas de exportar un documento sobre conjuntos fijos de
+ * problemas, que incluyen por igual los seis tipos de problema.
+ * <p>
+ * Los problemas cachean sus imágenes, por lo que antes de cada iteración se
+ * vuelven a construir a partir de las mismas expresiones, se vacía la caché
+ * de imágenes compartida, y cada iteración mide una única exportación
+ * completa.
+ *
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(1)
+public class DocumentoBenchmark {
+
+	private static final long SEMILLA = 1L;
+	private static final int PROFUNDIDAD = 3;
+
+	@Param({ "10", "100", "1000" })
+	public int nProblemas;
+
+	private List<ExpresionRegular> expresiones;
+	private Documento documento;
+	private File carpeta;
+
+	@Setup(Level.Trial)
+	public void preparaCorpus() throws IOException {
+		Generador generador = new Generador(3, false, true, SEMILLA);
+		this.expresiones = new ArrayList<>();
+		for (int i = 0; i < this.nProblemas; i++)
+			this.expresiones.add(generador.arbol(PROFUNDIDAD));
+
+		this.carpeta = Files.createTempDirectory("plquiz-benchmark").toFile();
+	}
+
+	@Setup(Level.Iteration)
+	public void preparaDocumento() {
+		CacheImagenes.vacia();
+		this.documento = new Documento();
+		for (int i = 0; i < this.expresiones.size(); i++) {
+			ExpresionRegular expresion = this.expresiones.get(i);
+			int numero = i + 1;
+
+			switch (i % 6) {
+			case 0:
+				this.documento.añadirProblema(Problema.asuConstruccion(
+						new AhoSethiUllman(expresion), numero));
+				break;
+			case 1:
+				this.documento.añadirProblema(Problema.asuEtiquetado(
+						new AhoSethiUllman(expresion), numero));
+				break;
+			case 2:
+				this.documento.añadirProblema(Problema.asuTablas(
+						new AhoSethiUllman(expresion), numero));
+				break;
+			case 3:
+				this.documento.añadirProblema(Problema.CSConstruccion(
+						new ConstruccionSubconjuntos(expresion), numero));
+				break;
+			case 4:
+				this.documento.añadirProblema(Problema.CSExpresion(
+						new ConstruccionSubconjuntos(expresion), numero));
+				break;
+			default:
+				this.documento.añadirProblema(Problema.CSAutomata(
+						new ConstruccionSubconjuntos(expresion), numero));
+				break;
+			}
+		}
+	}
+
+	@TearDown(Level.Iteration)
+	public void limpiaCarpeta() {
+		for (File fichero : this.carpeta.listFiles())
+			fichero.delete();
+	}
+
+	@TearDown(Level.Trial)
+	public void eliminaCarpeta() {
+		this.carpeta.delete();
+	}
+
+	@Benchmark
+	public void exportaXML() throws IOException {
+		this.documento.exportaXML(new File(this.carpeta, "documento.xml"));
+	}
+
+	@Benchmark
+	public void exportaLatex() throws IOException {
+		this.documento.exportaLatex(new File(this.carpeta, "documento.tex"));
+	}
+
+	@Benchmark
+	public void exportaSVGLatex() throws IOException {
+		this.documento.exportaSVGLatex(new File(this.carpeta, "documento.tex"));
+	}
+
+	@Benchmark
+	public void exportaPDFLatex() throws IOException {
+		this.documento.exportaPDFLatex(new File(this.carpeta, "documento.tex"));
+	}
+
+	@Benchmark
+	public void exportaTikZLatex() throws IOException {
+		this.documento
+				.exportaTikZLatex(new File(this.carpeta, "documento.tex"));
+	}
+}
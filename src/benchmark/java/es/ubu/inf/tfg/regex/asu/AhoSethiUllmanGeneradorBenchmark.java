@@ -0,0 +1,43 @@
+package es.ubu.inf.tfg.regex.asu;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Mide la búsqueda de problemas de Aho-Sethi-Ullman con un número de símbolos
+ * y de estados dado.
+ *
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class AhoSethiUllmanGeneradorBenchmark {
+
+	@Param({ "2", "3" })
+	public int nSimbolos;
+
+	@Param({ "4", "6", "8" })
+	public int nEstados;
+
+	@Param({ "1", "4" })
+	public int busquedas;
+
+	@Benchmark
+	public AhoSethiUllman nuevo() {
+		return new AhoSethiUllmanGenerador(this.busquedas).nuevo(
+				this.nSimbolos, this.nEstados, false);
+	}
+}
@@ -0,0 +1,62 @@
+package es.ubu.inf.tfg.regex.datos;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Mide la generación de árboles de expresión regular y su mutación.
+ *
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GeneradorBenchmark {
+
+	private static final int EXPRESIONES = 100;
+	private static final long SEMILLA = 1L;
+
+	@Param({ "2", "4", "6" })
+	public int profundidad;
+
+	@Param({ "2", "4" })
+	public int nSimbolos;
+
+	private Generador generador;
+	private List<ExpresionRegular> expresiones;
+
+	@Setup
+	public void setUp() {
+		this.generador = new Generador(this.nSimbolos, true, true, SEMILLA);
+		this.expresiones = new ArrayList<>();
+		for (int i = 0; i < EXPRESIONES; i++)
+			this.expresiones.add(this.generador.arbol(this.profundidad));
+	}
+
+	@Benchmark
+	public ExpresionRegular arbol() {
+		return this.generador.arbol(this.profundidad);
+	}
+
+	@Benchmark
+	public void mutacion(Blackhole blackhole) {
+		for (ExpresionRegular expresion : this.expresiones)
+			blackhole.consume(this.generador.mutacion(expresion));
+	}
+}
@@ -0,0 +1,65 @@
+package es.ubu.inf.tfg.regex.parser;
+
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import es.ubu.inf.tfg.regex.datos.Generador;
+
+/**
+ * Mide el tiempo de análisis de expresiones regulares, recorriendo un conjunto
+ * fijo de expresiones generadas con semilla conocida.
+ *
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ExpresionRegularParserBenchmark {
+
+	private static final int EXPRESIONES = 100;
+	private static final long SEMILLA = 1L;
+
+	@Param({ "2", "4", "6" })
+	public int profundidad;
+
+	@Param({ "2", "4" })
+	public int nSimbolos;
+
+	private List<String> expresiones;
+
+	@Setup
+	public void setUp() {
+		Generador generador = new Generador(this.nSimbolos, true, false,
+				SEMILLA);
+		this.expresiones = new ArrayList<>();
+		for (int i = 0; i < EXPRESIONES; i++)
+			this.expresiones.add(generador.arbol(this.profundidad).toString()
+					+ '\n');
+	}
+
+	@Benchmark
+	public void expresion(Blackhole blackhole) throws ParseException {
+		for (String expresion : this.expresiones) {
+			ExpresionRegularParser parser = new ExpresionRegularParser(
+					new JavaCharStream(new StringReader(expresion)));
+			blackhole.consume(parser.expresion());
+		}
+	}
+}
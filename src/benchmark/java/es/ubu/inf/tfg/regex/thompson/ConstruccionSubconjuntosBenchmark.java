@@ -0,0 +1,68 @@
+package es.ubu.inf.tfg.regex.thompson;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import es.ubu.inf.tfg.regex.datos.ExpresionRegular;
+import es.ubu.inf.tfg.regex.datos.Generador;
+
+/**
+ * Mide la resolución de problemas de construcción de subconjuntos a partir de
+ * un conjunto fijo de expresiones, tanto construyendo el problema completo
+ * como calculando solo sus métricas.
+ *
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ConstruccionSubconjuntosBenchmark {
+
+	private static final int EXPRESIONES = 100;
+	private static final long SEMILLA = 1L;
+
+	@Param({ "2", "4", "6" })
+	public int profundidad;
+
+	@Param({ "2", "4" })
+	public int nSimbolos;
+
+	private List<ExpresionRegular> expresiones;
+
+	@Setup
+	public void setUp() {
+		Generador generador = new Generador(this.nSimbolos, true, true,
+				SEMILLA);
+		this.expresiones = new ArrayList<>();
+		for (int i = 0; i < EXPRESIONES; i++)
+			this.expresiones.add(generador.arbol(this.profundidad));
+	}
+
+	@Benchmark
+	public void construye(Blackhole blackhole) {
+		for (ExpresionRegular expresion : this.expresiones)
+			blackhole.consume(new ConstruccionSubconjuntos(expresion));
+	}
+
+	@Benchmark
+	public void metricas(Blackhole blackhole) {
+		for (ExpresionRegular expresion : this.expresiones)
+			blackhole.consume(new ConstruccionSubconjuntosMetricas(expresion));
+	}
+}
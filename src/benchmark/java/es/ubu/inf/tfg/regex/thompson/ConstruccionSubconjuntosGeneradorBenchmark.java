@@ -0,0 +1,40 @@
+package es.ubu.inf.tfg.regex.thompson;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Mide la búsqueda de problemas de construcción de subconjuntos con un número
+ * de símbolos y de estados dado.
+ *
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ConstruccionSubconjuntosGeneradorBenchmark {
+
+	@Param({ "2", "3" })
+	public int nSimbolos;
+
+	@Param({ "4", "6", "8" })
+	public int nEstados;
+
+	@Benchmark
+	public ConstruccionSubconjuntos nuevo() {
+		return new ConstruccionSubconjuntosGenerador().nuevo(this.nSimbolos,
+				this.nEstados, false);
+	}
+}
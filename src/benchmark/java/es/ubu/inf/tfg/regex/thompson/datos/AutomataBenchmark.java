@@ -0,0 +1,82 @@
+package es.ubu.inf.tfg.regex.thompson.datos;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import es.ubu.inf.tfg.regex.datos.CacheImagenes;
+import es.ubu.inf.tfg.regex.datos.ExpresionRegular;
+import es.ubu.inf.tfg.regex.datos.Generador;
+
+/**
+ * Mide la representación gráfica de autómatas de Thompson sobre conjuntos
+ * fijos de expresiones. Los autómatas cachean sus imágenes, por lo que se
+ * vuelven a construir y se vacía la caché de imágenes compartida antes de
+ * cada iteración.
+ *
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(1)
+public class AutomataBenchmark {
+
+	private static final long SEMILLA = 1L;
+	private static final int PROFUNDIDAD = 3;
+
+	@Param({ "10", "100", "1000" })
+	public int nProblemas;
+
+	private List<ExpresionRegular> expresiones;
+	private List<Automata> automatas;
+
+	@Setup(Level.Trial)
+	public void preparaCorpus() {
+		Generador generador = new Generador(3, false, false, SEMILLA);
+		this.expresiones = new ArrayList<>();
+		for (int i = 0; i < this.nProblemas; i++)
+			this.expresiones.add(generador.arbol(PROFUNDIDAD));
+	}
+
+	@Setup(Level.Iteration)
+	public void preparaAutomatas() {
+		CacheImagenes.vacia();
+		this.automatas = new ArrayList<>();
+		for (ExpresionRegular expresion : this.expresiones)
+			this.automatas.add(new Automata(expresion, 0));
+	}
+
+	@Benchmark
+	public void imagen(Blackhole blackhole) {
+		for (Automata automata : this.automatas)
+			blackhole.consume(automata.imagen());
+	}
+
+	@Benchmark
+	public void imagenSvg(Blackhole blackhole) {
+		for (Automata automata : this.automatas)
+			blackhole.consume(automata.imagenSvg());
+	}
+
+	@Benchmark
+	public void imagenTikZ(Blackhole blackhole) {
+		for (Automata automata : this.automatas)
+			blackhole.consume(automata.imagenTikZ());
+	}
+}
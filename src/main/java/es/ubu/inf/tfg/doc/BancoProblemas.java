@@ -0,0 +1,456 @@
+package es.ubu.inf.tfg.doc;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import es.ubu.inf.tfg.regex.asu.AhoSethiUllmanGenerador;
+import es.ubu.inf.tfg.regex.asu.AhoSethiUllmanMetricas;
+import es.ubu.inf.tfg.regex.datos.ExpresionRegular;
+import es.ubu.inf.tfg.regex.thompson.ConstruccionSubconjuntosGenerador;
+import es.ubu.inf.tfg.regex.thompson.ConstruccionSubconjuntosMetricas;
+
+/**
+ * BancoProblemas guarda en disco las expresiones regulares de los problemas
+ * generados, de forma que puedan reutilizarse en ejecuciones posteriores sin
+ * repetir la búsqueda de los generadores.
+ * <p>
+ * Las expresiones se añaden al final de un fichero binario, un registro por
+ * expresión con su codificación binaria, precedida por la longitud del
+ * registro, el tipo de problema, si contiene nodos vacíos, el número de
+ * símbolos y el número de estados. Al abrir el banco se construye en memoria
+ * un índice por esas características con la posición de cada expresión en el
+ * fichero, y las expresiones solo se leen y decodifican al servirlas.
+ * <p>
+ * Cada expresión se sirve como mucho una vez por ejecución, para no repetir
+ * preguntas. Cuando quedan pocas expresiones de unas características, se
+ * genera otra en un hilo en segundo plano.
+ * <p>
+ * Solo una instancia puede escribir en el fichero a la vez, para lo que se
+ * bloquea al abrir el banco. Si otra instancia de la aplicación ya lo tiene
+ * bloqueado, el banco se abre en modo de solo lectura: sirve las expresiones
+ * que contiene, pero no guarda ni genera otras nuevas.
+ *
+ */
+public class BancoProblemas implements Closeable {
+
+	private static final Logger log = LoggerFactory
+			.getLogger(BancoProblemas.class);
+
+	// Expresiones disponibles por características antes de generar más
+	private static final int RESERVA = 2;
+	// Tipo, vacío, número de símbolos y número de estados
+	private static final int CABECERA = 10;
+
+	/**
+	 * Algoritmo del problema, que determina cómo se genera la expresión y cómo
+	 * se cuentan sus estados.
+	 */
+	public enum Tipo {
+		AHOSETHIULLMAN, CONSTRUCCIONSUBCONJUNTOS
+	}
+
+	/**
+	 * Posición de la codificación de una expresión en el fichero.
+	 */
+	private static class Entrada {
+		private final long inicio;
+		private final int longitud;
+
+		private Entrada(long inicio, int longitud) {
+			this.inicio = inicio;
+			this.longitud = longitud;
+		}
+	}
+
+	private final RandomAccessFile fichero;
+	private final boolean soloLectura;
+	private final int reserva;
+	private final Map<String, List<Entrada>> indice = new HashMap<>();
+	private final Set<String> rellenando = new HashSet<>();
+	private final Random random = new Random();
+	private final ExecutorService relleno;
+	private final AhoSethiUllmanGenerador asuGenerador = new AhoSethiUllmanGenerador();
+	private final ConstruccionSubconjuntosGenerador csGenerador = new ConstruccionSubconjuntosGenerador();
+	private boolean cerrado = false;
+
+	/**
+	 * Abre un banco de problemas, creando el fichero si no existe.
+	 *
+	 * @param fichero
+	 *            Fichero del banco.
+	 * @throws IOException
+	 *             Si no puede leerse o crearse el fichero.
+	 */
+	public BancoProblemas(File fichero) throws IOException {
+		this(fichero, RESERVA);
+	}
+
+	/**
+	 * Abre un banco de problemas, creando el fichero si no existe, indicando
+	 * cuántas expresiones de cada tipo deben quedar disponibles antes de
+	 * generar más en segundo plano.
+	 *
+	 * @param fichero
+	 *            Fichero del banco.
+	 * @param reserva
+	 *            Expresiones disponibles por características que se mantienen
+	 *            en segundo plano. Con 0 no se generan expresiones.
+	 * @throws IOException
+	 *             Si no puede leerse o crearse el fichero.
+	 * @throws IllegalArgumentException
+	 *             Si la reserva es negativa.
+	 */
+	public BancoProblemas(File fichero, int reserva) throws IOException {
+		if (reserva < 0)
+			throw new IllegalArgumentException(
+					"La reserva del banco no puede ser negativa.");
+
+		File carpeta = fichero.getAbsoluteFile().getParentFile();
+		if (carpeta != null && !carpeta.exists())
+			carpeta.mkdirs();
+
+		this.fichero = new RandomAccessFile(fichero, "rw");
+		FileLock bloqueo;
+		try {
+			bloqueo = this.fichero.getChannel().tryLock();
+		} catch (OverlappingFileLockException e) {
+			// Bloqueado por otro banco de esta misma ejecución
+			bloqueo = null;
+		} catch (IOException e) {
+			this.fichero.close();
+			throw e;
+		}
+		this.soloLectura = bloqueo == null;
+		if (this.soloLectura)
+			log.warn(
+					"Banco de problemas {} en uso, abierto en modo de solo lectura.",
+					fichero);
+
+		this.reserva = reserva;
+		this.relleno = Executors.newSingleThreadExecutor(tarea -> {
+			Thread hilo = new Thread(tarea, "banco-problemas");
+			hilo.setDaemon(true);
+			return hilo;
+		});
+
+		indexa();
+		log.info("Abierto banco de problemas {} con {} expresiones.", fichero,
+				indice.values().stream().mapToInt(List::size).sum());
+	}
+
+	/**
+	 * Recorre el fichero construyendo el índice. Si el último registro está
+	 * incompleto, por ejemplo por una escritura interrumpida, se descarta.
+	 *
+	 * @throws IOException
+	 *             Si no puede leerse el fichero.
+	 */
+	private void indexa() throws IOException {
+		ByteBuffer contenido = ByteBuffer.allocate((int) this.fichero.length());
+		while (contenido.hasRemaining()
+				&& this.fichero.getChannel().read(contenido,
+						contenido.position()) >= 0)
+			;
+		contenido.flip();
+
+		int inicio = 0;
+		while (contenido.remaining() >= 4) {
+			int longitud = contenido.getInt();
+			if (longitud < CABECERA || longitud > contenido.remaining())
+				break;
+
+			byte tipo = contenido.get();
+			boolean vacio = contenido.get() != 0;
+			int nSimbolos = contenido.getInt();
+			int nEstados = contenido.getInt();
+			if (tipo >= 0 && tipo < Tipo.values().length)
+				entradas(clave(Tipo.values()[tipo], nSimbolos, nEstados, vacio))
+						.add(new Entrada(contenido.position(), longitud
+								- CABECERA));
+			else
+				log.warn("Descartado registro incorrecto del banco en {}",
+						inicio);
+
+			contenido.position(contenido.position() + longitud - CABECERA);
+			inicio = contenido.position();
+		}
+
+		// En modo de solo lectura puede ser una escritura de otra instancia
+		if (inicio < this.fichero.length() && !this.soloLectura) {
+			log.warn("Descartado último registro incompleto del banco.");
+			this.fichero.setLength(inicio);
+		}
+	}
+
+	/**
+	 * Sirve una expresión del banco con las características pedidas, que no
+	 * se volverá a servir en esta ejecución. Si se admiten nodos vacíos, se
+	 * prefieren las expresiones que los contienen.
+	 *
+	 * @param tipo
+	 *            Tipo de problema.
+	 * @param nSimbolos
+	 *            Número de símbolos del problema.
+	 * @param nEstados
+	 *            Número de estados del problema.
+	 * @param usaVacio
+	 *            Si el problema puede contener nodos vacíos.
+	 * @return Expresión regular del problema, tal y como la devuelven los
+	 *         generadores, o <code>null</code> si no hay ninguna disponible.
+	 */
+	public synchronized ExpresionRegular obtiene(Tipo tipo, int nSimbolos,
+			int nEstados, boolean usaVacio) {
+		ExpresionRegular expresion = null;
+		if (usaVacio)
+			expresion = extrae(clave(tipo, nSimbolos, nEstados, true));
+		if (expresion == null)
+			expresion = extrae(clave(tipo, nSimbolos, nEstados, false));
+
+		rellena(tipo, nSimbolos, nEstados, usaVacio);
+
+		return expresion;
+	}
+
+	/**
+	 * Devuelve cuántas expresiones con unas características exactas quedan
+	 * por servir en esta ejecución.
+	 *
+	 * @param tipo
+	 *            Tipo de problema.
+	 * @param nSimbolos
+	 *            Número de símbolos del problema.
+	 * @param nEstados
+	 *            Número de estados del problema.
+	 * @param vacio
+	 *            Si el problema contiene nodos vacíos.
+	 * @return Número de expresiones disponibles.
+	 */
+	public synchronized int disponibles(Tipo tipo, int nSimbolos,
+			int nEstados, boolean vacio) {
+		List<Entrada> entradas = this.indice.get(clave(tipo, nSimbolos,
+				nEstados, vacio));
+		return entradas == null ? 0 : entradas.size();
+	}
+
+	/**
+	 * Indica si el banco se ha abierto en modo de solo lectura, por estar el
+	 * fichero bloqueado por otra instancia.
+	 *
+	 * @return Si el banco no guarda expresiones nuevas.
+	 */
+	public boolean soloLectura() {
+		return this.soloLectura;
+	}
+
+	/**
+	 * Añade una expresión al banco, quedando disponible para servirse.
+	 *
+	 * @param tipo
+	 *            Tipo de problema.
+	 * @param expresion
+	 *            Expresión regular, tal y como la devuelven los generadores.
+	 */
+	public void añade(Tipo tipo, ExpresionRegular expresion) {
+		guarda(tipo, expresion, true);
+	}
+
+	/**
+	 * Guarda en el banco la expresión de un problema que ya se está
+	 * utilizando. Queda disponible para ejecuciones posteriores, pero no se
+	 * sirve en esta.
+	 *
+	 * @param tipo
+	 *            Tipo de problema.
+	 * @param expresion
+	 *            Expresión regular, tal y como la devuelven los generadores.
+	 */
+	public void registra(Tipo tipo, ExpresionRegular expresion) {
+		guarda(tipo, expresion, false);
+	}
+
+	/**
+	 * Cierra el banco, cancelando la generación en segundo plano.
+	 *
+	 * @throws IOException
+	 *             Si no puede cerrarse el fichero.
+	 */
+	@Override
+	public void close() throws IOException {
+		synchronized (this) {
+			this.cerrado = true;
+		}
+
+		this.relleno.shutdownNow();
+		this.asuGenerador.cancelar();
+		this.csGenerador.cancelar();
+
+		synchronized (this) {
+			this.fichero.close();
+		}
+	}
+
+	/**
+	 * Escribe una expresión al final del fichero. Las métricas se calculan
+	 * antes de bloquear el banco.
+	 *
+	 * @param tipo
+	 *            Tipo de problema.
+	 * @param expresion
+	 *            Expresión regular.
+	 * @param disponible
+	 *            Si la expresión puede servirse en esta ejecución.
+	 */
+	private void guarda(Tipo tipo, ExpresionRegular expresion,
+			boolean disponible) {
+		if (this.soloLectura)
+			return;
+
+		int nSimbolos, nEstados;
+		if (tipo == Tipo.AHOSETHIULLMAN) {
+			AhoSethiUllmanMetricas metricas = new AhoSethiUllmanMetricas(
+					expresion);
+			// Sin contar el símbolo de fin de expresión aumentada
+			nSimbolos = metricas.numSimbolos() - 1;
+			nEstados = metricas.numEstados();
+		} else {
+			ConstruccionSubconjuntosMetricas metricas = new ConstruccionSubconjuntosMetricas(
+					expresion);
+			nSimbolos = metricas.numSimbolos();
+			nEstados = metricas.numEstados();
+		}
+		boolean vacio = contieneVacio(expresion);
+		byte[] binaria = expresion.binaria();
+		ByteBuffer registro = ByteBuffer.allocate(4 + CABECERA
+				+ binaria.length);
+		registro.putInt(CABECERA + binaria.length);
+		registro.put((byte) tipo.ordinal());
+		registro.put((byte) (vacio ? 1 : 0));
+		registro.putInt(nSimbolos);
+		registro.putInt(nEstados);
+		registro.put(binaria);
+
+		synchronized (this) {
+			if (this.cerrado)
+				return;
+
+			try {
+				long inicio = this.fichero.length();
+				this.fichero.seek(inicio);
+				this.fichero.write(registro.array());
+				if (disponible)
+					entradas(clave(tipo, nSimbolos, nEstados, vacio)).add(
+							new Entrada(inicio + 4 + CABECERA, binaria.length));
+			} catch (IOException e) {
+				log.error("Error guardando expresión en el banco", e);
+			}
+		}
+	}
+
+	/**
+	 * Retira al azar una de las expresiones disponibles con una clave.
+	 *
+	 * @param clave
+	 *            Clave de las características.
+	 * @return Expresión regular, o <code>null</code> si no hay ninguna.
+	 */
+	private ExpresionRegular extrae(String clave) {
+		List<Entrada> entradas = this.indice.get(clave);
+		if (entradas == null || entradas.isEmpty() || this.cerrado)
+			return null;
+
+		Entrada entrada = entradas.remove(this.random.nextInt(entradas
+				.size()));
+		try {
+			ByteBuffer binaria = ByteBuffer.allocate(entrada.longitud);
+			this.fichero.getChannel().read(binaria, entrada.inicio);
+			binaria.flip();
+			return ExpresionRegular.deBinaria(binaria);
+		} catch (IOException | IllegalArgumentException e) {
+			log.error("Error leyendo expresión del banco", e);
+			return null;
+		}
+	}
+
+	/**
+	 * Genera en segundo plano una nueva expresión si quedan menos de las
+	 * indicadas por la reserva. Solo hay una generación pendiente por
+	 * petición.
+	 *
+	 * @param tipo
+	 *            Tipo de problema.
+	 * @param nSimbolos
+	 *            Número de símbolos del problema.
+	 * @param nEstados
+	 *            Número de estados del problema.
+	 * @param usaVacio
+	 *            Si el problema puede contener nodos vacíos.
+	 */
+	private void rellena(Tipo tipo, int nSimbolos, int nEstados,
+			boolean usaVacio) {
+		int disponibles = disponibles(tipo, nSimbolos, nEstados, false);
+		if (usaVacio)
+			disponibles += disponibles(tipo, nSimbolos, nEstados, true);
+
+		String peticion = clave(tipo, nSimbolos, nEstados, usaVacio);
+		if (this.cerrado || this.soloLectura || disponibles >= this.reserva
+				|| !this.rellenando.add(peticion))
+			return;
+
+		this.relleno.execute(() -> {
+			try {
+				ExpresionRegular expresion;
+				if (tipo == Tipo.AHOSETHIULLMAN)
+					expresion = this.asuGenerador.nuevaExpresion(nSimbolos,
+							nEstados, usaVacio);
+				else
+					expresion = this.csGenerador.nuevaExpresion(nSimbolos,
+							nEstados, usaVacio);
+				// Los generadores devuelven siempre una expresión, aunque se
+				// cancelen; si llega tras close(), guarda() la descarta al
+				// comprobar cerrado
+				añade(tipo, expresion);
+			} finally {
+				synchronized (this) {
+					this.rellenando.remove(peticion);
+				}
+			}
+		});
+	}
+
+	private List<Entrada> entradas(String clave) {
+		return this.indice.computeIfAbsent(clave, c -> new ArrayList<>());
+	}
+
+	private static String clave(Tipo tipo, int nSimbolos, int nEstados,
+			boolean vacio) {
+		return tipo.name() + '/' + nSimbolos + '/' + nEstados + '/' + vacio;
+	}
+
+	private static boolean contieneVacio(ExpresionRegular expresion) {
+		if (expresion.esVacio())
+			return true;
+		if (expresion.esSimbolo())
+			return false;
+		if (expresion.esCierre())
+			return contieneVacio(expresion.hijoIzquierdo());
+		return contieneVacio(expresion.hijoIzquierdo())
+				|| contieneVacio(expresion.hijoDerecho());
+	}
+}
@@ -1,23 +1,32 @@
 package es.ubu.inf.tfg.doc;
 
 import java.awt.image.BufferedImage;
+import java.io.BufferedOutputStream;
 import java.io.BufferedWriter;
 import java.io.File;
-import java.io.FileInputStream;
 import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.OutputStream;
 import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
 import java.io.Writer;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
 import java.util.List;
-
-import javax.imageio.ImageIO;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import com.mxgraph.util.mxUtils;
 
+import es.ubu.inf.tfg.doc.datos.CodificadorJPEG;
 import es.ubu.inf.tfg.doc.datos.Plantilla;
 import es.ubu.inf.tfg.doc.datos.Traductor;
 import es.ubu.inf.tfg.doc.datos.TraductorHTML;
@@ -25,14 +34,10 @@ import es.ubu.inf.tfg.doc.datos.TraductorLatex;
 import es.ubu.inf.tfg.doc.datos.TraductorLatexSVG;
 import es.ubu.inf.tfg.doc.datos.TraductorLatexTikZ;
 import es.ubu.inf.tfg.doc.datos.TraductorMoodleXML;
+import es.ubu.inf.tfg.doc.datos.TranscodificadorPDF;
 import es.ubu.inf.tfg.regex.asu.AhoSethiUllman;
 import es.ubu.inf.tfg.regex.thompson.ConstruccionSubconjuntos;
 
-import org.apache.batik.transcoder.Transcoder;
-import org.apache.batik.transcoder.TranscoderException;
-import org.apache.batik.transcoder.TranscoderInput;
-import org.apache.batik.transcoder.TranscoderOutput;
-import org.apache.fop.svg.PDFTranscoder;
 
 /**
  * Documento implementa un documento completo generado por la aplicación, sin
@@ -42,6 +47,10 @@ import org.apache.fop.svg.PDFTranscoder;
  * Un documento puede exportarse a disco en cualquiera de los formatos
  * objetivos. Asimismo Documento nos permite obtener una vista previa de los
  * contenidos en formato HTML.
+ * <p>
+ * Al exportar, los problemas se traducen en paralelo, ya que la generación de
+ * sus imágenes es independiente para cada uno, y el documento se ensambla
+ * respetando el orden de los problemas.
  * 
  * @author Roberto Izquierdo Amo
  * 
@@ -50,6 +59,38 @@ public class Documento {
 
 	private static final Logger log = LoggerFactory.getLogger(Documento.class);
 
+	// Problemas traducidos a la vez al exportar por bloques
+	private static final int BLOQUE = 4 * Runtime.getRuntime()
+			.availableProcessors();
+
+	/**
+	 * Formatos en los que puede exportarse el documento. Al exportar varios
+	 * formatos a la vez, el nombre de cada fichero lleva la terminación de su
+	 * formato para que no se sobreescriban entre sí.
+	 */
+	public enum Formato {
+		/** Moodle XML, con las imágenes incluidas en el documento. */
+		XML(".xml", TraductorMoodleXML::new),
+		/** LaTeX con imágenes JPG. */
+		LATEX(".tex", TraductorLatex::new),
+		/** LaTeX con imágenes en formato dot. */
+		LATEX_GRAPHVIZ("_graphviz.tex", TraductorLatex::new),
+		/** LaTeX con imágenes SVG. */
+		LATEX_SVG("_svg.tex", TraductorLatexSVG::new),
+		/** LaTeX con imágenes PDF. */
+		LATEX_PDF("_pdf.tex", TraductorLatex::new),
+		/** LaTeX con imágenes TikZ incluidas en el documento. */
+		LATEX_TIKZ("_tikz.tex", TraductorLatexTikZ::new);
+
+		private final String terminacion;
+		private final Supplier<Traductor> traductor;
+
+		private Formato(String terminacion, Supplier<Traductor> traductor) {
+			this.terminacion = terminacion;
+			this.traductor = traductor;
+		}
+	}
+
 	private List<Problema<?>> problemas;
 
 	/**
@@ -109,6 +150,32 @@ public class Documento {
 		}
 	}
 	
+	/**
+	 * Prepara la generación de documentos para que la primera vista previa o
+	 * exportación no pague el coste de arranque: carga de antemano todas las
+	 * plantillas, prepara la conversión de imágenes a PDF y genera una vista
+	 * previa de cada tipo de problema sobre una expresión sencilla. Está
+	 * pensado para llamarse una vez al iniciar la aplicación, desde un hilo
+	 * distinto del de la interfaz.
+	 */
+	public static void calienta() {
+		log.info("Precargando plantillas y vistas previas.");
+		Plantilla.precarga();
+		TranscodificadorPDF.calienta();
+
+		String expresion = "(a|b)*abb";
+		try {
+			vistaPrevia(Problema.asuTablas(new AhoSethiUllman(expresion), 1));
+			vistaPrevia(Problema.asuEtiquetado(new AhoSethiUllman(expresion),
+					1));
+			vistaPrevia(Problema.CSAutomata(new ConstruccionSubconjuntos(
+					expresion), 1));
+		} catch (RuntimeException e) {
+			// Sin entorno gráfico no pueden generarse las imágenes
+			log.warn("No se han podido generar las vistas previas iniciales", e);
+		}
+	}
+
 	/**
 	 * Devuelve un documento HTML en forma de cadena de caracteres que se
 	 * utilizará como vista previa del documento.
@@ -178,7 +245,34 @@ public class Documento {
 		if (!ruta.toLowerCase().endsWith(".xml"))
 			ruta += ".xml";
 
-		guardar(ruta, traduce(new TraductorMoodleXML()));
+		try (Writer writer = new BufferedWriter(new OutputStreamWriter(
+				new FileOutputStream(ruta), "UTF8"))) {
+			exportaXML(writer);
+		}
+	}
+
+	/**
+	 * Escribe el documento en formato XML sobre el <code>Writer</code> dado.
+	 * Los problemas se traducen en paralelo por bloques de tamaño fijo, y cada
+	 * bloque se escribe, junto con sus imágenes, antes de pasar al siguiente,
+	 * de forma que la memoria necesaria no depende del número de problemas
+	 * del documento.
+	 * 
+	 * @param writer
+	 *            Destino del documento.
+	 * @throws IOException
+	 *             Indica un error durante la exportación.
+	 */
+	public void exportaXML(Writer writer) throws IOException {
+		TraductorMoodleXML traductor = new TraductorMoodleXML();
+		List<Problema<?>> problemas = new ArrayList<>(this.problemas);
+		int bloques = (problemas.size() + BLOQUE - 1) / BLOQUE;
+
+		traductor.documento(() -> IntStream.range(0, bloques)
+				.mapToObj(bloque -> traduce(traductor, problemas.subList(
+						bloque * BLOQUE,
+						Math.min((bloque + 1) * BLOQUE, problemas.size()))))
+				.flatMap(List::stream).iterator(), writer);
 	}
 
 	/**
@@ -192,36 +286,8 @@ public class Documento {
 	 */
 	public void exportaLatex(File fichero) throws IOException {
 		log.info("Exportando documento como Latex a {}", fichero);
-		String ruta = fichero.toString();
-		if (!ruta.toLowerCase().endsWith(".tex"))
-			ruta += ".tex";
-
-		List<BufferedImage> imagenes = new ArrayList<>();
-
-		for (Problema<?> problema : problemas) {
-			if (problema.getTipo().equals("ConstruccionSubconjuntosConstruccion")) {
-				ConstruccionSubconjuntos p = (ConstruccionSubconjuntos) problema.getProblema();
-				imagenes.add(p.automata());
-			} else if (problema.getTipo().equals("ConstruccionSubconjuntosAutomata")) {
-				ConstruccionSubconjuntos p = (ConstruccionSubconjuntos) problema.getProblema();
-				imagenes.add(p.automata());
-			} else if (problema.getTipo().equals("ConstruccionSubconjuntosExpresion")) {
-				ConstruccionSubconjuntos p = (ConstruccionSubconjuntos) problema.getProblema();
-				imagenes.add(p.automata());
-			} else if (problema.getTipo().equals("AhoSethiUllmanEtiquetado")) {
-				AhoSethiUllman p = (AhoSethiUllman) problema.getProblema();
-				imagenes.add(p.arbolVacio());
-			} else if (problema.getTipo().equals("AhoSethiUllmanConstruccion")) {
-				AhoSethiUllman p = (AhoSethiUllman) problema.getProblema();
-				imagenes.add(p.alternativas().get(0));
-			} else if (problema.getTipo().equals("AhoSethiUllmanTablas")) {
-				AhoSethiUllman p = (AhoSethiUllman) problema.getProblema();
-				imagenes.add(p.alternativas().get(0));
-			} 
-		}
-
-		guardar(ruta, traduce(new TraductorLatex()));
-		guardar(ruta, imagenes);
+		exporta(Collections.singletonMap(Formato.LATEX,
+				conExtension(fichero, ".tex")));
 	}
 
 	/**
@@ -236,46 +302,8 @@ public class Documento {
 	public void exportaGraphvizLatex(File fichero) throws IOException {
 		log.info("Exportando documento como Latex con imágenes graphviz a {}",
 				fichero);
-		String ruta = fichero.toString();
-		if (!ruta.toLowerCase().endsWith(".tex"))
-			ruta += ".tex";
-		String carpeta = fichero.getParent().toString();
-		carpeta += File.separator;
-
-		for (Problema<?> problema : problemas) {
-			if (problema.getTipo().equals(
-					"ConstruccionSubconjuntosConstruccion")) {
-				ConstruccionSubconjuntos p = (ConstruccionSubconjuntos) problema
-						.getProblema();
-				guardar(carpeta + Math.abs(p.automata().hashCode()) + ".gv",
-						p.automataDot());
-			} else if (problema.getTipo().equals(
-					"ConstruccionSubconjuntosAutomata")) {
-				ConstruccionSubconjuntos p = (ConstruccionSubconjuntos) problema
-						.getProblema();
-				guardar(carpeta + Math.abs(p.automata().hashCode()) + ".gv",
-						p.automataDot());
-			} else if (problema.getTipo().equals("ConstruccionSubconjuntosExpresion")) {
-				ConstruccionSubconjuntos p = (ConstruccionSubconjuntos) problema
-						.getProblema();
-				guardar(carpeta + Math.abs(p.automata().hashCode()) + ".gv",
-						p.automataDot());
-			} else if (problema.getTipo().equals("AhoSethiUllmanEtiquetado")) {
-				AhoSethiUllman p = (AhoSethiUllman) problema.getProblema();
-				guardar(carpeta + Math.abs(p.arbolVacio().hashCode()) + ".gv",
-						p.arbolVacioDot());
-			} else if (problema.getTipo().equals("AhoSethiUllmanConstruccion")) {
-				AhoSethiUllman p = (AhoSethiUllman) problema.getProblema();
-				guardar(carpeta + Math.abs(p.alternativas().get(0).hashCode())  // FIXME ¿p.alternativas().get(0)==p.automata()?
-						+ ".gv", p.alternativasDot().get(0));
-			} else if (problema.getTipo().equals("AhoSethiUllmanTablas")) {
-				AhoSethiUllman p = (AhoSethiUllman) problema.getProblema();
-				guardar(carpeta + Math.abs(p.alternativas().get(0).hashCode()) // FIXME  ¿p.alternativas().get(0)==p.automata()?
-						+ ".gv", p.alternativasDot().get(0));
-			}
-		}
-
-		guardar(ruta, traduce(new TraductorLatex()));
+		exporta(Collections.singletonMap(Formato.LATEX_GRAPHVIZ,
+				conExtension(fichero, ".tex")));
 	}
 
 	/**
@@ -292,54 +320,14 @@ public class Documento {
 	public void exportaSVGLatex(File fichero) throws IOException {
 		log.info("Exportando documento como Latex con imágenes SVG a {}",
 				fichero);
-		String ruta = fichero.toString();
-		if (!ruta.toLowerCase().endsWith(".tex"))
-			ruta += ".tex";
-		String carpeta = fichero.getParent().toString();
-		carpeta += File.separator;
-
-
-		for (Problema<?> problema : problemas) {
-			if (problema.getTipo().equals(
-					"ConstruccionSubconjuntosConstruccion")) {
-				ConstruccionSubconjuntos p = (ConstruccionSubconjuntos) problema
-						.getProblema();
-				guardarSVG(carpeta + Math.abs(p.automataSvgSolucion().hashCode()) + ".svg",
-						p.automataSvgSolucion());
-			} else if (problema.getTipo().equals(
-					"ConstruccionSubconjuntosAutomata")) {
-				ConstruccionSubconjuntos p = (ConstruccionSubconjuntos) problema
-						.getProblema();
-				guardarSVG(carpeta + Math.abs(p.automataSvg().hashCode()) + ".svg",
-						p.automataSvg());
-			} else if (problema.getTipo().equals(
-					"ConstruccionSubconjuntosExpresion")) {
-				ConstruccionSubconjuntos p = (ConstruccionSubconjuntos) problema
-						.getProblema();
-				guardarSVG(carpeta + Math.abs(p.automataSvgSolucion().hashCode()) + ".svg",
-						p.automataSvgSolucion());
-			} else if (problema.getTipo().equals("AhoSethiUllmanEtiquetado")) {
-				AhoSethiUllman p = (AhoSethiUllman) problema.getProblema();
-				guardarSVG(carpeta + Math.abs(p.arbolVacioSvg().hashCode()) + ".svg",
-						p.arbolVacioSvg());
-			} else if (problema.getTipo().equals("AhoSethiUllmanConstruccion")) {
-				AhoSethiUllman p = (AhoSethiUllman) problema.getProblema();
-				guardarSVG(carpeta + Math.abs(p.svgSolucion().hashCode())
-						+ ".svg", p.svgSolucion());
-			} else if (problema.getTipo().equals("AhoSethiUllmanTablas")) {
-				AhoSethiUllman p = (AhoSethiUllman) problema.getProblema();
-				guardarSVG(carpeta + Math.abs(p.svgSolucion().hashCode())
-						+ ".svg", p.svgSolucion());
-			}
-		}
-
-		guardar(ruta, traduce(new TraductorLatexSVG()));
+		exporta(Collections.singletonMap(Formato.LATEX_SVG,
+				conExtension(fichero, ".tex")));
 	}
 	
 	
 	/**
 	 * Exporta el documento como un fichero de formato LaTeX al fichero destino
-	 * especificado, guardando las imágenes que contenga en formato SVG.
+	 * especificado, guardando las imágenes que contenga en formato PDF.
 	 * 
 	 * @param fichero
 	 *            Fichero destino.
@@ -351,48 +339,8 @@ public class Documento {
 	public void exportaPDFLatex(File fichero) throws IOException {
 		log.info("Exportando documento como Latex con imágenes PDF a {}",
 				fichero);
-		String ruta = fichero.toString();
-		if (!ruta.toLowerCase().endsWith(".tex"))
-			ruta += ".tex";
-		String carpeta = fichero.getParent().toString();
-		carpeta += File.separator;
-
-
-		for (Problema<?> problema : problemas) {
-			if (problema.getTipo().equals(
-					"ConstruccionSubconjuntosConstruccion")) {
-				ConstruccionSubconjuntos p = (ConstruccionSubconjuntos) problema
-						.getProblema();
-				guardarPDF(carpeta + Math.abs(p.automata().hashCode()) + ".pdf",
-						p.automataSvgSolucion());
-			} else if (problema.getTipo().equals(
-					"ConstruccionSubconjuntosAutomata")) {
-				ConstruccionSubconjuntos p = (ConstruccionSubconjuntos) problema
-						.getProblema();
-				guardarPDF(carpeta + Math.abs(p.automata().hashCode()) + ".pdf",
-						p.automataSvg());
-			} else if (problema.getTipo().equals(
-					"ConstruccionSubconjuntosExpresion")) {
-				ConstruccionSubconjuntos p = (ConstruccionSubconjuntos) problema
-						.getProblema();
-				guardarPDF(carpeta + Math.abs(p.automata().hashCode()) + ".pdf",
-						p.automataSvgSolucion());
-			} else if (problema.getTipo().equals("AhoSethiUllmanEtiquetado")) {
-				AhoSethiUllman p = (AhoSethiUllman) problema.getProblema();
-				guardarPDF(carpeta + Math.abs(p.arbolVacio().hashCode()) + ".pdf",
-						p.arbolVacioSvg());
-			} else if (problema.getTipo().equals("AhoSethiUllmanConstruccion")) {
-				AhoSethiUllman p = (AhoSethiUllman) problema.getProblema();
-				guardarPDF(carpeta + Math.abs(p.alternativas().get(0).hashCode())
-						+ ".pdf", p.svgSolucion());
-			} else if (problema.getTipo().equals("AhoSethiUllmanTablas")) {
-				AhoSethiUllman p = (AhoSethiUllman) problema.getProblema();
-				guardarPDF(carpeta + Math.abs(p.alternativas().get(0).hashCode())
-						+ ".pdf", p.svgSolucion());
-			}
-		}
-
-		guardar(ruta, traduce(new TraductorLatex()));
+		exporta(Collections.singletonMap(Formato.LATEX_PDF,
+				conExtension(fichero, ".tex")));
 	}
 	
 	
@@ -410,11 +358,133 @@ public class Documento {
 	public void exportaTikZLatex(File fichero) throws IOException {
 		log.info("Exportando documento como Latex con imágenes TikZ a {}",
 				fichero);
+		exporta(Collections.singletonMap(Formato.LATEX_TIKZ,
+				conExtension(fichero, ".tex")));
+	}
+
+	/**
+	 * Exporta el documento en varios formatos a la vez a una carpeta dada. El
+	 * nombre de cada fichero se forma con el nombre dado más la terminación
+	 * de su formato, y las imágenes se guardan junto a ellos con los mismos
+	 * nombres que al exportar cada formato por separado.
+	 * <p>
+	 * Los problemas se recorren una sola vez, traduciendo cada uno a todos los
+	 * formatos LaTeX a la vez, de forma que comparten las alternativas e
+	 * imágenes ya generadas. Los formatos LaTeX con imágenes externas
+	 * comparten además la traducción. Una vez traducidos, todos los documentos
+	 * e imágenes se escriben en paralelo. El documento Moodle XML se escribe
+	 * por bloques como en {@link #exportaXML(Writer)}, para no mantener en
+	 * memoria el documento completo con sus imágenes.
+	 * 
+	 * @param carpeta
+	 *            Carpeta destino.
+	 * @param nombre
+	 *            Nombre de los ficheros, sin extensión.
+	 * @param formatos
+	 *            Formatos a exportar.
+	 * @throws IOException
+	 *             Indica un error durante la exportación.
+	 */
+	public void exporta(File carpeta, String nombre, Set<Formato> formatos)
+			throws IOException {
+		log.info("Exportando documento como {} a {}", formatos, carpeta);
+		Map<Formato, File> ficheros = new EnumMap<>(Formato.class);
+		for (Formato formato : formatos)
+			ficheros.put(formato, new File(carpeta, nombre
+					+ formato.terminacion));
+
+		exporta(ficheros);
+	}
+
+	/**
+	 * Exporta el documento en cada formato dado a su fichero, en una única
+	 * pasada sobre los problemas.
+	 * 
+	 * @param ficheros
+	 *            Fichero destino de cada formato.
+	 * @throws IOException
+	 *             Indica un error durante la exportación.
+	 */
+	private void exporta(Map<Formato, File> ficheros) throws IOException {
+		List<Problema<?>> problemas = new ArrayList<>(this.problemas);
+
+		// Un único traductor por clase, compartido entre formatos
+		List<Traductor> traductores = new ArrayList<>();
+		Map<Formato, Integer> indices = new EnumMap<>(Formato.class);
+		for (Formato formato : ficheros.keySet()) {
+			if (formato == Formato.XML)
+				continue;
+			Traductor traductor = formato.traductor.get();
+			int indice = 0;
+			while (indice < traductores.size()
+					&& traductores.get(indice).getClass() != traductor
+							.getClass())
+				indice++;
+			if (indice == traductores.size())
+				traductores.add(traductor);
+			indices.put(formato, indice);
+		}
+
+		Imagenes imagenes = new Imagenes(ficheros);
+		List<Plantilla[]> traducidos = problemas.parallelStream()
+				.map(problema -> {
+					Plantilla[] plantillas = new Plantilla[traductores.size()];
+					for (int i = 0; i < plantillas.length; i++)
+						plantillas[i] = traduce(traductores.get(i), problema);
+					imagenes.añade(problema);
+					return plantillas;
+				}).collect(Collectors.toList());
+
+		// Los traductores modifican las plantillas al ensamblar el documento,
+		// por lo que cada documento se genera una sola vez y en secuencia
+		List<String> documentos = new ArrayList<>();
+		for (int i = 0; i < traductores.size(); i++) {
+			int indice = i;
+			documentos.add(traductores.get(i).documento(
+					traducidos.stream().map(plantillas -> plantillas[indice])
+							.collect(Collectors.toList())));
+		}
+
+		List<Escritura> escrituras = new ArrayList<>();
+		for (Map.Entry<Formato, File> entrada : ficheros.entrySet()) {
+			String ruta = entrada.getValue().toString();
+			if (entrada.getKey() == Formato.XML) {
+				escrituras.add(() -> {
+					try (Writer writer = new BufferedWriter(
+							new OutputStreamWriter(new FileOutputStream(ruta),
+									"UTF8"))) {
+						exportaXML(writer);
+					}
+				});
+			} else {
+				String documento = documentos.get(indices.get(entrada
+						.getKey()));
+				escrituras.add(() -> guardar(ruta, documento));
+			}
+		}
+		imagenes.escrituras(escrituras);
+
+		try {
+			escrituras.parallelStream().forEach(escritura -> {
+				try {
+					escritura.escribe();
+				} catch (IOException e) {
+					throw new UncheckedIOException(e);
+				}
+			});
+		} catch (UncheckedIOException e) {
+			throw e.getCause();
+		}
+	}
+
+	/**
+	 * Añade una extensión a un fichero si no la tiene ya.
+	 */
+	private static File conExtension(File fichero, String extension) {
 		String ruta = fichero.toString();
-		if (!ruta.toLowerCase().endsWith(".tex"))
-			ruta += ".tex";
-		
-		guardar(ruta, traduce(new TraductorLatexTikZ()));
+		if (!ruta.toLowerCase().endsWith(extension))
+			ruta += extension;
+		return new File(ruta);
 	}
 	
 	
@@ -427,50 +497,67 @@ public class Documento {
 	 * @return Documento traducido como cadena de caracteres.
 	 */
 	private String traduce(Traductor traductor) {
-		List<Plantilla> problemas = new ArrayList<>();
+		return traductor.documento(traduce(traductor, this.problemas));
+	}
 
-		for (Problema<?> problema : this.problemas) {
-			switch (problema.getTipo()) {
-			case "AhoSethiUllmanConstruccion":
-				AhoSethiUllman asuProblemaConstruccion = (AhoSethiUllman) problema
-						.getProblema();
-				problemas.add(traductor
-						.traduceASUConstruccion(asuProblemaConstruccion));
-				break;
-			case "AhoSethiUllmanEtiquetado":
-				AhoSethiUllman asuProblemaEtiquetado = (AhoSethiUllman) problema
-						.getProblema();
-				problemas.add(traductor
-						.traduceASUEtiquetado(asuProblemaEtiquetado));
-				break;
-			case "AhoSethiUllmanTablas":
-				AhoSethiUllman asuProblemaTablas = (AhoSethiUllman) problema
-						.getProblema();
-				problemas.add(traductor.traduceASUTablas(asuProblemaTablas));
-				break;
-			case "ConstruccionSubconjuntosConstruccion":
-				ConstruccionSubconjuntos csConstruccion = (ConstruccionSubconjuntos) problema
-						.getProblema();
-				problemas.add(traductor.traduceCSConstruccion(csConstruccion));
-				break;
-			case "ConstruccionSubconjuntosExpresion":
-				ConstruccionSubconjuntos csProblemaExpresion = (ConstruccionSubconjuntos) problema
-						.getProblema();
-				problemas
-						.add(traductor.traduceCSExpresion(csProblemaExpresion));
-				break;
-			case "ConstruccionSubconjuntosAutomata":
-				ConstruccionSubconjuntos csProblemaAutomata = (ConstruccionSubconjuntos) problema
-						.getProblema();
-				problemas.add(traductor.traduceCSAutomata(csProblemaAutomata));
-				break;
-			default:
-				throw new UnsupportedOperationException(
-						"Argumento tipo no soportado.");
-			}
-		}
+	/**
+	 * Traduce en paralelo una lista de problemas al formato dado por un
+	 * traductor especifico. Los problemas se traducen, y sus imágenes se
+	 * generan, de forma concurrente, pero se devuelven en el mismo orden que
+	 * la lista original.
+	 * 
+	 * @param traductor
+	 *            Traductor a utilizar.
+	 * @param problemas
+	 *            Problemas a traducir.
+	 * @return Problemas traducidos.
+	 */
+	private static List<Plantilla> traduce(Traductor traductor,
+			List<Problema<?>> problemas) {
+		return problemas.parallelStream()
+				.map(problema -> traduce(traductor, problema))
+				.collect(Collectors.toList());
+	}
 
-		return traductor.documento(problemas);
+	/**
+	 * Traduce un problema al formato dado por un traductor especifico.
+	 * 
+	 * @param traductor
+	 *            Traductor a utilizar.
+	 * @param problema
+	 *            Problema a traducir.
+	 * @return Problema traducido.
+	 */
+	private static Plantilla traduce(Traductor traductor, Problema<?> problema) {
+		switch (problema.getTipo()) {
+		case "AhoSethiUllmanConstruccion":
+			AhoSethiUllman asuProblemaConstruccion = (AhoSethiUllman) problema
+					.getProblema();
+			return traductor.traduceASUConstruccion(asuProblemaConstruccion);
+		case "AhoSethiUllmanEtiquetado":
+			AhoSethiUllman asuProblemaEtiquetado = (AhoSethiUllman) problema
+					.getProblema();
+			return traductor.traduceASUEtiquetado(asuProblemaEtiquetado);
+		case "AhoSethiUllmanTablas":
+			AhoSethiUllman asuProblemaTablas = (AhoSethiUllman) problema
+					.getProblema();
+			return traductor.traduceASUTablas(asuProblemaTablas);
+		case "ConstruccionSubconjuntosConstruccion":
+			ConstruccionSubconjuntos csConstruccion = (ConstruccionSubconjuntos) problema
+					.getProblema();
+			return traductor.traduceCSConstruccion(csConstruccion);
+		case "ConstruccionSubconjuntosExpresion":
+			ConstruccionSubconjuntos csProblemaExpresion = (ConstruccionSubconjuntos) problema
+					.getProblema();
+			return traductor.traduceCSExpresion(csProblemaExpresion);
+		case "ConstruccionSubconjuntosAutomata":
+			ConstruccionSubconjuntos csProblemaAutomata = (ConstruccionSubconjuntos) problema
+					.getProblema();
+			return traductor.traduceCSAutomata(csProblemaAutomata);
+		default:
+			throw new UnsupportedOperationException(
+					"Argumento tipo no soportado.");
+		}
 	}
 
 	/**
@@ -483,7 +570,8 @@ public class Documento {
 	 * @throws IOException
 	 *             Indica un error durante el guardado.
 	 */
-	private void guardar(String ruta, String documento) throws IOException {
+	private static void guardar(String ruta, String documento)
+			throws IOException {
 		try (Writer writer = new BufferedWriter(new OutputStreamWriter(
 				new FileOutputStream(ruta), "UTF8"))) {
 			writer.write(documento);
@@ -501,62 +589,146 @@ public class Documento {
 	 *             Indica un error durante el guardado.
 	 * @author JBA
 	 */
-	private void guardarSVG(String ruta, String documento) throws IOException {
+	private static void guardarSVG(String ruta, String documento)
+			throws IOException {
 		mxUtils.writeFile(documento, ruta);
 	}
 	
+	
+
 	/**
-	 * Crea o sobreescribe un documento en la ruta dada, con el contenido dado.
+	 * Crea o sobreescribe una imagen JPG en la ruta dada. Los errores se
+	 * registran sin interrumpir la exportación.
 	 * 
-	 * @param ruta
-	 *            Ruta en la que guardar el documento.
-	 * @param outputStream
-	 *            Contenido del documento.
-	 * @throws IOException
-	 *             Indica un error durante el guardado.
+	 * @param fichero
+	 *            Fichero en el que guardar la imagen.
+	 * @param imagen
+	 *            Imagen que guardar en disco.
 	 */
-	private void guardarPDF(String ruta, String documento) throws IOException {
-		String rutaSvg = ruta + ".svg";
-		mxUtils.writeFile(documento, rutaSvg);
-		Transcoder transcoder = new PDFTranscoder();
-        TranscoderInput transcoderInput = new TranscoderInput(new FileInputStream(new File(rutaSvg)));
-        TranscoderOutput transcoderOutput = new TranscoderOutput(new FileOutputStream(new File(ruta)));
-        try {
-			transcoder.transcode(transcoderInput, transcoderOutput);
-		} catch (TranscoderException e) {
-			log.error("Encontrado error durante el guardado de imágenes pdf", e);
+	private static void guardar(File fichero, BufferedImage imagen) {
+		try (OutputStream flujo = new BufferedOutputStream(
+				new FileOutputStream(fichero))) {
+			CodificadorJPEG.escribe(imagen, flujo);
+		} catch (IOException e) {
+			log.error("Encontrado error durante el guardado de imágenes", e);
 		}
-        File tmpsvg = new File(rutaSvg); 
-        if (tmpsvg.delete()) { 
-        	log.info("Eliminando ficheros temporales.");
-        } else {
-        	log.error("Encontrado error durante el borrado del fichero temporal " + tmpsvg.getName());
-        }
 	}
-	
 
 	/**
-	 * Crea o sobreescribe una serie de imágenes en la ruta dada.
-	 * 
-	 * @param ruta
-	 *            Ruta en la que guardar las imágenes.
-	 * @param imagenes
-	 *            Imágenes que guardar en disco.
+	 * Escritura de un fichero de la exportación, que puede ejecutarse en
+	 * paralelo con el resto.
 	 */
-	private void guardar(String ruta, List<BufferedImage> imagenes) {
-		log.info("Guardando {} imágenes", imagenes.size());
+	@FunctionalInterface
+	private interface Escritura {
+		void escribe() throws IOException;
+	}
 
-		try {
-			File parent = new File(ruta);
-			for (BufferedImage imagen : imagenes) {
-				String nombre = Math.abs(imagen.hashCode()) + ".jpg";
-				File salida = new File(parent.getParent() + File.separator
-						+ nombre);
-				ImageIO.write(imagen, "jpg", salida);
+	/**
+	 * Imagenes reúne las imágenes que cada formato guarda junto al documento,
+	 * indexadas por el fichero en el que se guardan. Cada problema añade las
+	 * suyas desde su propio hilo, y las imágenes compartidas entre problemas
+	 * se guardan una sola vez.
+	 */
+	private static class Imagenes {
+		private final Map<Formato, File> carpetas = new EnumMap<>(
+				Formato.class);
+		private final Map<File, BufferedImage> jpg = new ConcurrentHashMap<>();
+		private final Map<File, String> dot = new ConcurrentHashMap<>();
+		private final Map<File, String> svg = new ConcurrentHashMap<>();
+		private final Map<File, String> pdf = new ConcurrentHashMap<>();
+
+		private Imagenes(Map<Formato, File> ficheros) {
+			for (Map.Entry<Formato, File> entrada : ficheros.entrySet())
+				this.carpetas.put(entrada.getKey(), entrada.getValue()
+						.getAbsoluteFile().getParentFile());
+		}
+
+		/**
+		 * Añade las imágenes de un problema para cada formato. Las imágenes
+		 * solo se generan si algún formato las necesita.
+		 * 
+		 * @param problema
+		 *            Problema del que añadir las imágenes.
+		 */
+		private void añade(Problema<?> problema) {
+			Supplier<BufferedImage> imagen;
+			Supplier<String> imagenDot;
+			Supplier<String> imagenSvg;
+
+			switch (problema.getTipo()) {
+			case "ConstruccionSubconjuntosConstruccion":
+			case "ConstruccionSubconjuntosExpresion":
+				ConstruccionSubconjuntos csSolucion = (ConstruccionSubconjuntos) problema
+						.getProblema();
+				imagen = csSolucion::automata;
+				imagenDot = csSolucion::automataDot;
+				imagenSvg = csSolucion::automataSvgSolucion;
+				break;
+			case "ConstruccionSubconjuntosAutomata":
+				ConstruccionSubconjuntos csAutomata = (ConstruccionSubconjuntos) problema
+						.getProblema();
+				imagen = csAutomata::automata;
+				imagenDot = csAutomata::automataDot;
+				imagenSvg = csAutomata::automataSvg;
+				break;
+			case "AhoSethiUllmanEtiquetado":
+				AhoSethiUllman asuEtiquetado = (AhoSethiUllman) problema
+						.getProblema();
+				imagen = asuEtiquetado::arbolVacio;
+				imagenDot = asuEtiquetado::arbolVacioDot;
+				imagenSvg = asuEtiquetado::arbolVacioSvg;
+				break;
+			case "AhoSethiUllmanConstruccion":
+			case "AhoSethiUllmanTablas":
+				AhoSethiUllman asuSolucion = (AhoSethiUllman) problema
+						.getProblema();
+				imagen = () -> asuSolucion.alternativas().get(0);
+				imagenDot = () -> asuSolucion.alternativasDot().get(0);
+				imagenSvg = asuSolucion::svgSolucion;
+				break;
+			default:
+				return;
 			}
-		} catch (IOException e) {
-			log.error("Encontrado error durante el guardado de imágenes", e);
+
+			File carpeta = this.carpetas.get(Formato.LATEX);
+			if (carpeta != null)
+				this.jpg.put(new File(carpeta, Math.abs(imagen.get()
+						.hashCode()) + ".jpg"), imagen.get());
+
+			carpeta = this.carpetas.get(Formato.LATEX_GRAPHVIZ);
+			if (carpeta != null)
+				this.dot.put(new File(carpeta, Math.abs(imagen.get()
+						.hashCode()) + ".gv"), imagenDot.get());
+
+			carpeta = this.carpetas.get(Formato.LATEX_SVG);
+			if (carpeta != null)
+				this.svg.put(new File(carpeta, Math.abs(imagenSvg.get()
+						.hashCode()) + ".svg"), imagenSvg.get());
+
+			carpeta = this.carpetas.get(Formato.LATEX_PDF);
+			if (carpeta != null)
+				this.pdf.put(new File(carpeta, Math.abs(imagen.get()
+						.hashCode()) + ".pdf"), imagenSvg.get());
+		}
+
+		/**
+		 * Añade la escritura de cada imagen a una lista de escrituras.
+		 * 
+		 * @param escrituras
+		 *            Lista de escrituras de la exportación.
+		 */
+		private void escrituras(List<Escritura> escrituras) {
+			log.info("Guardando {} imágenes", this.jpg.size()
+					+ this.dot.size() + this.svg.size() + this.pdf.size());
+
+			this.jpg.forEach((fichero, imagen) -> escrituras
+					.add(() -> guardar(fichero, imagen)));
+			this.dot.forEach((fichero, imagen) -> escrituras
+					.add(() -> guardar(fichero.toString(), imagen)));
+			this.svg.forEach((fichero, imagen) -> escrituras
+					.add(() -> guardarSVG(fichero.toString(), imagen)));
+			this.pdf.forEach((fichero, imagen) -> escrituras
+					.add(() -> TranscodificadorPDF.guarda(fichero, imagen)));
 		}
 	}
-	
 }
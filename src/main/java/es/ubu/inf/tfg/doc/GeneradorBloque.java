@@ -0,0 +1,403 @@
+package es.ubu.inf.tfg.doc;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import es.ubu.inf.tfg.regex.asu.AhoSethiUllman;
+import es.ubu.inf.tfg.regex.asu.AhoSethiUllmanGenerador;
+import es.ubu.inf.tfg.regex.datos.ExpresionRegular;
+import es.ubu.inf.tfg.regex.thompson.ConstruccionSubconjuntos;
+import es.ubu.inf.tfg.regex.thompson.ConstruccionSubconjuntosGenerador;
+
+/**
+ * GeneradorBloque genera bloques completos de problemas a partir de una
+ * descripción de cuántos problemas de cada tipo se quieren y con qué
+ * parámetros, sin depender de la interfaz gráfica.
+ * <p>
+ * Cada problema se genera como una tarea independiente sobre un
+ * <code>ForkJoinPool</code>, de forma que los hilos libres roban trabajo
+ * pendiente de los ocupados. Cada tarea utiliza su propio generador, ya que
+ * los generadores no pueden compartirse entre generaciones simultáneas.
+ * <p>
+ * La cancelación es cooperativa: las tareas pendientes no llegan a
+ * ejecutarse y las que están en curso devuelven el mejor problema encontrado
+ * hasta el momento, igual que al cancelar un generador individual.
+ * <p>
+ * Si se le asocia un BancoProblemas, cada problema se sirve del banco cuando
+ * hay alguno con las características pedidas, y solo se busca en caso
+ * contrario. Los problemas buscados se guardan en el banco.
+ *
+ */
+public class GeneradorBloque {
+
+	private static final Logger log = LoggerFactory
+			.getLogger(GeneradorBloque.class);
+
+	private static final int MIN_SIMBOLOS = 2;
+	private static final int MAX_SIMBOLOS = 6;
+	private static final int MIN_ESTADOS = 3;
+	private static final int MAX_ESTADOS = 15;
+
+	/**
+	 * Tipo de los problemas de un lote, que determina tanto el algoritmo como
+	 * la forma en que se plantea la pregunta.
+	 */
+	public enum Modo {
+		AHOSETHIULLMAN_CONSTRUCCION, // Aho-Sethi-Ullman construcción de árbol
+		AHOSETHIULLMAN_ETIQUETADO, // Aho-Sethi-Ullman etiquetado de árbol
+		AHOSETHIULLMAN_TABLAS, // Aho-Sethi-Ullman tablas stePos y transición
+		CONSTRUCCIONSUBCONJUNTOS_CONSTRUCCION, // Construcción de autómata
+		CONSTRUCCIONSUBCONJUNTOS_EXPRESION, // Subconjuntos desde expresión
+		CONSTRUCCIONSUBCONJUNTOS_AUTOMATA; // Subconjuntos desde autómata
+
+		private boolean esAhoSethiUllman() {
+			return this == AHOSETHIULLMAN_CONSTRUCCION
+					|| this == AHOSETHIULLMAN_ETIQUETADO
+					|| this == AHOSETHIULLMAN_TABLAS;
+		}
+	}
+
+	/**
+	 * Lote de problemas de un mismo modo. El número de estados y de símbolos
+	 * de cada problema se elige al azar dentro del rango indicado, y se
+	 * limita a los valores que admiten los generadores.
+	 */
+	public static class Lote {
+		private final Modo modo;
+		private final int num;
+		private final int estados;
+		private final int estadosVar;
+		private final int simbolos;
+		private final int simbolosVar;
+		private final boolean vacio;
+
+		/**
+		 * Define un lote de problemas.
+		 *
+		 * @param modo
+		 *            Tipo de los problemas.
+		 * @param num
+		 *            Número de problemas a generar.
+		 * @param estados
+		 *            Número de estados pedido.
+		 * @param estadosVar
+		 *            Variación máxima en el número de estados.
+		 * @param simbolos
+		 *            Número de símbolos pedido.
+		 * @param simbolosVar
+		 *            Variación máxima en el número de símbolos.
+		 * @param vacio
+		 *            Si los problemas pueden contener nodos vacíos.
+		 * @throws IllegalArgumentException
+		 *             Si alguno de los números es negativo.
+		 */
+		public Lote(Modo modo, int num, int estados, int estadosVar,
+				int simbolos, int simbolosVar, boolean vacio) {
+			if (num < 0 || estadosVar < 0 || simbolosVar < 0)
+				throw new IllegalArgumentException(
+						"El número de problemas y las variaciones no pueden ser negativos.");
+
+			this.modo = modo;
+			this.num = num;
+			this.estados = estados;
+			this.estadosVar = estadosVar;
+			this.simbolos = simbolos;
+			this.simbolosVar = simbolosVar;
+			this.vacio = vacio;
+		}
+	}
+
+	/**
+	 * Recibe el progreso de la generación de un bloque. Se invoca desde los
+	 * hilos del pool cada vez que termina un problema, por lo que no debe
+	 * acceder directamente a componentes gráficos.
+	 */
+	public interface Progreso {
+		void actualiza(int completados, int total);
+	}
+
+	/**
+	 * Parámetros concretos de un problema del bloque.
+	 */
+	private static class Tarea {
+		private final Modo modo;
+		private final int estados;
+		private final int simbolos;
+		private final boolean vacio;
+
+		private Tarea(Modo modo, int estados, int simbolos, boolean vacio) {
+			this.modo = modo;
+			this.estados = estados;
+			this.simbolos = simbolos;
+			this.vacio = vacio;
+		}
+	}
+
+	private final ExecutorService ejecutor;
+	private final BancoProblemas banco;
+	private final Random random;
+	private final AtomicBoolean cancelar = new AtomicBoolean();
+	private final List<AhoSethiUllmanGenerador> asuGeneradores = new ArrayList<>();
+	private final List<ConstruccionSubconjuntosGenerador> csGeneradores = new ArrayList<>();
+
+	/**
+	 * Construye un generador de bloques que utiliza el
+	 * <code>ForkJoinPool</code> común.
+	 */
+	public GeneradorBloque() {
+		this(ForkJoinPool.commonPool());
+	}
+
+	/**
+	 * Construye un generador de bloques que lanza cada problema como una
+	 * tarea sobre el ejecutor dado, normalmente un <code>ForkJoinPool</code>.
+	 *
+	 * @param ejecutor
+	 *            Ejecutor sobre el que generar los problemas.
+	 */
+	public GeneradorBloque(ExecutorService ejecutor) {
+		this(ejecutor, null);
+	}
+
+	/**
+	 * Construye un generador de bloques que sirve los problemas desde un
+	 * banco siempre que sea posible, y lanza cada búsqueda restante como una
+	 * tarea sobre el ejecutor dado.
+	 *
+	 * @param ejecutor
+	 *            Ejecutor sobre el que generar los problemas.
+	 * @param banco
+	 *            Banco de problemas, o <code>null</code> para buscar siempre.
+	 */
+	public GeneradorBloque(ExecutorService ejecutor, BancoProblemas banco) {
+		this.ejecutor = ejecutor;
+		this.banco = banco;
+		this.random = new Random();
+	}
+
+	/**
+	 * Genera todos los problemas de los lotes indicados. Los problemas se
+	 * devuelven en el mismo orden que los lotes y numerados desde uno,
+	 * independientemente del orden en que terminen.
+	 * <p>
+	 * Si se cancela el generador, se devuelven solo los problemas que se
+	 * llegaron a generar.
+	 *
+	 * @param lotes
+	 *            Lotes de problemas a generar.
+	 * @param progreso
+	 *            Receptor del progreso de la generación, o <code>null</code>.
+	 * @return Problemas generados.
+	 */
+	public List<Problema<?>> genera(List<Lote> lotes, Progreso progreso) {
+		List<Tarea> tareas = new ArrayList<>();
+		for (Lote lote : lotes) {
+			for (int i = 0; i < lote.num; i++)
+				tareas.add(new Tarea(lote.modo, varia(lote.estados,
+						lote.estadosVar, MIN_ESTADOS, MAX_ESTADOS), varia(
+						lote.simbolos, lote.simbolosVar, MIN_SIMBOLOS,
+						MAX_SIMBOLOS), lote.vacio));
+		}
+
+		log.info("Generando bloque de {} problemas.", tareas.size());
+
+		int total = tareas.size();
+		AtomicInteger completados = new AtomicInteger();
+		List<Future<Object>> resultados = new ArrayList<>();
+		for (Tarea tarea : tareas) {
+			resultados.add(this.ejecutor.submit(() -> {
+				Object problema = genera(tarea);
+				int n = completados.incrementAndGet();
+				if (progreso != null)
+					progreso.actualiza(n, total);
+				return problema;
+			}));
+		}
+
+		List<Problema<?>> problemas = new ArrayList<>();
+		for (int i = 0; i < total; i++) {
+			Object problema;
+			try {
+				problema = resultados.get(i).get();
+			} catch (InterruptedException e) {
+				cancelar();
+				Thread.currentThread().interrupt();
+				continue;
+			} catch (ExecutionException e) {
+				cancelar();
+				if (e.getCause() instanceof RuntimeException)
+					throw (RuntimeException) e.getCause();
+				throw new IllegalStateException(e.getCause());
+			}
+
+			if (problema != null)
+				problemas.add(problema(tareas.get(i).modo, problema,
+						problemas.size() + 1));
+		}
+
+		log.info("Bloque generado con {} de {} problemas.", problemas.size(),
+				total);
+
+		return problemas;
+	}
+
+	/**
+	 * Cancela la generación del bloque. Los problemas en curso terminan con el
+	 * resultado de su iteración actual y los pendientes no se generan.
+	 */
+	public void cancelar() {
+		log.info("Cancelando generación de bloque.");
+		this.cancelar.set(true);
+
+		synchronized (this) {
+			for (AhoSethiUllmanGenerador generador : this.asuGeneradores)
+				generador.cancelar();
+			for (ConstruccionSubconjuntosGenerador generador : this.csGeneradores)
+				generador.cancelar();
+		}
+	}
+
+	/**
+	 * Genera el problema de una tarea, desde el banco si es posible o con un
+	 * generador propio, registrándolo para poder cancelarlo.
+	 *
+	 * @param tarea
+	 *            Parámetros del problema.
+	 * @return Problema generado, o <code>null</code> si el bloque se ha
+	 *         cancelado antes de empezar.
+	 */
+	private Object genera(Tarea tarea) {
+		if (tarea.modo.esAhoSethiUllman()) {
+			ExpresionRegular expresion = deBanco(
+					BancoProblemas.Tipo.AHOSETHIULLMAN, tarea);
+			if (expresion != null)
+				return new AhoSethiUllman(expresion);
+
+			// Una sola búsqueda, el paralelismo está entre problemas
+			AhoSethiUllmanGenerador generador = new AhoSethiUllmanGenerador();
+			synchronized (this) {
+				if (this.cancelar.get())
+					return null;
+				this.asuGeneradores.add(generador);
+			}
+			try {
+				expresion = generador.nuevaExpresion(tarea.simbolos,
+						tarea.estados, tarea.vacio);
+			} finally {
+				synchronized (this) {
+					this.asuGeneradores.remove(generador);
+				}
+			}
+			if (this.banco != null)
+				this.banco.registra(BancoProblemas.Tipo.AHOSETHIULLMAN,
+						expresion);
+			return new AhoSethiUllman(expresion);
+		} else {
+			ExpresionRegular expresion = deBanco(
+					BancoProblemas.Tipo.CONSTRUCCIONSUBCONJUNTOS, tarea);
+			if (expresion != null)
+				return new ConstruccionSubconjuntos(expresion);
+
+			ConstruccionSubconjuntosGenerador generador = new ConstruccionSubconjuntosGenerador();
+			synchronized (this) {
+				if (this.cancelar.get())
+					return null;
+				this.csGeneradores.add(generador);
+			}
+			try {
+				expresion = generador.nuevaExpresion(tarea.simbolos,
+						tarea.estados, tarea.vacio);
+			} finally {
+				synchronized (this) {
+					this.csGeneradores.remove(generador);
+				}
+			}
+			if (this.banco != null)
+				this.banco.registra(
+						BancoProblemas.Tipo.CONSTRUCCIONSUBCONJUNTOS, expresion);
+			return new ConstruccionSubconjuntos(expresion);
+		}
+	}
+
+	/**
+	 * Sirve del banco la expresión de un problema, si hay banco y el bloque no
+	 * se ha cancelado.
+	 *
+	 * @param tipo
+	 *            Tipo de problema en el banco.
+	 * @param tarea
+	 *            Parámetros del problema.
+	 * @return Expresión del problema, o <code>null</code> si hay que buscarla.
+	 */
+	private ExpresionRegular deBanco(BancoProblemas.Tipo tipo, Tarea tarea) {
+		if (this.banco == null || this.cancelar.get())
+			return null;
+		return this.banco.obtiene(tipo, tarea.simbolos, tarea.estados,
+				tarea.vacio);
+	}
+
+	/**
+	 * Elige un valor al azar dentro de un rango, limitado a unos márgenes.
+	 *
+	 * @param valor
+	 *            Valor central del rango.
+	 * @param variacion
+	 *            Variación máxima respecto al valor central.
+	 * @param minimo
+	 *            Mínimo admitido.
+	 * @param maximo
+	 *            Máximo admitido.
+	 * @return Valor elegido.
+	 */
+	private int varia(int valor, int variacion, int minimo, int maximo) {
+		int resultado = valor
+				+ (this.random.nextInt((2 * variacion) + 1) - variacion);
+
+		if (resultado < minimo)
+			return minimo;
+		if (resultado > maximo)
+			return maximo;
+		return resultado;
+	}
+
+	/**
+	 * Construye la pregunta correspondiente a un problema según su modo.
+	 *
+	 * @param modo
+	 *            Tipo de la pregunta.
+	 * @param problema
+	 *            Problema generado.
+	 * @param numero
+	 *            Número de la pregunta en el bloque.
+	 * @return Pregunta construida.
+	 */
+	private static Problema<?> problema(Modo modo, Object problema, int numero) {
+		switch (modo) {
+		case AHOSETHIULLMAN_CONSTRUCCION:
+			return Problema.asuConstruccion((AhoSethiUllman) problema, numero);
+		case AHOSETHIULLMAN_ETIQUETADO:
+			return Problema.asuEtiquetado((AhoSethiUllman) problema, numero);
+		case AHOSETHIULLMAN_TABLAS:
+			return Problema.asuTablas((AhoSethiUllman) problema, numero);
+		case CONSTRUCCIONSUBCONJUNTOS_CONSTRUCCION:
+			return Problema.CSConstruccion((ConstruccionSubconjuntos) problema,
+					numero);
+		case CONSTRUCCIONSUBCONJUNTOS_EXPRESION:
+			return Problema.CSExpresion((ConstruccionSubconjuntos) problema,
+					numero);
+		default:
+			return Problema.CSAutomata((ConstruccionSubconjuntos) problema,
+					numero);
+		}
+	}
+}
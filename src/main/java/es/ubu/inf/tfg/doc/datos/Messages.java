@@ -17,6 +17,16 @@ public class Messages {
 	private Messages() {
 	}
 
+	/**
+	 * Devuelve el idioma con el que se cargaron los mensajes, que es el
+	 * idioma por defecto al inicializar la clase.
+	 * 
+	 * @return Idioma de los mensajes.
+	 */
+	public static Locale getLocale() {
+		return locale_default;
+	}
+
 	public static String getString(String key) {
 		String res;
 		@SuppressWarnings("unused")
@@ -1,38 +1,127 @@
 package es.ubu.inf.tfg.doc.datos;
 
+import java.awt.image.BufferedImage;
 import java.io.BufferedReader;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
-
+import java.io.OutputStream;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.HashMap;
 import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+/**
+ * Plantilla representa el contenido de un fichero de plantilla en el que se
+ * sustituyen atributos de la forma <code>{atributo}</code>.
+ * <p>
+ * Cada fichero se lee y se analiza una sola vez por idioma, y el resultado se
+ * comparte entre todas las plantillas del mismo fichero. Los ficheros de la
+ * aplicación pueden cargarse de antemano con {@link #precarga() precarga},
+ * de forma que la generación de documentos no accede al classpath. Los valores de los atributos
+ * se guardan aparte y solo se insertan al generar el resultado, que se
+ * construye en una única pasada sobre la plantilla analizada. Como al
+ * sustituir sobre el texto, un atributo conserva el primer valor que se le
+ * asigna, y los valores insertados no se vuelven a analizar.
+ */
 public class Plantilla {
 
 	private static final Logger log = LoggerFactory.getLogger(Plantilla.class);
 
-	String plantilla;
+	// Ficheros de plantilla utilizados por los traductores
+	private static final String[] FICHEROS = { "plantilla.html", //$NON-NLS-1$
+			"plantilla.tex", "plantilla.xml", "plantillaSVG.tex", //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+			"plantillaTikZ.tex", "plantillaASUConstruccion.html", //$NON-NLS-1$ //$NON-NLS-2$
+			"plantillaASUConstruccion.tex", "plantillaASUConstruccion.xml", //$NON-NLS-1$ //$NON-NLS-2$
+			"plantillaASUEtiquetado.html", "plantillaASUEtiquetado.tex", //$NON-NLS-1$ //$NON-NLS-2$
+			"plantillaASUEtiquetado.xml", "plantillaASUTablas.html", //$NON-NLS-1$ //$NON-NLS-2$
+			"plantillaASUTablas.tex", "plantillaASUTablas.xml", //$NON-NLS-1$ //$NON-NLS-2$
+			"plantillaCSConstruccion.html", "plantillaCSConstruccion.tex", //$NON-NLS-1$ //$NON-NLS-2$
+			"plantillaCSConstruccion.xml", "plantillaCSExpresion.html", //$NON-NLS-1$ //$NON-NLS-2$
+			"plantillaCSExpresion.tex", "plantillaCSExpresion.xml", //$NON-NLS-1$ //$NON-NLS-2$
+			"plantillaCSAutomata.html", "plantillaCSAutomata.tex", //$NON-NLS-1$ //$NON-NLS-2$
+			"plantillaCSAutomata.xml" }; //$NON-NLS-1$
+
+	private static final Map<Locale, Map<String, PlantillaCompilada>> compiladas = new ConcurrentHashMap<>();
+
+	private final PlantillaCompilada plantilla;
+	private final Map<String, String> valores = new HashMap<>();
+	private final Map<String, BufferedImage> imagenes = new HashMap<>();
 
 
 	public Plantilla(String fichero) {
+		plantilla = compilada(fichero);
+	}
+
+	/**
+	 * Carga de antemano todos los ficheros de plantilla de la aplicación en
+	 * el idioma actual.
+	 * 
+	 * @throws IllegalArgumentException
+	 *             Si alguno de los ficheros no existe o no puede leerse.
+	 */
+	public static void precarga() {
+		precarga(FICHEROS);
+	}
+
+	/**
+	 * Carga de antemano los ficheros de plantilla indicados en el idioma
+	 * actual. Los ficheros ya cargados no se vuelven a leer.
+	 * 
+	 * @param ficheros
+	 *            Ficheros de plantilla a cargar.
+	 * @throws IllegalArgumentException
+	 *             Si alguno de los ficheros no existe o no puede leerse.
+	 */
+	public static void precarga(String... ficheros) {
+		for (String fichero : ficheros)
+			compilada(fichero);
+		log.info("Precargadas {} plantillas para el idioma {}", //$NON-NLS-1$
+				ficheros.length, Messages.getLocale());
+	}
+
+	/**
+	 * Devuelve la plantilla analizada de un fichero en el idioma actual,
+	 * leyéndola solo si no se ha cargado antes.
+	 * 
+	 * @param fichero
+	 *            Fichero de plantilla.
+	 * @return Plantilla analizada.
+	 */
+	private static PlantillaCompilada compilada(String fichero) {
+		return compiladas.computeIfAbsent(Messages.getLocale(),
+				locale -> new ConcurrentHashMap<>()).computeIfAbsent(fichero,
+				Plantilla::compila);
+	}
+
+	/**
+	 * Lee y analiza un fichero de plantilla de la carpeta del idioma actual.
+	 * 
+	 * @param fichero
+	 *            Fichero de plantilla.
+	 * @return Plantilla analizada.
+	 * @throws IllegalArgumentException
+	 *             Si no existe el fichero o no puede leerse.
+	 */
+	private static PlantillaCompilada compila(String fichero) {
 		StringBuilder contenido;
 		String linea;
 		String languageFolder = Messages.getString("Plantilla.lang");  // to be ready for full internationalization //$NON-NLS-1$
 		String langfichero = languageFolder + fichero; //$NON-NLS-1$
 
-		
-		/*
-		System.out.println("\u001B[0;1mPlantilla: Locale default:\u001B[0m " + Locale.getDefault());
-		System.out.println("\u001B[0;1mPlantilla: languageFolder:\u001B[0m " + languageFolder);
-		System.out.println("\u001B[0;1mPlantilla: langfichero:\u001B[0m " + langfichero);
-		*/
-		
-		try (InputStream entrada = getClass().getResourceAsStream(langfichero);
-				BufferedReader lector = new BufferedReader(
-						new InputStreamReader(entrada, "UTF8"))) { //$NON-NLS-1$
+		InputStream entrada = Plantilla.class.getResourceAsStream(langfichero);
+		if (entrada == null)
+			throw new IllegalArgumentException("No existe la plantilla " //$NON-NLS-1$
+					+ langfichero);
+
+		try (BufferedReader lector = new BufferedReader(
+				new InputStreamReader(entrada, "UTF8"))) { //$NON-NLS-1$
 			contenido = new StringBuilder();
 			linea = lector.readLine();
 			while (linea != null) {
@@ -41,22 +130,124 @@ public class Plantilla {
 				if (linea != null)
 					contenido.append("\n"); //$NON-NLS-1$
 			}
-
-			plantilla = contenido.toString();
 		} catch (IOException e) {
-			log.error("Error al recuperar la plantilla {}", plantilla); //$NON-NLS-1$
+			log.error("Error al recuperar la plantilla {}", langfichero); //$NON-NLS-1$
+			throw new IllegalArgumentException(
+					"Error al recuperar la plantilla " + langfichero, e); //$NON-NLS-1$
 		}
+
+		return new PlantillaCompilada(contenido.toString());
 	}
 
 
 	public void set(String atributo, String valor) {
-		plantilla = plantilla.replace("{" + atributo + "}", valor); //$NON-NLS-1$ //$NON-NLS-2$
+		if (!imagenes.containsKey(atributo))
+			valores.putIfAbsent(atributo, valor);
+	}
+
+
+	/**
+	 * Asocia una imagen a un atributo de la plantilla. La imagen se incluye
+	 * como JPEG codificado en base 64, pero no se codifica hasta que se
+	 * escribe la plantilla, de forma que al escribirla con
+	 * {@link #escribe(Writer) escribe} nunca llega a estar en memoria como
+	 * cadena de caracteres.
+	 * 
+	 * @param atributo
+	 *            Atributo a sustituir.
+	 * @param imagen
+	 *            Imagen a incluir.
+	 */
+	public void setImagen(String atributo, BufferedImage imagen) {
+		if (!valores.containsKey(atributo))
+			imagenes.putIfAbsent(atributo, imagen);
+	}
+
+	/**
+	 * Escribe la plantilla en un <code>Writer</code>, codificando en base 64
+	 * cada imagen directamente sobre él.
+	 * 
+	 * @param writer
+	 *            Destino de la plantilla.
+	 * @throws IOException
+	 *             Indica un error durante la escritura.
+	 */
+	public void escribe(Writer writer) throws IOException {
+		escribe((Appendable) writer);
 	}
 
+	/**
+	 * Genera el resultado de la plantilla en una única pasada, alternando los
+	 * fragmentos literales con el valor de cada atributo. Los atributos sin
+	 * valor se escriben tal cual.
+	 * 
+	 * @param destino
+	 *            Destino de la plantilla.
+	 * @throws IOException
+	 *             Indica un error durante la escritura.
+	 */
+	private void escribe(Appendable destino) throws IOException {
+		int n = plantilla.numAtributos();
+		for (int i = 0; i < n; i++) {
+			destino.append(plantilla.literal(i));
+
+			String atributo = plantilla.atributo(i);
+			String valor = valores.get(atributo);
+			if (valor != null) {
+				destino.append(valor);
+			} else if (imagenes.containsKey(atributo)) {
+				try (OutputStream salida = Base64.getEncoder().wrap(
+						new SalidaTexto(destino))) {
+					CodificadorJPEG.escribe(imagenes.get(atributo), salida);
+				}
+			} else {
+				destino.append('{').append(atributo).append('}');
+			}
+		}
+		destino.append(plantilla.literal(n));
+	}
 
 	@Override
 	public String toString() {
-		return plantilla;
+		if (valores.isEmpty() && imagenes.isEmpty())
+			return plantilla.fuente();
+
+		StringBuilder resultado = new StringBuilder(plantilla.fuente()
+				.length());
+		try {
+			escribe(resultado);
+		} catch (IOException e) {
+			log.error("Error convirtiendo imagen a base 64", e); //$NON-NLS-1$
+		}
+		return resultado.toString();
+	}
+
+	/**
+	 * Adapta un <code>Appendable</code> para recibir la salida ASCII del
+	 * codificador base 64. Cerrarlo no cierra el destino.
+	 */
+	private static class SalidaTexto extends OutputStream {
+		private final Appendable destino;
+
+		private SalidaTexto(Appendable destino) {
+			this.destino = destino;
+		}
+
+		@Override
+		public void write(int b) throws IOException {
+			destino.append((char) (b & 0xff));
+		}
+
+		@Override
+		public void write(byte[] b, int inicio, int longitud)
+				throws IOException {
+			destino.append(new String(b, inicio, longitud,
+					StandardCharsets.ISO_8859_1));
+		}
+
+		@Override
+		public void close() {
+		}
 	}
 
 
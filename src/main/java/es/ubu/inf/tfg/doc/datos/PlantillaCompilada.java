@@ -0,0 +1,104 @@
+package es.ubu.inf.tfg.doc.datos;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * PlantillaCompilada representa el contenido de una plantilla ya analizado,
+ * como una secuencia alterna de fragmentos literales y atributos. Permite
+ * generar el resultado en una única pasada, en lugar de recorrer la plantilla
+ * completa una vez por cada atributo.
+ * <p>
+ * Se considera atributo cualquier texto entre llaves que no contenga a su vez
+ * llaves, por lo que construcciones LaTeX como <code>{tabular}</code> también
+ * se analizan como atributos. Los atributos a los que no se asigna valor se
+ * escriben tal cual, con sus llaves, de forma que el resultado coincide con el
+ * de sustituir cada atributo en el texto de la plantilla.
+ * <p>
+ * Las instancias son inmutables y pueden compartirse entre hilos.
+ *
+ */
+class PlantillaCompilada {
+
+	private final String fuente;
+	private final String[] literales;
+	private final String[] atributos;
+
+	/**
+	 * Analiza el contenido de una plantilla.
+	 *
+	 * @param fuente
+	 *            Contenido de la plantilla.
+	 */
+	PlantillaCompilada(String fuente) {
+		List<String> literales = new ArrayList<>();
+		List<String> atributos = new ArrayList<>();
+
+		int literal = 0;
+		int apertura = fuente.indexOf('{');
+		while (apertura >= 0) {
+			int i = apertura + 1;
+			while (i < fuente.length() && fuente.charAt(i) != '{'
+					&& fuente.charAt(i) != '}')
+				i++;
+
+			if (i < fuente.length() && fuente.charAt(i) == '}') {
+				literales.add(fuente.substring(literal, apertura));
+				atributos.add(fuente.substring(apertura + 1, i));
+				literal = i + 1;
+				apertura = fuente.indexOf('{', literal);
+			} else {
+				// Llave sin cerrar o anidada, se continúa desde la siguiente
+				apertura = i < fuente.length() ? i : -1;
+			}
+		}
+		literales.add(fuente.substring(literal));
+
+		this.fuente = fuente;
+		this.literales = literales.toArray(new String[0]);
+		this.atributos = atributos.toArray(new String[0]);
+	}
+
+	/**
+	 * Devuelve el contenido original de la plantilla.
+	 *
+	 * @return Contenido de la plantilla.
+	 */
+	String fuente() {
+		return this.fuente;
+	}
+
+	/**
+	 * Devuelve el número de atributos de la plantilla, contando cada
+	 * aparición.
+	 *
+	 * @return Número de atributos.
+	 */
+	int numAtributos() {
+		return this.atributos.length;
+	}
+
+	/**
+	 * Devuelve el nombre de un atributo de la plantilla.
+	 *
+	 * @param i
+	 *            Posición del atributo, desde 0.
+	 * @return Nombre del atributo.
+	 */
+	String atributo(int i) {
+		return this.atributos[i];
+	}
+
+	/**
+	 * Devuelve el fragmento literal anterior a un atributo de la plantilla. El
+	 * fragmento de posición <code>numAtributos()</code> es el final de la
+	 * plantilla.
+	 *
+	 * @param i
+	 *            Posición del fragmento, desde 0.
+	 * @return Fragmento literal.
+	 */
+	String literal(int i) {
+		return this.literales[i];
+	}
+}
@@ -204,12 +204,13 @@ public class TraductorHTML extends Traductor {
 
 		for (char estado : problema.estados()) {
 			if (problema.esFinal(estado))
-				fTrans.append("<tr><td>(" + estado + ")</td>"); //$NON-NLS-1$ //$NON-NLS-2$
+				fTrans.append("<tr><td>(" + problema.etiqueta(estado) + ")</td>"); //$NON-NLS-1$ //$NON-NLS-2$
 			else
-				fTrans.append("<tr><td>" + estado + "</td>"); //$NON-NLS-1$ //$NON-NLS-2$
+				fTrans.append("<tr><td>" + problema.etiqueta(estado) + "</td>"); //$NON-NLS-1$ //$NON-NLS-2$
 			for (char simbolo : problema.simbolos()) {
 				if (simbolo != '$')
-					fTrans.append("<td>" + problema.mueve(estado, simbolo) //$NON-NLS-1$
+					fTrans.append("<td>" //$NON-NLS-1$
+							+ problema.etiqueta(problema.mueve(estado, simbolo))
 							+ "</td>"); //$NON-NLS-1$
 			}
 			fTrans.append("<td>"); //$NON-NLS-1$
@@ -291,12 +292,13 @@ public class TraductorHTML extends Traductor {
 
 		for (char estado : problema.estados()) {
 			if (problema.esFinal(estado))
-				fTrans.append("<tr><td>(" + estado + ")</td>"); //$NON-NLS-1$ //$NON-NLS-2$
+				fTrans.append("<tr><td>(" + problema.etiqueta(estado) + ")</td>"); //$NON-NLS-1$ //$NON-NLS-2$
 			else
-				fTrans.append("<tr><td>" + estado + "</td>"); //$NON-NLS-1$ //$NON-NLS-2$
+				fTrans.append("<tr><td>" + problema.etiqueta(estado) + "</td>"); //$NON-NLS-1$ //$NON-NLS-2$
 			for (char simbolo : problema.simbolos()) {
 				if (simbolo != '$')
-					fTrans.append("<td>" + problema.mueve(estado, simbolo) //$NON-NLS-1$
+					fTrans.append("<td>" //$NON-NLS-1$
+							+ problema.etiqueta(problema.mueve(estado, simbolo))
 							+ "</td>"); //$NON-NLS-1$
 			}
 			fTrans.append("<td>"); //$NON-NLS-1$
@@ -340,12 +342,13 @@ public class TraductorHTML extends Traductor {
 
 		for (char estado : problema.estados()) {
 			if (problema.esFinal(estado))
-				fTrans.append("<tr><td>(" + estado + ")</td>"); //$NON-NLS-1$ //$NON-NLS-2$
+				fTrans.append("<tr><td>(" + problema.etiqueta(estado) + ")</td>"); //$NON-NLS-1$ //$NON-NLS-2$
 			else
-				fTrans.append("<tr><td>" + estado + "</td>"); //$NON-NLS-1$ //$NON-NLS-2$
+				fTrans.append("<tr><td>" + problema.etiqueta(estado) + "</td>"); //$NON-NLS-1$ //$NON-NLS-2$
 			for (char simbolo : problema.simbolos()) {
 				if (simbolo != '$')
-					fTrans.append("<td>" + problema.mueve(estado, simbolo) //$NON-NLS-1$
+					fTrans.append("<td>" //$NON-NLS-1$
+							+ problema.etiqueta(problema.mueve(estado, simbolo))
 							+ "</td>"); //$NON-NLS-1$
 			}
 			fTrans.append("<td>"); //$NON-NLS-1$
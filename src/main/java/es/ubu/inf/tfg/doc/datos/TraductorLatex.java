@@ -213,12 +213,14 @@ public class TraductorLatex extends Traductor {
 		fTrans.append("}\\\\ \n\\midrule %-------------------------------\n"); //$NON-NLS-1$
 		for (char estado : problema.estados()) {
 			if (problema.esFinal(estado))
-				fTrans.append("\\h{(" + estado + ")} & "); //$NON-NLS-1$
+				fTrans.append("\\h{(" + problema.etiqueta(estado) + ")} & "); //$NON-NLS-1$
 			else
-				fTrans.append("\\h{" + estado + "} & "); //$NON-NLS-1$
+				fTrans.append("\\h{" + problema.etiqueta(estado) + "} & "); //$NON-NLS-1$
 			for (char simbolo : problema.simbolos()) {
 				if (simbolo != '$')
-					fTrans.append("\\h{" + problema.mueve(estado, simbolo) + "} & "); //$NON-NLS-1$
+					fTrans.append("\\h{" //$NON-NLS-1$
+							+ problema.etiqueta(problema.mueve(estado, simbolo))
+							+ "} & "); //$NON-NLS-1$
 			}
 			fTrans.append("\\h{" + setToRanges(problema.estado(estado)) + "}"); //$NON-NLS-1$
 			//for (int posicion : problema.estado(estado)) fTrans.append(posicion + " ");
@@ -315,12 +317,14 @@ public class TraductorLatex extends Traductor {
 		fTrans.append("\\midrule %-------------------------------\n"); //$NON-NLS-1$
 		for (char estado : problema.estados()) {
 			if (problema.esFinal(estado))
-				fTrans.append("\\h{(" + estado + ")} & "); //$NON-NLS-1$
+				fTrans.append("\\h{(" + problema.etiqueta(estado) + ")} & "); //$NON-NLS-1$
 			else
-				fTrans.append("\\h{" + estado + "} & "); //$NON-NLS-1$
+				fTrans.append("\\h{" + problema.etiqueta(estado) + "} & "); //$NON-NLS-1$
 			for (char simbolo : problema.simbolos()) {
 				if (simbolo != '$')
-					fTrans.append("\\h{" + problema.mueve(estado, simbolo) + "} & "); //$NON-NLS-1$
+					fTrans.append("\\h{" //$NON-NLS-1$
+							+ problema.etiqueta(problema.mueve(estado, simbolo))
+							+ "} & "); //$NON-NLS-1$
 			}
 			fTrans.append("\\h{" + setToRanges(problema.posiciones(estado)) + "}"); //$NON-NLS-1$
 			//for (int posicion : problema.posiciones(estado)) fTrans.append(posicion + " ");
@@ -380,12 +384,14 @@ public class TraductorLatex extends Traductor {
 
 		for (char estado : problema.estados()) {
 			if (problema.esFinal(estado))
-				fTrans.append("\\h{(" + estado + ")} & "); //$NON-NLS-1$
+				fTrans.append("\\h{(" + problema.etiqueta(estado) + ")} & "); //$NON-NLS-1$
 			else
-				fTrans.append("\\h{" + estado + "} & "); //$NON-NLS-1$
+				fTrans.append("\\h{" + problema.etiqueta(estado) + "} & "); //$NON-NLS-1$
 			for (char simbolo : problema.simbolos()) {
 				if (simbolo != '$')
-					fTrans.append("\\h{" + problema.mueve(estado, simbolo) + "} & "); //$NON-NLS-1$
+					fTrans.append("\\h{" //$NON-NLS-1$
+							+ problema.etiqueta(problema.mueve(estado, simbolo))
+							+ "} & "); //$NON-NLS-1$
 			}
 			fTrans.append("\\h{" + setToRanges(problema.posiciones(estado)) + "}"); //$NON-NLS-1$
 			fTrans.append("\\\\\n"); //$NON-NLS-1$
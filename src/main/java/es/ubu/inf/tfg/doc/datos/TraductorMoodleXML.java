@@ -1,8 +1,8 @@
 package es.ubu.inf.tfg.doc.datos;
 
 import java.awt.image.BufferedImage;
-import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.Writer;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Date;
@@ -12,13 +12,11 @@ import java.util.Random;
 import java.util.Set;
 import java.util.TreeSet;
 
-import javax.imageio.ImageIO;
-
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.util.Base64;
 import es.ubu.inf.tfg.regex.asu.AhoSethiUllman;
+import es.ubu.inf.tfg.regex.datos.MapaEstados;
 import es.ubu.inf.tfg.regex.thompson.ConstruccionSubconjuntos;
 
 /**
@@ -60,6 +58,36 @@ public class TraductorMoodleXML extends Traductor {
 		return plantilla.toString();
 	}
 	
+	/**
+	 * Escribe un documento en formato Moodle XML a partir de una secuencia de
+	 * problemas ya traducidos. Cada problema se escribe en cuanto se obtiene
+	 * de la secuencia, incluyendo sus imágenes, por lo que si la secuencia
+	 * traduce los problemas según se recorre nunca llega a tenerse el
+	 * documento completo en memoria.
+	 * 
+	 * @param problemas
+	 *            Secuencia de problemas traducidos.
+	 * @param writer
+	 *            Destino del documento.
+	 * @throws IOException
+	 *             Indica un error durante la escritura.
+	 */
+	public void documento(Iterable<Plantilla> problemas, Writer writer)
+			throws IOException {
+		log.info("Escribiendo documento Moodle XML."); //$NON-NLS-1$
+
+		String plantilla = new Plantilla("plantilla.xml").toString(); //$NON-NLS-1$
+		int documento = plantilla.indexOf("{documento}"); //$NON-NLS-1$
+
+		writer.write(plantilla, 0, documento);
+		int n = 1;
+		for (Plantilla problema : problemas) {
+			problema.set("numero", "" + n++); //$NON-NLS-1$
+			problema.escribe(writer);
+		}
+		writer.write(plantilla.substring(documento + "{documento}".length())); //$NON-NLS-1$
+	}
+
 	/**
 	 * Genera un documento Moodle XML a partir de un único problema ya traducido.
 	 * 
@@ -97,12 +125,9 @@ public class TraductorMoodleXML extends Traductor {
 		String[] imagenes = new String[4];
 		List<BufferedImage> alternativas = problema.alternativas();
 		Collections.shuffle(alternativas);
-		String[] alternativasBase64 = new String[4];
 
-		for (int i = 0; i < 4; i++) {
+		for (int i = 0; i < 4; i++)
 			imagenes[i] = Math.abs(alternativas.get(i).hashCode()) + ".jpg"; //$NON-NLS-1$
-			alternativasBase64[i] = imageToBase64(alternativas.get(i));
-		}
 
 		char solucion = (char) ('a' + alternativas.indexOf(problema
 				.alternativas().get(0)));
@@ -117,10 +142,10 @@ public class TraductorMoodleXML extends Traductor {
 		plantilla.set("urlB", imagenes[1]); //$NON-NLS-1$
 		plantilla.set("urlC", imagenes[2]); //$NON-NLS-1$
 		plantilla.set("urlD", imagenes[3]); //$NON-NLS-1$
-		plantilla.set("imagenA", alternativasBase64[0]); //$NON-NLS-1$
-		plantilla.set("imagenB", alternativasBase64[1]); //$NON-NLS-1$
-		plantilla.set("imagenC", alternativasBase64[2]); //$NON-NLS-1$
-		plantilla.set("imagenD", alternativasBase64[3]); //$NON-NLS-1$
+		plantilla.setImagen("imagenA", alternativas.get(0)); //$NON-NLS-1$
+		plantilla.setImagen("imagenB", alternativas.get(1)); //$NON-NLS-1$
+		plantilla.setImagen("imagenC", alternativas.get(2)); //$NON-NLS-1$
+		plantilla.setImagen("imagenD", alternativas.get(3)); //$NON-NLS-1$
 		plantilla.set("solucion", opcionesTransicion(solucion, opciones)); //$NON-NLS-1$
 
 		return plantilla;
@@ -172,7 +197,7 @@ public class TraductorMoodleXML extends Traductor {
 
 		plantilla.set("expresion", expresion); //$NON-NLS-1$
 		plantilla.set("url", url); //$NON-NLS-1$
-		plantilla.set("imagen", imageToBase64(problema.arbolVacio())); //$NON-NLS-1$
+		plantilla.setImagen("imagen", problema.arbolVacio()); //$NON-NLS-1$
 		plantilla.set("tabla", solucionesXML); //$NON-NLS-1$
 
 		return plantilla;
@@ -217,7 +242,8 @@ public class TraductorMoodleXML extends Traductor {
 		fTrans.append("\n\t<th scope=\"col\"> </th>\n\t</tr>"); //$NON-NLS-1$
 
 		for (char estado : problema.estados()) {
-			fTrans.append("\n\t<tr>\n\t<td>" + estado + "</td>"); //$NON-NLS-1$
+			fTrans.append("\n\t<tr>\n\t<td>" + problema.etiqueta(estado)
+					+ "</td>"); //$NON-NLS-1$
 			for (char simbolo : problema.simbolos()) {
 				if (simbolo != '$') {
 					fTrans.append("\n\t<td>"); //$NON-NLS-1$
@@ -267,12 +293,9 @@ public class TraductorMoodleXML extends Traductor {
 		String[] imagenes = new String[4];
 		List<BufferedImage> alternativas = problema.alternativas();
 		Collections.shuffle(alternativas);
-		String[] alternativasBase64 = new String[4];
 
-		for (int i = 0; i < 4; i++) {
+		for (int i = 0; i < 4; i++)
 			imagenes[i] = Math.abs(alternativas.get(i).hashCode()) + ".jpg"; //$NON-NLS-1$
-			alternativasBase64[i] = imageToBase64(alternativas.get(i));
-		}
 
 		char solucion = (char) ('a' + alternativas.indexOf(problema
 				.alternativas().get(0)));
@@ -287,10 +310,10 @@ public class TraductorMoodleXML extends Traductor {
 		plantilla.set("urlB", imagenes[1]); //$NON-NLS-1$
 		plantilla.set("urlC", imagenes[2]); //$NON-NLS-1$
 		plantilla.set("urlD", imagenes[3]); //$NON-NLS-1$
-		plantilla.set("imagenA", alternativasBase64[0]); //$NON-NLS-1$
-		plantilla.set("imagenB", alternativasBase64[1]); //$NON-NLS-1$
-		plantilla.set("imagenC", alternativasBase64[2]); //$NON-NLS-1$
-		plantilla.set("imagenD", alternativasBase64[3]); //$NON-NLS-1$
+		plantilla.setImagen("imagenA", alternativas.get(0)); //$NON-NLS-1$
+		plantilla.setImagen("imagenB", alternativas.get(1)); //$NON-NLS-1$
+		plantilla.setImagen("imagenC", alternativas.get(2)); //$NON-NLS-1$
+		plantilla.setImagen("imagenD", alternativas.get(3)); //$NON-NLS-1$
 		plantilla.set("solucion", opcionesTransicion(solucion, opciones)); //$NON-NLS-1$
 
 		return plantilla;
@@ -323,7 +346,8 @@ public class TraductorMoodleXML extends Traductor {
 		fTrans.append("\n\t<th scope=\"col\"> </th>\n\t</tr>"); //$NON-NLS-1$
 
 		for (char estado : problema.estados()) {
-			fTrans.append("\n\t<tr>\n\t<td>" + estado + "</td>"); //$NON-NLS-1$
+			fTrans.append("\n\t<tr>\n\t<td>" + problema.etiqueta(estado)
+					+ "</td>"); //$NON-NLS-1$
 			for (char simbolo : problema.simbolos()) {
 				if (simbolo != '$') {
 					fTrans.append("\n\t<td>"); //$NON-NLS-1$
@@ -381,7 +405,8 @@ public class TraductorMoodleXML extends Traductor {
 		fTrans.append("\n\t<th scope=\"col\"> </th>\n\t</tr>"); //$NON-NLS-1$
 
 		for (char estado : problema.estados()) {
-			fTrans.append("\n\t<tr>\n\t<td>" + estado + "</td>"); //$NON-NLS-1$
+			fTrans.append("\n\t<tr>\n\t<td>" + problema.etiqueta(estado)
+					+ "</td>"); //$NON-NLS-1$
 			for (char simbolo : problema.simbolos()) {
 				if (simbolo != '$') {
 					fTrans.append("\n\t<td>"); //$NON-NLS-1$
@@ -405,7 +430,7 @@ public class TraductorMoodleXML extends Traductor {
 		eFinales.append(opcionesFinales(finales, problema.estados()));
 
 		plantilla.set("url", url); //$NON-NLS-1$
-		plantilla.set("imagen", imageToBase64(problema.automata())); //$NON-NLS-1$
+		plantilla.setImagen("imagen", problema.automata()); //$NON-NLS-1$
 		plantilla.set("transicion", fTrans.toString()); //$NON-NLS-1$
 		plantilla.set("finales", eFinales.toString()); //$NON-NLS-1$
 
@@ -444,31 +469,31 @@ public class TraductorMoodleXML extends Traductor {
 
 		StringBuilder opciones = new StringBuilder();
 		opciones.append("{1:MULTICHOICE:%100%"); //$NON-NLS-1$
-		opciones.append(solucion);
+		opciones.append(etiqueta(solucion));
 
 		int index;
 		if (similares.size() > 0) { // Opción similar 1
 			index = random.nextInt(similares.size());
 			opciones.append("~"); //$NON-NLS-1$
 			log.debug("Añadiendo opción {} (similar)", similares.get(index)); //$NON-NLS-1$
-			opciones.append(similares.remove(index));
+			opciones.append(etiqueta(similares.remove(index)));
 		}
 		if (similares.size() > 0) { // Opción similar 2
 			index = random.nextInt(similares.size());
 			opciones.append("~"); //$NON-NLS-1$
 			log.debug("Añadiendo opción {} (similar)", similares.get(index)); //$NON-NLS-1$
-			opciones.append(similares.remove(index));
+			opciones.append(etiqueta(similares.remove(index)));
 		}
 		if (diferentes.size() > 0) { // Opción diferente a ser posible
 			index = random.nextInt(diferentes.size());
 			opciones.append("~"); //$NON-NLS-1$
 			log.debug("Añadiendo opción {} (diferente)", diferentes.get(index)); //$NON-NLS-1$
-			opciones.append(diferentes.remove(index));
+			opciones.append(etiqueta(diferentes.remove(index)));
 		} else {
 			index = random.nextInt(similares.size());
 			opciones.append("~"); //$NON-NLS-1$
 			log.debug("Añadiendo opción {} (similar)", similares.get(index)); //$NON-NLS-1$
-			opciones.append(similares.remove(index));
+			opciones.append(etiqueta(similares.remove(index)));
 		}
 
 		opciones.append("}"); //$NON-NLS-1$
@@ -501,7 +526,7 @@ public class TraductorMoodleXML extends Traductor {
 
 		StringBuilder opciones = new StringBuilder();
 		opciones.append("{1:MULTICHOICE:%100%"); //$NON-NLS-1$
-		opciones.append(listToString(new ArrayList<>(solucion)));
+		opciones.append(listToString(etiquetas(new ArrayList<>(solucion))));
 
 		List<Character> complementarios = new ArrayList<>(estados);
 		complementarios.removeAll(solucion);
@@ -513,7 +538,7 @@ public class TraductorMoodleXML extends Traductor {
 			index = random.nextInt(conjunto.size());
 			conjunto.remove(index);
 			log.debug("Añadiendo opción {} (similar)", conjunto); //$NON-NLS-1$
-			opciones.append("~" + listToString(conjunto)); //$NON-NLS-1$ 
+			opciones.append("~" + listToString(etiquetas(conjunto))); //$NON-NLS-1$ 
 		}
 
 		// Opción similar 2 (aÃ±adimos un estado)
@@ -522,17 +547,43 @@ public class TraductorMoodleXML extends Traductor {
 			index = random.nextInt(complementarios.size());
 			conjunto.add(complementarios.get(index));
 			log.debug("Añadiendo opción {} (similar)", conjunto); //$NON-NLS-1$
-			opciones.append("~" + listToString(conjunto)); //$NON-NLS-1$ 
+			opciones.append("~" + listToString(etiquetas(conjunto))); //$NON-NLS-1$ 
 		}
 
 		// Opción diferente
 		log.debug("Añadiendo opción {} (diferente)", complementarios); //$NON-NLS-1$
-		opciones.append("~" + listToString(complementarios)); //$NON-NLS-1$ 
+		opciones.append("~" + listToString(etiquetas(complementarios))); //$NON-NLS-1$ 
 
 		opciones.append("}"); //$NON-NLS-1$
 		return opciones.toString();
 	}
 
+	/**
+	 * Devuelve la etiqueta con la que mostrar un estado, igual que en la tabla
+	 * de transición del problema.
+	 * 
+	 * @param estado
+	 *            Estado del que obtener la etiqueta.
+	 * @return Etiqueta del estado.
+	 */
+	private static String etiqueta(char estado) {
+		return MapaEstados.etiqueta(MapaEstados.indice(estado));
+	}
+
+	/**
+	 * Devuelve las etiquetas con las que mostrar una lista de estados.
+	 * 
+	 * @param estados
+	 *            Lista de estados.
+	 * @return Etiquetas de los estados, en el mismo orden.
+	 */
+	private static List<String> etiquetas(List<Character> estados) {
+		List<String> etiquetas = new ArrayList<>();
+		for (char estado : estados)
+			etiquetas.add(etiqueta(estado));
+		return etiquetas;
+	}
+
 	/**
 	 * Genera una lista de opciones para resolver el conjunto de posiciones, a
 	 * partir del conjunto de posiciones real y del conjunto total de posiciones
@@ -696,27 +747,4 @@ public class TraductorMoodleXML extends Traductor {
 		}
 		return out.toString();
 	}
-
-	/**
-	 * Convierte una imagen en una cadena representando a la misma en base 64.
-	 * 
-	 * @param imagen
-	 *            Imagen a convertir.
-	 * @return Cadena en base 64 representando la imagen dada.
-	 */
-	private String imageToBase64(BufferedImage imagen) {
-		String imagenBase64 = ""; //$NON-NLS-1$
-
-		try (ByteArrayOutputStream output = new ByteArrayOutputStream();) {
-			ImageIO.write(imagen, "JPG", output); //$NON-NLS-1$
-			byte[] imageBytes = output.toByteArray();
-
-			imagenBase64 = Base64.getEncoder().encodeToString(imageBytes);
-
-		} catch (IOException e) {
-			log.error("Error convirtiendo imagen a base 64", e); //$NON-NLS-1$
-		}
-
-		return imagenBase64;
-	}
 }
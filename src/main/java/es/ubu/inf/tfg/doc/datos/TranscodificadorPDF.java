@@ -0,0 +1,133 @@
+package es.ubu.inf.tfg.doc.datos;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.StringReader;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.stream.Stream;
+
+import org.apache.batik.transcoder.Transcoder;
+import org.apache.batik.transcoder.TranscoderException;
+import org.apache.batik.transcoder.TranscoderInput;
+import org.apache.batik.transcoder.TranscoderOutput;
+import org.apache.fop.svg.PDFTranscoder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * TranscodificadorPDF convierte imágenes SVG a PDF en memoria, leyendo el
+ * documento SVG directamente de una cadena en lugar de un fichero temporal.
+ * <p>
+ * Los <code>PDFTranscoder</code> no pueden utilizarse desde varios hilos a la
+ * vez, pero sí reutilizarse, por lo que se mantienen en una reserva común. Cada
+ * conversión toma uno libre, o crea uno nuevo si no hay ninguno, y lo devuelve
+ * al terminar, de forma que se crean como mucho tantos como conversiones
+ * simultáneas.
+ *
+ */
+public class TranscodificadorPDF {
+
+	private static final Logger log = LoggerFactory
+			.getLogger(TranscodificadorPDF.class);
+
+	private static final Queue<Transcoder> reserva = new ConcurrentLinkedQueue<>();
+
+	private static final String SVG_VACIO = "<svg"
+			+ " xmlns=\"http://www.w3.org/2000/svg\""
+			+ " width=\"1\" height=\"1\"/>";
+
+	private TranscodificadorPDF() {
+	}
+
+	/**
+	 * Convierte un documento SVG a PDF sobre un flujo de salida. El flujo de
+	 * salida no se cierra.
+	 *
+	 * @param svg
+	 *            Documento SVG a convertir.
+	 * @param salida
+	 *            Flujo en el que se escribe el documento PDF.
+	 * @throws IOException
+	 *             Indica un error durante la conversión o la escritura.
+	 */
+	public static void escribe(String svg, OutputStream salida)
+			throws IOException {
+		Transcoder transcoder = reserva.poll();
+		if (transcoder == null)
+			transcoder = new PDFTranscoder();
+
+		try {
+			transcoder.transcode(new TranscoderInput(new StringReader(svg)),
+					new TranscoderOutput(salida));
+		} catch (TranscoderException e) {
+			// Se descarta el transcoder por si ha quedado en mal estado
+			throw new IOException("Error convirtiendo la imagen a PDF.", e);
+		}
+		reserva.offer(transcoder);
+	}
+
+	/**
+	 * Convierte un documento SVG vacío para que la primera conversión real no
+	 * pague la carga de clases y fuentes de FOP, y deja el transcoder utilizado
+	 * en la reserva. Los errores se registran sin lanzar excepción.
+	 *
+	 * @return Si la conversión se ha realizado correctamente.
+	 */
+	public static boolean calienta() {
+		try {
+			escribe(SVG_VACIO, new ByteArrayOutputStream());
+			return true;
+		} catch (IOException e) {
+			log.warn("No se ha podido preparar la conversión de imágenes pdf", e);
+			return false;
+		}
+	}
+
+	/**
+	 * Convierte una serie de documentos SVG a PDF, guardando cada uno en su
+	 * fichero. Los errores en un documento se registran sin interrumpir la
+	 * conversión del resto.
+	 *
+	 * @param documentos
+	 *            Documentos SVG a convertir, indexados por el fichero en el que
+	 *            se guarda cada uno.
+	 * @param paralelo
+	 *            Si los documentos se convierten en paralelo.
+	 * @return Número de documentos guardados correctamente.
+	 */
+	public static int guarda(Map<File, String> documentos, boolean paralelo) {
+		Stream<Map.Entry<File, String>> entradas = paralelo ? documentos
+				.entrySet().parallelStream() : documentos.entrySet().stream();
+
+		return (int) entradas.filter(
+				entrada -> guarda(entrada.getKey(), entrada.getValue()))
+				.count();
+	}
+
+	/**
+	 * Convierte un documento SVG a PDF y lo guarda en un fichero. Los errores
+	 * se registran sin lanzar excepción.
+	 *
+	 * @param fichero
+	 *            Fichero en el que se guarda el documento PDF.
+	 * @param svg
+	 *            Documento SVG a convertir.
+	 * @return Si el documento se ha guardado correctamente.
+	 */
+	public static boolean guarda(File fichero, String svg) {
+		try (OutputStream salida = new BufferedOutputStream(
+				new FileOutputStream(fichero))) {
+			escribe(svg, salida);
+			return true;
+		} catch (IOException e) {
+			log.error("Encontrado error durante el guardado de imágenes pdf", e);
+			return false;
+		}
+	}
+}
@@ -3,14 +3,16 @@ package es.ubu.inf.tfg.regex.asu;
 import java.awt.image.BufferedImage;
 import java.io.StringReader;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
-import java.util.TreeSet;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import es.ubu.inf.tfg.regex.asu.datos.ConjuntoPosiciones;
 import es.ubu.inf.tfg.regex.asu.datos.MapaPosiciones;
 import es.ubu.inf.tfg.regex.asu.datos.Nodo;
 import es.ubu.inf.tfg.regex.datos.ExpresionRegular;
@@ -42,7 +44,10 @@ public class AhoSethiUllman {
 	private String problema;
 	private ExpresionRegular expresion;
 	private Nodo solucion;
+	private MapaPosiciones<Character> simbolos;
+	private MapaPosiciones<Integer> siguientePos;
 	private MapaPosiciones<Character> estados;
+	private Map<Set<Integer>, Integer> indiceEstados;
 	private MapaEstados transiciones;
 	private List<BufferedImage> alternativas;
 	private List<String> alternativasDot;
@@ -75,26 +80,7 @@ public class AhoSethiUllman {
 
 		this.solucion = new Nodo(this.expresion);
 
-		// calculo estados
-		this.estados = new MapaPosiciones<>();
-		this.transiciones = new MapaEstados();
-
-		this.estados.add('A', primeraPos());
-		char estadoActual = 'A';
-
-		// Mientras queden estados por rellenar
-		while (estados.keys().contains(estadoActual)) {
-			// Para cada símbolo no final
-			for (char simbolo : simbolos()) {
-				if (simbolo != '$') {
-					// Calculamos y almacenamos la transición
-					char destino = transicion(estadoActual, simbolo);
-					this.transiciones.add(estadoActual, simbolo, destino);
-				}
-			}
-			// Pasamos al siguiente estado, alfabéticamente
-			estadoActual++;
-		}
+		calculaEstados();
 	}
 
 	/**
@@ -113,25 +99,42 @@ public class AhoSethiUllman {
 
 		this.solucion = new Nodo(this.expresion);
 
-		// Calculo estados
+		calculaEstados();
+	}
+
+	/**
+	 * Calcula los estados del AFD y su tabla de transición a partir de la
+	 * solución del árbol. Cada conjunto de posiciones se registra en un índice
+	 * hash, de forma que comprobar si un estado ya existe no requiere recorrer
+	 * todos los estados anteriores.
+	 */
+	private void calculaEstados() {
+		this.simbolos = this.solucion.simbolos();
+		this.siguientePos = this.solucion.siguientePos();
+
 		this.estados = new MapaPosiciones<>();
+		this.indiceEstados = new HashMap<>();
 		this.transiciones = new MapaEstados();
 
-		this.estados.add('A', primeraPos());
-		char estadoActual = 'A';
-
-		// Mientras queden estados por rellenar
-		while (estados.keys().contains(estadoActual)) {
-			// Para cada símbolo no final
-			for (char simbolo : simbolos()) {
-				if (simbolo != '$') {
-					// Calculamos y almacenamos la transición
-					char destino = transicion(estadoActual, simbolo);
-					this.transiciones.add(estadoActual, simbolo, destino);
-				}
+		// Registramos los símbolos no finales en la tabla de transición
+		List<Character> simbolos = new ArrayList<>();
+		for (char simbolo : simbolos()) {
+			if (simbolo != '$') {
+				simbolos.add(simbolo);
+				this.transiciones.añadeSimbolo(simbolo);
+			}
+		}
+
+		this.estados.add(MapaEstados.estado(0), primeraPos());
+		this.indiceEstados.put(new ConjuntoPosiciones(primeraPos()), 0);
+
+		// Mientras queden estados por rellenar, en orden de creación
+		for (int actual = 0; actual < this.estados.size(); actual++) {
+			for (int i = 0; i < simbolos.size(); i++) {
+				// Calculamos y almacenamos la transición
+				int destino = transicion(actual, simbolos.get(i));
+				this.transiciones.add(actual, i, destino);
 			}
-			// Pasamos al siguiente estado, alfabéticamente
-			estadoActual++;
 		}
 	}
 
@@ -140,28 +143,28 @@ public class AhoSethiUllman {
 	 * concreto.
 	 * 
 	 * @param estado
-	 *            Estado de origen.
+	 *            Índice del estado de origen.
 	 * @param simbolo
 	 *            Símbolo de transición.
-	 * @return Estado de destino.
+	 * @return Índice del estado de destino.
 	 */
-	private char transicion(char estado, char simbolo) {
-		Set<Integer> posiciones = new TreeSet<>();
+	private int transicion(int estado, char simbolo) {
+		ConjuntoPosiciones posiciones = new ConjuntoPosiciones();
+		Set<Integer> origen = this.estados.get(MapaEstados.estado(estado));
 
 		for (int pos : posiciones(simbolo)) {
-			if (this.estados.get(estado).contains(pos))
+			if (origen.contains(pos))
 				posiciones.addAll(siguientePos(pos));
 		}
 
 		// Comprobar si existe el estado o crear uno nuevo.
-		for (char est : estados()) {
-			if (estado(est).equals(posiciones)) {
-				return est;
-			}
-		}
+		Integer existente = this.indiceEstados.get(posiciones);
+		if (existente != null)
+			return existente;
 
-		char est = (char) (this.estados.size() + 'A');
-		this.estados.add(est, posiciones);
+		int est = this.estados.size();
+		this.estados.add(MapaEstados.estado(est), posiciones);
+		this.indiceEstados.put(posiciones, est);
 		return est;
 	}
 
@@ -199,7 +202,7 @@ public class AhoSethiUllman {
 	 * @return Símbolos que utiliza la expresión regular.
 	 */
 	public Set<Character> simbolos() {
-		return this.solucion.simbolos().keys();
+		return this.simbolos.keys();
 	}
 
 	/**
@@ -211,7 +214,7 @@ public class AhoSethiUllman {
 	 * @return Conjunto de posiciones en las que encontramos el símbolo.
 	 */
 	public Set<Integer> posiciones(char simbolo) {
-		return this.solucion.simbolos().get(simbolo);
+		return this.simbolos.get(simbolo);
 	}
 
 	/**
@@ -221,7 +224,7 @@ public class AhoSethiUllman {
 	 * @return Conjunto de posiciones en la expresión regular.
 	 */
 	public Set<Integer> posiciones() {
-		return this.solucion.siguientePos().keys();
+		return this.siguientePos.keys();
 	}
 
 	/**
@@ -232,7 +235,7 @@ public class AhoSethiUllman {
 	 * @return Resultado de la función siguiente-pos para la posición dada.
 	 */
 	public Set<Integer> siguientePos(int n) {
-		return this.solucion.siguientePos().get(n);
+		return this.siguientePos.get(n);
 	}
 
 	/**
@@ -245,6 +248,27 @@ public class AhoSethiUllman {
 		return this.estados.keys();
 	}
 
+	/**
+	 * Devuelve el número de estados existentes en la tabla de transición.
+	 * 
+	 * @return Número de estados.
+	 */
+	public int numEstados() {
+		return this.estados.size();
+	}
+
+	/**
+	 * Devuelve la etiqueta con la que mostrar un estado. Coincide con el propio
+	 * estado para los 26 primeros, y utiliza varias letras a partir de ahí.
+	 * 
+	 * @param estado
+	 *            Estado del que obtener la etiqueta.
+	 * @return Etiqueta del estado.
+	 */
+	public String etiqueta(char estado) {
+		return MapaEstados.etiqueta(MapaEstados.indice(estado));
+	}
+
 	/**
 	 * Devuelve el conjunto de posiciones asociadas a un estado dado en la tabla
 	 * de transición.
@@ -388,7 +412,7 @@ public class AhoSethiUllman {
 	 * @return Array de cuatro imágenes representando árboles de expresión
 	 *         regular, una correspondiente al del problema y tres alternativas.
 	 */
-	public List<BufferedImage> alternativas() {
+	public synchronized List<BufferedImage> alternativas() {
 		if (this.alternativas == null) {
 			alternativas = new ArrayList<>();
 			
@@ -409,7 +433,7 @@ public class AhoSethiUllman {
 	 *         representando árboles de expresión regular, una correspondiente
 	 *         al del problema y tres alternativas.
 	 */
-	public List<String> alternativasDot() {
+	public synchronized List<String> alternativasDot() {
 		if (this.alternativasDot == null) {
 			alternativasDot = new ArrayList<>();
 			Nodo nodo;
@@ -1,5 +1,12 @@
 package es.ubu.inf.tfg.regex.asu;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
 import java.util.concurrent.atomic.AtomicBoolean;
 
 import org.slf4j.Logger;
@@ -15,6 +22,10 @@ import es.ubu.inf.tfg.regex.datos.Generador;
  * <p>
  * El generador no garantiza que los resultados se adapten perfectamente a los
  * parámetros de entrada.
+ * <p>
+ * Puede configurarse para lanzar varias búsquedas independientes en paralelo,
+ * que se detienen en cuanto una de ellas encuentra una solución exacta o se
+ * cancela el generador.
  * 
  * @author Roberto Izquierdo Amo
  * 
@@ -28,12 +39,60 @@ public class AhoSethiUllmanGenerador {
 	private static final int MAX_PROFUNDIDAD = 6;
 	private static final int MIN_PROFUNDIDAD = 3;
 
-	private Generador generador;
+	private final int busquedas;
+	private final ExecutorService ejecutor;
 	private AtomicBoolean cancelar = new AtomicBoolean();
 
+	/**
+	 * Construye un generador que realiza una única búsqueda en el hilo que lo
+	 * invoca.
+	 */
+	public AhoSethiUllmanGenerador() {
+		this(1);
+	}
+
+	/**
+	 * Construye un generador que realiza varias búsquedas independientes en
+	 * paralelo, utilizando el <code>ForkJoinPool</code> común.
+	 * 
+	 * @param busquedas
+	 *            Número de búsquedas independientes a realizar.
+	 * @throws IllegalArgumentException
+	 *             Si el número de búsquedas es menor que uno.
+	 */
+	public AhoSethiUllmanGenerador(int busquedas) {
+		this(busquedas, ForkJoinPool.commonPool());
+	}
+
+	/**
+	 * Construye un generador que realiza varias búsquedas independientes en
+	 * paralelo sobre el ejecutor dado. La primera búsqueda que encuentra una
+	 * solución exacta detiene al resto.
+	 * 
+	 * @param busquedas
+	 *            Número de búsquedas independientes a realizar.
+	 * @param ejecutor
+	 *            Ejecutor sobre el que lanzar las búsquedas.
+	 * @throws IllegalArgumentException
+	 *             Si el número de búsquedas es menor que uno.
+	 */
+	public AhoSethiUllmanGenerador(int busquedas, ExecutorService ejecutor) {
+		if (busquedas < 1)
+			throw new IllegalArgumentException(
+					"El número de búsquedas debe ser al menos uno.");
+		this.busquedas = busquedas;
+		this.ejecutor = ejecutor;
+	}
+
 	/**
 	 * Genera un nuevo problema de tipo AhoSethiUllman. Intentará acercarse lo
 	 * más posible al número de símbolos y de estados especificado.
+	 * <p>
+	 * Si el generador se construyó con varias búsquedas, estas se ejecutan en
+	 * paralelo y se devuelve el mejor de sus resultados. Si el hilo se
+	 * interrumpe durante la espera, las búsquedas se detienen en su iteración
+	 * actual y se devuelve el mejor de los resultados, manteniendo el hilo
+	 * interrumpido.
 	 * 
 	 * @param nSimbolos
 	 *            Número de símbolos que se quiere que el problema utilice.
@@ -46,44 +105,144 @@ public class AhoSethiUllmanGenerador {
 	 * @return Un nuevo problema de tipo AhoSethiUllman.
 	 */
 	public AhoSethiUllman nuevo(int nSimbolos, int nEstados, boolean usaVacio) {
+		return new AhoSethiUllman(nuevaExpresion(nSimbolos, nEstados, usaVacio));
+	}
+
+	/**
+	 * Busca la expresión regular de un nuevo problema de tipo AhoSethiUllman,
+	 * igual que {@link #nuevo(int, int, boolean) nuevo}, pero sin construir
+	 * el problema. Permite guardar la expresión encontrada y reconstruir el
+	 * problema más tarde.
+	 * 
+	 * @param nSimbolos
+	 *            Número de símbolos que se quiere que el problema utilice.
+	 * @param nEstados
+	 *            Número de estados que se quiere que contenga la tabla de
+	 *            transición del problema.
+	 * @param usaVacio
+	 *            Si queremos que el problema genere nodos vacíos. Su aparición
+	 *            no se garantiza.
+	 * @return Expresión regular aumentada del nuevo problema.
+	 */
+	public ExpresionRegular nuevaExpresion(int nSimbolos, int nEstados,
+			boolean usaVacio) {
 		log.info(
 				"Generando problema de Aho-Sethi-Ullman con {} símbolos y {} estados, vacíos = {}.",
 				nSimbolos, nEstados, usaVacio);
 
-		AhoSethiUllman candidato = null, actual = null;
+		AtomicBoolean encontrado = new AtomicBoolean();
+
+		if (this.busquedas == 1)
+			return busca(nSimbolos, nEstados, usaVacio, encontrado);
+
+		List<Future<ExpresionRegular>> resultados = new ArrayList<>();
+		for (int i = 0; i < this.busquedas; i++)
+			resultados.add(this.ejecutor.submit(() -> busca(nSimbolos,
+					nEstados, usaVacio, encontrado)));
+
+		ExpresionRegular candidato = null;
+		int evaluaCandidato = 0;
+		boolean interrumpido = false;
+		for (Future<ExpresionRegular> resultado : resultados) {
+			ExpresionRegular actual = null;
+			while (actual == null) {
+				try {
+					actual = resultado.get();
+				} catch (InterruptedException e) {
+					// Detenemos las búsquedas, que terminan en su iteración
+					// actual, y descartamos las que no han empezado
+					interrumpido = true;
+					encontrado.set(true);
+					for (Future<ExpresionRegular> pendiente : resultados)
+						pendiente.cancel(false);
+				} catch (CancellationException e) {
+					break;
+				} catch (ExecutionException e) {
+					encontrado.set(true);
+					if (e.getCause() instanceof RuntimeException)
+						throw (RuntimeException) e.getCause();
+					throw new IllegalStateException(e.getCause());
+				}
+			}
+			if (actual == null)
+				continue;
+
+			int evaluaActual = evalua(new AhoSethiUllmanMetricas(actual),
+					nEstados, nSimbolos);
+			if (candidato == null || evaluaActual < evaluaCandidato) {
+				candidato = actual;
+				evaluaCandidato = evaluaActual;
+			}
+		}
+
+		if (interrumpido)
+			Thread.currentThread().interrupt();
+
+		// Si ninguna búsqueda llegó a empezar, basta con una iteración
+		if (candidato == null)
+			candidato = busca(nSimbolos, nEstados, usaVacio, encontrado);
+
+		return candidato;
+	}
+
+	/**
+	 * Realiza una búsqueda aleatoria de un problema que se ajuste a los
+	 * parámetros pedidos. La búsqueda se detiene al alcanzar el máximo de
+	 * iteraciones, al encontrar una solución exacta, al cancelarse el
+	 * generador o al encontrar otra búsqueda paralela una solución exacta.
+	 * 
+	 * @param nSimbolos
+	 *            Número de símbolos que se quiere que el problema utilice.
+	 * @param nEstados
+	 *            Número de estados que se quiere que contenga la tabla de
+	 *            transición del problema.
+	 * @param usaVacio
+	 *            Si queremos que el problema genere nodos vacíos.
+	 * @param encontrado
+	 *            Indicador compartido entre búsquedas de que alguna ha
+	 *            encontrado ya una solución exacta.
+	 * @return Expresión del mejor problema encontrado en la búsqueda.
+	 */
+	private ExpresionRegular busca(int nSimbolos, int nEstados,
+			boolean usaVacio, AtomicBoolean encontrado) {
+		ExpresionRegular candidato = null, expresion;
+		AhoSethiUllmanMetricas actual;
 		int evaluaCandidato = 0, evaluaActual;
-		ExpresionRegular expresion;
 
 		int iteraciones = 0;
 		int profundidad = MIN_PROFUNDIDAD;
 
-		// Inicializa variables
-		generador = new Generador(nSimbolos, usaVacio, true);
+		// Inicializa variables; cada búsqueda necesita su propio generador
+		Generador generador = new Generador(nSimbolos, usaVacio, true);
 
 		do {
 			expresion = generador.arbol(profundidad);
-			actual = new AhoSethiUllman(expresion);
+			actual = new AhoSethiUllmanMetricas(expresion);
 			
 			evaluaActual = evalua(actual, nEstados, nSimbolos);
 			
 			if (candidato == null
 					||  (evaluaActual < evaluaCandidato)) {
-				candidato = actual;
+				candidato = expresion;
 				evaluaCandidato = evaluaActual;
 			}
 
 			// Modifica la profundidad
-			int dif = nEstados - actual.estados().size();
+			int dif = nEstados - actual.numEstados();
 			if (dif > 1 && profundidad < MAX_PROFUNDIDAD)
 				profundidad++;
 			else if (dif < 1 && profundidad > MIN_PROFUNDIDAD)
 				profundidad--;
 
 			iteraciones++;
-		} while (evalua(candidato, nEstados, nSimbolos) != 0
-				&& iteraciones < MAX_ITERACIONES);
+		} while (evaluaCandidato != 0 && iteraciones < MAX_ITERACIONES
+				&& !cancelar.get() && !encontrado.get());
+
+		if (evaluaCandidato == 0)
+			encontrado.set(true);
 
-		log.info("Solución encontrada en {} iteraciones.", iteraciones);
+		log.info("Solución encontrada en {} iteraciones (fitness {}).",
+				iteraciones, evaluaCandidato);
 
 		return candidato;
 	}
@@ -102,9 +261,10 @@ public class AhoSethiUllmanGenerador {
 	 *            Número de estados en el problema pedido.
 	 * @return Función de evaluación del problema.
 	 */
-	private int evalua(AhoSethiUllman problema, int nEstados, int nSimbolos) {
-		int diferenciaEstados = Math.abs(problema.estados().size() - nEstados);
-		int diferenciaSimbolos = Math.abs(problema.simbolos().size() - 1
+	private int evalua(AhoSethiUllmanMetricas problema, int nEstados,
+			int nSimbolos) {
+		int diferenciaEstados = Math.abs(problema.numEstados() - nEstados);
+		int diferenciaSimbolos = Math.abs(problema.numSimbolos() - 1
 				- nSimbolos);
 
 		return diferenciaEstados + diferenciaSimbolos;
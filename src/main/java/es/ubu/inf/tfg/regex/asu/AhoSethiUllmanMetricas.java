@@ -0,0 +1,234 @@
+package es.ubu.inf.tfg.regex.asu;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import es.ubu.inf.tfg.regex.asu.datos.ConjuntoPosiciones;
+import es.ubu.inf.tfg.regex.datos.ExpresionRegular;
+
+/**
+ * AhoSethiUllmanMetricas calcula únicamente las métricas de un problema de
+ * Aho-Sethi-Ullman que se necesitan para evaluarlo: el número de estados del
+ * AFD resultante y el número de símbolos utilizados. Está pensada para los
+ * generadores, que evalúan miles de candidatos y solo necesitan construir el
+ * problema completo para el candidato elegido.
+ * <p>
+ * A diferencia de AhoSethiUllman, no construye el árbol de Nodo ni ninguna de
+ * las estructuras de representación gráfica. Las funciones primera-pos,
+ * última-pos y siguiente-pos se calculan directamente sobre la expresión, y
+ * la tabla de transición se reduce a contar estados distintos. Los resultados
+ * coinciden con los de <code>estados().size()</code> y
+ * <code>simbolos().size()</code> de AhoSethiUllman.
+ *
+ */
+public class AhoSethiUllmanMetricas {
+
+	private final List<ConjuntoPosiciones> siguientePos;
+	private final Map<Character, ConjuntoPosiciones> posiciones;
+	private final int nEstados;
+
+	/**
+	 * Resultado parcial del recorrido de la expresión para un nodo.
+	 */
+	private static class Funciones {
+		private boolean anulable;
+		private ConjuntoPosiciones primeraPos;
+		private ConjuntoPosiciones ultimaPos;
+	}
+
+	/**
+	 * Calcula las métricas del problema definido por una expresión regular
+	 * aumentada.
+	 *
+	 * @param expresion
+	 *            Expresión regular aumentada.
+	 */
+	public AhoSethiUllmanMetricas(ExpresionRegular expresion) {
+		this.siguientePos = new ArrayList<>();
+		this.posiciones = new TreeMap<>();
+
+		Funciones raiz = calcula(expresion);
+		this.nEstados = cuentaEstados(raiz.primeraPos);
+	}
+
+	/**
+	 * Devuelve el número de estados de la tabla de transición del AFD.
+	 *
+	 * @return Número de estados.
+	 */
+	public int numEstados() {
+		return this.nEstados;
+	}
+
+	/**
+	 * Devuelve el número de símbolos distintos de la expresión, incluido el
+	 * símbolo final '$'.
+	 *
+	 * @return Número de símbolos.
+	 */
+	public int numSimbolos() {
+		return this.posiciones.size();
+	}
+
+	/**
+	 * Calcula de forma recursiva las funciones anulable, primera-pos y
+	 * última-pos de un nodo, y acumula siguiente-pos para sus posiciones.
+	 *
+	 * @param expresion
+	 *            Nodo de la expresión.
+	 * @return Funciones calculadas para el nodo.
+	 * @throws IllegalArgumentException
+	 *             En caso de que el nodo no pertenezca a ningún tipo conocido.
+	 */
+	private Funciones calcula(ExpresionRegular expresion) {
+		Funciones resultado = new Funciones();
+
+		if (expresion.esVacio()) {
+			resultado.anulable = true;
+			resultado.primeraPos = new ConjuntoPosiciones();
+			resultado.ultimaPos = resultado.primeraPos;
+
+		} else if (expresion.esSimbolo()) {
+			int posicion = expresion.posicion();
+			registra(posicion, expresion.simbolo());
+
+			resultado.anulable = false;
+			resultado.primeraPos = new ConjuntoPosiciones();
+			resultado.primeraPos.add(posicion);
+			resultado.ultimaPos = resultado.primeraPos;
+
+		} else if (expresion.esCierre()) {
+			Funciones hijo = calcula(expresion.hijoIzquierdo());
+			añadeSiguientePos(hijo.ultimaPos, hijo.primeraPos);
+
+			resultado.anulable = true;
+			resultado.primeraPos = hijo.primeraPos;
+			resultado.ultimaPos = hijo.ultimaPos;
+
+		} else if (expresion.esConcat()) {
+			Funciones izquierdo = calcula(expresion.hijoIzquierdo());
+			Funciones derecho = calcula(expresion.hijoDerecho());
+			añadeSiguientePos(izquierdo.ultimaPos, derecho.primeraPos);
+
+			resultado.anulable = izquierdo.anulable && derecho.anulable;
+			resultado.primeraPos = izquierdo.primeraPos;
+			if (izquierdo.anulable)
+				resultado.primeraPos = union(izquierdo.primeraPos,
+						derecho.primeraPos);
+			resultado.ultimaPos = derecho.ultimaPos;
+			if (derecho.anulable)
+				resultado.ultimaPos = union(derecho.ultimaPos,
+						izquierdo.ultimaPos);
+
+		} else if (expresion.esUnion()) {
+			Funciones izquierdo = calcula(expresion.hijoIzquierdo());
+			Funciones derecho = calcula(expresion.hijoDerecho());
+
+			resultado.anulable = izquierdo.anulable || derecho.anulable;
+			resultado.primeraPos = union(izquierdo.primeraPos,
+					derecho.primeraPos);
+			resultado.ultimaPos = union(izquierdo.ultimaPos, derecho.ultimaPos);
+
+		} else {
+			throw new IllegalArgumentException(
+					"Expresión regular de tipo desconocido.");
+		}
+
+		return resultado;
+	}
+
+	/**
+	 * Cuenta los estados del AFD, siguiendo el mismo algoritmo que
+	 * AhoSethiUllman pero sin almacenar la tabla de transición.
+	 *
+	 * @param inicial
+	 *            Conjunto de posiciones del estado inicial.
+	 * @return Número de estados.
+	 */
+	private int cuentaEstados(ConjuntoPosiciones inicial) {
+		List<ConjuntoPosiciones> estados = new ArrayList<>();
+		Map<ConjuntoPosiciones, Integer> indice = new HashMap<>();
+		estados.add(inicial);
+		indice.put(inicial, 0);
+
+		for (int actual = 0; actual < estados.size(); actual++) {
+			ConjuntoPosiciones estado = estados.get(actual);
+			for (Map.Entry<Character, ConjuntoPosiciones> simbolo : this.posiciones
+					.entrySet()) {
+				if (simbolo.getKey() == '$')
+					continue;
+
+				ConjuntoPosiciones destino = new ConjuntoPosiciones();
+				ConjuntoPosiciones posiciones = simbolo.getValue();
+				for (int i = posiciones.siguiente(0); i >= 0; i = posiciones
+						.siguiente(i + 1)) {
+					if (estado.contains(i))
+						destino.addAll(this.siguientePos.get(i));
+				}
+
+				if (!indice.containsKey(destino)) {
+					indice.put(destino, estados.size());
+					estados.add(destino);
+				}
+			}
+		}
+
+		return estados.size();
+	}
+
+	/**
+	 * Añade un conjunto de posiciones a la función siguiente-pos de cada una
+	 * de las posiciones de otro conjunto.
+	 *
+	 * @param origen
+	 *            Posiciones cuya siguiente-pos se amplía.
+	 * @param posiciones
+	 *            Posiciones a añadir.
+	 */
+	private void añadeSiguientePos(ConjuntoPosiciones origen,
+			ConjuntoPosiciones posiciones) {
+		for (int i = origen.siguiente(0); i >= 0; i = origen.siguiente(i + 1))
+			this.siguientePos.get(i).addAll(posiciones);
+	}
+
+	/**
+	 * Registra el símbolo que ocupa una posición de la expresión. Una misma
+	 * posición puede quedar asociada a más de un símbolo, como ocurre en
+	 * AhoSethiUllman.
+	 *
+	 * @param posicion
+	 *            Posición del símbolo.
+	 * @param simbolo
+	 *            Símbolo en dicha posición.
+	 */
+	private void registra(int posicion, char simbolo) {
+		while (this.siguientePos.size() <= posicion)
+			this.siguientePos.add(new ConjuntoPosiciones());
+
+		ConjuntoPosiciones posiciones = this.posiciones.get(simbolo);
+		if (posiciones == null) {
+			posiciones = new ConjuntoPosiciones();
+			this.posiciones.put(simbolo, posiciones);
+		}
+		posiciones.add(posicion);
+	}
+
+	/**
+	 * Calcula la unión de dos conjuntos de posiciones sin modificarlos.
+	 *
+	 * @param a
+	 *            Primer conjunto.
+	 * @param b
+	 *            Segundo conjunto.
+	 * @return Unión de ambos conjuntos.
+	 */
+	private static ConjuntoPosiciones union(ConjuntoPosiciones a,
+			ConjuntoPosiciones b) {
+		ConjuntoPosiciones union = new ConjuntoPosiciones(a);
+		union.addAll(b);
+		return union;
+	}
+}
@@ -0,0 +1,330 @@
+package es.ubu.inf.tfg.regex.asu.datos;
+
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * ConjuntoPosiciones implementa un conjunto de posiciones enteras no negativas
+ * respaldado por un mapa de bits (<code>long[]</code>). Sustituye a los
+ * <code>TreeSet&lt;Integer&gt;</code> utilizados en el cálculo de las funciones
+ * primera-pos, última-pos y siguiente-pos, de forma que la unión de conjuntos
+ * se reduce a operaciones OR palabra a palabra y no se crean objetos
+ * <code>Integer</code> al almacenar posiciones.
+ * <p>
+ * El conjunto se recorre siempre en orden ascendente, y sus métodos
+ * <code>equals</code> y <code>hashCode</code> son compatibles con los de
+ * cualquier otro <code>Set&lt;Integer&gt;</code>, por lo que puede compararse
+ * directamente con un <code>TreeSet</code>.
+ * <p>
+ * Las modificaciones solo pueden realizarse a través de los métodos
+ * {@link #add(int) add} y {@link #addAll(Set) addAll}. Para compartir el
+ * conjunto sin necesidad de copiarlo se utiliza {@link #vista() vista}, que
+ * devuelve una vista de solo lectura del mismo.
+ *
+ */
+public class ConjuntoPosiciones extends AbstractSet<Integer> {
+
+	private static final long[] SIN_PALABRAS = new long[0];
+
+	/**
+	 * Vista de solo lectura del conjunto vacío, compartida por todos aquellos
+	 * métodos que necesitan devolver un conjunto sin posiciones.
+	 */
+	public static final Set<Integer> VACIO = new ConjuntoPosiciones().vista();
+
+	private long[] palabras;
+
+	/**
+	 * Construye un conjunto de posiciones vacío.
+	 */
+	public ConjuntoPosiciones() {
+		this.palabras = SIN_PALABRAS;
+	}
+
+	/**
+	 * Construye un conjunto de posiciones con el mismo contenido que el
+	 * conjunto dado. Si el conjunto original es también un ConjuntoPosiciones
+	 * (o una vista de uno), la copia se realiza palabra a palabra.
+	 *
+	 * @param posiciones
+	 *            Conjunto de posiciones original.
+	 */
+	public ConjuntoPosiciones(Set<Integer> posiciones) {
+		this.palabras = SIN_PALABRAS;
+		addAll(posiciones);
+	}
+
+	/**
+	 * Añade una posición al conjunto.
+	 *
+	 * @param posicion
+	 *            Posición a añadir.
+	 * @return <code>true</code> si la posición no estaba ya en el conjunto.
+	 * @throws IllegalArgumentException
+	 *             Si la posición es negativa.
+	 */
+	public boolean add(int posicion) {
+		if (posicion < 0)
+			throw new IllegalArgumentException(
+					"Las posiciones no pueden ser negativas.");
+
+		int palabra = posicion >>> 6;
+		asegura(palabra + 1);
+
+		long mascara = 1L << posicion;
+		boolean nueva = (this.palabras[palabra] & mascara) == 0;
+		this.palabras[palabra] |= mascara;
+		return nueva;
+	}
+
+	@Override
+	public boolean add(Integer posicion) {
+		return add(posicion.intValue());
+	}
+
+	/**
+	 * Añade todas las posiciones de un conjunto dado a este. Si el conjunto es
+	 * un ConjuntoPosiciones, o una vista de uno, la unión se realiza mediante
+	 * operaciones OR palabra a palabra.
+	 *
+	 * @param posiciones
+	 *            Conjunto de posiciones a añadir.
+	 * @return <code>true</code> si el conjunto ha cambiado.
+	 */
+	public boolean addAll(Set<Integer> posiciones) {
+		ConjuntoPosiciones otro = de(posiciones);
+		if (otro == null)
+			return super.addAll(posiciones);
+
+		long[] otras = otro.palabras;
+		asegura(otras.length);
+
+		boolean cambia = false;
+		for (int i = 0; i < otras.length; i++) {
+			long anterior = this.palabras[i];
+			this.palabras[i] = anterior | otras[i];
+			cambia = cambia || this.palabras[i] != anterior;
+		}
+		return cambia;
+	}
+
+	@Override
+	public boolean contains(Object o) {
+		if (!(o instanceof Integer))
+			return false;
+		return contains(((Integer) o).intValue());
+	}
+
+	/**
+	 * Comprueba si una posición pertenece al conjunto.
+	 *
+	 * @param posicion
+	 *            Posición a comprobar.
+	 * @return <code>true</code> si la posición está en el conjunto,
+	 *         <code>false</code> si no.
+	 */
+	public boolean contains(int posicion) {
+		if (posicion < 0)
+			return false;
+		int palabra = posicion >>> 6;
+		return palabra < this.palabras.length
+				&& (this.palabras[palabra] & (1L << posicion)) != 0;
+	}
+
+	/**
+	 * Comprueba si este conjunto comparte alguna posición con otro.
+	 *
+	 * @param otro
+	 *            Conjunto con el que comparar.
+	 * @return <code>true</code> si la intersección no es vacía.
+	 */
+	public boolean intersecta(ConjuntoPosiciones otro) {
+		int n = Math.min(this.palabras.length, otro.palabras.length);
+		for (int i = 0; i < n; i++) {
+			if ((this.palabras[i] & otro.palabras[i]) != 0)
+				return true;
+		}
+		return false;
+	}
+
+	@Override
+	public int size() {
+		int size = 0;
+		for (long palabra : this.palabras)
+			size += Long.bitCount(palabra);
+		return size;
+	}
+
+	@Override
+	public boolean isEmpty() {
+		for (long palabra : this.palabras) {
+			if (palabra != 0)
+				return false;
+		}
+		return true;
+	}
+
+	@Override
+	public Iterator<Integer> iterator() {
+		return new Iterator<Integer>() {
+			private int siguiente = siguiente(0);
+
+			@Override
+			public boolean hasNext() {
+				return siguiente >= 0;
+			}
+
+			@Override
+			public Integer next() {
+				if (siguiente < 0)
+					throw new NoSuchElementException();
+				int actual = siguiente;
+				siguiente = siguiente(actual + 1);
+				return actual;
+			}
+		};
+	}
+
+	/**
+	 * Devuelve la primera posición del conjunto mayor o igual que la dada, o
+	 * -1 si no existe ninguna.
+	 *
+	 * @param desde
+	 *            Posición desde la que buscar.
+	 * @return Siguiente posición del conjunto, o -1.
+	 */
+	public int siguiente(int desde) {
+		int palabra = desde >>> 6;
+		if (palabra >= this.palabras.length)
+			return -1;
+
+		long bits = this.palabras[palabra] & (-1L << desde);
+		while (true) {
+			if (bits != 0)
+				return (palabra << 6) + Long.numberOfTrailingZeros(bits);
+			if (++palabra == this.palabras.length)
+				return -1;
+			bits = this.palabras[palabra];
+		}
+	}
+
+	/**
+	 * Devuelve una vista de solo lectura de este conjunto. La vista refleja los
+	 * cambios posteriores del conjunto, pero no permite modificarlo.
+	 *
+	 * @return Vista inmutable del conjunto.
+	 */
+	public Set<Integer> vista() {
+		return new Vista(this);
+	}
+
+	@Override
+	public boolean equals(Object o) {
+		if (o == this)
+			return true;
+
+		ConjuntoPosiciones otro = o instanceof Set<?> ? de((Set<?>) o) : null;
+		if (otro == null)
+			return super.equals(o);
+
+		long[] cortas = this.palabras, largas = otro.palabras;
+		if (cortas.length > largas.length) {
+			cortas = otro.palabras;
+			largas = this.palabras;
+		}
+		for (int i = 0; i < cortas.length; i++) {
+			if (cortas[i] != largas[i])
+				return false;
+		}
+		for (int i = cortas.length; i < largas.length; i++) {
+			if (largas[i] != 0)
+				return false;
+		}
+		return true;
+	}
+
+	@Override
+	public int hashCode() {
+		// Compatible con Set.hashCode: suma de las posiciones contenidas.
+		int hash = 0;
+		for (int i = siguiente(0); i >= 0; i = siguiente(i + 1))
+			hash += i;
+		return hash;
+	}
+
+	/**
+	 * Garantiza que el array de palabras tiene al menos la longitud dada.
+	 *
+	 * @param longitud
+	 *            Número mínimo de palabras.
+	 */
+	private void asegura(int longitud) {
+		if (this.palabras.length < longitud)
+			this.palabras = Arrays.copyOf(this.palabras,
+					Math.max(longitud, this.palabras.length * 2));
+	}
+
+	/**
+	 * Obtiene el ConjuntoPosiciones que respalda a un conjunto dado, si lo
+	 * hay.
+	 *
+	 * @param posiciones
+	 *            Conjunto de posiciones.
+	 * @return ConjuntoPosiciones subyacente, o <code>null</code> si el
+	 *         conjunto es de otro tipo.
+	 */
+	static ConjuntoPosiciones de(Set<?> posiciones) {
+		if (posiciones instanceof ConjuntoPosiciones)
+			return (ConjuntoPosiciones) posiciones;
+		if (posiciones instanceof Vista)
+			return ((Vista) posiciones).conjunto;
+		return null;
+	}
+
+	/**
+	 * Vista de solo lectura de un ConjuntoPosiciones. Delega todas las
+	 * operaciones de consulta en el conjunto original, y lanza
+	 * <code>UnsupportedOperationException</code> ante cualquier intento de
+	 * modificación.
+	 */
+	private static class Vista extends AbstractSet<Integer> {
+		private final ConjuntoPosiciones conjunto;
+
+		private Vista(ConjuntoPosiciones conjunto) {
+			this.conjunto = conjunto;
+		}
+
+		@Override
+		public boolean contains(Object o) {
+			return conjunto.contains(o);
+		}
+
+		@Override
+		public int size() {
+			return conjunto.size();
+		}
+
+		@Override
+		public boolean isEmpty() {
+			return conjunto.isEmpty();
+		}
+
+		@Override
+		public Iterator<Integer> iterator() {
+			return conjunto.iterator();
+		}
+
+		@Override
+		public boolean equals(Object o) {
+			return conjunto.equals(o);
+		}
+
+		@Override
+		public int hashCode() {
+			return conjunto.hashCode();
+		}
+	}
+}
@@ -14,9 +14,9 @@ import java.util.TreeSet;
  * <p>
  * La única manera de modificar la información de un MapaPosiciones es a través
  * de los métodos {@link #add(E) add}, {@link #add(E, int) add}, {@link #add(E,
- * Set<Integer>) add} y {@link #add(Set<E>, Set<Integer>) add}. La información
- * obtenida no es nunca una referencia directa al elemento almacenado, sino una
- * copia.
+ * Set<Integer>) add} y {@link #add(Set<E>, Set<Integer>) add}. Los conjuntos de
+ * posiciones se almacenan como {@link ConjuntoPosiciones}, y se devuelven como
+ * vistas de solo lectura en lugar de como copias.
  * <p>
  * La clase provee métodos estáticos que permiten realizar operaciones de unión
  * y copia sobre instancias de esta clase.
@@ -29,7 +29,7 @@ import java.util.TreeSet;
  *            (diccionario de símbolos).
  */
 public class MapaPosiciones<E> {
-	private Map<E, Set<Integer>> mapaPosiciones;
+	private Map<E, ConjuntoPosiciones> mapaPosiciones;
 
 	/**
 	 * Construye un mapa que asigna un conjunto de posiciones a una clave de un
@@ -48,7 +48,7 @@ public class MapaPosiciones<E> {
 	 */
 	public void add(E n) {
 		if (!this.mapaPosiciones.containsKey(n))
-			this.mapaPosiciones.put(n, new TreeSet<Integer>());
+			this.mapaPosiciones.put(n, new ConjuntoPosiciones());
 	}
 
 	/**
@@ -64,7 +64,7 @@ public class MapaPosiciones<E> {
 		if (this.mapaPosiciones.containsKey(n)) {
 			this.mapaPosiciones.get(n).add(posicion);
 		} else {
-			Set<Integer> posiciones = new TreeSet<>();
+			ConjuntoPosiciones posiciones = new ConjuntoPosiciones();
 			posiciones.add(posicion);
 			this.mapaPosiciones.put(n, posiciones);
 		}
@@ -81,10 +81,11 @@ public class MapaPosiciones<E> {
 	 *            Posiciones a añadir.
 	 */
 	public void add(E n, Set<Integer> posiciones) {
-		if (this.mapaPosiciones.containsKey(n))
-			this.mapaPosiciones.get(n).addAll(posiciones);
+		ConjuntoPosiciones actuales = this.mapaPosiciones.get(n);
+		if (actuales != null)
+			actuales.addAll(posiciones);
 		else
-			this.mapaPosiciones.put(n, new TreeSet<>(posiciones));
+			this.mapaPosiciones.put(n, new ConjuntoPosiciones(posiciones));
 	}
 
 	/**
@@ -112,18 +113,20 @@ public class MapaPosiciones<E> {
 	}
 
 	/**
-	 * Devuelve una copia del conjunto de posiciones asociado a una determinada
-	 * clave. Si la clave no existe, se devuelve el conjunto vacío.
+	 * Devuelve una vista de solo lectura del conjunto de posiciones asociado a
+	 * una determinada clave. Si la clave no existe, se devuelve el conjunto
+	 * vacío.
 	 * 
 	 * @param key
 	 *            Clave que buscar.
 	 * @return Conjunto de posiciones asociado.
 	 */
 	public Set<Integer> get(E key) {
-		if (this.mapaPosiciones.containsKey(key))
-			return new TreeSet<Integer>(this.mapaPosiciones.get(key));
+		ConjuntoPosiciones posiciones = this.mapaPosiciones.get(key);
+		if (posiciones != null)
+			return posiciones.vista();
 		else
-			return new TreeSet<Integer>();
+			return ConjuntoPosiciones.VACIO;
 	}
 
 	/**
@@ -151,10 +154,10 @@ public class MapaPosiciones<E> {
 			MapaPosiciones<E> b) {
 		MapaPosiciones<E> resultado = new MapaPosiciones<>();
 
-		for (Entry<E, Set<Integer>> e : a.mapaPosiciones.entrySet())
+		for (Entry<E, ConjuntoPosiciones> e : a.mapaPosiciones.entrySet())
 			resultado.add(e.getKey(), e.getValue());
 
-		for (Entry<E, Set<Integer>> e : b.mapaPosiciones.entrySet())
+		for (Entry<E, ConjuntoPosiciones> e : b.mapaPosiciones.entrySet())
 			resultado.add(e.getKey(), e.getValue());
 
 		return resultado;
@@ -172,7 +175,7 @@ public class MapaPosiciones<E> {
 	public static <E> MapaPosiciones<E> copia(MapaPosiciones<E> original) {
 		MapaPosiciones<E> resultado = new MapaPosiciones<>();
 
-		for (Entry<E, Set<Integer>> e : original.mapaPosiciones.entrySet())
+		for (Entry<E, ConjuntoPosiciones> e : original.mapaPosiciones.entrySet())
 			resultado.add(e.getKey(), e.getValue());
 
 		return resultado;
@@ -191,7 +194,7 @@ public class MapaPosiciones<E> {
 		if (size() != ((MapaPosiciones<E>) o).size())
 			return false;
 
-		for (Entry<E, Set<Integer>> e : this.mapaPosiciones.entrySet()) {
+		for (Entry<E, ConjuntoPosiciones> e : this.mapaPosiciones.entrySet()) {
 			if (!(e.getValue().equals(((MapaPosiciones<E>) o).get(e.getKey()))))
 				return false;
 		}
@@ -2,6 +2,7 @@ package es.ubu.inf.tfg.regex.asu.datos;
 
 import java.awt.Color;
 import java.awt.image.BufferedImage;
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
@@ -9,10 +10,12 @@ import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
 import java.util.TreeMap;
-import java.util.TreeSet;
 
 import javax.swing.SwingConstants;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
 import com.mxgraph.layout.mxParallelEdgeLayout;
 import com.mxgraph.layout.hierarchical.mxHierarchicalLayout;
 import com.mxgraph.swing.mxGraphComponent;
@@ -20,6 +23,10 @@ import com.mxgraph.util.mxCellRenderer;
 import com.mxgraph.util.mxXmlUtils;
 import com.mxgraph.view.mxGraph;
 
+import es.ubu.inf.tfg.regex.datos.CacheImagenes;
+import es.ubu.inf.tfg.regex.datos.EscritorSvg;
+import es.ubu.inf.tfg.regex.datos.Lienzo;
+import es.ubu.inf.tfg.regex.datos.LienzoImagen;
 import es.ubu.inf.tfg.regex.datos.ExpresionRegular;
 
 /**
@@ -41,14 +48,21 @@ import es.ubu.inf.tfg.regex.datos.ExpresionRegular;
  */
 public class Nodo {
 
+	private static final Logger log = LoggerFactory.getLogger(Nodo.class);
+
+	// Dimensiones de la representación SVG
+	private static final double RADIO_SVG = 18;
+	private static final double SEPARACION_SVG = 48;
+	private static final double NIVEL_SVG = 64;
+
 	private final ExpresionRegular expresion;
 	private final Nodo hijoIzquierdo;
 	private final Nodo hijoDerecho;
 
 	private boolean esAnulable;
-	private Set<Integer> primeraPos;
+	private ConjuntoPosiciones primeraPos;
 	private Map<Character, Set<Integer>> primerasPos;
-	private Set<Integer> ultimaPos;
+	private ConjuntoPosiciones ultimaPos;
 	private Map<Character, Set<Integer>> ultimasPos;
 	// private Map<Character, String> tipos;
 	private Map<Character, Boolean> anulables;
@@ -63,11 +77,21 @@ public class Nodo {
 	//TikZ
 	private String tipo;
 	private char simb;
-	public static int letra = 0;
-	public static int pos = 0;
-	public static Map<String, Integer> leavePos = new HashMap<String, Integer>();
-	public static Map<String, String> annotationsPripos = new HashMap<String, String>();
-	public static Map<String, String> annotationsUltpos = new HashMap<String, String>();
+
+	/**
+	 * ContextoTikZ almacena el estado de una única generación de la imagen
+	 * TikZ del árbol: la siguiente letra y posición a asignar, y las
+	 * anotaciones de cada nodo. Al crearse uno nuevo en cada llamada a
+	 * {@link Nodo#imagenTikZ() imagenTikZ}, varios árboles pueden dibujarse
+	 * a la vez desde distintos hilos.
+	 */
+	private static class ContextoTikZ {
+		private int letra = 0;
+		private int pos = 0;
+		private Map<String, Integer> leavePos = new HashMap<String, Integer>();
+		private Map<String, String> annotationsPripos = new HashMap<String, String>();
+		private Map<String, String> annotationsUltpos = new HashMap<String, String>();
+	}
 
 	/**
 	 * Calcula los atributos de un nodo ExpresionRegular a partir de los de sus
@@ -87,8 +111,8 @@ public class Nodo {
 			this.hijoDerecho = null;
 
 			this.esAnulable = true;
-			this.primeraPos = new TreeSet<Integer>();
-			this.ultimaPos = new TreeSet<Integer>();
+			this.primeraPos = new ConjuntoPosiciones();
+			this.ultimaPos = new ConjuntoPosiciones();
 			this.simbolos = new MapaPosiciones<>();
 			this.siguientePos = new MapaPosiciones<>();
 			
@@ -101,9 +125,9 @@ public class Nodo {
 			this.hijoDerecho = null;
 
 			this.esAnulable = false;
-			this.primeraPos = new TreeSet<Integer>();
+			this.primeraPos = new ConjuntoPosiciones();
 			this.primeraPos.add(expresion.posicion());
-			this.ultimaPos = new TreeSet<Integer>(this.primeraPos);
+			this.ultimaPos = new ConjuntoPosiciones(this.primeraPos);
 			this.simbolos = new MapaPosiciones<>();
 			this.simbolos.add(expresion.simbolo(), expresion.posicion());
 			this.siguientePos = new MapaPosiciones<>();
@@ -119,11 +143,11 @@ public class Nodo {
 			this.hijoDerecho = null;
 
 			this.esAnulable = true;
-			this.primeraPos = this.hijoIzquierdo.primeraPos();
-			this.ultimaPos = this.hijoIzquierdo.ultimaPos();
+			this.primeraPos = new ConjuntoPosiciones(this.hijoIzquierdo.primeraPos);
+			this.ultimaPos = new ConjuntoPosiciones(this.hijoIzquierdo.ultimaPos);
 			this.simbolos = this.hijoIzquierdo.simbolos();
 			this.siguientePos = this.hijoIzquierdo.siguientePos();
-			this.siguientePos.add(this.hijoIzquierdo.ultimaPos(), this.hijoIzquierdo.primeraPos());
+			this.siguientePos.add(this.hijoIzquierdo.ultimaPos, this.hijoIzquierdo.primeraPos);
 			
 			//TikZ
 			this.tipo = "AST";
@@ -134,19 +158,19 @@ public class Nodo {
 
 			this.esAnulable = this.hijoIzquierdo.esAnulable()
 					&& this.hijoDerecho.esAnulable();
-			this.primeraPos = this.hijoIzquierdo.primeraPos();
+			this.primeraPos = new ConjuntoPosiciones(this.hijoIzquierdo.primeraPos);
 			if (this.hijoIzquierdo.esAnulable())
-				this.primeraPos.addAll(this.hijoDerecho.primeraPos());
-			this.ultimaPos = this.hijoDerecho.ultimaPos();
+				this.primeraPos.addAll(this.hijoDerecho.primeraPos);
+			this.ultimaPos = new ConjuntoPosiciones(this.hijoDerecho.ultimaPos);
 			if (this.hijoDerecho.esAnulable())
-				this.ultimaPos.addAll(this.hijoIzquierdo.ultimaPos());
+				this.ultimaPos.addAll(this.hijoIzquierdo.ultimaPos);
 			this.simbolos = MapaPosiciones.union(this.hijoIzquierdo.simbolos(),
 					this.hijoDerecho.simbolos());
 			this.siguientePos = MapaPosiciones.union(
 					this.hijoDerecho.siguientePos(),
 					this.hijoIzquierdo.siguientePos());
-			this.siguientePos.add(this.hijoIzquierdo.ultimaPos(),
-					this.hijoDerecho.primeraPos());
+			this.siguientePos.add(this.hijoIzquierdo.ultimaPos,
+					this.hijoDerecho.primeraPos);
 			
 			//TikZ
 			this.tipo = "CAT";
@@ -157,10 +181,10 @@ public class Nodo {
 
 			this.esAnulable = this.hijoIzquierdo.esAnulable()
 					|| this.hijoDerecho.esAnulable();
-			this.primeraPos = this.hijoDerecho.primeraPos();
-			this.primeraPos.addAll(this.hijoIzquierdo.primeraPos());
-			this.ultimaPos = this.hijoDerecho.ultimaPos();
-			this.ultimaPos.addAll(this.hijoIzquierdo.ultimaPos());
+			this.primeraPos = new ConjuntoPosiciones(this.hijoDerecho.primeraPos);
+			this.primeraPos.addAll(this.hijoIzquierdo.primeraPos);
+			this.ultimaPos = new ConjuntoPosiciones(this.hijoDerecho.ultimaPos);
+			this.ultimaPos.addAll(this.hijoIzquierdo.ultimaPos);
 			this.simbolos = MapaPosiciones.union(this.hijoIzquierdo.simbolos(),
 					this.hijoDerecho.simbolos());
 			this.siguientePos = MapaPosiciones.union(
@@ -239,12 +263,13 @@ public class Nodo {
 	}
 
 	/**
-	 * Obtiene el conjunto de posiciones que definen la primera-pos del nodo.
+	 * Obtiene el conjunto de posiciones que definen la primera-pos del nodo. El
+	 * conjunto devuelto es una vista de solo lectura.
 	 * 
 	 * @return primera-pos del nodo.
 	 */
 	public Set<Integer> primeraPos() {
-		return new TreeSet<>(this.primeraPos);
+		return this.primeraPos.vista();
 	}
 
 	/**
@@ -261,12 +286,13 @@ public class Nodo {
 	}
 
 	/**
-	 * Obtiene el conjunto de posiciones que definen la última-pos del nodo.
+	 * Obtiene el conjunto de posiciones que definen la última-pos del nodo. El
+	 * conjunto devuelto es una vista de solo lectura.
 	 * 
 	 * @return última-pos del nodo.
 	 */
 	public Set<Integer> ultimaPos() {
-		return new TreeSet<>(this.ultimaPos);
+		return this.ultimaPos.vista();
 	}
 
 	/**
@@ -322,97 +348,15 @@ public class Nodo {
 	 * 
 	 * @return Imagen conteniendo el árbol que representa a la expresión.
 	 */
-	public BufferedImage imagen() {
+	public synchronized BufferedImage imagen() {
 		if (this.imagen == null) {
-			mxGraph graph = new mxGraph();
-			Object parent = graph.getDefaultParent();
-			Map<Nodo, Object> gNodos = new HashMap<>();
-			Nodo actual;
-			Object gNodo, gActual;
-			List<Nodo> siguientes = new ArrayList<>();
-			boolean tieneHijoIzquierdo, tieneHijoDerecho;
-			char actualLetra = 'A';
-
-			String estiloVertex = "shape=ellipse;fillColor=white;strokeColor=black;fontColor=black;";
-			String estiloEdge = "strokeColor=black;fontColor=black;labelBackgroundColor=white;endArrow=open;";
-
-			graph.getModel().beginUpdate();
 			try {
-				siguientes.add(this);
-
-				while (!siguientes.isEmpty()) {
-					actual = siguientes.get(0);
-
-					if (!gNodos.containsKey(actual)) {
-						gActual = graph.insertVertex(parent, null,
-								actualLetra++ + "\n" + actual.tipo(), 0, 0, 30,
-								30, estiloVertex);
-						gNodos.put(actual, gActual);
-
-						primerasPos.put((char) (actualLetra - 1),
-								actual.primeraPos());
-						ultimasPos.put((char) (actualLetra - 1),
-								actual.ultimaPos());
-						anulables.put((char) (actualLetra - 1),
-								actual.esAnulable());
-					} else {
-						gActual = gNodos.get(actual);
-					}
-
-					tieneHijoIzquierdo = !actual.expresion().esSimbolo()
-							&& !actual.expresion().esVacio();
-					tieneHijoDerecho = tieneHijoIzquierdo
-							&& !actual.expresion().esCierre();
-
-					if (tieneHijoIzquierdo) {
-						siguientes.add(actual.hijoIzquierdo());
-						gNodo = graph.insertVertex(parent, null, actualLetra++
-								+ " \n" + actual.hijoIzquierdo().tipo(), 0, 0,
-								30, 30, estiloVertex);
-						graph.insertEdge(parent, null, "", gActual, gNodo,
-								estiloEdge);
-						gNodos.put(actual.hijoIzquierdo(), gNodo);
-
-						primerasPos.put((char) (actualLetra - 1), actual
-								.hijoIzquierdo().primeraPos());
-						ultimasPos.put((char) (actualLetra - 1), actual
-								.hijoIzquierdo().ultimaPos());
-						anulables.put((char) (actualLetra - 1), actual
-								.hijoIzquierdo().esAnulable());
-					}
-
-					if (tieneHijoDerecho) {
-						siguientes.add(actual.hijoDerecho());
-						gNodo = graph.insertVertex(parent, null, actualLetra++
-								+ "\n" + actual.hijoDerecho().tipo(), 0, 0, 30,
-								30, estiloVertex);
-						graph.insertEdge(parent, null, "", gActual, gNodo,
-								estiloEdge);
-						gNodos.put(actual.hijoDerecho(), gNodo);
-
-						primerasPos.put((char) (actualLetra - 1), actual
-								.hijoDerecho().primeraPos());
-						ultimasPos.put((char) (actualLetra - 1), actual
-								.hijoDerecho().ultimaPos());
-						anulables.put((char) (actualLetra - 1), actual
-								.hijoDerecho().esAnulable());
-					}
-
-					siguientes.remove(actual);
-				}
-			} finally {
-				graph.getModel().endUpdate();
-
-				mxGraphComponent graphComponent = new mxGraphComponent(graph);
-
-				new mxHierarchicalLayout(graph, SwingConstants.NORTH)
-						.execute(parent);
-				new mxParallelEdgeLayout(graph).execute(parent);
-
-				this.imagen = mxCellRenderer.createBufferedImage(graph, null,
-						1, Color.WHITE, graphComponent.isAntiAlias(), null,
-						graphComponent.getCanvas());
-				
+				LienzoImagen lienzo = new LienzoImagen();
+				dibujaEn(lienzo);
+				this.imagen = lienzo.imagen(RADIO_SVG);
+			} catch (RuntimeException e) {
+				log.warn("Error dibujando el árbol, se utiliza JGraphX", e);
+				dibujaJGraphX();
 			}
 		}
 
@@ -420,69 +364,174 @@ public class Nodo {
 	}
 
 	/**
-	 * Genera el programa en formato dot para generar la imagen representando la
-	 * estructura del árbol de la expresión. El programa generado se cachea al
-	 * ser solicitado por primera vez para evitar realizar los cálculos
-	 * repetidas veces.
-	 * 
-	 * @return Programa dot conteniendo el árbol que representa a la expresión.
+	 * Dibuja el árbol con JGraphX, como alternativa al dibujo directo de
+	 * {@link #imagen() imagen}.
 	 */
-	public String imagenDot() {
-		if (this.imagenDot == null) {
-			List<Nodo> siguientes = new ArrayList<>();
-			Nodo actual;
-			boolean tieneHijoIzquierdo, tieneHijoDerecho;
-			char actualLetra = 'A';
-			char preLetra, nuevaLetra;
-			Map<Nodo, Character> nodos = new HashMap<>();
-
-			this.imagenDot = "digraph {";
-
+	private void dibujaJGraphX() {
+		mxGraph graph = new mxGraph();
+		Object parent = graph.getDefaultParent();
+		Map<Nodo, Object> gNodos = new HashMap<>();
+		Nodo actual;
+		Object gNodo, gActual;
+		List<Nodo> siguientes = new ArrayList<>();
+		boolean tieneHijoIzquierdo, tieneHijoDerecho;
+		char actualLetra = 'A';
+
+		String estiloVertex = "shape=ellipse;fillColor=white;strokeColor=black;fontColor=black;";
+		String estiloEdge = "strokeColor=black;fontColor=black;labelBackgroundColor=white;endArrow=open;";
+
+		graph.getModel().beginUpdate();
+		try {
 			siguientes.add(this);
+
 			while (!siguientes.isEmpty()) {
 				actual = siguientes.get(0);
 
+				if (!gNodos.containsKey(actual)) {
+					gActual = graph.insertVertex(parent, null,
+							actualLetra++ + "\n" + actual.tipo(), 0, 0, 30,
+							30, estiloVertex);
+					gNodos.put(actual, gActual);
+
+					primerasPos.put((char) (actualLetra - 1),
+							actual.primeraPos());
+					ultimasPos.put((char) (actualLetra - 1),
+							actual.ultimaPos());
+					anulables.put((char) (actualLetra - 1),
+							actual.esAnulable());
+				} else {
+					gActual = gNodos.get(actual);
+				}
+
 				tieneHijoIzquierdo = !actual.expresion().esSimbolo()
 						&& !actual.expresion().esVacio();
 				tieneHijoDerecho = tieneHijoIzquierdo
 						&& !actual.expresion().esCierre();
 
-				if (!nodos.containsKey(actual)) {
-					preLetra = actualLetra;
-					imagenDot += "\n\t" + actualLetra + " [label=\""
-							 + actualLetra + "\n" + tipo(actual.tipo()) +"\"];";
-					nodos.put(actual, actualLetra);
-					actualLetra++;
-				} else {
-					preLetra = nodos.get(actual);
-				}
-
 				if (tieneHijoIzquierdo) {
-					nuevaLetra = (char) (actualLetra++);
 					siguientes.add(actual.hijoIzquierdo());
-					nodos.put(actual.hijoIzquierdo(), nuevaLetra);
-					imagenDot += "\n\t" + preLetra + " -> " + nuevaLetra;
-					imagenDot += "\n\t" + nuevaLetra + " [label=\""
-							+ nuevaLetra + "\n" + tipo(actual.hijoIzquierdo().tipo()) + "\"];";
+					gNodo = graph.insertVertex(parent, null, actualLetra++
+							+ " \n" + actual.hijoIzquierdo().tipo(), 0, 0,
+							30, 30, estiloVertex);
+					graph.insertEdge(parent, null, "", gActual, gNodo,
+							estiloEdge);
+					gNodos.put(actual.hijoIzquierdo(), gNodo);
+
+					primerasPos.put((char) (actualLetra - 1), actual
+							.hijoIzquierdo().primeraPos());
+					ultimasPos.put((char) (actualLetra - 1), actual
+							.hijoIzquierdo().ultimaPos());
+					anulables.put((char) (actualLetra - 1), actual
+							.hijoIzquierdo().esAnulable());
 				}
 
 				if (tieneHijoDerecho) {
-					nuevaLetra = (char) (actualLetra++);
 					siguientes.add(actual.hijoDerecho());
-					nodos.put(actual.hijoDerecho(), nuevaLetra);
-					imagenDot += "\n\t" + preLetra + " -> " + nuevaLetra;
-					imagenDot += "\n\t" + nuevaLetra + " [label=\""
-							+ nuevaLetra + "\n" + tipo(actual.hijoDerecho().tipo()) + "\"];";
+					gNodo = graph.insertVertex(parent, null, actualLetra++
+							+ "\n" + actual.hijoDerecho().tipo(), 0, 0, 30,
+							30, estiloVertex);
+					graph.insertEdge(parent, null, "", gActual, gNodo,
+							estiloEdge);
+					gNodos.put(actual.hijoDerecho(), gNodo);
+
+					primerasPos.put((char) (actualLetra - 1), actual
+							.hijoDerecho().primeraPos());
+					ultimasPos.put((char) (actualLetra - 1), actual
+							.hijoDerecho().ultimaPos());
+					anulables.put((char) (actualLetra - 1), actual
+							.hijoDerecho().esAnulable());
 				}
 
 				siguientes.remove(actual);
 			}
+		} finally {
+			graph.getModel().endUpdate();
 
-			this.imagenDot += "\n}";
+			mxGraphComponent graphComponent = new mxGraphComponent(graph);
+
+			new mxHierarchicalLayout(graph, SwingConstants.NORTH)
+					.execute(parent);
+			new mxParallelEdgeLayout(graph).execute(parent);
+
+			this.imagen = mxCellRenderer.createBufferedImage(graph, null,
+					1, Color.WHITE, graphComponent.isAntiAlias(), null,
+					graphComponent.getCanvas());
+			
 		}
+	}
+
+	/**
+	 * Genera el programa en formato dot para generar la imagen representando la
+	 * estructura del árbol de la expresión. El programa generado se cachea al
+	 * ser solicitado por primera vez para evitar realizar los cálculos
+	 * repetidas veces.
+	 * 
+	 * @return Programa dot conteniendo el árbol que representa a la expresión.
+	 */
+	public synchronized String imagenDot() {
+		if (this.imagenDot == null)
+			this.imagenDot = CacheImagenes.obtiene("Nodo.imagenDot",
+					this.expresion.canonica(), this::generaDot);
 
 		return this.imagenDot;
 	}
+
+	/**
+	 * Genera el programa dot del árbol sin consultar la caché.
+	 * 
+	 * @return Programa dot conteniendo el árbol que representa a la expresión.
+	 */
+	private String generaDot() {
+		StringBuilder imagenDot = new StringBuilder();
+		try {
+			escribeDot(imagenDot);
+		} catch (IOException e) {
+			// StringBuilder no lanza IOException
+			throw new IllegalStateException(e);
+		}
+		return imagenDot.toString();
+	}
+
+	/**
+	 * Escribe el programa dot del árbol directamente en un destino. Los nodos
+	 * se etiquetan por niveles, en el orden en que se descubren, de forma que
+	 * la letra de cada nodo es su índice en el recorrido.
+	 * 
+	 * @param destino
+	 *            Destino en el que se escribe el programa dot.
+	 * @throws IOException
+	 *             Si no puede escribirse en el destino.
+	 */
+	public void escribeDot(Appendable destino) throws IOException {
+		List<Nodo> siguientes = new ArrayList<>();
+		char letra, nuevaLetra;
+
+		destino.append("digraph {");
+		siguientes.add(this);
+		destino.append("\n\t").append('A').append(" [label=\"").append('A')
+				.append("\n").append(tipo(tipo())).append("\"];");
+
+		for (int i = 0; i < siguientes.size(); i++) {
+			Nodo actual = siguientes.get(i);
+			letra = (char) ('A' + i);
+
+			for (Nodo hijo : new Nodo[] { actual.hijoIzquierdo,
+					actual.hijoDerecho }) {
+				if (hijo == null)
+					continue;
+
+				nuevaLetra = (char) ('A' + siguientes.size());
+				siguientes.add(hijo);
+				destino.append("\n\t").append(letra).append(" -> ")
+						.append(nuevaLetra);
+				destino.append("\n\t").append(nuevaLetra)
+						.append(" [label=\"").append(nuevaLetra).append("\n")
+						.append(tipo(hijo.tipo())).append("\"];");
+			}
+		}
+
+		destino.append("\n}");
+	}
 	
 	
 	/**
@@ -493,101 +542,219 @@ public class Nodo {
 	 * 
 	 * @return Imagen conteniendo el ï¿½rbol que representa a la expresiï¿½n.
 	 */
-	public String imagenSvg() {
+	public synchronized String imagenSvg() {
 		if (this.imagenSvg == null) {
-			mxGraph graph = new mxGraph();
-			Object parent = graph.getDefaultParent();
-			Map<Nodo, Object> gNodos = new HashMap<>();
-			Nodo actual;
-			Object gNodo, gActual;
-			List<Nodo> siguientes = new ArrayList<>();
-			boolean tieneHijoIzquierdo, tieneHijoDerecho;
-			char actualLetra = 'A';
-
-			String estiloVertex = "shape=ellipse;fillColor=white;strokeColor=black;fontColor=black;";
-			String estiloEdge = "strokeColor=black;fontColor=black;labelBackgroundColor=white;endArrow=open;";
-
-			graph.getModel().beginUpdate();
-			siguientes.add(this);
+			StringBuilder imagenSvg = new StringBuilder();
 			try {
+				escribeSvg(imagenSvg);
+				this.imagenSvg = imagenSvg.toString();
+			} catch (IOException | RuntimeException e) {
+				log.warn("Error generando SVG del árbol, se utiliza JGraphX", e);
+				this.imagenSvg = generaSvgJGraphX();
+			}
+		}
 
-				while (!siguientes.isEmpty()) {
-					actual = siguientes.get(0);
-
-					if (!gNodos.containsKey(actual)) {
-						gActual = graph.insertVertex(parent, null,
-								actualLetra++ + "\n" + tipoSVG(actual.tipo()), 0, 0, 30,
-								30, estiloVertex);
-						gNodos.put(actual, gActual);
-
-						primerasPos.put((char) (actualLetra - 1),
-								actual.primeraPos());
-						ultimasPos.put((char) (actualLetra - 1),
-								actual.ultimaPos());
-						anulables.put((char) (actualLetra - 1),
-								actual.esAnulable());
-					} else {
-						gActual = gNodos.get(actual);
-					}
-
-					tieneHijoIzquierdo = !actual.expresion().esSimbolo()
-							&& !actual.expresion().esVacio();
-					tieneHijoDerecho = tieneHijoIzquierdo
-							&& !actual.expresion().esCierre();
-
-					if (tieneHijoIzquierdo) {
-						siguientes.add(actual.hijoIzquierdo());
-						gNodo = graph.insertVertex(parent, null, actualLetra++
-								+ " \n" + tipoSVG(actual.hijoIzquierdo().tipo()), 0, 0,
-								30, 30, estiloVertex);
-						graph.insertEdge(parent, null, "", gActual, gNodo,
-								estiloEdge);
-						gNodos.put(actual.hijoIzquierdo(), gNodo);
-
-						primerasPos.put((char) (actualLetra - 1), actual
-								.hijoIzquierdo().primeraPos());
-						ultimasPos.put((char) (actualLetra - 1), actual
-								.hijoIzquierdo().ultimaPos());
-						anulables.put((char) (actualLetra - 1), actual
-								.hijoIzquierdo().esAnulable());
-					}
-
-					if (tieneHijoDerecho) {
-						siguientes.add(actual.hijoDerecho());
-						gNodo = graph.insertVertex(parent, null, actualLetra++
-								+ "\n" + tipoSVG(actual.hijoDerecho().tipo()), 0, 0, 30,
-								30, estiloVertex);
-						graph.insertEdge(parent, null, "", gActual, gNodo,
-								estiloEdge);
-						gNodos.put(actual.hijoDerecho(), gNodo);
-
-						primerasPos.put((char) (actualLetra - 1), actual
-								.hijoDerecho().primeraPos());
-						ultimasPos.put((char) (actualLetra - 1), actual
-								.hijoDerecho().ultimaPos());
-						anulables.put((char) (actualLetra - 1), actual
-								.hijoDerecho().esAnulable());
-					}
-
-					siguientes.remove(actual);
+		return this.imagenSvg;
+	}
+
+	/**
+	 * Escribe el programa SVG del árbol directamente en un destino, sin
+	 * construir un grafo intermedio. Los nodos se etiquetan por niveles igual
+	 * que en el resto de representaciones, y se disponen con las hojas
+	 * equiespaciadas y cada nodo centrado sobre sus hijos.
+	 * 
+	 * @param destino
+	 *            Destino en el que se escribe el programa SVG.
+	 * @throws IOException
+	 *             Si no puede escribirse en el destino.
+	 */
+	public synchronized void escribeSvg(Appendable destino) throws IOException {
+		EscritorSvg svg = new EscritorSvg(destino);
+		dibujaEn(svg);
+		svg.cierra(RADIO_SVG);
+	}
+
+	/**
+	 * Dibuja el árbol sobre un lienzo, etiquetando los nodos y anotando sus
+	 * propiedades.
+	 * 
+	 * @param lienzo
+	 *            Lienzo sobre el que se dibuja el árbol.
+	 */
+	private void dibujaEn(Lienzo lienzo) {
+		Map<Nodo, double[]> posiciones = new HashMap<>();
+		dispon(this, 0, new double[1], posiciones);
+
+		List<Nodo> siguientes = new ArrayList<>();
+		siguientes.add(this);
+		for (int i = 0; i < siguientes.size(); i++) {
+			Nodo actual = siguientes.get(i);
+			char letra = (char) ('A' + i);
+			double[] posicion = posiciones.get(actual);
+
+			primerasPos.put(letra, actual.primeraPos());
+			ultimasPos.put(letra, actual.ultimaPos());
+			anulables.put(letra, actual.esAnulable());
+
+			for (Nodo hijo : new Nodo[] { actual.hijoIzquierdo,
+					actual.hijoDerecho }) {
+				if (hijo == null)
+					continue;
+				siguientes.add(hijo);
+
+				// Arista entre los bordes de ambos círculos
+				double[] destinoHijo = posiciones.get(hijo);
+				double dx = destinoHijo[0] - posicion[0];
+				double dy = destinoHijo[1] - posicion[1];
+				double d = Math.sqrt(dx * dx + dy * dy);
+				lienzo.linea(posicion[0] + RADIO_SVG * dx / d, posicion[1]
+						+ RADIO_SVG * dy / d, destinoHijo[0] - RADIO_SVG * dx
+						/ d, destinoHijo[1] - RADIO_SVG * dy / d, true);
+			}
+
+			lienzo.circulo(posicion[0], posicion[1], RADIO_SVG);
+			lienzo.texto(posicion[0], posicion[1] - 2, Character.toString(letra),
+					11);
+			lienzo.texto(posicion[0], posicion[1] + 11, actual.expresion()
+					.esConcat() ? "\u2022" : actual.tipo(), 11);
+		}
+
+	}
+
+	/**
+	 * Calcula la posición de los nodos de un subárbol para su representación
+	 * SVG. Las hojas se colocan de izquierda a derecha a intervalos
+	 * constantes, y cada nodo interno se centra sobre sus hijos.
+	 * 
+	 * @param nodo
+	 *            Raíz del subárbol.
+	 * @param nivel
+	 *            Profundidad de la raíz del subárbol.
+	 * @param siguienteHoja
+	 *            Coordenada x de la siguiente hoja, que se actualiza.
+	 * @param posiciones
+	 *            Posiciones calculadas de cada nodo.
+	 * @return Coordenada x de la raíz del subárbol.
+	 */
+	private static double dispon(Nodo nodo, int nivel, double[] siguienteHoja,
+			Map<Nodo, double[]> posiciones) {
+		double x;
+		if (nodo.hijoIzquierdo == null) {
+			x = siguienteHoja[0];
+			siguienteHoja[0] += SEPARACION_SVG;
+		} else if (nodo.hijoDerecho == null) {
+			x = dispon(nodo.hijoIzquierdo, nivel + 1, siguienteHoja,
+					posiciones);
+		} else {
+			x = (dispon(nodo.hijoIzquierdo, nivel + 1, siguienteHoja,
+					posiciones) + dispon(nodo.hijoDerecho, nivel + 1,
+					siguienteHoja, posiciones)) / 2;
+		}
+
+		posiciones.put(nodo, new double[] { x, nivel * NIVEL_SVG });
+		return x;
+	}
+
+	/**
+	 * Genera el programa SVG del árbol con JGraphX, como alternativa a
+	 * {@link #escribeSvg(Appendable) escribeSvg}.
+	 * 
+	 * @return Programa SVG conteniendo el árbol que representa a la expresión.
+	 */
+	private String generaSvgJGraphX() {
+		String imagenSvg;
+		mxGraph graph = new mxGraph();
+		Object parent = graph.getDefaultParent();
+		Map<Nodo, Object> gNodos = new HashMap<>();
+		Nodo actual;
+		Object gNodo, gActual;
+		List<Nodo> siguientes = new ArrayList<>();
+		boolean tieneHijoIzquierdo, tieneHijoDerecho;
+		char actualLetra = 'A';
+
+		String estiloVertex = "shape=ellipse;fillColor=white;strokeColor=black;fontColor=black;";
+		String estiloEdge = "strokeColor=black;fontColor=black;labelBackgroundColor=white;endArrow=open;";
+
+		graph.getModel().beginUpdate();
+		siguientes.add(this);
+		try {
+
+			while (!siguientes.isEmpty()) {
+				actual = siguientes.get(0);
+
+				if (!gNodos.containsKey(actual)) {
+					gActual = graph.insertVertex(parent, null,
+							actualLetra++ + "\n" + tipoSVG(actual.tipo()), 0, 0, 30,
+							30, estiloVertex);
+					gNodos.put(actual, gActual);
+
+					primerasPos.put((char) (actualLetra - 1),
+							actual.primeraPos());
+					ultimasPos.put((char) (actualLetra - 1),
+							actual.ultimaPos());
+					anulables.put((char) (actualLetra - 1),
+							actual.esAnulable());
+				} else {
+					gActual = gNodos.get(actual);
 				}
-			} finally {
-				graph.getModel().endUpdate();
-				
-				new mxHierarchicalLayout(graph, SwingConstants.NORTH)
-						.execute(parent);
-				new mxParallelEdgeLayout(graph).execute(parent);
-				
-				
-				this.imagenSvg = mxXmlUtils.getXml(mxCellRenderer.createSvgDocument(graph, null,
-						1, Color.WHITE, null));
-				
-				this.imagenSvg = fixXMLSVG(this.imagenSvg);
-				
+
+				tieneHijoIzquierdo = !actual.expresion().esSimbolo()
+						&& !actual.expresion().esVacio();
+				tieneHijoDerecho = tieneHijoIzquierdo
+						&& !actual.expresion().esCierre();
+
+				if (tieneHijoIzquierdo) {
+					siguientes.add(actual.hijoIzquierdo());
+					gNodo = graph.insertVertex(parent, null, actualLetra++
+							+ " \n" + tipoSVG(actual.hijoIzquierdo().tipo()), 0, 0,
+							30, 30, estiloVertex);
+					graph.insertEdge(parent, null, "", gActual, gNodo,
+							estiloEdge);
+					gNodos.put(actual.hijoIzquierdo(), gNodo);
+
+					primerasPos.put((char) (actualLetra - 1), actual
+							.hijoIzquierdo().primeraPos());
+					ultimasPos.put((char) (actualLetra - 1), actual
+							.hijoIzquierdo().ultimaPos());
+					anulables.put((char) (actualLetra - 1), actual
+							.hijoIzquierdo().esAnulable());
+				}
+
+				if (tieneHijoDerecho) {
+					siguientes.add(actual.hijoDerecho());
+					gNodo = graph.insertVertex(parent, null, actualLetra++
+							+ "\n" + tipoSVG(actual.hijoDerecho().tipo()), 0, 0, 30,
+							30, estiloVertex);
+					graph.insertEdge(parent, null, "", gActual, gNodo,
+							estiloEdge);
+					gNodos.put(actual.hijoDerecho(), gNodo);
+
+					primerasPos.put((char) (actualLetra - 1), actual
+							.hijoDerecho().primeraPos());
+					ultimasPos.put((char) (actualLetra - 1), actual
+							.hijoDerecho().ultimaPos());
+					anulables.put((char) (actualLetra - 1), actual
+							.hijoDerecho().esAnulable());
+				}
+
+				siguientes.remove(actual);
 			}
+		} finally {
+			graph.getModel().endUpdate();
+			
+			new mxHierarchicalLayout(graph, SwingConstants.NORTH)
+					.execute(parent);
+			new mxParallelEdgeLayout(graph).execute(parent);
+			
+			
+			imagenSvg = mxXmlUtils.getXml(mxCellRenderer.createSvgDocument(graph, null,
+					1, Color.WHITE, null));
+			
+			imagenSvg = fixXMLSVG(imagenSvg);
+			
 		}
 
-		return this.imagenSvg;
+		return imagenSvg;
 	}
 	
 	
@@ -611,12 +778,13 @@ public class Nodo {
 				"    ]\n" + 
 				"\\tikzset{edge from parent/.append style={thick}}\n" + 
 				"\\Tree";
-		out += dibujaImagenTikZ();
+		ContextoTikZ contexto = new ContextoTikZ();
+		out += dibujaImagenTikZ(contexto);
 		
 		out += "\n\\iflabeled\n";
 	    out += "% ===================================================\n";
 	    out += "% VALUES OF THE POSITIONS FOR LEAVE NODES WITH SYMBOL\n";
-	    for ( Map.Entry<String, Integer> entry : leavePos.entrySet() ) {
+	    for ( Map.Entry<String, Integer> entry : contexto.leavePos.entrySet() ) {
 	        String l = entry.getKey();
 	        int lPos = entry.getValue();
 	        
@@ -626,10 +794,10 @@ public class Nodo {
 	    
 	    out += "% ANNOTATIONS AT EACH NODE\n";
 	    
-	    for ( Entry<String, String> entry : annotationsPripos.entrySet() ) {
+	    for ( Entry<String, String> entry : contexto.annotationsPripos.entrySet() ) {
 	    	String k = entry.getKey();
 	        String pripos = entry.getValue();
-	        String ultpos = annotationsUltpos.get(k);
+	        String ultpos = contexto.annotationsUltpos.get(k);
 	        
 	        out += String.format("\\node[left=\\sep of %s,align=right]{\\{%s\\}};\n", k, pripos);
 	        out += String.format("\\node[right=\\sep of %s,align=left]{\\{%s\\}};\n", k, ultpos);
@@ -640,17 +808,10 @@ public class Nodo {
 		out += "\n\\end{tikzpicture}";
 		out += "\n\\end{adjustbox}";
 		
-		// Reset
-		letra = 0;
-		pos = 0;
-		leavePos = new HashMap<String, Integer>();
-		annotationsPripos = new HashMap<String, String>();
-		annotationsUltpos = new HashMap<String, String>();
-		
 		return out;
 	}
 	
-	public String dibujaImagenTikZ() {
+	private String dibujaImagenTikZ(ContextoTikZ contexto) {
 		String letras = "ABCDEFGHIJKLMNOPQRSTUVWXYZ";
 		String out = "";
 		HashMap<String, String>  op =  new HashMap<String, String>();
@@ -659,21 +820,21 @@ public class Nodo {
 		op.put("AST", "\\ast"); 
 		
 		if (this.tipo == "EPS" || this.tipo == "SYMB") {
-			String l = Character.toString(letras.charAt(letra));
-			letra ++;
+			String l = Character.toString(letras.charAt(contexto.letra));
+			contexto.letra ++;
 			
 			if (this.esAnulable()) {
 				out += String.format("\n\\node[nullable] (%s) {%s\\nodepart{lower}\\eps};", l, l);
-				annotationsPripos.put(l, "\\empty");
-				annotationsUltpos.put(l, "\\empty");
+				contexto.annotationsPripos.put(l, "\\empty");
+				contexto.annotationsUltpos.put(l, "\\empty");
 			} else {
-				pos ++;
+				contexto.pos ++;
 				String s = Character.toString(this.simb);
 				s = s.equals("$") ? "\\$" : s;
 				out += String.format("\n\\node[normal] (%s) {%s\\nodepart{lower}\\term{%s}};", l, l, s);
-				annotationsPripos.put(l, Integer.toString(pos));
-				annotationsUltpos.put(l, Integer.toString(pos));
-				leavePos.put(l, pos);
+				contexto.annotationsPripos.put(l, Integer.toString(contexto.pos));
+				contexto.annotationsUltpos.put(l, Integer.toString(contexto.pos));
+				contexto.leavePos.put(l, contexto.pos);
 			}
 			return out;
 		}
@@ -682,19 +843,19 @@ public class Nodo {
 		String hijoD = "";
 		
 		if(this.hijoIzquierdo != null)
-			hijoI = this.hijoIzquierdo().dibujaImagenTikZ();
+			hijoI = this.hijoIzquierdo().dibujaImagenTikZ(contexto);
 		
 		if(this.hijoDerecho != null) 
-			hijoD = this.hijoDerecho().dibujaImagenTikZ();
+			hijoD = this.hijoDerecho().dibujaImagenTikZ(contexto);
 		
-		String l = Character.toString(letras.charAt(letra));
-		letra ++;
+		String l = Character.toString(letras.charAt(contexto.letra));
+		contexto.letra ++;
 		
 		String pripos = this.primeraPos.toString().replace("[", "{").replace("]", "}");
 		String ultpos = this.ultimaPos.toString().replace("[", "{").replace("]", "}");
 		
-		annotationsPripos.put(l, pripos);
-		annotationsUltpos.put(l, ultpos);
+		contexto.annotationsPripos.put(l, pripos);
+		contexto.annotationsUltpos.put(l, ultpos);
 		
 		String nodeType = this.esAnulable() ? "nullable" : "normal";
 		
@@ -0,0 +1,135 @@
+package es.ubu.inf.tfg.regex.datos;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Supplier;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * CacheImagenes almacena las representaciones gráficas ya generadas de árboles
+ * y autómatas, de forma que dos objetos construidos a partir de la misma
+ * expresión comparten la misma imagen en lugar de dibujarla dos veces. Es lo
+ * que ocurre al exportar varias veces el mismo documento, al mostrar la vista
+ * previa de un problema ya exportado o con las alternativas de un problema.
+ * <p>
+ * Cada entrada se identifica por el formato de la representación y la forma
+ * canónica de la expresión, sin funciones hash intermedias, por lo que dos
+ * expresiones distintas nunca comparten entrada. La caché tiene una capacidad
+ * máxima y descarta primero las entradas utilizadas hace más tiempo.
+ * <p>
+ * Solo deben almacenarse representaciones que dependan exclusivamente de la
+ * clave y que no se modifiquen una vez generadas, ya que se comparten entre
+ * todos los objetos equivalentes.
+ *
+ */
+public class CacheImagenes {
+
+	private static final Logger log = LoggerFactory
+			.getLogger(CacheImagenes.class);
+
+	private static final int CAPACIDAD = 256;
+
+	private static int capacidad = CAPACIDAD;
+	private static int aciertos = 0;
+	private static int fallos = 0;
+
+	private static final Map<String, Object> entradas = new LinkedHashMap<String, Object>(
+			16, 0.75f, true) {
+		private static final long serialVersionUID = 1L;
+
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<String, Object> entrada) {
+			return size() > capacidad;
+		}
+	};
+
+	private CacheImagenes() {
+	}
+
+	/**
+	 * Devuelve la representación almacenada para un formato y una expresión,
+	 * generándola si no se encuentra en la caché. La generación se realiza
+	 * fuera del bloqueo de la caché, de forma que pueden generarse varias
+	 * imágenes distintas en paralelo.
+	 *
+	 * @param formato
+	 *            Identificador del formato de la representación, que debe
+	 *            determinar también su tipo.
+	 * @param clave
+	 *            Forma canónica del objeto representado.
+	 * @param generador
+	 *            Genera la representación si no está almacenada.
+	 * @return Representación del objeto en el formato dado.
+	 */
+	@SuppressWarnings("unchecked")
+	public static <T> T obtiene(String formato, String clave,
+			Supplier<T> generador) {
+		String entrada = formato + ':' + clave;
+
+		synchronized (entradas) {
+			Object valor = entradas.get(entrada);
+			if (valor != null) {
+				aciertos++;
+				return (T) valor;
+			}
+			fallos++;
+		}
+
+		T valor = generador.get();
+
+		synchronized (entradas) {
+			Object previo = entradas.putIfAbsent(entrada, valor);
+			return previo != null ? (T) previo : valor;
+		}
+	}
+
+	/**
+	 * Cambia el número máximo de representaciones almacenadas. Si la caché
+	 * contiene más entradas, se descartan las utilizadas hace más tiempo. Una
+	 * capacidad de 0 desactiva la caché.
+	 *
+	 * @param capacidad
+	 *            Nueva capacidad máxima.
+	 * @throws IllegalArgumentException
+	 *             Si la capacidad es negativa.
+	 */
+	public static void setCapacidad(int capacidad) {
+		if (capacidad < 0)
+			throw new IllegalArgumentException(
+					"La capacidad de la caché no puede ser negativa.");
+
+		synchronized (entradas) {
+			CacheImagenes.capacidad = capacidad;
+			while (entradas.size() > capacidad)
+				entradas.remove(entradas.keySet().iterator().next());
+		}
+		log.info("Capacidad de la caché de imágenes fijada a {}", capacidad);
+	}
+
+	/**
+	 * Devuelve el número de representaciones almacenadas.
+	 *
+	 * @return Número de entradas de la caché.
+	 */
+	public static int tamaño() {
+		synchronized (entradas) {
+			return entradas.size();
+		}
+	}
+
+	/**
+	 * Descarta todas las representaciones almacenadas, dejando registro de la
+	 * efectividad de la caché hasta el momento.
+	 */
+	public static void vacia() {
+		synchronized (entradas) {
+			log.info("Vaciando caché de imágenes: {} aciertos, {} fallos",
+					aciertos, fallos);
+			entradas.clear();
+			aciertos = 0;
+			fallos = 0;
+		}
+	}
+}
@@ -0,0 +1,181 @@
+package es.ubu.inf.tfg.regex.datos;
+
+import java.io.IOException;
+
+/**
+ * EscritorSvg es el lienzo que escribe directamente un documento SVG a partir
+ * de las primitivas geométricas, sin construir un grafo ni un árbol DOM
+ * intermedio.
+ * <p>
+ * Las primitivas se acumulan como texto mientras se calcula el rectángulo que
+ * ocupan, y al cerrar el documento se escribe en el destino la cabecera, con
+ * el tamaño ajustado a ese rectángulo, seguida del contenido. De esta forma
+ * las coordenadas pueden tomar cualquier valor, incluso negativo.
+ * <p>
+ * Todos los trazos y textos se escriben en negro con los atributos
+ * <code>stroke="black"</code> y <code>fill="black"</code>, de forma que la
+ * imagen puede recolorearse sustituyendo esos atributos, como se hace con las
+ * soluciones. Los caracteres no ASCII se escriben como referencias numéricas
+ * para no depender de la codificación del fichero de destino.
+ *
+ */
+public class EscritorSvg implements Lienzo {
+
+	private static final String FLECHA = "flecha";
+
+	private final Appendable destino;
+	private final StringBuilder cuerpo = new StringBuilder();
+	private double minX = Double.POSITIVE_INFINITY;
+	private double minY = Double.POSITIVE_INFINITY;
+	private double maxX = Double.NEGATIVE_INFINITY;
+	private double maxY = Double.NEGATIVE_INFINITY;
+
+	/**
+	 * Crea un escritor sobre un destino dado.
+	 *
+	 * @param destino
+	 *            Destino en el que se escribe el documento.
+	 */
+	public EscritorSvg(Appendable destino) {
+		this.destino = destino;
+	}
+
+	@Override
+	public void circulo(double x, double y, double radio) {
+		incluye(x - radio, y - radio);
+		incluye(x + radio, y + radio);
+		this.cuerpo.append("<circle cx=\"").append(numero(x))
+				.append("\" cy=\"").append(numero(y)).append("\" r=\"")
+				.append(numero(radio))
+				.append("\" fill=\"white\" stroke=\"black\"/>");
+	}
+
+	@Override
+	public void linea(double xo, double yo, double xd, double yd,
+			boolean flecha) {
+		incluye(xo, yo);
+		incluye(xd, yd);
+		this.cuerpo.append("<line x1=\"").append(numero(xo))
+				.append("\" y1=\"").append(numero(yo)).append("\" x2=\"")
+				.append(numero(xd)).append("\" y2=\"").append(numero(yd))
+				.append("\" stroke=\"black\"");
+		marca(flecha);
+	}
+
+	@Override
+	public void camino(double[][] tramos, boolean flecha) {
+		this.cuerpo.append("<path d=\"");
+		for (int i = 0; i < tramos.length; i++) {
+			double[] tramo = tramos[i];
+			if (i == 0 && tramo.length == 2)
+				this.cuerpo.append('M');
+			else if (tramo.length == 2)
+				this.cuerpo.append(" L");
+			else if (tramo.length == 6)
+				this.cuerpo.append(" C");
+			else
+				throw new IllegalArgumentException("Tramo de camino incorrecto.");
+
+			for (int j = 0; j < tramo.length; j += 2) {
+				// Los puntos de control contienen a la curva
+				incluye(tramo[j], tramo[j + 1]);
+				this.cuerpo.append(' ').append(numero(tramo[j])).append(' ')
+						.append(numero(tramo[j + 1]));
+			}
+		}
+		this.cuerpo.append("\" fill=\"none\" stroke=\"black\"");
+		marca(flecha);
+	}
+
+	@Override
+	public void texto(double x, double y, String texto, double tamaño) {
+		// Aproximación del tamaño del texto
+		double mitad = texto.length() * tamaño * 0.3;
+		incluye(x - mitad, y - tamaño);
+		incluye(x + mitad, y + tamaño * 0.25);
+		this.cuerpo.append("<text x=\"").append(numero(x)).append("\" y=\"")
+				.append(numero(y)).append("\" font-size=\"")
+				.append(numero(tamaño))
+				.append("\" font-family=\"Helvetica,Arial,sans-serif\"")
+				.append(" text-anchor=\"middle\" fill=\"black\">");
+		for (int i = 0; i < texto.length(); i++) {
+			char c = texto.charAt(i);
+			if (c == '<')
+				this.cuerpo.append("&lt;");
+			else if (c == '>')
+				this.cuerpo.append("&gt;");
+			else if (c == '&')
+				this.cuerpo.append("&amp;");
+			else if (c > 127)
+				this.cuerpo.append("&#").append(Integer.toString(c))
+						.append(';');
+			else
+				this.cuerpo.append(c);
+		}
+		this.cuerpo.append("</text>");
+	}
+
+	/**
+	 * Escribe el documento en el destino, con un tamaño que incluye todas las
+	 * primitivas más un margen, sobre fondo blanco y con la definición de las
+	 * puntas de flecha.
+	 *
+	 * @param margen
+	 *            Margen alrededor del contenido.
+	 * @throws IOException
+	 *             Si no puede escribirse en el destino.
+	 */
+	public void cierra(double margen) throws IOException {
+		if (this.minX > this.maxX) {
+			this.minX = this.minY = 0;
+			this.maxX = this.maxY = 0;
+		}
+
+		String x = numero(this.minX - margen);
+		String y = numero(this.minY - margen);
+		String ancho = numero(this.maxX - this.minX + 2 * margen);
+		String alto = numero(this.maxY - this.minY + 2 * margen);
+
+		this.destino
+				.append("<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"no\"?>")
+				.append("<svg xmlns=\"http://www.w3.org/2000/svg\" width=\"")
+				.append(ancho).append("px\" height=\"").append(alto)
+				.append("px\" viewBox=\"").append(x).append(' ').append(y)
+				.append(' ').append(ancho).append(' ').append(alto)
+				.append("\" version=\"1.1\">")
+				.append("<defs><marker id=\"").append(FLECHA)
+				.append("\" viewBox=\"0 0 10 10\" refX=\"10\" refY=\"5\"")
+				.append(" markerWidth=\"8\" markerHeight=\"8\" orient=\"auto\">")
+				.append("<path d=\"M 0 0 L 10 5 L 0 10\" fill=\"none\"")
+				.append(" stroke=\"black\"/></marker></defs>")
+				.append("<rect x=\"").append(x).append("\" y=\"").append(y)
+				.append("\" width=\"").append(ancho).append("\" height=\"")
+				.append(alto).append("\" fill=\"white\"/>")
+				.append(this.cuerpo).append("</svg>");
+	}
+
+	private void incluye(double x, double y) {
+		this.minX = Math.min(this.minX, x);
+		this.minY = Math.min(this.minY, y);
+		this.maxX = Math.max(this.maxX, x);
+		this.maxY = Math.max(this.maxY, y);
+	}
+
+	private void marca(boolean flecha) {
+		if (flecha)
+			this.cuerpo.append(" marker-end=\"url(#").append(FLECHA)
+					.append(")\"");
+		this.cuerpo.append("/>");
+	}
+
+	/**
+	 * Formatea una coordenada con dos decimales como máximo, sin depender de
+	 * la configuración regional.
+	 */
+	private static String numero(double valor) {
+		long centesimas = Math.round(valor * 100);
+		if (centesimas % 100 == 0)
+			return Long.toString(centesimas / 100);
+		return Double.toString(centesimas / 100.0);
+	}
+}
@@ -2,6 +2,9 @@ package es.ubu.inf.tfg.regex.datos;
 
 import java.awt.Color;
 import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
@@ -10,6 +13,9 @@ import java.util.Stack;
 
 import javax.swing.SwingConstants;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
 import com.mxgraph.layout.mxParallelEdgeLayout;
 import com.mxgraph.layout.hierarchical.mxHierarchicalLayout;
 import com.mxgraph.swing.mxGraphComponent;
@@ -39,6 +45,13 @@ import com.mxgraph.view.mxGraph;
  */
 public class ExpresionRegular {
 
+	private static final Logger log = LoggerFactory
+			.getLogger(ExpresionRegular.class);
+
+	private static final double RADIO = 15;
+	private static final double SEPARACION = 40;
+	private static final double NIVEL = 56;
+
 	private static enum Tipo {
 		SIMBOLO, VACIO, CONCAT, UNION, CIERRE
 	}
@@ -307,76 +320,175 @@ public class ExpresionRegular {
 	 * 
 	 * @return Imagen representando el árbol de la expresión regular.
 	 */
-	public BufferedImage imagen() {
-		if (this.imagen == null) {
-			mxGraph graph = new mxGraph();
-			Object parent = graph.getDefaultParent();
-			Map<ExpresionRegular, Object> gNodos = new HashMap<>();
-			ExpresionRegular actual;
-			Object gNodo, gActual;
-			List<ExpresionRegular> siguientes = new ArrayList<>();
-			boolean tieneHijoIzquierdo, tieneHijoDerecho;
-
-			String estiloVertex = "shape=ellipse;fillColor=white;strokeColor=black;fontColor=black;";
-			String estiloEdge = "strokeColor=black;fontColor=black;labelBackgroundColor=white;endArrow=open;";
-
-			graph.getModel().beginUpdate();
-			try {
-				siguientes.add(this);
-
-				while (!siguientes.isEmpty()) {
-					actual = siguientes.get(0);
-
-					if (!gNodos.containsKey(actual)) {
-						gActual = graph.insertVertex(parent, null,
-								actual.tipo(), 0, 0, 30, 30, estiloVertex);
-						gNodos.put(actual, gActual);
-					} else {
-						gActual = gNodos.get(actual);
-					}
-
-					tieneHijoIzquierdo = !actual.esSimbolo()
-							&& !actual.esVacio();
-					tieneHijoDerecho = tieneHijoIzquierdo && !actual.esCierre();
-
-					if (tieneHijoIzquierdo) {
-						siguientes.add(actual.hijoIzquierdo());
-						gNodo = graph.insertVertex(parent, null, actual
-								.hijoIzquierdo().tipo(), 0, 0, 30, 30,
-								estiloVertex);
-						graph.insertEdge(parent, null, "", gActual, gNodo,
-								estiloEdge);
-						gNodos.put(actual.hijoIzquierdo(), gNodo);
-					}
-
-					if (tieneHijoDerecho) {
-						siguientes.add(actual.hijoDerecho());
-						gNodo = graph.insertVertex(parent, null, actual
-								.hijoDerecho().tipo(), 0, 0, 30, 30,
-								estiloVertex);
-						graph.insertEdge(parent, null, "", gActual, gNodo,
-								estiloEdge);
-						gNodos.put(actual.hijoDerecho(), gNodo);
-					}
-
-					siguientes.remove(actual);
+	public synchronized BufferedImage imagen() {
+		if (this.imagen == null)
+			this.imagen = CacheImagenes.obtiene("ExpresionRegular.imagen",
+					canonica(), this::dibuja);
+
+		return this.imagen;
+	}
+
+	/**
+	 * Dibuja el árbol de la expresión regular sin consultar la caché,
+	 * rasterizándolo directamente. Si falla el dibujo directo, se recurre a
+	 * JGraphX.
+	 * 
+	 * @return Imagen representando el árbol de la expresión regular.
+	 */
+	private BufferedImage dibuja() {
+		try {
+			LienzoImagen lienzo = new LienzoImagen();
+			dibujaEn(lienzo);
+			return lienzo.imagen(RADIO);
+		} catch (RuntimeException e) {
+			log.warn("Error dibujando la expresión, se utiliza JGraphX", e);
+			return dibujaJGraphX();
+		}
+	}
+
+	/**
+	 * Dibuja el árbol de la expresión regular sobre un lienzo, con las hojas
+	 * equiespaciadas y cada nodo centrado sobre sus hijos.
+	 * 
+	 * @param lienzo
+	 *            Lienzo sobre el que se dibuja el árbol.
+	 */
+	private void dibujaEn(Lienzo lienzo) {
+		Map<ExpresionRegular, double[]> posiciones = new HashMap<>();
+		dispon(this, 0, new double[1], posiciones);
+
+		for (ExpresionRegular actual : nodos()) {
+			double[] posicion = posiciones.get(actual);
+
+			for (ExpresionRegular hijo : new ExpresionRegular[] {
+					actual.hijoIzquierdo, actual.hijoDerecho }) {
+				if (hijo == null)
+					continue;
+
+				// Arista entre los bordes de ambos círculos
+				double[] destino = posiciones.get(hijo);
+				double dx = destino[0] - posicion[0];
+				double dy = destino[1] - posicion[1];
+				double d = Math.sqrt(dx * dx + dy * dy);
+				lienzo.linea(posicion[0] + RADIO * dx / d, posicion[1] + RADIO
+						* dy / d, destino[0] - RADIO * dx / d, destino[1]
+						- RADIO * dy / d, true);
+			}
+
+			lienzo.circulo(posicion[0], posicion[1], RADIO);
+			lienzo.texto(posicion[0], posicion[1] + 4, actual.tipo(), 12);
+		}
+	}
+
+	/**
+	 * Calcula la posición de los nodos de un subárbol para su dibujo. Las
+	 * hojas se colocan de izquierda a derecha a intervalos constantes, y cada
+	 * nodo interno se centra sobre sus hijos.
+	 * 
+	 * @param nodo
+	 *            Raíz del subárbol.
+	 * @param nivel
+	 *            Profundidad de la raíz del subárbol.
+	 * @param siguienteHoja
+	 *            Coordenada x de la siguiente hoja, que se actualiza.
+	 * @param posiciones
+	 *            Posiciones calculadas de cada nodo.
+	 * @return Coordenada x de la raíz del subárbol.
+	 */
+	private static double dispon(ExpresionRegular nodo, int nivel,
+			double[] siguienteHoja, Map<ExpresionRegular, double[]> posiciones) {
+		double x;
+		if (nodo.hijoIzquierdo == null) {
+			x = siguienteHoja[0];
+			siguienteHoja[0] += SEPARACION;
+		} else if (nodo.hijoDerecho == null) {
+			x = dispon(nodo.hijoIzquierdo, nivel + 1, siguienteHoja,
+					posiciones);
+		} else {
+			x = (dispon(nodo.hijoIzquierdo, nivel + 1, siguienteHoja,
+					posiciones) + dispon(nodo.hijoDerecho, nivel + 1,
+					siguienteHoja, posiciones)) / 2;
+		}
+
+		posiciones.put(nodo, new double[] { x, nivel * NIVEL });
+		return x;
+	}
+
+	/**
+	 * Dibuja el árbol de la expresión regular con JGraphX, calculando la
+	 * disposición a partir del grafo de nodos.
+	 * 
+	 * @return Imagen representando el árbol de la expresión regular.
+	 */
+	private BufferedImage dibujaJGraphX() {
+		BufferedImage imagen;
+		mxGraph graph = new mxGraph();
+		Object parent = graph.getDefaultParent();
+		Map<ExpresionRegular, Object> gNodos = new HashMap<>();
+		ExpresionRegular actual;
+		Object gNodo, gActual;
+		List<ExpresionRegular> siguientes = new ArrayList<>();
+		boolean tieneHijoIzquierdo, tieneHijoDerecho;
+
+		String estiloVertex = "shape=ellipse;fillColor=white;strokeColor=black;fontColor=black;";
+		String estiloEdge = "strokeColor=black;fontColor=black;labelBackgroundColor=white;endArrow=open;";
+
+		graph.getModel().beginUpdate();
+		try {
+			siguientes.add(this);
+
+			while (!siguientes.isEmpty()) {
+				actual = siguientes.get(0);
+
+				if (!gNodos.containsKey(actual)) {
+					gActual = graph.insertVertex(parent, null,
+							actual.tipo(), 0, 0, 30, 30, estiloVertex);
+					gNodos.put(actual, gActual);
+				} else {
+					gActual = gNodos.get(actual);
 				}
-			} finally {
-				graph.getModel().endUpdate();
 
-				mxGraphComponent graphComponent = new mxGraphComponent(graph);
+				tieneHijoIzquierdo = !actual.esSimbolo()
+						&& !actual.esVacio();
+				tieneHijoDerecho = tieneHijoIzquierdo && !actual.esCierre();
+
+				if (tieneHijoIzquierdo) {
+					siguientes.add(actual.hijoIzquierdo());
+					gNodo = graph.insertVertex(parent, null, actual
+							.hijoIzquierdo().tipo(), 0, 0, 30, 30,
+							estiloVertex);
+					graph.insertEdge(parent, null, "", gActual, gNodo,
+							estiloEdge);
+					gNodos.put(actual.hijoIzquierdo(), gNodo);
+				}
 
-				new mxHierarchicalLayout(graph, SwingConstants.NORTH)
-						.execute(parent);
-				new mxParallelEdgeLayout(graph).execute(parent);
+				if (tieneHijoDerecho) {
+					siguientes.add(actual.hijoDerecho());
+					gNodo = graph.insertVertex(parent, null, actual
+							.hijoDerecho().tipo(), 0, 0, 30, 30,
+							estiloVertex);
+					graph.insertEdge(parent, null, "", gActual, gNodo,
+							estiloEdge);
+					gNodos.put(actual.hijoDerecho(), gNodo);
+				}
 
-				this.imagen = mxCellRenderer.createBufferedImage(graph, null,
-						1, Color.WHITE, graphComponent.isAntiAlias(), null,
-						graphComponent.getCanvas());
+				siguientes.remove(actual);
 			}
+		} finally {
+			graph.getModel().endUpdate();
+
+			mxGraphComponent graphComponent = new mxGraphComponent(graph);
+
+			new mxHierarchicalLayout(graph, SwingConstants.NORTH)
+					.execute(parent);
+			new mxParallelEdgeLayout(graph).execute(parent);
+
+			imagen = mxCellRenderer.createBufferedImage(graph, null,
+					1, Color.WHITE, graphComponent.isAntiAlias(), null,
+					graphComponent.getCanvas());
 		}
 
-		return this.imagen;
+		return imagen;
 	}
 
 	/**
@@ -405,6 +517,223 @@ public class ExpresionRegular {
 		}
 	}
 
+	/**
+	 * Construye una representación canónica del árbol de la expresión regular,
+	 * en notación prefija y con la posición de cada símbolo. A diferencia de
+	 * <code>toString</code>, dos árboles tienen la misma representación
+	 * canónica solo si tienen la misma forma, los mismos símbolos y las mismas
+	 * posiciones, por lo que puede utilizarse para identificar árboles
+	 * equivalentes.
+	 * 
+	 * @return Representación canónica del árbol.
+	 */
+	public String canonica() {
+		StringBuilder canonica = new StringBuilder();
+		canonica(canonica);
+		return canonica.toString();
+	}
+
+	private void canonica(StringBuilder canonica) {
+		switch (this.tipo) {
+		case VACIO:
+			canonica.append('\u03B5');
+			break;
+		case SIMBOLO:
+			canonica.append('\'').append(this.simbolo).append(this.posicion);
+			break;
+		case UNION:
+			canonica.append("|(");
+			this.hijoIzquierdo.canonica(canonica);
+			canonica.append(',');
+			this.hijoDerecho.canonica(canonica);
+			canonica.append(')');
+			break;
+		case CONCAT:
+			canonica.append(".(");
+			this.hijoIzquierdo.canonica(canonica);
+			canonica.append(',');
+			this.hijoDerecho.canonica(canonica);
+			canonica.append(')');
+			break;
+		case CIERRE:
+			canonica.append("*(");
+			this.hijoIzquierdo.canonica(canonica);
+			canonica.append(')');
+			break;
+		}
+	}
+
+	/**
+	 * Reconstruye un árbol de expresión regular a partir de su representación
+	 * canónica, tal y como la devuelve {@link #canonica() canonica}. El árbol
+	 * obtenido tiene la misma forma, símbolos y posiciones que el original.
+	 * 
+	 * @param canonica
+	 *            Representación canónica del árbol.
+	 * @return Árbol de expresión regular.
+	 * @throws IllegalArgumentException
+	 *             Si la cadena no es una representación canónica válida.
+	 */
+	public static ExpresionRegular deCanonica(String canonica) {
+		int[] indice = { 0 };
+		ExpresionRegular expresion;
+		try {
+			expresion = deCanonica(canonica, indice);
+		} catch (IndexOutOfBoundsException | NumberFormatException e) {
+			throw new IllegalArgumentException(
+					"Representación canónica incorrecta: " + canonica, e);
+		}
+		if (indice[0] != canonica.length())
+			throw new IllegalArgumentException(
+					"Representación canónica incorrecta: " + canonica);
+		return expresion;
+	}
+
+	private static ExpresionRegular deCanonica(String canonica, int[] indice) {
+		char actual = canonica.charAt(indice[0]++);
+		ExpresionRegular hijoIzquierdo, hijoDerecho;
+
+		switch (actual) {
+		case '\u03B5':
+			return nodoVacio();
+		case '\'':
+			char simbolo = canonica.charAt(indice[0]++);
+			int inicio = indice[0];
+			while (indice[0] < canonica.length()
+					&& Character.isDigit(canonica.charAt(indice[0])))
+				indice[0]++;
+			return nodoSimbolo(
+					Integer.parseInt(canonica.substring(inicio, indice[0])),
+					simbolo);
+		case '*':
+			espera(canonica, indice, '(');
+			hijoIzquierdo = deCanonica(canonica, indice);
+			espera(canonica, indice, ')');
+			return nodoCierre(hijoIzquierdo);
+		case '|':
+		case '.':
+			espera(canonica, indice, '(');
+			hijoIzquierdo = deCanonica(canonica, indice);
+			espera(canonica, indice, ',');
+			hijoDerecho = deCanonica(canonica, indice);
+			espera(canonica, indice, ')');
+			return actual == '|' ? nodoUnion(hijoIzquierdo, hijoDerecho)
+					: nodoConcat(hijoIzquierdo, hijoDerecho);
+		default:
+			throw new IllegalArgumentException(
+					"Representación canónica incorrecta: " + canonica);
+		}
+	}
+
+	private static void espera(String canonica, int[] indice, char esperado) {
+		if (canonica.charAt(indice[0]++) != esperado)
+			throw new IllegalArgumentException(
+					"Representación canónica incorrecta: " + canonica);
+	}
+
+	/**
+	 * Codifica el árbol de la expresión regular en binario, en orden prefijo.
+	 * Cada nodo ocupa un byte con su tipo, y los nodos símbolo añaden el
+	 * símbolo y la posición como enteros de longitud variable, de forma que
+	 * los símbolos ASCII en posiciones menores de 128 ocupan tres bytes.
+	 * <p>
+	 * Contiene la misma información que {@link #canonica() canonica}, y se
+	 * decodifica con {@link #deBinaria(ByteBuffer) deBinaria} sin necesidad
+	 * de analizar texto.
+	 * 
+	 * @return Codificación binaria del árbol.
+	 */
+	public byte[] binaria() {
+		ByteArrayOutputStream binaria = new ByteArrayOutputStream();
+		binaria(binaria);
+		return binaria.toByteArray();
+	}
+
+	private void binaria(ByteArrayOutputStream binaria) {
+		binaria.write(this.tipo.ordinal());
+		switch (this.tipo) {
+		case SIMBOLO:
+			escribeEntero(binaria, this.simbolo);
+			escribeEntero(binaria, this.posicion);
+			break;
+		case CONCAT:
+		case UNION:
+			this.hijoIzquierdo.binaria(binaria);
+			this.hijoDerecho.binaria(binaria);
+			break;
+		case CIERRE:
+			this.hijoIzquierdo.binaria(binaria);
+			break;
+		default:
+			break;
+		}
+	}
+
+	/**
+	 * Decodifica un árbol de expresión regular codificado con
+	 * {@link #binaria() binaria}, leyéndolo directamente del buffer a partir
+	 * de su posición actual. Al terminar, la posición del buffer queda justo
+	 * después del árbol, por lo que pueden leerse varios árboles seguidos.
+	 * 
+	 * @param binaria
+	 *            Buffer que contiene la codificación del árbol.
+	 * @return Árbol de expresión regular.
+	 * @throws IllegalArgumentException
+	 *             Si el contenido del buffer no es una codificación válida.
+	 */
+	public static ExpresionRegular deBinaria(ByteBuffer binaria) {
+		try {
+			return leeBinaria(binaria);
+		} catch (BufferUnderflowException | ArrayIndexOutOfBoundsException e) {
+			throw new IllegalArgumentException(
+					"Codificación binaria incorrecta.", e);
+		}
+	}
+
+	private static ExpresionRegular leeBinaria(ByteBuffer binaria) {
+		ExpresionRegular hijoIzquierdo;
+
+		switch (Tipo.values()[binaria.get()]) {
+		case VACIO:
+			return nodoVacio();
+		case SIMBOLO:
+			char simbolo = (char) leeEntero(binaria);
+			return nodoSimbolo(leeEntero(binaria), simbolo);
+		case CONCAT:
+			hijoIzquierdo = leeBinaria(binaria);
+			return nodoConcat(hijoIzquierdo, leeBinaria(binaria));
+		case UNION:
+			hijoIzquierdo = leeBinaria(binaria);
+			return nodoUnion(hijoIzquierdo, leeBinaria(binaria));
+		default:
+			return nodoCierre(leeBinaria(binaria));
+		}
+	}
+
+	/**
+	 * Escribe un entero con longitud variable, siete bits por byte empezando
+	 * por los menos significativos. El bit alto indica que siguen más bytes.
+	 */
+	private static void escribeEntero(ByteArrayOutputStream binaria, int valor) {
+		while ((valor & ~0x7F) != 0) {
+			binaria.write((valor & 0x7F) | 0x80);
+			valor >>>= 7;
+		}
+		binaria.write(valor);
+	}
+
+	private static int leeEntero(ByteBuffer binaria) {
+		int valor = 0;
+		for (int desplazamiento = 0; desplazamiento < 32; desplazamiento += 7) {
+			byte actual = binaria.get();
+			valor |= (actual & 0x7F) << desplazamiento;
+			if ((actual & 0x80) == 0)
+				return valor;
+		}
+		throw new IllegalArgumentException(
+				"Entero de longitud variable incorrecto.");
+	}
+
 	/**
 	 * Construye una representación de la expresión regular, utilizando
 	 * caracteres especiales para representar las concatenaciones y los nodos
@@ -1,7 +1,6 @@
 package es.ubu.inf.tfg.regex.datos;
 
 import java.util.ArrayList;
-import java.util.Date;
 import java.util.EnumSet;
 import java.util.List;
 import java.util.Random;
@@ -26,7 +25,7 @@ public class Generador {
 
 	private static final Logger log = LoggerFactory.getLogger(Generador.class);
 
-	private static final Random random = new Random(new Date().getTime());
+	private final Random random;
 
 	private List<Character> simbolos;
 	private List<Character> simbolosRepetidos;
@@ -75,6 +74,50 @@ public class Generador {
 	 *            aumentadas (<code>true</code>), o no (<code>false</code>).
 	 */
 	public Generador(int nSimbolos, boolean usaVacio, boolean esAumentada) {
+		this(nSimbolos, usaVacio, esAumentada, new Random());
+	}
+
+	/**
+	 * Constructor. Prepara un generador para expresiones con unas
+	 * características dadas, utilizando una semilla concreta. Dos generadores
+	 * construidos con los mismos parámetros y la misma semilla devuelven la
+	 * misma secuencia de expresiones, lo que permite trabajar con conjuntos de
+	 * expresiones reproducibles.
+	 * 
+	 * @param nSimbolos
+	 *            Número de símbolos a utilizar en la expresión, empezando por
+	 *            la 'a'.
+	 * @param usaVacio
+	 *            <code>true</code> en caso de que la expresión contenga nodos
+	 *            vacíos, <code>false</code> en caso contrario.
+	 * @param esAumentada
+	 *            Especifica si el algoritmo trabajará con expresiones
+	 *            aumentadas (<code>true</code>), o no (<code>false</code>).
+	 * @param semilla
+	 *            Semilla del generador de números aleatorios.
+	 */
+	public Generador(int nSimbolos, boolean usaVacio, boolean esAumentada,
+			long semilla) {
+		this(nSimbolos, usaVacio, esAumentada, new Random(semilla));
+	}
+
+	/**
+	 * Constructor común, que recibe el generador de números aleatorios a
+	 * utilizar. Cada Generador tiene el suyo propio, de forma que varios
+	 * generadores pueden trabajar en paralelo sin compartirlo.
+	 * 
+	 * @param nSimbolos
+	 *            Número de símbolos a utilizar en la expresión.
+	 * @param usaVacio
+	 *            Si la expresión puede contener nodos vacíos.
+	 * @param esAumentada
+	 *            Si el algoritmo trabajará con expresiones aumentadas.
+	 * @param random
+	 *            Generador de números aleatorios.
+	 */
+	private Generador(int nSimbolos, boolean usaVacio, boolean esAumentada,
+			Random random) {
+		this.random = random;
 		this.nSimbolos = nSimbolos;
 		this.usaVacio = usaVacio;
 		this.esAumentada = esAumentada;
@@ -0,0 +1,71 @@
+package es.ubu.inf.tfg.regex.datos;
+
+/**
+ * Lienzo define las primitivas geométricas con las que los árboles y
+ * autómatas se dibujan una vez calculada su disposición. Cada implementación
+ * las traduce a un formato de salida, de forma que el mismo código de dibujo
+ * genera tanto la imagen SVG como la imagen rasterizada.
+ * <p>
+ * Las coordenadas pueden tomar cualquier valor. Cada implementación calcula
+ * el rectángulo ocupado por el dibujo y ajusta a él el tamaño de la salida.
+ *
+ */
+public interface Lienzo {
+
+	/**
+	 * Dibuja un círculo de borde negro y relleno blanco.
+	 *
+	 * @param x
+	 *            Coordenada x del centro.
+	 * @param y
+	 *            Coordenada y del centro.
+	 * @param radio
+	 *            Radio del círculo.
+	 */
+	void circulo(double x, double y, double radio);
+
+	/**
+	 * Dibuja un segmento, opcionalmente terminado en flecha.
+	 *
+	 * @param xo
+	 *            Coordenada x del origen.
+	 * @param yo
+	 *            Coordenada y del origen.
+	 * @param xd
+	 *            Coordenada x del destino.
+	 * @param yd
+	 *            Coordenada y del destino.
+	 * @param flecha
+	 *            Si el segmento termina en flecha.
+	 */
+	void linea(double xo, double yo, double xd, double yd, boolean flecha);
+
+	/**
+	 * Dibuja un camino formado por tramos rectos y curvas de Bézier cúbicas,
+	 * opcionalmente terminado en flecha. El primer tramo indica el punto de
+	 * inicio, y cada uno de los siguientes es un segmento si contiene un punto
+	 * o una curva si contiene dos puntos de control y el punto final.
+	 *
+	 * @param tramos
+	 *            Coordenadas de cada tramo, como pares x, y consecutivos.
+	 * @param flecha
+	 *            Si el camino termina en flecha.
+	 * @throws IllegalArgumentException
+	 *             Si algún tramo no tiene uno o tres puntos.
+	 */
+	void camino(double[][] tramos, boolean flecha);
+
+	/**
+	 * Dibuja un texto centrado horizontalmente.
+	 *
+	 * @param x
+	 *            Coordenada x del centro del texto.
+	 * @param y
+	 *            Coordenada y de la línea base del texto.
+	 * @param texto
+	 *            Texto a dibujar.
+	 * @param tamaño
+	 *            Tamaño de la fuente.
+	 */
+	void texto(double x, double y, String texto, double tamaño);
+}
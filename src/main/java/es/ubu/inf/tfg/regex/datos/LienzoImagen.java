@@ -0,0 +1,180 @@
+package es.ubu.inf.tfg.regex.datos;
+
+import java.awt.BasicStroke;
+import java.awt.Color;
+import java.awt.Font;
+import java.awt.FontMetrics;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.Shape;
+import java.awt.geom.Ellipse2D;
+import java.awt.geom.Line2D;
+import java.awt.geom.Path2D;
+import java.awt.image.BufferedImage;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * LienzoImagen es el lienzo que rasteriza las primitivas geométricas sobre una
+ * imagen en memoria mediante Java2D, sin componentes Swing, por lo que puede
+ * utilizarse con <code>java.awt.headless=true</code>.
+ * <p>
+ * Las primitivas se registran mientras se calcula el rectángulo que ocupan, y
+ * al pedir la imagen se reserva un único búfer del tamaño exacto sobre el que
+ * se dibujan en negro sobre fondo blanco.
+ *
+ */
+public class LienzoImagen implements Lienzo {
+
+	private static final double LONGITUD_FLECHA = 8;
+	private static final double ANCHO_FLECHA = 4;
+
+	private final List<Shape> trazos = new ArrayList<>();
+	private final List<Shape> circulos = new ArrayList<>();
+	private final List<Object[]> textos = new ArrayList<>();
+	private double minX = Double.POSITIVE_INFINITY;
+	private double minY = Double.POSITIVE_INFINITY;
+	private double maxX = Double.NEGATIVE_INFINITY;
+	private double maxY = Double.NEGATIVE_INFINITY;
+
+	@Override
+	public void circulo(double x, double y, double radio) {
+		incluye(x - radio, y - radio);
+		incluye(x + radio, y + radio);
+		this.circulos.add(new Ellipse2D.Double(x - radio, y - radio, 2 * radio,
+				2 * radio));
+	}
+
+	@Override
+	public void linea(double xo, double yo, double xd, double yd,
+			boolean flecha) {
+		incluye(xo, yo);
+		incluye(xd, yd);
+		this.trazos.add(new Line2D.Double(xo, yo, xd, yd));
+		if (flecha)
+			flecha(xo, yo, xd, yd);
+	}
+
+	@Override
+	public void camino(double[][] tramos, boolean flecha) {
+		Path2D.Double camino = new Path2D.Double();
+		double xo = 0, yo = 0, xd = 0, yd = 0;
+		for (int i = 0; i < tramos.length; i++) {
+			double[] tramo = tramos[i];
+			if (i == 0 && tramo.length == 2)
+				camino.moveTo(tramo[0], tramo[1]);
+			else if (tramo.length == 2)
+				camino.lineTo(tramo[0], tramo[1]);
+			else if (tramo.length == 6)
+				camino.curveTo(tramo[0], tramo[1], tramo[2], tramo[3],
+						tramo[4], tramo[5]);
+			else
+				throw new IllegalArgumentException("Tramo de camino incorrecto.");
+
+			for (int j = 0; j < tramo.length; j += 2) {
+				// Los puntos de control contienen a la curva
+				incluye(tramo[j], tramo[j + 1]);
+				xo = xd;
+				yo = yd;
+				xd = tramo[j];
+				yd = tramo[j + 1];
+			}
+		}
+		this.trazos.add(camino);
+		// La punta sigue la dirección del último punto de control
+		if (flecha && tramos.length > 1)
+			flecha(xo, yo, xd, yd);
+	}
+
+	@Override
+	public void texto(double x, double y, String texto, double tamaño) {
+		// Aproximación del tamaño del texto
+		double mitad = texto.length() * tamaño * 0.3;
+		incluye(x - mitad, y - tamaño);
+		incluye(x + mitad, y + tamaño * 0.25);
+		this.textos.add(new Object[] { x, y, texto, tamaño });
+	}
+
+	/**
+	 * Rasteriza las primitivas sobre una nueva imagen, con un tamaño que las
+	 * incluye a todas más un margen.
+	 *
+	 * @param margen
+	 *            Margen alrededor del contenido.
+	 * @return Imagen generada.
+	 */
+	public BufferedImage imagen(double margen) {
+		if (this.minX > this.maxX) {
+			this.minX = this.minY = 0;
+			this.maxX = this.maxY = 0;
+		}
+
+		int ancho = (int) Math.ceil(this.maxX - this.minX + 2 * margen);
+		int alto = (int) Math.ceil(this.maxY - this.minY + 2 * margen);
+		BufferedImage imagen = new BufferedImage(Math.max(ancho, 1), Math.max(
+				alto, 1), BufferedImage.TYPE_INT_RGB);
+
+		Graphics2D grafico = imagen.createGraphics();
+		try {
+			grafico.setColor(Color.WHITE);
+			grafico.fillRect(0, 0, imagen.getWidth(), imagen.getHeight());
+			grafico.setRenderingHint(RenderingHints.KEY_ANTIALIASING,
+					RenderingHints.VALUE_ANTIALIAS_ON);
+			grafico.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING,
+					RenderingHints.VALUE_TEXT_ANTIALIAS_ON);
+			grafico.setStroke(new BasicStroke(1f));
+			grafico.translate(margen - this.minX, margen - this.minY);
+
+			grafico.setColor(Color.BLACK);
+			for (Shape trazo : this.trazos)
+				grafico.draw(trazo);
+			for (Shape circulo : this.circulos) {
+				grafico.setColor(Color.WHITE);
+				grafico.fill(circulo);
+				grafico.setColor(Color.BLACK);
+				grafico.draw(circulo);
+			}
+			for (Object[] texto : this.textos) {
+				String cadena = (String) texto[2];
+				grafico.setFont(new Font(Font.SANS_SERIF, Font.PLAIN,
+						(int) Math.round((Double) texto[3])));
+				FontMetrics metricas = grafico.getFontMetrics();
+				grafico.drawString(cadena,
+						(float) ((Double) texto[0] - metricas
+								.stringWidth(cadena) / 2.0),
+						(float) (double) (Double) texto[1]);
+			}
+		} finally {
+			grafico.dispose();
+		}
+		return imagen;
+	}
+
+	/**
+	 * Añade una punta de flecha abierta en el destino de un segmento.
+	 */
+	private void flecha(double xo, double yo, double xd, double yd) {
+		double dx = xd - xo;
+		double dy = yd - yo;
+		double longitud = Math.hypot(dx, dy);
+		if (longitud == 0)
+			return;
+		dx /= longitud;
+		dy /= longitud;
+
+		double bx = xd - dx * LONGITUD_FLECHA;
+		double by = yd - dy * LONGITUD_FLECHA;
+		Path2D.Double punta = new Path2D.Double();
+		punta.moveTo(bx - dy * ANCHO_FLECHA, by + dx * ANCHO_FLECHA);
+		punta.lineTo(xd, yd);
+		punta.lineTo(bx + dy * ANCHO_FLECHA, by - dx * ANCHO_FLECHA);
+		this.trazos.add(punta);
+	}
+
+	private void incluye(double x, double y) {
+		this.minX = Math.min(this.minX, x);
+		this.minY = Math.min(this.minY, y);
+		this.maxX = Math.max(this.maxX, x);
+		this.maxY = Math.max(this.maxY, y);
+	}
+}
@@ -1,31 +1,48 @@
 package es.ubu.inf.tfg.regex.datos;
 
-import java.util.Map;
+import java.util.Arrays;
 import java.util.Set;
-import java.util.TreeMap;
+import java.util.TreeSet;
 
 /**
- * MapaEstados implementa una interfaz simple para trabajar con un mapa de mapas
- * que almacena una tabla de transición. Permite obtener tanto una lista de
- * estados existentes, como el resultado de una operación mueve, tal que
- * mueve(estado, símbolo) -> destino.
- * 
+ * MapaEstados implementa una interfaz simple para trabajar con una tabla de
+ * transición. Permite obtener tanto una lista de estados existentes, como el
+ * resultado de una operación mueve, tal que mueve(estado, símbolo) -> destino.
+ * <p>
+ * Internamente la tabla se almacena como una matriz densa
+ * <code>int[estado][símbolo]</code>, indexada por el número de estado y por el
+ * índice del símbolo en el orden en que se registró, de forma que cada
+ * consulta se reduce a una lectura de array. Los estados se identifican
+ * externamente mediante caracteres consecutivos a partir de 'A', que se
+ * traducen a índices con {@link #indice(char) indice} y {@link #estado(int)
+ * estado}. Para mostrar autómatas de más de 26 estados se provee además
+ * {@link #etiqueta(int) etiqueta}, que genera etiquetas del tipo A, ..., Z, AA,
+ * AB, ...
+ *
  * @author Roberto Izquierdo Amo
- * 
+ *
  */
 public class MapaEstados {
-	private Map<Character, Map<Character, Character>> mapaEstados;
+	private static final int SIN_TRANSICION = -1;
+
+	private int[][] tabla;
+	private char[] simbolos;
+	private int nSimbolos;
+	private int nEstados;
 
 	/**
 	 * Construye un nuevo mapa de estados.
 	 */
 	public MapaEstados() {
-		this.mapaEstados = new TreeMap<>();
+		this.tabla = new int[8][];
+		this.simbolos = new char[4];
+		this.nSimbolos = 0;
+		this.nEstados = 0;
 	}
 
 	/**
 	 * Añade una nueva transición al mapa de estados.
-	 * 
+	 *
 	 * @param estado
 	 *            Estado de origen.
 	 * @param simbolo
@@ -34,40 +51,200 @@ public class MapaEstados {
 	 *            Estado de destino.
 	 */
 	public void add(char estado, char simbolo, char destino) {
-		Map<Character, Character> transicion;
-
-		if (!(this.mapaEstados.containsKey(estado))) {
-			transicion = new TreeMap<>();
-			transicion.put(simbolo, destino);
-			this.mapaEstados.put(estado, transicion);
-		} else {
-			transicion = this.mapaEstados.get(estado);
-			transicion.put(simbolo, destino);
+		add(indice(estado), añadeSimbolo(simbolo), indice(destino));
+	}
+
+	/**
+	 * Añade una nueva transición al mapa de estados, utilizando índices de
+	 * estado y de símbolo.
+	 *
+	 * @param estado
+	 *            Índice del estado de origen.
+	 * @param simbolo
+	 *            Índice del símbolo, tal y como lo devuelve
+	 *            {@link #añadeSimbolo(char) añadeSimbolo}.
+	 * @param destino
+	 *            Índice del estado de destino.
+	 * @throws IllegalArgumentException
+	 *             Si alguno de los índices no es válido.
+	 */
+	public void add(int estado, int simbolo, int destino) {
+		if (estado < 0 || destino < 0)
+			throw new IllegalArgumentException("Estado no válido.");
+		if (simbolo < 0 || simbolo >= this.nSimbolos)
+			throw new IllegalArgumentException("Símbolo no registrado.");
+
+		if (estado >= this.tabla.length)
+			this.tabla = Arrays.copyOf(this.tabla,
+					Math.max(estado + 1, this.tabla.length * 2));
+
+		int[] fila = this.tabla[estado];
+		if (fila == null) {
+			fila = nuevaFila(this.simbolos.length);
+			this.tabla[estado] = fila;
+		} else if (simbolo >= fila.length) {
+			int anterior = fila.length;
+			fila = Arrays.copyOf(fila, this.simbolos.length);
+			Arrays.fill(fila, anterior, fila.length, SIN_TRANSICION);
+			this.tabla[estado] = fila;
 		}
+
+		fila[simbolo] = destino;
+		this.nEstados = Math.max(this.nEstados, estado + 1);
 	}
 
 	/**
 	 * Obtiene un estado de destino para una combinación de estado de origen y
 	 * símbolo de transición.
-	 * 
+	 *
 	 * @param estado
 	 *            Estado de origen.
 	 * @param simbolo
 	 *            Símbolo con el que realizamos la transición.
 	 * @return Estado de destino.
+	 * @throws IllegalArgumentException
+	 *             Si no existe la transición.
 	 */
 	public char get(char estado, char simbolo) {
-		Map<Character, Character> transicion = this.mapaEstados.get(estado);
-		return transicion.get(simbolo);
+		int destino = get(indice(estado), indiceSimbolo(simbolo));
+		if (destino == SIN_TRANSICION)
+			throw new IllegalArgumentException("Transición inexistente.");
+		return estado(destino);
 	}
 
 	/**
-	 * Obtiene una lista de todos los estados existentes en la tabla, que se
-	 * corresponden con las claves del mapa externo.
-	 * 
+	 * Obtiene el índice del estado de destino para una combinación de índices
+	 * de estado de origen y de símbolo de transición.
+	 *
+	 * @param estado
+	 *            Índice del estado de origen.
+	 * @param simbolo
+	 *            Índice del símbolo.
+	 * @return Índice del estado de destino, o -1 si no existe la transición.
+	 */
+	public int get(int estado, int simbolo) {
+		if (estado < 0 || estado >= this.tabla.length || simbolo < 0)
+			return SIN_TRANSICION;
+
+		int[] fila = this.tabla[estado];
+		if (fila == null || simbolo >= fila.length)
+			return SIN_TRANSICION;
+		return fila[simbolo];
+	}
+
+	/**
+	 * Registra un símbolo en la tabla, si no lo estaba ya, y devuelve su
+	 * índice.
+	 *
+	 * @param simbolo
+	 *            Símbolo a registrar.
+	 * @return Índice del símbolo en la tabla.
+	 */
+	public int añadeSimbolo(char simbolo) {
+		int indice = indiceSimbolo(simbolo);
+		if (indice >= 0)
+			return indice;
+
+		if (this.nSimbolos == this.simbolos.length)
+			this.simbolos = Arrays.copyOf(this.simbolos,
+					this.simbolos.length * 2);
+		this.simbolos[this.nSimbolos] = simbolo;
+		return this.nSimbolos++;
+	}
+
+	/**
+	 * Obtiene el índice de un símbolo registrado. Los alfabetos con los que se
+	 * trabaja son pequeños, por lo que una búsqueda lineal resulta más rápida
+	 * que cualquier estructura de búsqueda.
+	 *
+	 * @param simbolo
+	 *            Símbolo a buscar.
+	 * @return Índice del símbolo, o -1 si no está registrado.
+	 */
+	public int indiceSimbolo(char simbolo) {
+		for (int i = 0; i < this.nSimbolos; i++) {
+			if (this.simbolos[i] == simbolo)
+				return i;
+		}
+		return -1;
+	}
+
+	/**
+	 * Devuelve el número de estados de la tabla, es decir, el número de
+	 * estados de origen consecutivos a partir del estado 0.
+	 *
+	 * @return Número de estados.
+	 */
+	public int numEstados() {
+		return this.nEstados;
+	}
+
+	/**
+	 * Obtiene una lista de todos los estados existentes en la tabla.
+	 *
 	 * @return Lista de estados en la tabla.
 	 */
 	public Set<Character> estados() {
-		return this.mapaEstados.keySet();
+		Set<Character> estados = new TreeSet<>();
+		for (int i = 0; i < this.nEstados; i++) {
+			if (this.tabla[i] != null)
+				estados.add(estado(i));
+		}
+		return estados;
+	}
+
+	/**
+	 * Traduce un estado a su índice en la tabla.
+	 *
+	 * @param estado
+	 *            Estado, a partir de 'A'.
+	 * @return Índice del estado.
+	 */
+	public static int indice(char estado) {
+		return estado - 'A';
+	}
+
+	/**
+	 * Traduce un índice de la tabla al carácter que identifica al estado.
+	 *
+	 * @param indice
+	 *            Índice del estado.
+	 * @return Estado, a partir de 'A'.
+	 */
+	public static char estado(int indice) {
+		return (char) (indice + 'A');
+	}
+
+	/**
+	 * Genera la etiqueta con la que mostrar un estado dado su índice. Los
+	 * primeros 26 estados coinciden con su carácter identificador (A, ..., Z),
+	 * y a partir de ahí se utilizan varias letras (AA, AB, ...).
+	 *
+	 * @param indice
+	 *            Índice del estado.
+	 * @return Etiqueta del estado.
+	 */
+	public static String etiqueta(int indice) {
+		StringBuilder etiqueta = new StringBuilder();
+		int n = indice + 1;
+		while (n > 0) {
+			n--;
+			etiqueta.append((char) ('A' + n % 26));
+			n /= 26;
+		}
+		return etiqueta.reverse().toString();
+	}
+
+	/**
+	 * Crea una nueva fila de la tabla sin transiciones.
+	 *
+	 * @param longitud
+	 *            Número de símbolos de la fila.
+	 * @return Fila vacía.
+	 */
+	private static int[] nuevaFila(int longitud) {
+		int[] fila = new int[longitud];
+		Arrays.fill(fila, SIN_TRANSICION);
+		return fila;
 	}
 }
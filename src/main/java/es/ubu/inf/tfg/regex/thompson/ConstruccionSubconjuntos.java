@@ -6,6 +6,8 @@ import java.awt.image.BufferedImage;
 //import java.io.OutputStream;   // commented as now it not used
 import java.io.StringReader;
 import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
@@ -31,6 +33,7 @@ import es.ubu.inf.tfg.regex.parser.JavaCharStream;
 import es.ubu.inf.tfg.regex.parser.ParseException;
 import es.ubu.inf.tfg.regex.parser.TokenMgrError;
 import es.ubu.inf.tfg.regex.thompson.datos.Automata;
+import es.ubu.inf.tfg.regex.thompson.datos.AutomataCompacto;
 import es.ubu.inf.tfg.regex.thompson.datos.Nodo;
 
 /**
@@ -92,21 +95,7 @@ public class ConstruccionSubconjuntos {
 
 		this.automata = new Automata(this.expresion, 0);
 
-		// Calculo de estados
-		this.estados = new TreeMap<>();
-		this.transiciones = new MapaEstados();
-
-		char estadoActual = 'A';
-		Set<Nodo> posiciones = automata.transicionVacia(automata.nodoInicial());
-		estados.put(estadoActual, posiciones);
-
-		while (estados.keySet().contains(estadoActual)) {
-			for (char simbolo : this.automata.simbolos()) {
-				char destino = transicion(estadoActual, simbolo);
-				this.transiciones.add(estadoActual, simbolo, destino);
-			}
-			estadoActual++;
-		}
+		calculaEstados();
 	}
 
 	/**
@@ -124,48 +113,76 @@ public class ConstruccionSubconjuntos {
 
 		this.automata = new Automata(this.expresion, 0);
 
-		// Calculo de estados
+		calculaEstados();
+	}
+
+	/**
+	 * Calcula los estados del AFD y su tabla de transición a partir del
+	 * autómata. Los estados se calculan como <code>BitSet</code> sobre la
+	 * representación compacta del autómata, escribiendo cada transición sobre
+	 * un mismo conjunto reutilizable. Cada conjunto se registra en un índice
+	 * hash, de forma que comprobar si un estado ya existe no requiere recorrer
+	 * todos los estados anteriores, y solo se copia y se traduce a nodos
+	 * cuando resulta ser un estado nuevo.
+	 */
+	private void calculaEstados() {
 		this.estados = new TreeMap<>();
 		this.transiciones = new MapaEstados();
 
-		char estadoActual = 'A';
-		Set<Nodo> posiciones = automata.transicionVacia(automata.nodoInicial());
-		estados.put(estadoActual, posiciones);
-
-		while (estados.keySet().contains(estadoActual)) {
-			for (char simbolo : this.automata.simbolos()) {
-				char destino = transicion(estadoActual, simbolo);
-				this.transiciones.add(estadoActual, simbolo, destino);
+		List<Character> simbolos = new ArrayList<>(this.automata.simbolos());
+		for (char simbolo : simbolos)
+			this.transiciones.añadeSimbolo(simbolo);
+
+		AutomataCompacto compacto = this.automata.compacto();
+		List<BitSet> conjuntos = new ArrayList<>();
+		Map<BitSet, Integer> indice = new HashMap<>();
+		BitSet destino = new BitSet(compacto.numNodos());
+
+		añadeEstado(compacto, conjuntos, indice,
+				compacto.cierre(compacto.indice(automata.nodoInicial())));
+
+		for (int actual = 0; actual < conjuntos.size(); actual++) {
+			BitSet estado = conjuntos.get(actual);
+			for (int i = 0; i < simbolos.size(); i++) {
+				destino.clear();
+				compacto.transicion(estado, simbolos.get(i), destino);
+
+				// Comprobar si existe el estado o crear uno nuevo.
+				Integer existente = indice.get(destino);
+				if (existente == null)
+					existente = añadeEstado(compacto, conjuntos, indice,
+							destino);
+				this.transiciones.add(actual, i, existente);
 			}
-			estadoActual++;
 		}
 	}
 
 	/**
-	 * Calcula la transición a partir de un estado dado mediante un símbolo
-	 * concreto.
+	 * Registra un nuevo estado del AFD a partir de su conjunto de nodos. El
+	 * conjunto se copia, por lo que el original puede seguir reutilizándose.
 	 * 
-	 * @param estado
-	 *            Estado de origen.
-	 * @param simbolo
-	 *            Símbolo de transición.
-	 * @return Estado de destino.
+	 * @param compacto
+	 *            Representación compacta del autómata.
+	 * @param conjuntos
+	 *            Conjuntos de nodos de los estados, por índice de estado.
+	 * @param indice
+	 *            Índice de estado de cada conjunto de nodos.
+	 * @param nodos
+	 *            Conjunto de nodos del nuevo estado.
+	 * @return Índice del nuevo estado.
 	 */
-	private char transicion(char estado, char simbolo) {
-		Set<Nodo> posiciones = new TreeSet<>();
+	private int añadeEstado(AutomataCompacto compacto, List<BitSet> conjuntos,
+			Map<BitSet, Integer> indice, BitSet nodos) {
+		int est = conjuntos.size();
+		BitSet conjunto = (BitSet) nodos.clone();
+		conjuntos.add(conjunto);
+		indice.put(conjunto, est);
 
-		for (Nodo nodo : estados.get(estado)) {
-			if (this.estados.get(estado).contains(nodo))
-				posiciones.addAll(automata.transicion(nodo, simbolo));
-		}
-
-		for (char est : estados()) {
-			if (estados.get(est).equals(posiciones))
-				return est;
-		}
-
-		char est = (char) (this.estados.size() + 'A');
-		this.estados.put(est, posiciones);
+		Set<Nodo> posiciones = new TreeSet<>();
+		for (int i = conjunto.nextSetBit(0); i >= 0; i = conjunto
+				.nextSetBit(i + 1))
+			posiciones.add(compacto.nodo(i));
+		this.estados.put(MapaEstados.estado(est), posiciones);
 
 		return est;
 	}
@@ -199,6 +216,27 @@ public class ConstruccionSubconjuntos {
 		return new TreeSet<>(estados.keySet());
 	}
 
+	/**
+	 * Devuelve el número de estados existentes en la tabla de transición.
+	 * 
+	 * @return Número de estados.
+	 */
+	public int numEstados() {
+		return this.estados.size();
+	}
+
+	/**
+	 * Devuelve la etiqueta con la que mostrar un estado. Coincide con el propio
+	 * estado para los 26 primeros, y utiliza varias letras a partir de ahí.
+	 * 
+	 * @param estado
+	 *            Estado del que obtener la etiqueta.
+	 * @return Etiqueta del estado.
+	 */
+	public String etiqueta(char estado) {
+		return MapaEstados.etiqueta(MapaEstados.indice(estado));
+	}
+
 	/**
 	 * Devuelve el conjunto de posiciones asociadas a un estado dado en la tabla
 	 * de transición.
@@ -341,7 +379,7 @@ public class ConstruccionSubconjuntos {
 	 * @return Array de cuatro imágenes representando árboles de expresión
 	 *         regular, una correspondiente al del problema y tres alternativas.
 	 */
-	public List<BufferedImage> alternativas() {
+	public synchronized List<BufferedImage> alternativas() {
 		if (this.alternativas == null) {
 			alternativas = new ArrayList<>();
 
@@ -365,7 +403,7 @@ public class ConstruccionSubconjuntos {
 	 *         representando autómatas de expresión regular, una correspondiente
 	 *         al del problema y tres alternativas.
 	 */
-	public List<String> alternativasDot() {
+	public synchronized List<String> alternativasDot() {
 		if (this.alternativasDot == null) {
 			alternativasDot = new ArrayList<>();
 			Automata automata;
@@ -37,18 +37,105 @@ public class ConstruccionSubconjuntosGenerador {
 	private static final int MAX_PROFUNDIDAD = 5;
 	private static final int MIN_PROFUNDIDAD = 2;
 
+	private static final int POBLACION = 8;
 	private static final int ELITISMO = 2;
 	private static final int MUTACION = 2;
-	private static final int NUEVOS = 4;
+
+	private final int elitismo;
+	private final int mutacion;
+	private final int nuevos;
 
 	private Generador generador;
 	private AtomicBoolean cancelar = new AtomicBoolean();
 
+	/**
+	 * Individuo almacena una expresión de la población junto con su
+	 * evaluación, de forma que cada individuo se evalúa una sola vez por
+	 * generación.
+	 */
+	private static class Individuo {
+		private final ExpresionRegular expresion;
+		private final int evaluacion;
+
+		private Individuo(ExpresionRegular expresion, int evaluacion) {
+			this.expresion = expresion;
+			this.evaluacion = evaluacion;
+		}
+	}
+
+	/**
+	 * Construye un generador con los parámetros de población por defecto.
+	 */
+	public ConstruccionSubconjuntosGenerador() {
+		this(POBLACION, ELITISMO, MUTACION);
+	}
+
+	/**
+	 * Construye un generador con unos parámetros de población dados. En cada
+	 * generación se conservan los <code>elitismo</code> mejores individuos, se
+	 * añaden mutaciones de los <code>mutacion</code> mejores, y se completa la
+	 * población con individuos nuevos.
+	 * 
+	 * @param poblacion
+	 *            Tamaño de la población.
+	 * @param elitismo
+	 *            Número de individuos que pasan sin cambios a la siguiente
+	 *            generación.
+	 * @param mutacion
+	 *            Número de individuos mutados en cada generación.
+	 * @throws IllegalArgumentException
+	 *             Si los parámetros no describen una población válida.
+	 */
+	public ConstruccionSubconjuntosGenerador(int poblacion, int elitismo,
+			int mutacion) {
+		if (elitismo < 1 || mutacion < 0 || elitismo + mutacion > poblacion)
+			throw new IllegalArgumentException(
+					"Parámetros de población no válidos.");
+
+		this.elitismo = elitismo;
+		this.mutacion = mutacion;
+		this.nuevos = poblacion - elitismo - mutacion;
+	}
+
+	/**
+	 * Devuelve el tamaño de la población con la que trabaja el generador.
+	 * 
+	 * @return Tamaño de la población.
+	 */
+	public int poblacion() {
+		return this.elitismo + this.mutacion + this.nuevos;
+	}
+
+	/**
+	 * Devuelve el número de individuos que pasan sin cambios a la siguiente
+	 * generación.
+	 * 
+	 * @return Elitismo del generador.
+	 */
+	public int elitismo() {
+		return this.elitismo;
+	}
+
+	/**
+	 * Devuelve el número de individuos mutados en cada generación.
+	 * 
+	 * @return Mutaciones por generación.
+	 */
+	public int mutacion() {
+		return this.mutacion;
+	}
+
 	/**
 	 * Genera un nuevo problema de tipo ConstruccionSubconjuntos. Intentará
 	 * acercarse lo más posible al número de símbolos y de estados especificado.
 	 * El algoritmo es capaz de variar la profundidad a la que busca en función
 	 * de los resultados que vaya obteniendo, entre ciertos márgenes.
+	 * <p>
+	 * En cada generación, todos los individuos de la población se evalúan una
+	 * sola vez y en paralelo, y la población se ordena según esas
+	 * evaluaciones. Los candidatos se evalúan mediante
+	 * ConstruccionSubconjuntosMetricas, y solo se construye el problema
+	 * completo para el resultado final.
 	 * 
 	 * @param nSimbolos
 	 *            Número de símbolos que se quiere que el problema utilice.
@@ -62,13 +149,36 @@ public class ConstruccionSubconjuntosGenerador {
 	 */
 	public ConstruccionSubconjuntos nuevo(int nSimbolos, int nEstados,
 			boolean usaVacio) {
+		return new ConstruccionSubconjuntos(nuevaExpresion(nSimbolos,
+				nEstados, usaVacio));
+	}
+
+	/**
+	 * Busca la expresión regular de un nuevo problema de tipo
+	 * ConstruccionSubconjuntos, igual que {@link #nuevo(int, int, boolean)
+	 * nuevo}, pero sin construir el problema. Permite guardar la expresión
+	 * encontrada y reconstruir el problema más tarde.
+	 * 
+	 * @param nSimbolos
+	 *            Número de símbolos que se quiere que el problema utilice.
+	 * @param nEstados
+	 *            Número de estados que se quiere que contenga la tabla de
+	 *            transición del problema.
+	 * @param usaVacio
+	 *            Si queremos que el problema genere nodos vacíos. Su aparición
+	 *            no se garantiza.
+	 * @return Expresión regular del nuevo problema, tal y como la recibe el
+	 *         constructor de ConstruccionSubconjuntos.
+	 */
+	public ExpresionRegular nuevaExpresion(int nSimbolos, int nEstados,
+			boolean usaVacio) {
 		log.info(
 				"Generando problema de construcción de subconjuntos con {} símbolos y {} estados, vacíos = {}.",
 				nSimbolos, nEstados, usaVacio);
 
 		List<ExpresionRegular> poblacion = new ArrayList<>();
+		List<Individuo> evaluados;
 		List<ExpresionRegular> elite, mutacion, nuevos = new ArrayList<>();
-		ConstruccionSubconjuntos candidato = null;
 		ExpresionRegular candidatoExpresion = null;
 		int candidatoEvalua = 0;
 		generador = new Generador(nSimbolos, usaVacio, false);
@@ -76,11 +186,8 @@ public class ConstruccionSubconjuntosGenerador {
 		int iteraciones = 0;
 		int profundidad;
 
-		Comparator<ExpresionRegular> evalua = Comparator.comparing(e -> evalua(
-				new ConstruccionSubconjuntos(e), nEstados, nSimbolos));
-
 		// inicializa población
-		for (int i = 0; i < (ELITISMO + MUTACION + NUEVOS); i++) {
+		for (int i = 0; i < poblacion(); i++) {
 			profundidad = random.nextInt(MAX_PROFUNDIDAD - MIN_PROFUNDIDAD)
 					+ MIN_PROFUNDIDAD;
 			poblacion.add(generador.arbol(profundidad));
@@ -88,18 +195,20 @@ public class ConstruccionSubconjuntosGenerador {
 
 		mutacion = new ArrayList<>();
 		do {
-			poblacion.sort(evalua);
+			evaluados = evalua(poblacion, nEstados, nSimbolos);
+			evaluados.sort(Comparator.comparingInt(i -> i.evaluacion));
 
-			elite = poblacion.stream().limit(ELITISMO)
-					.collect(Collectors.toList());
-			mutacion = poblacion.stream()
+			elite = evaluados.stream().limit(this.elitismo)
+					.map(i -> i.expresion).collect(Collectors.toList());
+			mutacion = evaluados.stream()
 					// .skip(ELITISMO)
-					.limit(MUTACION).map(e -> generador.mutacion(e))
+					.limit(this.mutacion)
+					.map(i -> generador.mutacion(i.expresion))
 					.collect(Collectors.toList());
 
 			nuevos.clear();
 
-			for (int i = 0; i < NUEVOS; i++) {
+			for (int i = 0; i < this.nuevos; i++) {
 				profundidad = elite.get(0).profundidad()
 						+ (random.nextInt(3) - 1);
 				if (profundidad < MIN_PROFUNDIDAD)
@@ -110,11 +219,11 @@ public class ConstruccionSubconjuntosGenerador {
 				nuevos.add(generador.arbol(profundidad));
 			}
 
+			Individuo mejor = evaluados.get(0);
 			if (candidatoExpresion == null
-					|| !poblacion.get(0).equals(candidatoExpresion)) {
-				candidatoExpresion = poblacion.get(0);
-				candidato = new ConstruccionSubconjuntos(candidatoExpresion);
-				candidatoEvalua = evalua(candidato, nEstados, nSimbolos);
+					|| !mejor.expresion.equals(candidatoExpresion)) {
+				candidatoExpresion = mejor.expresion;
+				candidatoEvalua = mejor.evaluacion;
 
 				iteraciones = 0;
 			} else {
@@ -131,7 +240,26 @@ public class ConstruccionSubconjuntosGenerador {
 		log.info("Solución encontrada en {} iteraciones (fitness {}).", iteraciones,
 				candidatoEvalua);
 
-		return candidato;
+		return candidatoExpresion;
+	}
+
+	/**
+	 * Evalúa en paralelo todos los individuos de una población, calculando
+	 * las métricas de cada uno una única vez.
+	 * 
+	 * @param poblacion
+	 *            Expresiones a evaluar.
+	 * @param nEstados
+	 *            Número de estados en el problema pedido.
+	 * @param nSimbolos
+	 *            Número de símbolos en el problema pedido.
+	 * @return Individuos evaluados, en el mismo orden que la población.
+	 */
+	private List<Individuo> evalua(List<ExpresionRegular> poblacion,
+			int nEstados, int nSimbolos) {
+		return poblacion.parallelStream().map(e -> new Individuo(e, evalua(
+				new ConstruccionSubconjuntosMetricas(e), nEstados, nSimbolos)))
+				.collect(Collectors.toList());
 	}
 
 	/**
@@ -148,11 +276,10 @@ public class ConstruccionSubconjuntosGenerador {
 	 *            Número de estados en el problema pedido.
 	 * @return Función de evaluación del problema.
 	 */
-	private int evalua(ConstruccionSubconjuntos problema, int nEstados,
-			int nSimbolos) {
-		int diferenciaEstados = Math.abs(problema.estados().size() - nEstados);
-		int diferenciaSimbolos = Math.abs(problema.simbolos().size()
-				- nSimbolos);
+	private int evalua(ConstruccionSubconjuntosMetricas problema,
+			int nEstados, int nSimbolos) {
+		int diferenciaEstados = Math.abs(problema.numEstados() - nEstados);
+		int diferenciaSimbolos = Math.abs(problema.numSimbolos() - nSimbolos);
 
 		return diferenciaEstados + diferenciaSimbolos;
 	}
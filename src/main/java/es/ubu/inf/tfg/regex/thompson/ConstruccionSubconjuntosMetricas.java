@@ -0,0 +1,110 @@
+package es.ubu.inf.tfg.regex.thompson;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import es.ubu.inf.tfg.regex.datos.ExpresionRegular;
+import es.ubu.inf.tfg.regex.thompson.datos.Automata;
+import es.ubu.inf.tfg.regex.thompson.datos.AutomataCompacto;
+
+/**
+ * ConstruccionSubconjuntosMetricas calcula únicamente las métricas de un
+ * problema de construcción de subconjuntos que se necesitan para evaluarlo: el
+ * número de estados del AFD resultante y el número de símbolos utilizados.
+ * Está pensada para los generadores, que evalúan miles de candidatos y solo
+ * necesitan construir el problema completo para el candidato elegido.
+ * <p>
+ * A diferencia de ConstruccionSubconjuntos, no almacena la tabla de
+ * transición ni los conjuntos de nodos de cada estado. Los estados se
+ * representan como <code>BitSet</code> sobre la representación compacta del
+ * autómata y solo se cuentan. Los resultados coinciden con los de
+ * <code>estados().size()</code> y <code>simbolos().size()</code> de
+ * ConstruccionSubconjuntos.
+ *
+ */
+public class ConstruccionSubconjuntosMetricas {
+
+	private final int nEstados;
+	private final int nSimbolos;
+
+	/**
+	 * Calcula las métricas del problema definido por una expresión regular
+	 * aumentada, igual que ConstruccionSubconjuntos.
+	 *
+	 * @param expresion
+	 *            Expresión regular aumentada.
+	 */
+	public ConstruccionSubconjuntosMetricas(ExpresionRegular expresion) {
+		// Expresión sin aumentar.
+		Automata automata = new Automata(expresion.hijoIzquierdo(), 0);
+		Set<Character> simbolos = automata.simbolos();
+
+		this.nSimbolos = simbolos.size();
+		this.nEstados = cuentaEstados(automata.compacto(),
+				automata.compacto().indice(automata.nodoInicial()), simbolos);
+	}
+
+	/**
+	 * Devuelve el número de estados de la tabla de transición del AFD.
+	 *
+	 * @return Número de estados.
+	 */
+	public int numEstados() {
+		return this.nEstados;
+	}
+
+	/**
+	 * Devuelve el número de símbolos distintos de la expresión.
+	 *
+	 * @return Número de símbolos.
+	 */
+	public int numSimbolos() {
+		return this.nSimbolos;
+	}
+
+	/**
+	 * Cuenta los estados del AFD, siguiendo el mismo algoritmo que
+	 * ConstruccionSubconjuntos pero sin almacenar la tabla de transición. Como
+	 * todos los estados son cerrados respecto a las transiciones vacías, la
+	 * transición de un estado se reduce al cierre de los nodos a los que se
+	 * llega consumiendo el símbolo.
+	 *
+	 * @param compacto
+	 *            Representación compacta del autómata.
+	 * @param inicial
+	 *            Índice del nodo inicial del autómata.
+	 * @param simbolos
+	 *            Símbolos del autómata.
+	 * @return Número de estados.
+	 */
+	private static int cuentaEstados(AutomataCompacto compacto, int inicial,
+			Set<Character> simbolos) {
+		List<BitSet> estados = new ArrayList<>();
+		Map<BitSet, Integer> indice = new HashMap<>();
+		BitSet destino = new BitSet(compacto.numNodos());
+
+		BitSet primero = (BitSet) compacto.cierre(inicial).clone();
+		estados.add(primero);
+		indice.put(primero, 0);
+
+		for (int actual = 0; actual < estados.size(); actual++) {
+			BitSet estado = estados.get(actual);
+			for (char simbolo : simbolos) {
+				destino.clear();
+				compacto.transicion(estado, simbolo, destino);
+
+				if (!indice.containsKey(destino)) {
+					BitSet nuevo = (BitSet) destino.clone();
+					indice.put(nuevo, estados.size());
+					estados.add(nuevo);
+				}
+			}
+		}
+
+		return estados.size();
+	}
+}
@@ -2,7 +2,12 @@ package es.ubu.inf.tfg.regex.thompson.datos;
 
 import java.awt.Color;
 import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Deque;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -16,6 +21,8 @@ import java.util.Locale;
 
 import javax.swing.SwingConstants;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.w3c.dom.Document;
 
 import com.mxgraph.layout.mxParallelEdgeLayout;
@@ -26,7 +33,11 @@ import com.mxgraph.util.mxCellRenderer;
 import com.mxgraph.util.mxXmlUtils;
 import com.mxgraph.view.mxGraph;
 
+import es.ubu.inf.tfg.regex.datos.CacheImagenes;
+import es.ubu.inf.tfg.regex.datos.EscritorSvg;
 import es.ubu.inf.tfg.regex.datos.ExpresionRegular;
+import es.ubu.inf.tfg.regex.datos.Lienzo;
+import es.ubu.inf.tfg.regex.datos.LienzoImagen;
 
 /**
  * Automata implementa el modelo lógico de un autómata finito no determinista,
@@ -39,88 +50,57 @@ import es.ubu.inf.tfg.regex.datos.ExpresionRegular;
  */
 public class Automata {
 
+	private static final Logger log = LoggerFactory.getLogger(Automata.class);
+
 	private Nodo nodoInicial;
 	private Nodo nodoFinal;
 	private Set<Character> simbolos;
+	private AutomataCompacto compacto;
 	private BufferedImage imagen;
 	private String imagenDot;
 	private String imagenSvg;	// JBA
 	private int idCounter;	// JBA
-	private static int r = 12;	// JBA
+	static final int r = 12;	// JBA
 	
 	//TikZ
+	private final ExpresionRegular expresion;
+	private DisposicionTikZ disposicion;
 	private double initialStateCoordinatesX = (double) 0;
 	private double initialStateCoordinatesY = (double) 0;
 	private double finalStateCoordinatesX = (double) 0;
 	private double finalStateCoordinatesY = (double) 0;
 	private int biggestState = 0;
-	private static int newStateCounter = 0;
-	NodoTikZ nodoInicialTikZ;	// TODO getters
-	NodoTikZ nodoFinalTikZ;
-	public String tipo;
-	public int id;
-	public double ancho;
-	public double alto;
-	public double yNew;
-	public String texto;
-	public Automata hijoI;
-	public Automata hijoD;
 
 	/**
 	 * Constructor. Define un autómata finito no determinista a partir de un
 	 * árbol de expresión regular dado, de manera recursiva.
+	 * <p>
+	 * Solo se construye el grafo de nodos del autómata. La disposición
+	 * necesaria para representarlo en TikZ se calcula la primera vez que se
+	 * solicita, de forma que los autómatas que solo se utilizan para calcular
+	 * transiciones no reservan memoria para ella.
 	 * 
 	 * @param expresion
 	 *            Árbol de expresión regular a partir del cual generar el
 	 *            autómata.
 	 */
 	public Automata(ExpresionRegular expresion, int posicionInicial) {
-		
-
+		this.expresion = expresion;
 		this.simbolos = new TreeSet<>();
 
 		if (expresion.esVacio()) {
-			
-			// Automata
 			this.nodoInicial = new Nodo(posicionInicial, false);
 			this.nodoFinal = new Nodo(posicionInicial + 1, true);
 			this.nodoInicial.añadeTransicionVacia(this.nodoFinal);
-			
-			//TikZ
-			this.tipo = "EPS";
-			this.ancho = 6*r;
-			this.alto = 2*r;
-			this.yNew = r;
-			this.texto = "&#917";
-			
-			this.nodoFinalTikZ = new NodoTikZ(-(newStateCounter+2), "FINAL");
-			this.nodoInicialTikZ = new NodoTikZ(-(newStateCounter+1), "SIMP");
-			this.nodoInicialTikZ.next = this.nodoFinalTikZ;
-			newStateCounter +=2;
-			
-			
+
 		} else if (expresion.esSimbolo()) {
-			// Automata
 			this.nodoInicial = new Nodo(posicionInicial, false);
 			this.nodoFinal = new Nodo(posicionInicial + 1, true);
 			this.nodoInicial.añadeTransicion(expresion.simbolo(),
 					this.nodoFinal);
 			this.simbolos.add(expresion.simbolo());
-			
-			//TikZ	
-			this.tipo = "ID";
-			this.ancho = 6*r;
-			this.alto = 2*r;
-			this.yNew = r;
-			this.texto = Character.toString(expresion.simbolo());
-			
-			this.nodoFinalTikZ = new NodoTikZ(-(newStateCounter+2), "FINAL");
-			this.nodoInicialTikZ = new NodoTikZ(-(newStateCounter+1), "SIMP");
-			this.nodoInicialTikZ.next = this.nodoFinalTikZ;
-			newStateCounter +=2;
-			
+
 		} else if (expresion.esCierre()) {
-			// Automata
 			this.nodoInicial = new Nodo(posicionInicial, false);
 			Automata hijo = new Automata(expresion.hijoIzquierdo(),
 					posicionInicial + 1);
@@ -131,46 +111,9 @@ public class Automata {
 			hijo.nodoFinal().añadeTransicionVacia(hijo.nodoInicial());
 			hijo.nodoFinal().añadeTransicionVacia(this.nodoFinal);
 
-			this.simbolos.addAll(hijo.simbolos());
-			
-			//TikZ
-			double ancho = hijo.ancho+8*r;	
-			double alto = hijo.alto+2*r;
-			double yNew = hijo.yNew+r;
-			String thI = hijo.tipo;
-			
-			String lop = "";
-			String lcp = "";
-			if (thI == "SEL") {
-		        lop = "(";
-				lcp = ")";
-			}
-				
-			String texto = lop+hijo.texto+lcp+"*";
-			
-			this.tipo = "AST";
-			this.ancho = ancho;
-			this.alto = alto;
-			this.yNew = yNew;
-			this.texto = texto;
-			this.hijoI = hijo;
-			
-			
-			this.nodoFinalTikZ = new NodoTikZ(-(newStateCounter+2), "FINAL");
-			this.nodoInicialTikZ = new NodoTikZ(-(newStateCounter+1), "BSTAR");
-			this.nodoInicialTikZ.next = this.nodoFinalTikZ;
-			this.nodoInicialTikZ.inside = hijo.nodoInicialTikZ;
-			
+			this.simbolos.addAll(hijo.simbolos);
 
-			newStateCounter +=2;
-			
-			hijo.nodoFinalTikZ.tipo = "ESTAR";
-			hijo.nodoFinalTikZ.next = this.nodoFinalTikZ;
-			hijo.nodoFinalTikZ.inside = hijo.nodoInicialTikZ;
-			
-			
 		} else if (expresion.esConcat()) {
-			// Automata
 			Automata hijoIzquierdo = new Automata(expresion.hijoIzquierdo(),
 					posicionInicial);
 			Automata hijoDerecho = new Automata(expresion.hijoDerecho(),
@@ -180,69 +123,10 @@ public class Automata {
 			this.nodoInicial = hijoIzquierdo.nodoInicial();
 			this.nodoFinal = hijoDerecho.nodoFinal();
 
-			this.simbolos.addAll(hijoIzquierdo.simbolos());
-			this.simbolos.addAll(hijoDerecho.simbolos());
-			
-			//TikZ
-			double yI = hijoIzquierdo.yNew;
-			double yD = hijoDerecho.yNew;
-			
-			double altoI = hijoDerecho.alto;
-			double altoD = hijoDerecho.alto;
-			
-			double yNew = (yI > yD) ? yI : yD;
-			
-			double difI = altoI - yI;
-			double difD = altoD - yD;
-			
-			double maxDif = (difI > difD) ? difI : difD;
-			
-			double ancho = hijoIzquierdo.ancho + hijoDerecho.ancho - 2*r;
-			
-			double alto = yNew+maxDif;
-			
-			String thI =  hijoIzquierdo.tipo;
-			String thD =  hijoDerecho.tipo;
-			
-			String lop = "";
-			String lcp = "";
-			if (thI == "SEL") {
-		        lop = "(";
-				lcp = ")";
-			}
-				
-			String rop = "";
-			String rcp = "";
-			if (thD == "SEL" || thD == "CAT") {
-		        rop = "(";
-				rcp = ")";
-			}
-			
-			String texto = lop+hijoIzquierdo.texto+lcp+"."+rop+hijoDerecho.texto+rcp;
-			
-			this.tipo = "CAT";
-			this.ancho = ancho;
-			this.alto = alto;
-			this.yNew = yNew;
-			this.texto = texto;
-			this.hijoI = hijoIzquierdo;
-			this.hijoD = hijoDerecho;
-			
-			
-			this.nodoInicialTikZ = hijoIzquierdo.nodoInicialTikZ;
-			this.nodoFinalTikZ = hijoDerecho.nodoFinalTikZ;
-			
-			 hijoIzquierdo.nodoFinalTikZ.tipo = hijoDerecho.nodoInicialTikZ.tipo;
-			 hijoIzquierdo.nodoFinalTikZ.pair = hijoDerecho.nodoInicialTikZ.pair;
-			 hijoIzquierdo.nodoFinalTikZ.id = hijoDerecho.nodoInicialTikZ.id;
-			 hijoIzquierdo.nodoFinalTikZ.next = hijoDerecho.nodoInicialTikZ.next;
-			 hijoIzquierdo.nodoFinalTikZ.inside = hijoDerecho.nodoInicialTikZ.inside;
-			 hijoIzquierdo.nodoFinalTikZ.up = hijoDerecho.nodoInicialTikZ.up;
-			 hijoIzquierdo.nodoFinalTikZ.down = hijoDerecho.nodoInicialTikZ.down;
-			
-			
+			this.simbolos.addAll(hijoIzquierdo.simbolos);
+			this.simbolos.addAll(hijoDerecho.simbolos);
+
 		} else if (expresion.esUnion()) {
-			// Automata
 			this.nodoInicial = new Nodo(posicionInicial, false);
 
 			Automata hijoIzquierdo = new Automata(expresion.hijoIzquierdo(),
@@ -258,63 +142,26 @@ public class Automata {
 			hijoIzquierdo.nodoFinal().añadeTransicionVacia(this.nodoFinal);
 			hijoDerecho.nodoFinal().añadeTransicionVacia(this.nodoFinal);
 
-			this.simbolos.addAll(hijoIzquierdo.simbolos());
-			this.simbolos.addAll(hijoDerecho.simbolos());
-			
-			//TikZ
-			double anchoI = hijoIzquierdo.ancho;
-			double anchoD = hijoDerecho.ancho;
-			
-			double maxAncho = (anchoI > anchoD) ? anchoI : anchoD;
-			double ancho = maxAncho + 6*r;
-			
-			double alto = hijoIzquierdo.alto + hijoDerecho.alto + 2*r;
-			double yNew = hijoIzquierdo.alto + r;
-			String thD = hijoDerecho.tipo;
-			
-			String rop = "";
-			String rcp = "";
-			if (thD == "SEL") {
-		        rop = "(";
-				rcp = ")";
-			}
-			
-			String texto = hijoIzquierdo.texto + "|" + rop + hijoDerecho.texto + rcp;
-			
-			this.tipo = "SEL";
-			this.ancho = ancho;
-			this.alto = alto;
-			this.yNew = yNew;
-			this.texto = texto;
-			this.hijoI = hijoIzquierdo;
-			this.hijoD = hijoDerecho;
-			
-			// New initial
-			newStateCounter += 1;
-			this.nodoInicialTikZ = new NodoTikZ(-newStateCounter, "SEL");
-			this.nodoInicialTikZ.up = hijoIzquierdo.nodoInicialTikZ;
-			this.nodoInicialTikZ.down = hijoDerecho.nodoInicialTikZ;
-
-			// New final
-			newStateCounter += 1;
-			this.nodoFinalTikZ = new NodoTikZ(-newStateCounter, "FINAL");
-			
-			this.nodoInicialTikZ.pair = this.nodoFinalTikZ;
-			this.nodoFinalTikZ.invpair = this.nodoInicialTikZ;
-			
-			//Change old finals
-			hijoIzquierdo.nodoFinalTikZ.tipo = "FINAL";
-			hijoDerecho.nodoFinalTikZ.tipo = "SIMP";
-			hijoDerecho.nodoFinalTikZ.next= this.nodoFinalTikZ;
-			
-			
+			this.simbolos.addAll(hijoIzquierdo.simbolos);
+			this.simbolos.addAll(hijoDerecho.simbolos);
+
 		} else { // runtime exception
 			throw new IllegalArgumentException(
 					"Expresión regular de tipo desconocido.");
 		}
-		resetAllIds(this.nodoInicialTikZ, -1);
 	}
-	
+
+	/**
+	 * Devuelve la disposición del autómata para su representación en TikZ,
+	 * calculándola al ser solicitada por primera vez.
+	 * 
+	 * @return Disposición TikZ del autómata.
+	 */
+	private synchronized DisposicionTikZ disposicion() {
+		if (this.disposicion == null)
+			this.disposicion = new DisposicionTikZ(this.expresion);
+		return this.disposicion;
+	}
 
 	/**
 	 * Nodo de entrada del autómata.
@@ -345,10 +192,27 @@ public class Automata {
 		return new TreeSet<>(this.simbolos);
 	}
 
+	/**
+	 * Devuelve la representación compacta del autómata, basada en arrays,
+	 * sobre la que se calculan las transiciones. Se construye al ser
+	 * solicitada por primera vez, una vez el autómata está completo.
+	 * 
+	 * @return Representación compacta del autómata.
+	 */
+	public synchronized AutomataCompacto compacto() {
+		if (this.compacto == null)
+			this.compacto = new AutomataCompacto(this);
+		return this.compacto;
+	}
+
 	/**
 	 * Obtiene el conjunto de nodos al que se llega a partir de un nodo inicial
 	 * y tras consumir un símbolo determinado. Solo se cuentan las transiciones
 	 * vacías efectuadas tras consumir la entrada.
+	 * <p>
+	 * Cada llamada construye un nuevo conjunto de nodos. Para calcular muchas
+	 * transiciones sin reservar memoria en cada una se utiliza directamente
+	 * {@link AutomataCompacto#transicion(BitSet, char, BitSet)}.
 	 * 
 	 * @param inicio
 	 *            Nodo de inicio.
@@ -357,26 +221,12 @@ public class Automata {
 	 * @return Conjunto de nodos de llegada.
 	 */
 	public Set<Nodo> transicion(Nodo inicio, char simbolo) {
-		// Nodos a los que llegamos desde el inicio sin consumir
-		Set<Nodo> iniciales = transicionVacia(inicio);
-		// Nodos a los que llegamos tras consumir la entrada
-		Set<Nodo> transicionConsumiendo = new TreeSet<>();
-		// Nodos a los que llegamos tras consumir la entrada
-		Set<Nodo> transicionNoConsumiendo = new TreeSet<>();
-		Nodo actual;
+		AutomataCompacto compacto = compacto();
+		BitSet llegada = new BitSet(compacto.numNodos());
 
-		for (Nodo nodo : iniciales) {
-			actual = nodo.transicion(simbolo);
-			if (actual != null)
-				transicionConsumiendo.add(actual);
-		}
-
-		for (Nodo nodo : transicionConsumiendo)
-			transicionNoConsumiendo.addAll(transicionVacia(nodo));
+		compacto.transicion(compacto.indice(inicio), simbolo, llegada);
 
-		transicionConsumiendo.addAll(transicionNoConsumiendo);
-
-		return transicionConsumiendo;
+		return nodos(llegada);
 	}
 
 	/**
@@ -388,104 +238,170 @@ public class Automata {
 	 * @return Conjunto de nodos de llegada.
 	 */
 	public Set<Nodo> transicionVacia(Nodo inicio) {
-		// Nodos a los que llegamos sin consumir entrada
-		Set<Nodo> actuales = new TreeSet<>();
-		Set<Nodo> visitados = new TreeSet<>();
-		Nodo actual;
+		AutomataCompacto compacto = compacto();
 
-		actuales.add(inicio);
-		while (!actuales.isEmpty()) {
-			actual = actuales.iterator().next();
-			actuales.addAll(actual.transicionVacia());
+		return nodos(compacto.cierre(compacto.indice(inicio)));
+	}
 
-			visitados.add(actual);
-			actuales.removeAll(visitados);
-		}
+	/**
+	 * Devuelve el número de cierres vacíos que se han obtenido de la caché del
+	 * autómata en lugar de recalcularse.
+	 * 
+	 * @return Aciertos de la caché de cierres.
+	 */
+	public long aciertosCierres() {
+		return compacto().aciertos();
+	}
+
+	/**
+	 * Devuelve el número de cierres vacíos que se han tenido que calcular. Como
+	 * cada cierre se calcula una sola vez, nunca supera el número de nodos.
+	 * 
+	 * @return Fallos de la caché de cierres.
+	 */
+	public long fallosCierres() {
+		return compacto().fallos();
+	}
+
+	/**
+	 * Traduce un conjunto de índices de la representación compacta al conjunto
+	 * de nodos correspondiente.
+	 * 
+	 * @param indices
+	 *            Conjunto de índices de nodo.
+	 * @return Conjunto de nodos.
+	 */
+	private Set<Nodo> nodos(BitSet indices) {
+		Set<Nodo> nodos = new TreeSet<>();
+		for (int i = indices.nextSetBit(0); i >= 0; i = indices
+				.nextSetBit(i + 1))
+			nodos.add(this.compacto.nodo(i));
+		return nodos;
+	}
 
-		return visitados;
+	/**
+	 * Devuelve la clave con la que se almacenan las imágenes del autómata en
+	 * la caché. Depende de la expresión y de la posición del nodo inicial, que
+	 * determina la numeración de los estados.
+	 * 
+	 * @return Clave del autómata en la caché de imágenes.
+	 */
+	private String clave() {
+		return this.expresion.canonica() + '@' + this.nodoInicial.posicion();
 	}
 
 	/**
 	 * Genera un grafo representando el autómata. La imagen generada se cachea
 	 * al ser solicitada por primera vez para evitar realizar los cálculos
-	 * repetidas veces.
+	 * repetidas veces, y se comparte con los autómatas equivalentes.
 	 * 
 	 * @return Imagen conteniendo el grafo que representa al autómata.
 	 */
-	public BufferedImage imagen() {
-		if (this.imagen == null) {
-			mxGraph graph = new mxGraph();
-			Object parent = graph.getDefaultParent();
-			Map<Integer, Object> gNodos = new HashMap<>();
-			Object gNodo, gActual;
-			List<Nodo> pendientes = new ArrayList<>();
-			Map<Nodo, Character> siguientes;
-			Nodo actual;
-
-			String estiloVertex = "shape=ellipse;fillColor=white;strokeColor=black;fontColor=black;";
-			String estiloEdge = "strokeColor=black;fontColor=black;labelBackgroundColor=white;rounded=true;";
-
-			graph.getModel().beginUpdate();
-			try {
-				actual = nodoInicial;
-				do {
-					gActual = gNodos.get(actual.posicion());
-					if (gActual == null) { // Primer nodo
-						gActual = graph.insertVertex(parent, null,
-								actual.posicion(), 0, 0, 30, 30, estiloVertex);
-						gNodos.put(actual.posicion(), gActual);
-					}
+	public synchronized BufferedImage imagen() {
+		if (this.imagen == null)
+			this.imagen = CacheImagenes.obtiene("Automata.imagen",
+					clave(), this::dibuja);
 
-					// Calcula transiciones
-					siguientes = new HashMap<>();
-					for (Nodo nodo : actual.transicionVacia())
-						siguientes.put(nodo, null);
-					Nodo siguiente;
-					for (char simbolo : simbolos) {
-						siguiente = actual.transicion(simbolo);
-						if (siguiente != null)
-							siguientes.put(siguiente, simbolo);
-					}
+		return this.imagen;
+	}
+
+	/**
+	 * Dibuja el grafo del autómata sin consultar la caché, rasterizando
+	 * directamente la misma disposición que la representación SVG. Si falla
+	 * el dibujo directo, se recurre a JGraphX.
+	 * 
+	 * @return Imagen conteniendo el grafo que representa al autómata.
+	 */
+	private BufferedImage dibuja() {
+		try {
+			LienzoImagen lienzo = new LienzoImagen();
+			dibujaEn(lienzo);
+			return lienzo.imagen(r);
+		} catch (RuntimeException e) {
+			log.warn("Error dibujando el autómata, se utiliza JGraphX", e);
+			return dibujaJGraphX();
+		}
+	}
+
+	/**
+	 * Dibuja el grafo del autómata con JGraphX, calculando la disposición a
+	 * partir del grafo de nodos.
+	 * 
+	 * @return Imagen conteniendo el grafo que representa al autómata.
+	 */
+	private BufferedImage dibujaJGraphX() {
+		BufferedImage imagen;
+		mxGraph graph = new mxGraph();
+		Object parent = graph.getDefaultParent();
+		Map<Integer, Object> gNodos = new HashMap<>();
+		Object gNodo, gActual;
+		List<Nodo> pendientes = new ArrayList<>();
+		Map<Nodo, Character> siguientes;
+		Nodo actual;
+
+		String estiloVertex = "shape=ellipse;fillColor=white;strokeColor=black;fontColor=black;";
+		String estiloEdge = "strokeColor=black;fontColor=black;labelBackgroundColor=white;rounded=true;";
+
+		graph.getModel().beginUpdate();
+		try {
+			actual = nodoInicial;
+			do {
+				gActual = gNodos.get(actual.posicion());
+				if (gActual == null) { // Primer nodo
+					gActual = graph.insertVertex(parent, null,
+							actual.posicion(), 0, 0, 30, 30, estiloVertex);
+					gNodos.put(actual.posicion(), gActual);
+				}
+
+				// Calcula transiciones
+				siguientes = new HashMap<>();
+				for (Nodo nodo : actual.transicionVacia())
+					siguientes.put(nodo, null);
+				Nodo siguiente;
+				for (char simbolo : simbolos) {
+					siguiente = actual.transicion(simbolo);
+					if (siguiente != null)
+						siguientes.put(siguiente, simbolo);
+				}
 
-					pendientes.addAll(siguientes.keySet().stream()
-							.filter(n -> !gNodos.containsKey(n.posicion()))
-							.collect(Collectors.toList()));
-
-					for (Nodo nodo : siguientes.keySet()) {
-						if (!gNodos.containsKey(nodo.posicion())) { // Añade
-																	// nodo
-							gNodo = graph
-									.insertVertex(parent, null,
-											nodo.posicion(), 0, 0, 30, 30,
-											estiloVertex);
-							gNodos.put(nodo.posicion(), gNodo);
-						} else { // Recupera nodo
-							gNodo = gNodos.get(nodo.posicion());
-						}
-						// Añade transición
-						graph.insertEdge(parent, null, siguientes.get(nodo),
-								gActual, gNodo, estiloEdge);
+				pendientes.addAll(siguientes.keySet().stream()
+						.filter(n -> !gNodos.containsKey(n.posicion()))
+						.collect(Collectors.toList()));
+
+				for (Nodo nodo : siguientes.keySet()) {
+					if (!gNodos.containsKey(nodo.posicion())) { // Añade
+																// nodo
+						gNodo = graph
+								.insertVertex(parent, null,
+										nodo.posicion(), 0, 0, 30, 30,
+										estiloVertex);
+						gNodos.put(nodo.posicion(), gNodo);
+					} else { // Recupera nodo
+						gNodo = gNodos.get(nodo.posicion());
 					}
+					// Añade transición
+					graph.insertEdge(parent, null, siguientes.get(nodo),
+							gActual, gNodo, estiloEdge);
+				}
 
-					actual = pendientes.isEmpty() ? null : pendientes.remove(0);
-				} while (actual != null);
+				actual = pendientes.isEmpty() ? null : pendientes.remove(0);
+			} while (actual != null);
 
-			} finally {
-				graph.getModel().endUpdate();
+		} finally {
+			graph.getModel().endUpdate();
 
-				mxGraphComponent graphComponent = new mxGraphComponent(graph);
+			mxGraphComponent graphComponent = new mxGraphComponent(graph);
 
-				new mxHierarchicalLayout(graph, SwingConstants.WEST)
-						.execute(parent);
-				new mxParallelEdgeLayout(graph).execute(parent);
+			new mxHierarchicalLayout(graph, SwingConstants.WEST)
+					.execute(parent);
+			new mxParallelEdgeLayout(graph).execute(parent);
 
-				this.imagen = mxCellRenderer.createBufferedImage(graph, null,
-						1, Color.WHITE, graphComponent.isAntiAlias(), null,
-						graphComponent.getCanvas());
-			}
+			imagen = mxCellRenderer.createBufferedImage(graph, null,
+					1, Color.WHITE, graphComponent.isAntiAlias(), null,
+					graphComponent.getCanvas());
 		}
 
-		return this.imagen;
+		return imagen;
 	}
 
 	/**
@@ -496,45 +412,88 @@ public class Automata {
 	 * 
 	 * @return Programa dot conteniendo el autómata que genera la expresión.
 	 */
-	public String imagenDot() {
-		if (this.imagenDot == null) {
-			List<Nodo> pendientes = new ArrayList<>();
-			List<Nodo> visitados = new ArrayList<>();
-			Nodo actual;
-
-			this.imagenDot = "digraph {\n\trankdir=LR;";
-			pendientes.add(this.nodoInicial);
-
-			while (!pendientes.isEmpty()) {
-				actual = pendientes.remove(0);
-
-				for (Nodo nodo : actual.transicionVacia()) {
-					this.imagenDot += "\n\t" + actual.posicion() + " -> "
-							+ nodo.posicion();
-					if (!visitados.contains(nodo) && !pendientes.contains(nodo))
-						pendientes.add(nodo);
-				}
+	public synchronized String imagenDot() {
+		if (this.imagenDot == null)
+			this.imagenDot = CacheImagenes.obtiene("Automata.imagenDot",
+					clave(), this::generaDot);
 
-				Nodo nodo;
-				for (char simbolo : this.simbolos) {
-					nodo = actual.transicion(simbolo);
-					if (nodo != null) {
-						this.imagenDot += "\n\t" + actual.posicion() + " -> "
-								+ nodo.posicion();
-						this.imagenDot += "[label=\"" + simbolo + "\"];";
-						if (!visitados.contains(nodo)
-								&& !pendientes.contains(nodo))
-							pendientes.add(nodo);
-					}
-				}
+		return this.imagenDot;
+	}
 
-				visitados.add(actual);
+	/**
+	 * Genera el programa dot del autómata sin consultar la caché.
+	 * 
+	 * @return Programa dot conteniendo el autómata que genera la expresión.
+	 */
+	private String generaDot() {
+		StringBuilder imagenDot = new StringBuilder();
+		try {
+			escribeDot(imagenDot);
+		} catch (IOException e) {
+			// StringBuilder no lanza IOException
+			throw new IllegalStateException(e);
+		}
+		return imagenDot.toString();
+	}
+
+	/**
+	 * Escribe el programa dot del autómata directamente en un destino. Recorre
+	 * el autómata en anchura marcando los nodos pendientes y visitados por su
+	 * posición, de forma que el coste es lineal en el tamaño del autómata.
+	 * 
+	 * @param destino
+	 *            Destino en el que se escribe el programa dot.
+	 * @throws IOException
+	 *             Si no puede escribirse en el destino.
+	 */
+	public void escribeDot(Appendable destino) throws IOException {
+		Deque<Nodo> pendientes = new ArrayDeque<>();
+		// Posiciones relativas al nodo inicial, que es el de menor posición
+		int base = this.nodoInicial.posicion();
+		BitSet enPendientes = new BitSet();
+		BitSet visitados = new BitSet();
+		Nodo actual;
+
+		destino.append("digraph {\n\trankdir=LR;");
+		pendientes.add(this.nodoInicial);
+		enPendientes.set(0);
+
+		while (!pendientes.isEmpty()) {
+			actual = pendientes.poll();
+			enPendientes.clear(actual.posicion() - base);
+
+			for (Nodo nodo : actual.transicionVacia()) {
+				destino.append("\n\t").append(Integer.toString(actual.posicion()))
+						.append(" -> ").append(Integer.toString(nodo.posicion()));
+				encola(nodo, base, pendientes, enPendientes, visitados);
+			}
+
+			Nodo nodo;
+			for (char simbolo : this.simbolos) {
+				nodo = actual.transicion(simbolo);
+				if (nodo != null) {
+					destino.append("\n\t")
+							.append(Integer.toString(actual.posicion()))
+							.append(" -> ")
+							.append(Integer.toString(nodo.posicion()))
+							.append("[label=\"").append(simbolo).append("\"];");
+					encola(nodo, base, pendientes, enPendientes, visitados);
+				}
 			}
 
-			this.imagenDot += "\n}";
+			visitados.set(actual.posicion() - base);
 		}
 
-		return this.imagenDot;
+		destino.append("\n}");
+	}
+
+	private static void encola(Nodo nodo, int base, Deque<Nodo> pendientes,
+			BitSet enPendientes, BitSet visitados) {
+		int indice = nodo.posicion() - base;
+		if (!visitados.get(indice) && !enPendientes.get(indice)) {
+			pendientes.add(nodo);
+			enPendientes.set(indice);
+		}
 	}
 
 
@@ -546,76 +505,141 @@ public class Automata {
 	 * 
 	 * @return Programa SVG conteniendo el autómata que genera la expresión.
 	 */
-	public String imagenSvg() {
-		if (this.imagenSvg == null) {
-			mxGraph graph = new mxGraph();
-			Object parent = graph.getDefaultParent();
-			Map<Integer, Object> gNodos = new HashMap<>();
-			Object gNodo, gActual;
-			List<Nodo> pendientes = new ArrayList<>();
-			Map<Nodo, Character> siguientes;
-			Nodo actual;
-
-			String estiloVertex = "shape=ellipse;fillColor=white;strokeColor=black;fontColor=black;";
-			String estiloEdge = "strokeColor=black;fontColor=black;labelBackgroundColor=white;rounded=true;";
-
-			graph.getModel().beginUpdate();
-			try {
-				actual = nodoInicial;
-				do {
-					gActual = gNodos.get(actual.posicion());
-					if (gActual == null) { // Primer nodo
-						gActual = graph.insertVertex(parent, null,
-								actual.posicion(), 0, 0, 30, 30, estiloVertex);
-						gNodos.put(actual.posicion(), gActual);
-					}
+	public synchronized String imagenSvg() {
+		if (this.imagenSvg == null)
+			this.imagenSvg = CacheImagenes.obtiene("Automata.imagenSvg",
+					clave(), this::generaSvg);
 
-					// Calcula transiciones
-					siguientes = new HashMap<>();
-					for (Nodo nodo : actual.transicionVacia())
-						siguientes.put(nodo, null);
-					Nodo siguiente;
-					for (char simbolo : simbolos) {
-						siguiente = actual.transicion(simbolo);
-						if (siguiente != null)
-							siguientes.put(siguiente, simbolo);
-					}
+		return this.imagenSvg;
+	}
+
+	/**
+	 * Genera el programa SVG del autómata sin consultar la caché. Si falla la
+	 * generación directa, se recurre a JGraphX.
+	 * 
+	 * @return Programa SVG conteniendo el autómata que genera la expresión.
+	 */
+	private String generaSvg() {
+		StringBuilder imagenSvg = new StringBuilder();
+		try {
+			escribeSvg(imagenSvg);
+			return imagenSvg.toString();
+		} catch (IOException | RuntimeException e) {
+			log.warn("Error generando SVG del autómata, se utiliza JGraphX", e);
+			return generaSvgJGraphX();
+		}
+	}
+
+	/**
+	 * Escribe el programa SVG del autómata directamente en un destino, sin
+	 * construir un grafo intermedio. Utiliza la misma disposición que la
+	 * representación TikZ, con los estados numerados igual que los nodos del
+	 * autómata.
+	 * 
+	 * @param destino
+	 *            Destino en el que se escribe el programa SVG.
+	 * @throws IOException
+	 *             Si no puede escribirse en el destino.
+	 */
+	public void escribeSvg(Appendable destino) throws IOException {
+		EscritorSvg svg = new EscritorSvg(destino);
+		dibujaEn(svg);
+		svg.cierra(r);
+	}
+
+	/**
+	 * Dibuja el autómata sobre un lienzo, con la misma disposición que la
+	 * representación TikZ y los estados numerados igual que los nodos del
+	 * autómata.
+	 * 
+	 * @param lienzo
+	 *            Lienzo sobre el que se dibuja el autómata.
+	 */
+	private void dibujaEn(Lienzo lienzo) {
+		DisposicionTikZ disposicion = disposicion();
+		ContextoDibujo contexto = new ContextoDibujo(lienzo,
+				this.nodoInicial.posicion(), disposicion.nodoFinalTikZ.id);
+
+		// Flecha de entrada al estado inicial
+		lienzo.linea(0, disposicion.yNew, 2 * r, disposicion.yNew, true);
+		lzDibuja(contexto, 2 * r, 0, disposicion, false);
+	}
+
+	/**
+	 * Genera el programa SVG del autómata con JGraphX, calculando la
+	 * disposición a partir del grafo de nodos.
+	 * 
+	 * @return Programa SVG conteniendo el autómata que genera la expresión.
+	 */
+	private String generaSvgJGraphX() {
+		String imagenSvg;
+		mxGraph graph = new mxGraph();
+		Object parent = graph.getDefaultParent();
+		Map<Integer, Object> gNodos = new HashMap<>();
+		Object gNodo, gActual;
+		List<Nodo> pendientes = new ArrayList<>();
+		Map<Nodo, Character> siguientes;
+		Nodo actual;
+
+		String estiloVertex = "shape=ellipse;fillColor=white;strokeColor=black;fontColor=black;";
+		String estiloEdge = "strokeColor=black;fontColor=black;labelBackgroundColor=white;rounded=true;";
+
+		graph.getModel().beginUpdate();
+		try {
+			actual = nodoInicial;
+			do {
+				gActual = gNodos.get(actual.posicion());
+				if (gActual == null) { // Primer nodo
+					gActual = graph.insertVertex(parent, null,
+							actual.posicion(), 0, 0, 30, 30, estiloVertex);
+					gNodos.put(actual.posicion(), gActual);
+				}
+
+				// Calcula transiciones
+				siguientes = new HashMap<>();
+				for (Nodo nodo : actual.transicionVacia())
+					siguientes.put(nodo, null);
+				Nodo siguiente;
+				for (char simbolo : simbolos) {
+					siguiente = actual.transicion(simbolo);
+					if (siguiente != null)
+						siguientes.put(siguiente, simbolo);
+				}
 
-					pendientes.addAll(siguientes.keySet().stream()
-							.filter(n -> !gNodos.containsKey(n.posicion()))
-							.collect(Collectors.toList()));
-
-					for (Nodo nodo : siguientes.keySet()) {
-						if (!gNodos.containsKey(nodo.posicion())) { // Añade
-																	// nodo
-							gNodo = graph
-									.insertVertex(parent, null,
-											nodo.posicion(), 0, 0, 30, 30,
-											estiloVertex);
-							gNodos.put(nodo.posicion(), gNodo);
-						} else { // Recupera nodo
-							gNodo = gNodos.get(nodo.posicion());
-						}
-						// Añade transición
-						graph.insertEdge(parent, null, siguientes.get(nodo),
-								gActual, gNodo, estiloEdge);
+				pendientes.addAll(siguientes.keySet().stream()
+						.filter(n -> !gNodos.containsKey(n.posicion()))
+						.collect(Collectors.toList()));
+
+				for (Nodo nodo : siguientes.keySet()) {
+					if (!gNodos.containsKey(nodo.posicion())) { // Añade
+																// nodo
+						gNodo = graph
+								.insertVertex(parent, null,
+										nodo.posicion(), 0, 0, 30, 30,
+										estiloVertex);
+						gNodos.put(nodo.posicion(), gNodo);
+					} else { // Recupera nodo
+						gNodo = gNodos.get(nodo.posicion());
 					}
+					// Añade transición
+					graph.insertEdge(parent, null, siguientes.get(nodo),
+							gActual, gNodo, estiloEdge);
+				}
 
-					actual = pendientes.isEmpty() ? null : pendientes.remove(0);
-				} while (actual != null);
+				actual = pendientes.isEmpty() ? null : pendientes.remove(0);
+			} while (actual != null);
 
-			} finally {
-				graph.getModel().endUpdate();
+		} finally {
+			graph.getModel().endUpdate();
 
-				new mxHierarchicalLayout(graph, SwingConstants.WEST)
-						.execute(parent);
-				new mxParallelEdgeLayout(graph).execute(parent);
+			new mxHierarchicalLayout(graph, SwingConstants.WEST)
+					.execute(parent);
+			new mxParallelEdgeLayout(graph).execute(parent);
 
-				
-				Document document = mxCellRenderer.createSvgDocument(graph, null, 1, Color.WHITE, null);
-				imagenSvg = mxXmlUtils.getXml(document);
-				
-			}
+			
+			Document document = mxCellRenderer.createSvgDocument(graph, null, 1, Color.WHITE, null);
+			imagenSvg = mxXmlUtils.getXml(document);
+			
 		}
 
 		return imagenSvg;
@@ -630,20 +654,22 @@ public class Automata {
 	 * 
 	 * @return Programa TikZ conteniendo el autómata que genera la expresión.
 	 */
-	public String imagenTikZ() {
-		return tz_printAll(this);
+	public synchronized String imagenTikZ() {
+		// Cada imagen numera sus etiquetas desde el principio
+		this.idCounter = 0;
+		return tz_printAll(disposicion());
 	}
 	
 	
-	private String tzDibuja(double x, double y, Automata tree, boolean omitFirst, double split_height) {
+	private String tzDibuja(double x, double y, DisposicionTikZ tree, boolean omitFirst, double split_height) {
 		
 		String out = "";
 		
 		double ancho = tree.ancho;
 		double alto = tree.alto;
 		double yNew = tree.yNew;
-		Automata hijoI = tree.hijoI;
-		Automata hijoD = tree.hijoD;
+		DisposicionTikZ hijoI = tree.hijoI;
+		DisposicionTikZ hijoD = tree.hijoD;
 		String texto = tree.texto;
 		String tipo = tree.tipo;
 		int startId = tree.nodoInicialTikZ.id;
@@ -740,7 +766,116 @@ public class Automata {
 		return out;
 	}
 	
-	private String tz_printAll(Automata tree) {		
+	/**
+	 * ContextoDibujo almacena el estado de un único dibujo del autómata: el
+	 * lienzo, la posición del nodo inicial, con la que se traducen los
+	 * identificadores de la disposición, y el identificador del estado final.
+	 */
+	private static class ContextoDibujo {
+		private final Lienzo lienzo;
+		private final int base;
+		private final int idFinal;
+
+		private ContextoDibujo(Lienzo lienzo, int base, int idFinal) {
+			this.lienzo = lienzo;
+			this.base = base;
+			this.idFinal = idFinal;
+		}
+	}
+	
+	private void lzDibuja(ContextoDibujo contexto, double x, double y, DisposicionTikZ tree, boolean omitFirst) {
+		
+		Lienzo lienzo = contexto.lienzo;
+		double ancho = tree.ancho;
+		double alto = tree.alto;
+		double yNew = tree.yNew;
+		DisposicionTikZ hijoI = tree.hijoI;
+		DisposicionTikZ hijoD = tree.hijoD;
+		String tipo = tree.tipo;
+		int startId = tree.nodoInicialTikZ.id;
+		int finalId = tree.nodoFinalTikZ.id;
+		
+		if (tipo == "EPS" || tipo == "ID") {
+			
+			if (!omitFirst)
+				lz_circle(contexto, x+r, y+r, startId);
+			
+			lienzo.linea(x+2*r, y+r, x+4*r, y+r, true);
+			lz_circle(contexto, x+5*r, y+r, finalId);
+			lienzo.texto(x+3*r, y+r-3, tipo == "EPS" ? "\u03B5" : tree.texto, 12);
+			
+		} else if (tipo == "AST"){
+			
+			lzDibuja(contexto, x+4*r, y+r, hijoI, false);
+			
+			if (!omitFirst)
+				lz_circle(contexto, x+r, y+yNew, startId);
+			
+			lienzo.linea(x+2*r, y+yNew, x+4*r, y+yNew, true);
+			lz_lazo(lienzo, x+r, y+yNew, x+ancho-r, y+0);
+			lz_circle(contexto, x+ancho-r, y+yNew, finalId);
+			lienzo.linea(x+ancho-4*r, y+yNew, x+ancho-2*r, y+yNew, true);
+			lz_lazo(lienzo, x+ancho-5*r, y+yNew, x+5*r, y+alto);
+			
+		} else if (tipo == "SEL"){
+			
+			// Cada alternativa dentro de su parte de la disposición, sin el
+			// desplazamiento vertical de la representación TikZ
+			double auxY1 = hijoI.yNew;
+			double auxX1 = hijoD.ancho-hijoI.ancho;
+			auxX1 = (0 > auxX1) ? 0 : auxX1/2;
+			
+			double auxY2 = hijoD.yNew+hijoI.alto+2*r;
+			double auxX2 = hijoI.ancho-hijoD.ancho;
+			auxX2 = (0 > auxX2) ? 0 : auxX2/2;
+			
+			lzDibuja(contexto, x+3*r+auxX1, y, hijoI, false);
+			lzDibuja(contexto, x+3*r+auxX2, y+hijoI.alto+2*r, hijoD, false);
+			
+			if (!omitFirst)
+				lz_circle(contexto, x+r, y+yNew, startId);
+			
+			lz_arcoSelRecto(lienzo, x+r, y+yNew, x+4*r+auxX1, y+auxY1);
+			lz_arcoSelRecto(lienzo, x+ancho-4*r-auxX1, y+auxY1, x+ancho-r, y+yNew);
+			lz_arcoSelRecto(lienzo, x+r, y+yNew, x+4*r+auxX2, y+auxY2);
+			lz_arcoSelRecto(lienzo, x+ancho-4*r-auxX2, y+auxY2, x+ancho-r, y+yNew);
+			
+			lz_circle(contexto, x+ancho-r, y+yNew, finalId);
+			
+		} else if (tipo == "CAT"){
+			double auxY1=yNew-hijoI.yNew;
+			lzDibuja(contexto, x+0, y+((0 > auxY1) ? 0 : auxY1), hijoI, omitFirst);
+			double auxY2=yNew-hijoD.yNew;
+			lzDibuja(contexto, x+ancho-hijoD.ancho, y+((0 > auxY2) ? 0 : auxY2), hijoD, true);
+		}
+	}
+	
+	private void lz_circle(ContextoDibujo contexto, double x, double y, int stateCounter) {
+		contexto.lienzo.circulo(x, y, r);
+		if (stateCounter == contexto.idFinal)
+			contexto.lienzo.circulo(x, y, r-3);
+		contexto.lienzo.texto(x, y+4, Integer.toString(contexto.base + stateCounter), 11);
+	}
+	
+	private void lz_arcoSelRecto(Lienzo lienzo, double xo, double yo, double xd, double yd) {
+		double[] arco = arcoSelRecto(xo, yo, xd, yd);
+		lienzo.linea(arco[0], arco[1], arco[2], arco[3], true);
+	}
+	
+	private void lz_lazo(Lienzo lienzo, double x1, double y1, double x2, double alto) {
+		double[][] lazo = lazo(x1, y1, x2, alto);
+		double[] etiqueta = lazo[lazo.length - 1];
+		
+		lienzo.camino(Arrays.copyOf(lazo, lazo.length - 1), true);
+		if (lazo.length == 5) // a*
+			lienzo.texto(etiqueta[0], etiqueta[1]+6, "\u03B5", 12);
+		else if (etiqueta[1] < y1) // Arco superior, etiqueta a la izquierda
+			lienzo.texto(x1+4*r, etiqueta[1]-3, "\u03B5", 12);
+		else // Arco inferior, etiqueta a la derecha
+			lienzo.texto(x1-4*r, etiqueta[1]+12, "\u03B5", 12);
+	}
+	
+	private String tz_printAll(DisposicionTikZ tree) {		
 		
 		String out = "";
 		
@@ -795,6 +930,17 @@ public class Automata {
 	}
 	
 	private String tz_arcoSelRecto(double xo, double yo, double xd, double yd) {
+		double[] arco = arcoSelRecto(xo, yo, xd, yd);
+		return tz_line(arco[0], arco[1], arco[2], arco[3]);
+	}
+	
+	/**
+	 * Recorta un arco entre los centros de dos estados para que empiece y
+	 * termine en el borde de sus círculos.
+	 * 
+	 * @return Coordenadas del origen y del destino recortados.
+	 */
+	private double[] arcoSelRecto(double xo, double yo, double xd, double yd) {
 		double ylen = yd-yo;
 		int sy = (ylen > 0) ? 1 : -1;
 		
@@ -810,7 +956,7 @@ public class Automata {
 		double ey = r*ylen/d;
 		
 		
-		return tz_line(xo+ex*sx, yo+ey*sy, xd-ex*sx, yd-ey*sy);
+		return new double[] { xo+ex*sx, yo+ey*sy, xd-ex*sx, yd-ey*sy };
 	}
 	
 	private String tz_circle(double x, double y, int stateCounter) {
@@ -861,7 +1007,14 @@ public class Automata {
 		return coordinates;
 	}
 	
-	private String tz_lazo(double x1, double y1, double x2, double alto) {
+	/**
+	 * Calcula el trazado de un arco de vuelta de un cierre, entre dos estados
+	 * a la misma altura y rodeando al subautómata por arriba o por abajo.
+	 * 
+	 * @return Punto de inicio, pares de tramos formados por un segmento y una
+	 *         curva de Bézier cúbica, punto final y posición de la etiqueta.
+	 */
+	private double[][] lazo(double x1, double y1, double x2, double alto) {
 		
 		double ylen=alto-y1;
 		
@@ -879,130 +1032,55 @@ public class Automata {
 	    double iy = ylen-r;
 	    double ix = 2*r*iy/ylen;
 		
-	    String out = "\\draw[color=red,line width=0.400pt,line cap=butt, line join=miter,-{Stealth[length=2.4mm, width=1.5mm]}]";
 	    if (x1+2*r*sx == x2-2*r*sx){ // esto pasa en a*
 	            d=r*Math.cos(Math.PI/4);
 	            
-	            // First coordinate
-	            out += String.format(Locale.US, "(%f, %f)", x1+d*sx, y1+d*sy);
-	            
 	            // From quadratic to cubic Bezier
-	            double q1_x = x1+r*sx;
-	            double q1_y = y1+r*sy;
-	            double q2_x = x1+2*r*sx;
-	            double q2_y = y1+2*r*sy;
-	            double q3_x = x2-r*sx;
-	            double q3_y = y1+r*sy;
+	            double[] c = QtoC(x1+r*sx, y1+r*sy, x1+2*r*sx, y1+2*r*sy,
+	            		x2-r*sx, y1+r*sy);
 	            
-	            double[] c1 = new double[2];
-	            double[] c2 = new double[2];
-	            double[] c3 = new double[2];
-	            double[] c4 = new double[2];
-	            double[] qtoc_out = QtoC(q1_x, q1_y, q2_x, q2_y, q3_x, q3_y);
-	            
-	            c1[0] = qtoc_out[0];
-	            c1[1] = qtoc_out[1];
-	            c2[0] = qtoc_out[2];
-	            c2[1] = qtoc_out[3];
-	            c3[0] = qtoc_out[4];
-	            c3[1] = qtoc_out[5];
-	            c4[0] = qtoc_out[6];
-	            c4[1] = qtoc_out[7];
-	             
-	            // Cubic Bezier coordinates
-	            out += String.format(Locale.US, "-- (%f, %f)", c1[0], c1[1]);
-	            out += String.format(Locale.US, ".. controls (%f, %f)", c2[0],c2[1]);
-	            out += String.format(Locale.US, "and (%f, %f)", c3[0],c3[1]);
-	            out += String.format(Locale.US, ".. (%f, %f)", c4[0], c4[1]);
-	            
-	            // Last coordinate
-	            out += String.format(Locale.US, "-- (%f, %f);\n", x2-d*sx, y1+d*sy);
-	            out += tz_textE((x1+x2)/2, y1+2.4*r*sy);
+	            return new double[][] { { x1+d*sx, y1+d*sy },
+	            		{ c[0], c[1] }, { c[2], c[3], c[4], c[5], c[6], c[7] },
+	            		{ x2-d*sx, y1+d*sy }, { (x1+x2)/2, y1+2.4*r*sy } };
 	    } else {
 	            // The following are some lines and two cubic Bezier curves
-	            // First coordinate
-	            out += String.format(Locale.US, "(%f, %f)", x1+ex*sx, y1+ey*sy);
-	            
-	            // From quadratic to cubic Bezier
-	            double q1_x = x1+ix*sx;
-	            double q1_y = y1+iy*sy;
-	            double q2_x = x1+2*r*sx;
-	            double q2_y = y1+ylen*sy;
-	            double q3_x = x1+3*r*sx;
-	            double q3_y = y1+ylen*sy;
-	            
-	            double[] c1 = new double[2];
-	            double[] c2 = new double[2];
-	            double[] c3 = new double[2];
-	            double[] c4 = new double[2];
-	            double[] qtoc_out = QtoC(q1_x, q1_y, q2_x, q2_y, q3_x, q3_y);
-	            
-	            c1[0] = qtoc_out[0];
-	            c1[1] = qtoc_out[1];
-	            c2[0] = qtoc_out[2];
-	            c2[1] = qtoc_out[3];
-	            c3[0] = qtoc_out[4];
-	            c3[1] = qtoc_out[5];
-	            c4[0] = qtoc_out[6];
-	            c4[1] = qtoc_out[7];
-	            
-	            // Cubic Bezier coordinates
-	            out += String.format(Locale.US, "-- (%f, %f)", c1[0], c1[1]);
-	            out += String.format(Locale.US, ".. controls (%f, %f)", c2[0], c2[1]);
-	            out += String.format(Locale.US, "and (%f, %f)", c3[0], c3[1]);
-	            out += String.format(Locale.US, ".. (%f, %f)", c4[0], c4[1]);
-	            
 	            // From quadratic to cubic Bezier
-	            q1_x = x2-3*r*sx;
-	            q1_y = y1+ylen*sy;
-	            q2_x = x2-2*r*sx;
-	            q2_y = y1+ylen*sy;
-	            q3_x = x2-ix*sx;
-	            q3_y = y1+iy*sy;
+	            double[] c = QtoC(x1+ix*sx, y1+iy*sy, x1+2*r*sx, y1+ylen*sy,
+	            		x1+3*r*sx, y1+ylen*sy);
+	            double[] c2 = QtoC(x2-3*r*sx, y1+ylen*sy, x2-2*r*sx,
+	            		y1+ylen*sy, x2-ix*sx, y1+iy*sy);
 	            
-	            qtoc_out = QtoC(q1_x, q1_y, q2_x, q2_y, q3_x, q3_y);
-	            c1[0] = qtoc_out[0];
-	            c1[1] = qtoc_out[1];
-	            c2[0] = qtoc_out[2];
-	            c2[1] = qtoc_out[3];
-	            c3[0] = qtoc_out[4];
-	            c3[1] = qtoc_out[5];
-	            c4[0] = qtoc_out[6];
-	            c4[1] = qtoc_out[7]; 
-	            
-	            // Cubic Bezier coordinates
-	            out += String.format(Locale.US, "-- (%f, %f)", c1[0], c1[1]);
-	            out += String.format(Locale.US, ".. controls (%f, %f)", c2[0], c2[1]);
-	            out += String.format(Locale.US, "and (%f, %f)", c3[0], c3[1]);
-	            out += String.format(Locale.US, ".. (%f, %f)", c4[0], c4[1]);
-	            
-	            // Last coordinate
-	            out += String.format(Locale.US, "-- (%f, %f);\n", x2-ex*sx, y1+ey*sy);
-	            out += tz_textE((x1+x2)/2, y1+ylen*sy);
+	            return new double[][] { { x1+ex*sx, y1+ey*sy },
+	            		{ c[0], c[1] }, { c[2], c[3], c[4], c[5], c[6], c[7] },
+	            		{ c2[0], c2[1] },
+	            		{ c2[2], c2[3], c2[4], c2[5], c2[6], c2[7] },
+	            		{ x2-ex*sx, y1+ey*sy }, { (x1+x2)/2, y1+ylen*sy } };
 	        }
-	    
-	        return out;
 	}
 	
-	private int resetAllIds(NodoTikZ afnd, int stateId) {
+	private String tz_lazo(double x1, double y1, double x2, double alto) {
 		
-		stateId ++;
-		afnd.id = stateId;
+		double[][] lazo = lazo(x1, y1, x2, alto);
+		int fin = lazo.length - 2;
 		
-		//System.out.println("Tipo " + afnd.tipo + "   id: "+ stateId);
-		if (afnd.tipo == "FINAL") {
-			return stateId;
-		}
-		if (afnd.tipo == "SIMP" || afnd.tipo == "ESTAR") {
-			stateId = resetAllIds(afnd.next, stateId);
-		} else if (afnd.tipo == "BSTAR"){
-			stateId = resetAllIds(afnd.inside, stateId);
-			
-		} else if (afnd.tipo == "SEL") {
-			stateId = resetAllIds(afnd.up, stateId);
-			stateId = resetAllIds(afnd.down, stateId);
-		}
-		return stateId;
+	    String out = "\\draw[color=red,line width=0.400pt,line cap=butt, line join=miter,-{Stealth[length=2.4mm, width=1.5mm]}]";
+	    
+	    // First coordinate
+	    out += String.format(Locale.US, "(%f, %f)", lazo[0][0], lazo[0][1]);
+	    
+	    // Cubic Bezier coordinates
+	    for (int i = 1; i < fin; i += 2) {
+	    	out += String.format(Locale.US, "-- (%f, %f)", lazo[i][0], lazo[i][1]);
+	    	out += String.format(Locale.US, ".. controls (%f, %f)", lazo[i+1][0], lazo[i+1][1]);
+	    	out += String.format(Locale.US, "and (%f, %f)", lazo[i+1][2], lazo[i+1][3]);
+	    	out += String.format(Locale.US, ".. (%f, %f)", lazo[i+1][4], lazo[i+1][5]);
+	    }
+	    
+	    // Last coordinate
+	    out += String.format(Locale.US, "-- (%f, %f);\n", lazo[fin][0], lazo[fin][1]);
+	    out += tz_textE(lazo[fin+1][0], lazo[fin+1][1]);
+	    
+	    return out;
 	}
 
 }
@@ -0,0 +1,314 @@
+package es.ubu.inf.tfg.regex.thompson.datos;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * AutomataCompacto implementa una representación compacta de un autómata
+ * finito no determinista, construida a partir del grafo de objetos Nodo de un
+ * Automata. Las transiciones se almacenan en formato CSR (filas comprimidas):
+ * para cada nodo, indexado por su posición, un rango de un array de destinos.
+ * Existe un par de arrays para las transiciones vacías y otro para las
+ * transiciones que consumen un símbolo.
+ * <p>
+ * El cálculo de cierres vacíos se realiza mediante un recorrido con pila sobre
+ * estos arrays, reutilizando la pila y el mapa de visitados entre llamadas, de
+ * forma que no se reserva memoria por cada consulta. Las transiciones con
+ * símbolo se escriben igualmente sobre un conjunto de resultado que aporta
+ * quien llama, de forma que la construcción de subconjuntos puede calcular
+ * todas sus transiciones reutilizando un único conjunto. Por el mismo motivo,
+ * una instancia de AutomataCompacto no debe utilizarse desde varios hilos a la
+ * vez.
+ * <p>
+ * Los conjuntos de nodos se representan como <code>BitSet</code> indexados por
+ * {@link #indice(Nodo) indice}. Los cierres vacíos de cada nodo se calculan
+ * una única vez y se cachean, llevando la cuenta de aciertos y fallos de la
+ * caché para poder comprobar su efectividad.
+ *
+ */
+public class AutomataCompacto {
+
+	private final int base;
+	private final Nodo[] nodos;
+
+	private final int[] inicioVacias;
+	private final int[] destinosVacias;
+	private final int[] inicioSimbolos;
+	private final char[] simbolosArista;
+	private final int[] destinosSimbolo;
+
+	private final int[] pila;
+	private final BitSet visitados;
+	private final BitSet consumidos;
+
+	private final BitSet[] cierres;
+	private long aciertos;
+	private long fallos;
+
+	/**
+	 * Construye la representación compacta de un autómata, recorriendo todos
+	 * los nodos alcanzables desde su nodo inicial.
+	 *
+	 * @param automata
+	 *            Autómata a compactar.
+	 */
+	public AutomataCompacto(Automata automata) {
+		Set<Character> simbolos = automata.simbolos();
+
+		// Recorremos el grafo de objetos para conocer todos los nodos
+		List<Nodo> alcanzables = new ArrayList<>();
+		List<Nodo> pendientes = new ArrayList<>();
+		int minimo = Integer.MAX_VALUE;
+		int maximo = Integer.MIN_VALUE;
+		Set<Nodo> vistos = new HashSet<>();
+
+		pendientes.add(automata.nodoInicial());
+		while (!pendientes.isEmpty()) {
+			Nodo actual = pendientes.remove(pendientes.size() - 1);
+			if (!vistos.add(actual))
+				continue;
+			alcanzables.add(actual);
+			minimo = Math.min(minimo, actual.posicion());
+			maximo = Math.max(maximo, actual.posicion());
+
+			pendientes.addAll(actual.transicionVacia());
+			for (char simbolo : simbolos) {
+				Nodo destino = actual.transicion(simbolo);
+				if (destino != null)
+					pendientes.add(destino);
+			}
+		}
+
+		this.base = minimo;
+		this.nodos = new Nodo[maximo - minimo + 1];
+		for (Nodo nodo : alcanzables)
+			this.nodos[nodo.posicion() - minimo] = nodo;
+
+		int n = this.nodos.length;
+		this.inicioVacias = new int[n + 1];
+		this.inicioSimbolos = new int[n + 1];
+		int[] vacias = new int[n];
+		int[] conSimbolo = new int[n];
+		char[] simbolosArista = new char[n];
+
+		int nVacias = 0;
+		int nSimbolos = 0;
+		for (int i = 0; i < n; i++) {
+			this.inicioVacias[i] = nVacias;
+			this.inicioSimbolos[i] = nSimbolos;
+			Nodo nodo = this.nodos[i];
+			if (nodo == null)
+				continue;
+
+			for (Nodo destino : nodo.transicionVacia()) {
+				if (nVacias == vacias.length)
+					vacias = Arrays.copyOf(vacias, vacias.length * 2);
+				vacias[nVacias++] = destino.posicion() - minimo;
+			}
+			for (char simbolo : simbolos) {
+				Nodo destino = nodo.transicion(simbolo);
+				if (destino != null) {
+					if (nSimbolos == conSimbolo.length) {
+						conSimbolo = Arrays.copyOf(conSimbolo,
+								conSimbolo.length * 2);
+						simbolosArista = Arrays.copyOf(simbolosArista,
+								simbolosArista.length * 2);
+					}
+					simbolosArista[nSimbolos] = simbolo;
+					conSimbolo[nSimbolos++] = destino.posicion() - minimo;
+				}
+			}
+		}
+		this.inicioVacias[n] = nVacias;
+		this.inicioSimbolos[n] = nSimbolos;
+		this.destinosVacias = Arrays.copyOf(vacias, nVacias);
+		this.destinosSimbolo = Arrays.copyOf(conSimbolo, nSimbolos);
+		this.simbolosArista = Arrays.copyOf(simbolosArista, nSimbolos);
+
+		this.pila = new int[n];
+		this.visitados = new BitSet(n);
+		this.consumidos = new BitSet(n);
+		this.cierres = new BitSet[n];
+	}
+
+	/**
+	 * Devuelve el número de nodos del autómata. Los índices válidos van de 0 a
+	 * este número menos uno.
+	 *
+	 * @return Número de nodos.
+	 */
+	public int numNodos() {
+		return this.nodos.length;
+	}
+
+	/**
+	 * Obtiene el índice que corresponde a un nodo del autómata.
+	 *
+	 * @param nodo
+	 *            Nodo del autómata.
+	 * @return Índice del nodo.
+	 * @throws IllegalArgumentException
+	 *             Si el nodo no pertenece al autómata.
+	 */
+	public int indice(Nodo nodo) {
+		int indice = nodo.posicion() - this.base;
+		if (indice < 0 || indice >= this.nodos.length
+				|| this.nodos[indice] == null)
+			throw new IllegalArgumentException(
+					"El nodo no pertenece al autómata.");
+		return indice;
+	}
+
+	/**
+	 * Obtiene el nodo que corresponde a un índice dado.
+	 *
+	 * @param indice
+	 *            Índice del nodo.
+	 * @return Nodo del autómata.
+	 */
+	public Nodo nodo(int indice) {
+		return this.nodos[indice];
+	}
+
+	/**
+	 * Añade a un conjunto dado el cierre vacío de un nodo, es decir, todos los
+	 * nodos a los que se llega desde él sin consumir entrada, incluido el
+	 * propio nodo.
+	 *
+	 * @param nodo
+	 *            Índice del nodo de inicio.
+	 * @param resultado
+	 *            Conjunto al que añadir los nodos alcanzados.
+	 */
+	public void cierreVacio(int nodo, BitSet resultado) {
+		int cima = 0;
+		this.pila[cima++] = nodo;
+		this.visitados.set(nodo);
+
+		while (cima > 0) {
+			int actual = this.pila[--cima];
+			resultado.set(actual);
+
+			int fin = this.inicioVacias[actual + 1];
+			for (int i = this.inicioVacias[actual]; i < fin; i++) {
+				int destino = this.destinosVacias[i];
+				if (!this.visitados.get(destino)) {
+					this.visitados.set(destino);
+					this.pila[cima++] = destino;
+				}
+			}
+		}
+
+		this.visitados.clear();
+	}
+
+	/**
+	 * Obtiene el cierre vacío de un nodo, calculándolo solo la primera vez que
+	 * se solicita. El conjunto devuelto es el almacenado en la caché, por lo
+	 * que no debe modificarse.
+	 *
+	 * @param nodo
+	 *            Índice del nodo de inicio.
+	 * @return Cierre vacío del nodo.
+	 */
+	public BitSet cierre(int nodo) {
+		BitSet cierre = this.cierres[nodo];
+		if (cierre != null) {
+			this.aciertos++;
+		} else {
+			this.fallos++;
+			cierre = new BitSet(this.nodos.length);
+			cierreVacio(nodo, cierre);
+			this.cierres[nodo] = cierre;
+		}
+		return cierre;
+	}
+
+	/**
+	 * Devuelve el número de consultas de cierre vacío resueltas desde la
+	 * caché.
+	 *
+	 * @return Aciertos de la caché de cierres.
+	 */
+	public long aciertos() {
+		return this.aciertos;
+	}
+
+	/**
+	 * Devuelve el número de consultas de cierre vacío que han requerido
+	 * calcular el cierre. Nunca es mayor que el número de nodos.
+	 *
+	 * @return Fallos de la caché de cierres.
+	 */
+	public long fallos() {
+		return this.fallos;
+	}
+
+	/**
+	 * Añade a un conjunto dado los nodos a los que se llega desde cualquiera
+	 * de los nodos de un conjunto de origen consumiendo un símbolo, sin
+	 * calcular cierres vacíos.
+	 *
+	 * @param origen
+	 *            Conjunto de nodos de origen.
+	 * @param simbolo
+	 *            Símbolo de entrada.
+	 * @param resultado
+	 *            Conjunto al que añadir los nodos alcanzados.
+	 */
+	public void mueve(BitSet origen, char simbolo, BitSet resultado) {
+		for (int nodo = origen.nextSetBit(0); nodo >= 0; nodo = origen
+				.nextSetBit(nodo + 1)) {
+			int fin = this.inicioSimbolos[nodo + 1];
+			for (int i = this.inicioSimbolos[nodo]; i < fin; i++) {
+				if (this.simbolosArista[i] == simbolo)
+					resultado.set(this.destinosSimbolo[i]);
+			}
+		}
+	}
+
+	/**
+	 * Añade a un conjunto dado los nodos a los que se llega desde un conjunto
+	 * de origen tras consumir un símbolo, incluyendo las transiciones vacías
+	 * efectuadas después de consumirlo. Si el origen es cerrado respecto a las
+	 * transiciones vacías, como los estados de la construcción de
+	 * subconjuntos, el resultado es la transición del estado completo. No se
+	 * reserva memoria salvo para los cierres que aún no estén en la caché.
+	 *
+	 * @param origen
+	 *            Conjunto de nodos de origen.
+	 * @param simbolo
+	 *            Símbolo de entrada.
+	 * @param resultado
+	 *            Conjunto al que añadir los nodos alcanzados.
+	 */
+	public void transicion(BitSet origen, char simbolo, BitSet resultado) {
+		this.consumidos.clear();
+		mueve(origen, simbolo, this.consumidos);
+
+		BitSet consumidos = this.consumidos;
+		for (int nodo = consumidos.nextSetBit(0); nodo >= 0; nodo = consumidos
+				.nextSetBit(nodo + 1))
+			resultado.or(cierre(nodo));
+	}
+
+	/**
+	 * Añade a un conjunto dado los nodos a los que se llega desde un nodo
+	 * tras consumir un símbolo, partiendo de su cierre vacío y cerrando de
+	 * nuevo el conjunto alcanzado.
+	 *
+	 * @param nodo
+	 *            Índice del nodo de inicio.
+	 * @param simbolo
+	 *            Símbolo de entrada.
+	 * @param resultado
+	 *            Conjunto al que añadir los nodos alcanzados.
+	 */
+	public void transicion(int nodo, char simbolo, BitSet resultado) {
+		transicion(cierre(nodo), simbolo, resultado);
+	}
+}
@@ -0,0 +1,269 @@
+package es.ubu.inf.tfg.regex.thompson.datos;
+
+import es.ubu.inf.tfg.regex.datos.ExpresionRegular;
+
+/**
+ * DisposicionTikZ almacena la información de maquetación necesaria para dibujar
+ * en TikZ el autómata de Thompson correspondiente a una expresión regular:
+ * dimensiones de cada subautómata, su texto y los NodoTikZ de sus estados
+ * inicial y final.
+ * <p>
+ * Se construye de manera recursiva a partir del árbol de expresión regular, de
+ * forma independiente al grafo de Nodo del Automata, lo que permite que el
+ * autómata solo la calcule cuando se solicita su representación en TikZ.
+ * <p>
+ * La numeración provisional de los NodoTikZ se lleva en un contador propio de
+ * cada construcción, por lo que pueden calcularse disposiciones desde varios
+ * hilos a la vez.
+ *
+ */
+class DisposicionTikZ {
+
+	private static final int r = Automata.r;
+
+	String tipo;
+	double ancho;
+	double alto;
+	double yNew;
+	String texto;
+	DisposicionTikZ hijoI;
+	DisposicionTikZ hijoD;
+	NodoTikZ nodoInicialTikZ;
+	NodoTikZ nodoFinalTikZ;
+
+	/**
+	 * Contador de estados compartido por todos los subautómatas de una misma
+	 * construcción.
+	 */
+	private static class Contador {
+		private int newStateCounter = 0;
+	}
+
+	/**
+	 * Calcula la disposición del autómata correspondiente a una expresión
+	 * regular, numerando sus estados a partir de 0.
+	 *
+	 * @param expresion
+	 *            Árbol de expresión regular del autómata.
+	 */
+	DisposicionTikZ(ExpresionRegular expresion) {
+		this(expresion, new Contador(), true);
+	}
+
+	/**
+	 * Calcula la disposición de un subautómata. Los identificadores de estado
+	 * definitivos solo se asignan una vez completada la raíz.
+	 *
+	 * @param expresion
+	 *            Árbol de expresión regular del subautómata.
+	 * @param contador
+	 *            Contador de estados de la construcción.
+	 * @param raiz
+	 *            Si se trata del autómata completo.
+	 */
+	private DisposicionTikZ(ExpresionRegular expresion, Contador contador,
+			boolean raiz) {
+		if (expresion.esVacio()) {
+			this.tipo = "EPS";
+			this.ancho = 6*r;
+			this.alto = 2*r;
+			this.yNew = r;
+			this.texto = "&#917";
+
+			this.nodoFinalTikZ = new NodoTikZ(-(contador.newStateCounter+2), "FINAL");
+			this.nodoInicialTikZ = new NodoTikZ(-(contador.newStateCounter+1), "SIMP");
+			this.nodoInicialTikZ.next = this.nodoFinalTikZ;
+			contador.newStateCounter +=2;
+
+		} else if (expresion.esSimbolo()) {
+			this.tipo = "ID";
+			this.ancho = 6*r;
+			this.alto = 2*r;
+			this.yNew = r;
+			this.texto = Character.toString(expresion.simbolo());
+
+			this.nodoFinalTikZ = new NodoTikZ(-(contador.newStateCounter+2), "FINAL");
+			this.nodoInicialTikZ = new NodoTikZ(-(contador.newStateCounter+1), "SIMP");
+			this.nodoInicialTikZ.next = this.nodoFinalTikZ;
+			contador.newStateCounter +=2;
+
+		} else if (expresion.esCierre()) {
+			DisposicionTikZ hijo = new DisposicionTikZ(
+					expresion.hijoIzquierdo(), contador, false);
+
+			double ancho = hijo.ancho+8*r;
+			double alto = hijo.alto+2*r;
+			double yNew = hijo.yNew+r;
+			String thI = hijo.tipo;
+
+			String lop = "";
+			String lcp = "";
+			if (thI == "SEL") {
+		        lop = "(";
+				lcp = ")";
+			}
+
+			String texto = lop+hijo.texto+lcp+"*";
+
+			this.tipo = "AST";
+			this.ancho = ancho;
+			this.alto = alto;
+			this.yNew = yNew;
+			this.texto = texto;
+			this.hijoI = hijo;
+
+
+			this.nodoFinalTikZ = new NodoTikZ(-(contador.newStateCounter+2), "FINAL");
+			this.nodoInicialTikZ = new NodoTikZ(-(contador.newStateCounter+1), "BSTAR");
+			this.nodoInicialTikZ.next = this.nodoFinalTikZ;
+			this.nodoInicialTikZ.inside = hijo.nodoInicialTikZ;
+
+
+			contador.newStateCounter +=2;
+
+			hijo.nodoFinalTikZ.tipo = "ESTAR";
+			hijo.nodoFinalTikZ.next = this.nodoFinalTikZ;
+			hijo.nodoFinalTikZ.inside = hijo.nodoInicialTikZ;
+
+		} else if (expresion.esConcat()) {
+			DisposicionTikZ hijoIzquierdo = new DisposicionTikZ(
+					expresion.hijoIzquierdo(), contador, false);
+			DisposicionTikZ hijoDerecho = new DisposicionTikZ(
+					expresion.hijoDerecho(), contador, false);
+
+			double yI = hijoIzquierdo.yNew;
+			double yD = hijoDerecho.yNew;
+
+			double altoI = hijoDerecho.alto;
+			double altoD = hijoDerecho.alto;
+
+			double yNew = (yI > yD) ? yI : yD;
+
+			double difI = altoI - yI;
+			double difD = altoD - yD;
+
+			double maxDif = (difI > difD) ? difI : difD;
+
+			double ancho = hijoIzquierdo.ancho + hijoDerecho.ancho - 2*r;
+
+			double alto = yNew+maxDif;
+
+			String thI =  hijoIzquierdo.tipo;
+			String thD =  hijoDerecho.tipo;
+
+			String lop = "";
+			String lcp = "";
+			if (thI == "SEL") {
+		        lop = "(";
+				lcp = ")";
+			}
+
+			String rop = "";
+			String rcp = "";
+			if (thD == "SEL" || thD == "CAT") {
+		        rop = "(";
+				rcp = ")";
+			}
+
+			String texto = lop+hijoIzquierdo.texto+lcp+"."+rop+hijoDerecho.texto+rcp;
+
+			this.tipo = "CAT";
+			this.ancho = ancho;
+			this.alto = alto;
+			this.yNew = yNew;
+			this.texto = texto;
+			this.hijoI = hijoIzquierdo;
+			this.hijoD = hijoDerecho;
+
+
+			this.nodoInicialTikZ = hijoIzquierdo.nodoInicialTikZ;
+			this.nodoFinalTikZ = hijoDerecho.nodoFinalTikZ;
+
+			 hijoIzquierdo.nodoFinalTikZ.tipo = hijoDerecho.nodoInicialTikZ.tipo;
+			 hijoIzquierdo.nodoFinalTikZ.pair = hijoDerecho.nodoInicialTikZ.pair;
+			 hijoIzquierdo.nodoFinalTikZ.id = hijoDerecho.nodoInicialTikZ.id;
+			 hijoIzquierdo.nodoFinalTikZ.next = hijoDerecho.nodoInicialTikZ.next;
+			 hijoIzquierdo.nodoFinalTikZ.inside = hijoDerecho.nodoInicialTikZ.inside;
+			 hijoIzquierdo.nodoFinalTikZ.up = hijoDerecho.nodoInicialTikZ.up;
+			 hijoIzquierdo.nodoFinalTikZ.down = hijoDerecho.nodoInicialTikZ.down;
+
+		} else if (expresion.esUnion()) {
+			DisposicionTikZ hijoIzquierdo = new DisposicionTikZ(
+					expresion.hijoIzquierdo(), contador, false);
+			DisposicionTikZ hijoDerecho = new DisposicionTikZ(
+					expresion.hijoDerecho(), contador, false);
+
+			double anchoI = hijoIzquierdo.ancho;
+			double anchoD = hijoDerecho.ancho;
+
+			double maxAncho = (anchoI > anchoD) ? anchoI : anchoD;
+			double ancho = maxAncho + 6*r;
+
+			double alto = hijoIzquierdo.alto + hijoDerecho.alto + 2*r;
+			double yNew = hijoIzquierdo.alto + r;
+			String thD = hijoDerecho.tipo;
+
+			String rop = "";
+			String rcp = "";
+			if (thD == "SEL") {
+		        rop = "(";
+				rcp = ")";
+			}
+
+			String texto = hijoIzquierdo.texto + "|" + rop + hijoDerecho.texto + rcp;
+
+			this.tipo = "SEL";
+			this.ancho = ancho;
+			this.alto = alto;
+			this.yNew = yNew;
+			this.texto = texto;
+			this.hijoI = hijoIzquierdo;
+			this.hijoD = hijoDerecho;
+
+			// New initial
+			contador.newStateCounter += 1;
+			this.nodoInicialTikZ = new NodoTikZ(-contador.newStateCounter, "SEL");
+			this.nodoInicialTikZ.up = hijoIzquierdo.nodoInicialTikZ;
+			this.nodoInicialTikZ.down = hijoDerecho.nodoInicialTikZ;
+
+			// New final
+			contador.newStateCounter += 1;
+			this.nodoFinalTikZ = new NodoTikZ(-contador.newStateCounter, "FINAL");
+
+			this.nodoInicialTikZ.pair = this.nodoFinalTikZ;
+			this.nodoFinalTikZ.invpair = this.nodoInicialTikZ;
+
+			//Change old finals
+			hijoIzquierdo.nodoFinalTikZ.tipo = "FINAL";
+			hijoDerecho.nodoFinalTikZ.tipo = "SIMP";
+			hijoDerecho.nodoFinalTikZ.next= this.nodoFinalTikZ;
+
+		} else { // runtime exception
+			throw new IllegalArgumentException(
+					"Expresión regular de tipo desconocido.");
+		}
+
+		if (raiz)
+			resetAllIds(this.nodoInicialTikZ, -1);
+	}
+
+	private int resetAllIds(NodoTikZ afnd, int stateId) {
+
+		stateId ++;
+		afnd.id = stateId;
+
+		if (afnd.tipo == "FINAL") {
+			return stateId;
+		}
+		if (afnd.tipo == "SIMP" || afnd.tipo == "ESTAR") {
+			stateId = resetAllIds(afnd.next, stateId);
+		} else if (afnd.tipo == "BSTAR"){
+			stateId = resetAllIds(afnd.inside, stateId);
+
+		} else if (afnd.tipo == "SEL") {
+			stateId = resetAllIds(afnd.up, stateId);
+			stateId = resetAllIds(afnd.down, stateId);
+		}
+		return stateId;
+	}
+}
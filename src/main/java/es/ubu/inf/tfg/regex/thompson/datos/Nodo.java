@@ -11,8 +11,9 @@ import java.util.TreeSet;
  * una serie de transiciones que no consumen entrada y una serie de transiciones
  * que consumen cada una un símbolo dado.
  * <p>
- * Implementa sus propios métodos <code>equals</code> y <code>compareTo</code>
- * para su uso dentro de sets ordenados.
+ * Implementa sus propios métodos <code>equals</code>, <code>hashCode</code> y
+ * <code>compareTo</code> para su uso dentro de sets ordenados y como parte de
+ * claves de mapas hash.
  * 
  * @author Roberto Izquierdo Amo
  * 
@@ -144,6 +145,12 @@ public class Nodo implements Comparable<Nodo> {
 		return true;
 	}
 
+	@Override
+	public int hashCode() {
+		// Coherente con equals: la posición identifica al nodo.
+		return posicion();
+	}
+
 	@Override
 	public int compareTo(Nodo otro) {
 		if (otro.posicion() < posicion())
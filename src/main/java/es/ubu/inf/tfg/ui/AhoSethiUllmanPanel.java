@@ -281,7 +281,8 @@ public class AhoSethiUllmanPanel extends ProblemaPanel<AhoSethiUllman> {
 		protected AhoSethiUllman doInBackground() throws Exception {
 			generando = true;
 			generarButton.setText(Messages.getString("AhoSethiUllmanPanel.cancel")); //$NON-NLS-1$
-			generador = new AhoSethiUllmanGenerador();
+			generador = new AhoSethiUllmanGenerador(Runtime.getRuntime()
+					.availableProcessors());
 			int nSimbolos = simbolosSlider.getValue();
 			int nEstados = estadosSlider.getValue();
 			boolean usaVacio = vacioCheck.isSelected();
@@ -6,11 +6,10 @@ import java.awt.Component;
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
 import java.util.ArrayList;
-import java.util.Date;
 import java.util.List;
-import java.util.Random;
 import java.util.concurrent.CancellationException;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
 
 import javax.swing.Box;
 import javax.swing.BoxLayout;
@@ -34,11 +33,10 @@ import javax.swing.border.TitledBorder;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import es.ubu.inf.tfg.doc.GeneradorBloque;
 import es.ubu.inf.tfg.doc.Problema;
 import es.ubu.inf.tfg.regex.asu.AhoSethiUllman;
-import es.ubu.inf.tfg.regex.asu.AhoSethiUllmanGenerador;
 import es.ubu.inf.tfg.regex.thompson.ConstruccionSubconjuntos;
-import es.ubu.inf.tfg.regex.thompson.ConstruccionSubconjuntosGenerador;
 import java.awt.FlowLayout;
 
 @SuppressWarnings("serial")
@@ -47,11 +45,9 @@ public class BloquePreguntas extends JDialog {
 	private static final Logger log = LoggerFactory
 			.getLogger(BloquePreguntas.class);
 
-	private static final Random random = new Random(new Date().getTime());
-
 	private Main main;
 	private boolean generando;
-	private SwingWorker<List<Object>, Void> worker;
+	private SwingWorker<List<Problema<?>>, Void> worker;
 
 	private JPanel asuPanel;
 	private JPanel csPanel;
@@ -364,6 +360,12 @@ public class BloquePreguntas extends JDialog {
 		public void actionPerformed(ActionEvent e) {
 			if (!generando) {
 				worker = new Worker();
+				worker.addPropertyChangeListener(evento -> {
+					if ("progress".equals(evento.getPropertyName())) { //$NON-NLS-1$
+						progressBar.setIndeterminate(false);
+						progressBar.setValue((Integer) evento.getNewValue());
+					}
+				});
 				worker.execute();
 			} else {
 				((Worker) worker).cancel();
@@ -371,19 +373,18 @@ public class BloquePreguntas extends JDialog {
 		}
 	}
 
-	private class Worker extends SwingWorker<List<Object>, Void> {
+	private class Worker extends SwingWorker<List<Problema<?>>, Void> {
 
-		private AhoSethiUllmanGenerador asuGenerador;
-		private ConstruccionSubconjuntosGenerador csGenerador;
+		private GeneradorBloque generador;
 
 		@Override
-		protected List<Object> doInBackground() throws Exception {
+		protected List<Problema<?>> doInBackground() throws Exception {
 			generando = true;
 			añadeButton.setText(Messages.getString("BloquePreguntas.cancel")); //$NON-NLS-1$
 			progressBar.setVisible(true);
 
-			asuGenerador = new AhoSethiUllmanGenerador();
-			csGenerador = new ConstruccionSubconjuntosGenerador();
+			generador = new GeneradorBloque(ForkJoinPool.commonPool(),
+					main.banco());
 
 			Integer asuNum = (Integer) asuNumSpinner.getValue();
 			Integer asuEstados = (Integer) asuEstadosSpinner.getValue();
@@ -407,91 +408,49 @@ public class BloquePreguntas extends JDialog {
 					"Problemas Construcción de subconjuntos con {} ± {} estados y {} ± {} símbolos", //$NON-NLS-1$
 					csEstados, csEstadosVar, csSimbolos, csSimbolosVar);
 
-			List<Object> problemas = new ArrayList<>();
-			AhoSethiUllman asuProblema;
-			ConstruccionSubconjuntos csProblema;
-			int simbolos, estados;
-			boolean vacio = asuVacioCheck.isSelected();
-
-			for (int i = 0; i < asuNum && generando; i++) {
-				simbolos = asuSimbolos
-						+ (random.nextInt((2 * asuSimbolosVar) + 1) - asuSimbolosVar);
-				estados = asuEstados
-						+ (random.nextInt((2 * asuEstadosVar) + 1) - asuEstadosVar);
-
-				if (simbolos < 2)
-					simbolos = 2;
-				else if (simbolos > 6)
-					simbolos = 6;
-				if (estados < 3)
-					estados = 3;
-				else if (estados > 15)
-					estados = 15;
-
-				asuProblema = asuGenerador.nuevo(simbolos, estados, vacio);
-				problemas.add(asuProblema);
-			}
-
-			vacio = csVacioCheck.isSelected();
-			for (int i = 0; i < csNum && generando; i++) {
-				simbolos = csSimbolos
-						+ (random.nextInt((2 * csSimbolosVar) + 1) - csSimbolosVar);
-				estados = csEstados
-						+ (random.nextInt((2 * csEstadosVar) + 1) - csEstadosVar);
-
-				if (simbolos < 2)
-					simbolos = 2;
-				else if (simbolos > 6)
-					simbolos = 6;
-				if (estados < 3)
-					estados = 3;
-				else if (estados > 15)
-					estados = 15;
-
-				csProblema = csGenerador.nuevo(simbolos, estados, vacio);
-				problemas.add(csProblema);
-			}
-
-			return problemas;
+			GeneradorBloque.Modo asuModo;
+			if (asuModoTablasButton.isSelected())
+				asuModo = GeneradorBloque.Modo.AHOSETHIULLMAN_TABLAS;
+			else if (asuModoEtiquetadoButton.isSelected())
+				asuModo = GeneradorBloque.Modo.AHOSETHIULLMAN_ETIQUETADO;
+			else
+				asuModo = GeneradorBloque.Modo.AHOSETHIULLMAN_CONSTRUCCION;
+
+			GeneradorBloque.Modo csModo;
+			if (csModoConstruccionButton.isSelected())
+				csModo = GeneradorBloque.Modo.CONSTRUCCIONSUBCONJUNTOS_CONSTRUCCION;
+			else if (csModoExpresionButton.isSelected())
+				csModo = GeneradorBloque.Modo.CONSTRUCCIONSUBCONJUNTOS_EXPRESION;
+			else
+				csModo = GeneradorBloque.Modo.CONSTRUCCIONSUBCONJUNTOS_AUTOMATA;
+
+			List<GeneradorBloque.Lote> lotes = new ArrayList<>();
+			lotes.add(new GeneradorBloque.Lote(asuModo, asuNum, asuEstados,
+					asuEstadosVar, asuSimbolos, asuSimbolosVar, asuVacioCheck
+							.isSelected()));
+			lotes.add(new GeneradorBloque.Lote(csModo, csNum, csEstados,
+					csEstadosVar, csSimbolos, csSimbolosVar, csVacioCheck
+							.isSelected()));
+
+			return generador.genera(lotes,
+					(completados, total) -> setProgress(100 * completados
+							/ total));
 		}
 
 		@Override
+		@SuppressWarnings("unchecked")
 		public void done() {
 			try {
-				List<Object> problemas = get();
-				Problema<?> ultimoProblema = null;
-				int numero = 1;
-
-				for (Object problema : problemas) {
-					if (problema instanceof AhoSethiUllman) {
-						Problema<AhoSethiUllman> p;
-						if (asuModoTablasButton.isSelected())
-							p = Problema.asuTablas((AhoSethiUllman) problema, numero);
-						else if (asuModoEtiquetadoButton.isSelected())
-							p = Problema
-									.asuEtiquetado((AhoSethiUllman) problema, numero);
-						else
-							p = Problema
-									.asuConstruccion((AhoSethiUllman) problema, numero);
-						main.añadeAhoSethiUllman(p);
-						ultimoProblema = p;
-					} else if (problema instanceof ConstruccionSubconjuntos) {
-						Problema<ConstruccionSubconjuntos> p;
-						if (csModoConstruccionButton.isSelected())
-							p = Problema
-									.CSConstruccion((ConstruccionSubconjuntos) problema, numero);
-						else if (csModoExpresionButton.isSelected())
-							p = Problema
-									.CSExpresion((ConstruccionSubconjuntos) problema, numero);
-						else
-							p = Problema
-									.CSAutomata((ConstruccionSubconjuntos) problema, numero);
-						main.añadeConstruccionSubconjuntos(p);
-						ultimoProblema = p;
-					} else
+				List<Problema<?>> problemas = get();
+
+				for (Problema<?> problema : problemas) {
+					if (problema.getProblema() instanceof AhoSethiUllman)
+						main.añadeAhoSethiUllman((Problema<AhoSethiUllman>) problema);
+					else if (problema.getProblema() instanceof ConstruccionSubconjuntos)
+						main.añadeConstruccionSubconjuntos((Problema<ConstruccionSubconjuntos>) problema);
+					else
 						log.error("Generado problema de tipo desconocido."); //$NON-NLS-1$
-					numero++;
-					main.actualizaVistaPrevia(ultimoProblema);
+					main.actualizaVistaPrevia(problema);
 				}
 
 			} catch (InterruptedException | ExecutionException
@@ -507,8 +466,7 @@ public class BloquePreguntas extends JDialog {
 
 		public void cancel() {
 			generando = false;
-			asuGenerador.cancelar();
-			csGenerador.cancelar();
+			generador.cancelar();
 		}
 	}
 }
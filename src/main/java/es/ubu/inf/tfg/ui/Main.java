@@ -8,6 +8,8 @@ import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
 import java.awt.event.AdjustmentEvent;
 import java.awt.event.AdjustmentListener;
+import java.awt.event.WindowAdapter;
+import java.awt.event.WindowEvent;
 import java.awt.image.BufferedImage;
 import java.awt.Dimension;
 import java.io.File;
@@ -45,6 +47,7 @@ import javax.swing.filechooser.FileFilter;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import es.ubu.inf.tfg.doc.BancoProblemas;
 import es.ubu.inf.tfg.doc.Documento;
 import es.ubu.inf.tfg.doc.Problema;
 //import es.ubu.inf.tfg.doc.datos.Plantilla; // commented as now it nos used
@@ -91,6 +94,7 @@ public class Main {
 	private boolean scrollVistaPrevia = true;
 
 	private List<ProblemaPanel<?>> panelesProblema = new ArrayList<>();
+	private BancoProblemas banco;
 
 	public static void printAll(ResourceBundle Messages) {
 		String[] keys = {"Main.about", "Main.authorRobertoIzquierdoAmo", "Main.blankDocument",
@@ -126,6 +130,10 @@ public class Main {
 	
 	public static void main(String[] args) {
 		//test_I18N();
+		Thread precarga = new Thread(Documento::calienta, "precarga"); //$NON-NLS-1$
+		precarga.setDaemon(true);
+		precarga.start();
+
 		EventQueue.invokeLater(new Runnable() {
 			public void run() {
 				try {
@@ -148,6 +156,13 @@ public class Main {
 		}
 		initialize();
 		actualizaVistaPrevia(null);
+		try {
+			this.banco = new BancoProblemas(new File(
+					System.getProperty("user.home"), ".plquiz" //$NON-NLS-1$ //$NON-NLS-2$
+							+ File.separator + "banco.dat")); //$NON-NLS-1$
+		} catch (IOException e) {
+			log.error("Error abriendo el banco de problemas", e); //$NON-NLS-1$
+		}
 		this.fileChooser = new JFileChooser();
 		this.fileChooser.setFileSelectionMode(JFileChooser.FILES_ONLY);
 	}
@@ -160,6 +175,7 @@ public class Main {
 		this.frmPlquiz.setTitle("PLQuiz"); //$NON-NLS-1$
 		this.frmPlquiz.setBounds(100, 100, 1150, 900);
 		this.frmPlquiz.setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
+		this.frmPlquiz.addWindowListener(new CierreWindowListener());
 		this.frmPlquiz.setMinimumSize(new Dimension(480, 360));
 
 		initMenuBar();
@@ -362,6 +378,15 @@ public class Main {
 		contenedorPanel.revalidate();
 	}
 
+	/**
+	 * Devuelve el banco de problemas de la aplicación.
+	 * 
+	 * @return Banco de problemas, o <code>null</code> si no pudo abrirse.
+	 */
+	BancoProblemas banco() {
+		return this.banco;
+	}
+
 	void actualizaVistaPrevia(Problema<?> problema) {
 		scrollVistaPrevia = false;
 		vistaPreviaText.setText(Documento.vistaPrevia(problema));
@@ -572,6 +597,20 @@ public class Main {
 		}
 	}
 
+	private class CierreWindowListener extends WindowAdapter {
+		public void windowClosing(WindowEvent event) {
+			if (banco == null)
+				return;
+
+			log.info("Cerrando el banco de problemas."); //$NON-NLS-1$
+			try {
+				banco.close();
+			} catch (IOException e) {
+				log.error("Error cerrando el banco de problemas", e); //$NON-NLS-1$
+			}
+		}
+	}
+
 	private class XMLFilter extends FileFilter {
 
 		@Override
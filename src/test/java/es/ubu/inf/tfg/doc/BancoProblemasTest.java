@@ -0,0 +1,165 @@
+package es.ubu.inf.tfg.doc;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import es.ubu.inf.tfg.regex.asu.AhoSethiUllman;
+import es.ubu.inf.tfg.regex.asu.AhoSethiUllmanMetricas;
+import es.ubu.inf.tfg.regex.datos.ExpresionRegular;
+import es.ubu.inf.tfg.regex.datos.Generador;
+
+public class BancoProblemasTest {
+
+	@Rule
+	public TemporaryFolder directorioTemporal = new TemporaryFolder();
+
+	private File fichero;
+	private BancoProblemas banco;
+	private ExpresionRegular expresion;
+	private int nSimbolos;
+	private int nEstados;
+
+	@Before
+	public void setUp() throws Exception {
+		fichero = new File(directorioTemporal.getRoot(), "banco.dat");
+		banco = new BancoProblemas(fichero, 0);
+
+		expresion = new Generador(2, false, true, 1L).arbol(3);
+		AhoSethiUllmanMetricas metricas = new AhoSethiUllmanMetricas(expresion);
+		nSimbolos = metricas.numSimbolos() - 1;
+		nEstados = metricas.numEstados();
+	}
+
+	@After
+	public void tearDown() throws Exception {
+		banco.close();
+	}
+
+	/**
+	 * Comprueba que una expresión añadida se sirve con sus características,
+	 * una única vez.
+	 */
+	@Test
+	public void testObtiene() {
+		banco.añade(BancoProblemas.Tipo.AHOSETHIULLMAN, expresion);
+
+		assertEquals("Expresión disponible no contada.", 1, banco.disponibles(
+				BancoProblemas.Tipo.AHOSETHIULLMAN, nSimbolos, nEstados, false));
+		ExpresionRegular obtenida = banco.obtiene(
+				BancoProblemas.Tipo.AHOSETHIULLMAN, nSimbolos, nEstados, true);
+		assertEquals("Expresión servida incorrecta.", expresion.canonica(),
+				obtenida.canonica());
+		assertEquals("Problema reconstruido incorrecto.", new AhoSethiUllman(
+				expresion).problema(), new AhoSethiUllman(obtenida).problema());
+		assertNull("Expresión servida dos veces.", banco.obtiene(
+				BancoProblemas.Tipo.AHOSETHIULLMAN, nSimbolos, nEstados, true));
+	}
+
+	/**
+	 * Comprueba que no se sirven expresiones de otras características.
+	 */
+	@Test
+	public void testObtieneOtrasCaracteristicas() {
+		banco.añade(BancoProblemas.Tipo.AHOSETHIULLMAN, expresion);
+
+		assertNull("Servida expresión de otro tipo.", banco.obtiene(
+				BancoProblemas.Tipo.CONSTRUCCIONSUBCONJUNTOS, nSimbolos,
+				nEstados, false));
+		assertNull("Servida expresión con otro número de estados.",
+				banco.obtiene(BancoProblemas.Tipo.AHOSETHIULLMAN, nSimbolos,
+						nEstados + 1, false));
+	}
+
+	/**
+	 * Comprueba que las expresiones registradas no se sirven en la misma
+	 * ejecución pero sí al volver a abrir el banco.
+	 */
+	@Test
+	public void testPersistencia() throws IOException {
+		banco.registra(BancoProblemas.Tipo.AHOSETHIULLMAN, expresion);
+		assertNull("Servida expresión registrada.", banco.obtiene(
+				BancoProblemas.Tipo.AHOSETHIULLMAN, nSimbolos, nEstados, false));
+		banco.close();
+
+		banco = new BancoProblemas(fichero, 0);
+		ExpresionRegular obtenida = banco.obtiene(
+				BancoProblemas.Tipo.AHOSETHIULLMAN, nSimbolos, nEstados, false);
+		assertEquals("Expresión persistida incorrecta.", expresion.canonica(),
+				obtenida.canonica());
+	}
+
+	/**
+	 * Comprueba que se descarta un último registro incompleto y que el banco
+	 * sigue siendo utilizable.
+	 */
+	@Test
+	public void testRegistroIncompleto() throws IOException {
+		banco.añade(BancoProblemas.Tipo.AHOSETHIULLMAN, expresion);
+		banco.close();
+		try (FileOutputStream salida = new FileOutputStream(fichero, true)) {
+			salida.write(new byte[] { 0, 0, 0, 20, 0, 0, 0 });
+		}
+
+		banco = new BancoProblemas(fichero, 0);
+		banco.añade(BancoProblemas.Tipo.AHOSETHIULLMAN, expresion);
+
+		assertEquals("Expresiones recuperadas incorrectas.", 2,
+				banco.disponibles(BancoProblemas.Tipo.AHOSETHIULLMAN,
+						nSimbolos, nEstados, false));
+	}
+
+	/**
+	 * Comprueba que un banco cuyo fichero ya está bloqueado se abre en modo de
+	 * solo lectura: sirve las expresiones existentes pero no guarda otras.
+	 */
+	@Test
+	public void testSoloLectura() throws IOException {
+		banco.añade(BancoProblemas.Tipo.AHOSETHIULLMAN, expresion);
+		assertFalse("Banco bloqueado abierto en solo lectura.",
+				banco.soloLectura());
+
+		try (BancoProblemas lectura = new BancoProblemas(fichero, 0)) {
+			assertTrue("Banco en uso no abierto en solo lectura.",
+					lectura.soloLectura());
+
+			lectura.añade(BancoProblemas.Tipo.AHOSETHIULLMAN, expresion);
+			assertEquals("Expresión guardada en banco de solo lectura.", 1,
+					lectura.disponibles(BancoProblemas.Tipo.AHOSETHIULLMAN,
+							nSimbolos, nEstados, false));
+			ExpresionRegular obtenida = lectura.obtiene(
+					BancoProblemas.Tipo.AHOSETHIULLMAN, nSimbolos, nEstados,
+					false);
+			assertEquals("Expresión servida incorrecta.",
+					expresion.canonica(), obtenida.canonica());
+		}
+
+		banco.close();
+		banco = new BancoProblemas(fichero, 0);
+		assertFalse("Bloqueo no liberado al cerrar el banco.",
+				banco.soloLectura());
+		assertEquals("Expresiones guardadas incorrectas.", 1,
+				banco.disponibles(BancoProblemas.Tipo.AHOSETHIULLMAN,
+						nSimbolos, nEstados, false));
+	}
+
+	/**
+	 * Comprueba que se lanza IllegalArgumentException con una reserva
+	 * negativa.
+	 */
+	@Test(expected = IllegalArgumentException.class)
+	public void testReservaNegativa() throws IOException {
+		new BancoProblemas(fichero, -1);
+	}
+}
@@ -1,5 +1,6 @@
 package es.ubu.inf.tfg.doc;
 
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.fail;
 
@@ -15,6 +16,10 @@ import java.io.Writer;
 import java.io.BufferedWriter;
 import java.io.FileOutputStream;
 import java.io.OutputStreamWriter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.List;
 
 import org.junit.After;
 import org.junit.Before;
@@ -23,7 +28,12 @@ import org.junit.Test;
 import org.junit.rules.TemporaryFolder;
 
 import es.ubu.inf.tfg.doc.datos.Messages;
+import es.ubu.inf.tfg.doc.datos.Plantilla;
+import es.ubu.inf.tfg.doc.datos.Traductor;
+import es.ubu.inf.tfg.doc.datos.TraductorLatexTikZ;
 import es.ubu.inf.tfg.regex.asu.AhoSethiUllman;
+import es.ubu.inf.tfg.regex.datos.ExpresionRegular;
+import es.ubu.inf.tfg.regex.datos.Generador;
 import es.ubu.inf.tfg.regex.thompson.ConstruccionSubconjuntos;
 
 @SuppressWarnings("unused")
@@ -1428,6 +1438,144 @@ public class DocumentoTest {
 				esperado, encontrado);
 	}
 
+	/**
+	 * Comprueba que la traducción en paralelo de muchos problemas respeta el
+	 * orden del documento, comparándola con una traducción secuencial.
+	 * 
+	 * @throws IOException
+	 *             Error operando con archivos.
+	 */
+	@Test
+	public void testExportaParalelo() throws IOException {
+		Generador generador = new Generador(3, false, true, 1L);
+		Traductor traductor = new TraductorLatexTikZ();
+		List<Plantilla> plantillas = new ArrayList<>();
+
+		for (int i = 0; i < 60; i++) {
+			ExpresionRegular expresion = generador.arbol(3);
+			// Cada traducción usa su propio problema, ya que traducir dos
+			// veces el mismo autómata a TikZ no da el mismo resultado
+			if (i % 2 == 0) {
+				documento.añadirProblema(Problema.asuTablas(
+						new AhoSethiUllman(expresion), i + 1));
+				plantillas.add(traductor.traduceASUTablas(new AhoSethiUllman(
+						expresion)));
+			} else {
+				documento.añadirProblema(Problema.CSAutomata(
+						new ConstruccionSubconjuntos(expresion), i + 1));
+				plantillas.add(traductor
+						.traduceCSAutomata(new ConstruccionSubconjuntos(
+								expresion)));
+			}
+		}
+
+		File ficheroEsperado = ficheroTemporal("secuencial.tex");
+		try (Writer writer = new BufferedWriter(new OutputStreamWriter(
+				new FileOutputStream(ficheroEsperado), "UTF8"))) {
+			writer.write(traductor.documento(plantillas));
+		}
+		File ficheroTemporal = ficheroTemporal("paralelo.tex");
+		documento.exportaTikZLatex(ficheroTemporal);
+
+		assertEquals("Exportación en paralelo de documento Latex errónea.",
+				toString(ficheroEsperado), toString(ficheroTemporal));
+	}
+
+	/**
+	 * Comprueba que la exportación simultánea a varios formatos genera los
+	 * mismos documentos e imágenes que la exportación de cada formato por
+	 * separado.
+	 * 
+	 * @throws IOException
+	 *             Error operando con archivos.
+	 */
+	@Test
+	public void testExportaFormatos() throws IOException {
+		documento.añadirProblema(Problema.asuConstruccion(asuProblemaA, 1));
+		documento.añadirProblema(Problema.asuEtiquetado(asuProblemaB, 2));
+		documento.añadirProblema(Problema.CSConstruccion(csProblemaA, 3));
+		documento.añadirProblema(Problema.CSAutomata(csProblemaB, 4));
+
+		File conjunta = directorioTemporal.newFolder("conjunta");
+		documento.exporta(conjunta, "documento",
+				EnumSet.allOf(Documento.Formato.class));
+
+		File separada = directorioTemporal.newFolder("separada");
+		documento.exportaXML(new File(separada, "documento.xml"));
+		documento.exportaLatex(new File(separada, "documento.tex"));
+		documento.exportaGraphvizLatex(new File(separada,
+				"documento_graphviz.tex"));
+		documento.exportaSVGLatex(new File(separada, "documento_svg.tex"));
+		documento.exportaPDFLatex(new File(separada, "documento_pdf.tex"));
+		documento.exportaTikZLatex(new File(separada, "documento_tikz.tex"));
+
+		String[] ficheros = separada.list();
+		Arrays.sort(ficheros);
+		String[] encontrados = conjunta.list();
+		Arrays.sort(encontrados);
+		assertArrayEquals("Ficheros exportados erróneos.", ficheros,
+				encontrados);
+
+		// Moodle XML baraja las alternativas en cada traducción
+		for (String fichero : ficheros)
+			if (fichero.endsWith(".tex") || fichero.endsWith(".gv")
+					|| fichero.endsWith(".svg"))
+				assertEquals("Exportación a varios formatos errónea.",
+						toString(new File(separada, fichero)),
+						toString(new File(conjunta, fichero)));
+	}
+
+	/**
+	 * Comprueba que los formatos LaTeX que comparten traductor y plantillas
+	 * generan al exportarse juntos los mismos ficheros que al exportarse por
+	 * separado.
+	 * 
+	 * @throws IOException
+	 *             Error operando con archivos.
+	 */
+	@Test
+	public void testExportaFormatosLatex() throws IOException {
+		int numero = 1;
+		for (int i = 0; i < 4; i++) {
+			documento.añadirProblema(Problema.asuConstruccion(asuProblemaA,
+					numero++));
+			documento.añadirProblema(Problema.asuTablas(asuProblemaB,
+					numero++));
+			documento.añadirProblema(Problema.asuEtiquetado(asuProblemaC,
+					numero++));
+			documento.añadirProblema(Problema.CSConstruccion(csProblemaA,
+					numero++));
+			documento.añadirProblema(Problema.CSExpresion(csProblemaB,
+					numero++));
+			documento.añadirProblema(Problema.CSAutomata(csProblemaC,
+					numero++));
+		}
+
+		File conjunta = directorioTemporal.newFolder("conjunta");
+		documento.exporta(conjunta, "documento", EnumSet.of(
+				Documento.Formato.LATEX, Documento.Formato.LATEX_GRAPHVIZ,
+				Documento.Formato.LATEX_PDF));
+
+		File separada = directorioTemporal.newFolder("separada");
+		documento.exportaLatex(new File(separada, "documento.tex"));
+		documento.exportaGraphvizLatex(new File(separada,
+				"documento_graphviz.tex"));
+		documento.exportaPDFLatex(new File(separada, "documento_pdf.tex"));
+
+		String[] ficheros = separada.list();
+		Arrays.sort(ficheros);
+		String[] encontrados = conjunta.list();
+		Arrays.sort(encontrados);
+		assertArrayEquals("Ficheros exportados erróneos.", ficheros,
+				encontrados);
+
+		for (String fichero : ficheros)
+			if (fichero.endsWith(".tex") || fichero.endsWith(".gv"))
+				assertEquals("Exportación a varios formatos errónea.",
+						toString(new File(separada, fichero)),
+						toString(new File(conjunta, fichero)));
+	}
+
 	/**
 	 * Genera un fichero temporal con el nombre dado. Los ficheros temporales
 	 * desaparecen al finalizar los test.
@@ -0,0 +1,152 @@
+package es.ubu.inf.tfg.doc;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import es.ubu.inf.tfg.regex.datos.ExpresionRegular;
+import es.ubu.inf.tfg.regex.datos.Generador;
+import es.ubu.inf.tfg.regex.thompson.ConstruccionSubconjuntos;
+import es.ubu.inf.tfg.regex.thompson.ConstruccionSubconjuntosMetricas;
+
+public class GeneradorBloqueTest {
+
+	private ForkJoinPool pool;
+	private GeneradorBloque generador;
+
+	@Before
+	public void setUp() throws Exception {
+		pool = new ForkJoinPool(4);
+		generador = new GeneradorBloque(pool);
+	}
+
+	@After
+	public void tearDown() throws Exception {
+		pool.shutdownNow();
+		generador = null;
+	}
+
+	/**
+	 * Comprueba que se generan todos los problemas de cada lote, en el orden
+	 * de los lotes y numerados de forma consecutiva.
+	 */
+	@Test
+	public void testGenera() {
+		List<GeneradorBloque.Lote> lotes = Arrays.asList(
+				new GeneradorBloque.Lote(
+						GeneradorBloque.Modo.AHOSETHIULLMAN_TABLAS, 3, 3, 1, 2,
+						0, false),
+				new GeneradorBloque.Lote(
+						GeneradorBloque.Modo.CONSTRUCCIONSUBCONJUNTOS_EXPRESION,
+						2, 3, 0, 2, 1, true));
+
+		List<Problema<?>> problemas = generador.genera(lotes, null);
+
+		assertEquals("Número de problemas generados erróneo.", 5,
+				problemas.size());
+		for (int i = 0; i < problemas.size(); i++) {
+			assertEquals("Numeración de problemas errónea.", i + 1, problemas
+					.get(i).getNumero());
+			assertEquals("Tipo de problema erróneo.",
+					i < 3 ? "AhoSethiUllmanTablas"
+							: "ConstruccionSubconjuntosExpresion", problemas
+							.get(i).getTipo());
+		}
+	}
+
+	/**
+	 * Comprueba que se notifica el progreso una vez por problema, hasta
+	 * completar el total.
+	 */
+	@Test
+	public void testProgreso() {
+		List<GeneradorBloque.Lote> lotes = Arrays
+				.asList(new GeneradorBloque.Lote(
+						GeneradorBloque.Modo.CONSTRUCCIONSUBCONJUNTOS_AUTOMATA,
+						6, 3, 0, 2, 0, false));
+		AtomicInteger notificaciones = new AtomicInteger();
+		List<Integer> totales = new ArrayList<>();
+
+		generador.genera(lotes, (completados, total) -> {
+			notificaciones.incrementAndGet();
+			synchronized (totales) {
+				totales.add(total);
+			}
+		});
+
+		assertEquals("Número de notificaciones de progreso erróneo.", 6,
+				notificaciones.get());
+		for (int total : totales)
+			assertEquals("Total de problemas notificado erróneo.", 6, total);
+	}
+
+	/**
+	 * Comprueba que un generador cancelado no llega a generar problemas
+	 * pendientes.
+	 */
+	@Test
+	public void testCancelar() {
+		List<GeneradorBloque.Lote> lotes = Arrays.asList(
+				new GeneradorBloque.Lote(
+						GeneradorBloque.Modo.AHOSETHIULLMAN_CONSTRUCCION, 50,
+						15, 0, 6, 0, true),
+				new GeneradorBloque.Lote(
+						GeneradorBloque.Modo.CONSTRUCCIONSUBCONJUNTOS_CONSTRUCCION,
+						50, 15, 0, 6, 0, true));
+
+		generador.cancelar();
+		List<Problema<?>> problemas = generador.genera(lotes, null);
+
+		assertTrue("Se generan problemas tras cancelar el generador.",
+				problemas.isEmpty());
+	}
+
+	/**
+	 * Comprueba que los problemas se sirven del banco cuando hay alguno con
+	 * las características pedidas.
+	 */
+	@Test
+	public void testBanco() throws Exception {
+		File fichero = File.createTempFile("banco", ".txt");
+		fichero.deleteOnExit();
+		try (BancoProblemas banco = new BancoProblemas(fichero, 0)) {
+			ExpresionRegular expresion = new Generador(2, false, false, 1L)
+					.arbol(3);
+			ConstruccionSubconjuntosMetricas metricas = new ConstruccionSubconjuntosMetricas(
+					expresion);
+			banco.añade(BancoProblemas.Tipo.CONSTRUCCIONSUBCONJUNTOS,
+					expresion);
+
+			List<Problema<?>> problemas = new GeneradorBloque(pool, banco)
+					.genera(Arrays.asList(new GeneradorBloque.Lote(
+							GeneradorBloque.Modo.CONSTRUCCIONSUBCONJUNTOS_AUTOMATA,
+							1, metricas.numEstados(), 0, metricas
+									.numSimbolos(), 0, false)), null);
+
+			assertEquals("Problema no servido desde el banco.",
+					new ConstruccionSubconjuntos(expresion).problema(),
+					((ConstruccionSubconjuntos) problemas.get(0).getProblema())
+							.problema());
+		}
+	}
+
+	/**
+	 * Comprueba que se lanza IllegalArgumentException con lotes de tamaño
+	 * negativo.
+	 */
+	@Test(expected = IllegalArgumentException.class)
+	public void testLoteNegativo() {
+		new GeneradorBloque.Lote(GeneradorBloque.Modo.AHOSETHIULLMAN_TABLAS,
+				-1, 3, 0, 2, 0, false);
+	}
+}
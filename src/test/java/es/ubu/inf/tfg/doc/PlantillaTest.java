@@ -2,6 +2,16 @@ package es.ubu.inf.tfg.doc;
 
 import static org.junit.Assert.assertEquals;
 
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.Base64;
+
+import javax.imageio.ImageIO;
+
 import org.junit.Test;
 
 //import java.util.Locale;  // commented as now it not used
@@ -42,4 +52,92 @@ public class PlantillaTest {
 		
 		assertEquals("Incorrecto modificado de plantilla.", esperado, plantilla.toString()); //$NON-NLS-1$
 	}
+
+	/**
+	 * Comprueba que las imágenes se incluyen codificadas en base 64, tanto al
+	 * convertir la plantilla en cadena como al escribirla en un Writer.
+	 */
+	@Test
+	public void testSetImagen() throws IOException {
+		BufferedImage imagen = new BufferedImage(20, 10,
+				BufferedImage.TYPE_INT_RGB);
+		Graphics2D grafico = imagen.createGraphics();
+		grafico.setColor(Color.RED);
+		grafico.fillRect(5, 2, 10, 6);
+		grafico.dispose();
+
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		ImageIO.write(imagen, "JPG", bytes); //$NON-NLS-1$
+		String base64 = Base64.getEncoder().encodeToString(bytes.toByteArray());
+
+		Plantilla plantilla = new Plantilla("Plantilla.txt"); //$NON-NLS-1$
+		String esperado;
+		String lang = Messages.getString("PlantillaTest.lang"); //$NON-NLS-1$
+		if (lang.equals("ES/")) { //$NON-NLS-1$
+			esperado = "ES1" + base64 + "3" + base64; //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+		} else {
+			esperado = "1" + base64 + "3" + base64; //$NON-NLS-1$ //$NON-NLS-2$
+		}
+
+		plantilla.setImagen("2", imagen); //$NON-NLS-1$
+		plantilla.set("1", "1"); //$NON-NLS-1$ //$NON-NLS-2$
+		plantilla.set("3", "3"); //$NON-NLS-1$ //$NON-NLS-2$
+		plantilla.setImagen("4", imagen); //$NON-NLS-1$
+
+		StringWriter writer = new StringWriter();
+		plantilla.escribe(writer);
+
+		assertEquals("Incorrecta imagen en plantilla.", esperado, plantilla.toString()); //$NON-NLS-1$
+		assertEquals("Incorrecta escritura de imagen en plantilla.", esperado, writer.toString()); //$NON-NLS-1$
+	}
+
+	/**
+	 * Comprueba que cada atributo conserva el primer valor asignado y que los
+	 * valores insertados no se vuelven a sustituir.
+	 */
+	@Test
+	public void testSetRepetido() {
+		Plantilla plantilla = new Plantilla("Plantilla.txt"); //$NON-NLS-1$
+		String esperado;
+		String lang = Messages.getString("PlantillaTest.lang"); //$NON-NLS-1$
+		if (lang.equals("ES/")) { //$NON-NLS-1$
+			esperado = "ES{2}a{3}{4}"; //$NON-NLS-1$
+		} else {
+			esperado = "{2}a{3}{4}"; //$NON-NLS-1$
+		}
+
+		plantilla.set("1", "{2}"); //$NON-NLS-1$ //$NON-NLS-2$
+		plantilla.set("1", "b"); //$NON-NLS-1$ //$NON-NLS-2$
+		plantilla.set("2", "a"); //$NON-NLS-1$ //$NON-NLS-2$
+
+		assertEquals("Incorrecto modificado repetido de plantilla.", esperado, plantilla.toString()); //$NON-NLS-1$
+	}
+
+	/**
+	 * Comprueba que se pueden precargar todas las plantillas de la aplicación
+	 * y que las plantillas precargadas se recuperan con el mismo contenido.
+	 */
+	@Test
+	public void testPrecarga() {
+		Plantilla.precarga();
+		Plantilla.precarga("Plantilla.txt"); //$NON-NLS-1$
+		String esperado;
+		String lang = Messages.getString("PlantillaTest.lang"); //$NON-NLS-1$
+		if (lang.equals("ES/")) { //$NON-NLS-1$
+			esperado = "ES{1}{2}{3}{4}"; //$NON-NLS-1$
+		} else {
+			esperado = "{1}{2}{3}{4}"; //$NON-NLS-1$
+		}
+
+		assertEquals("Incorrecto recuperado de plantilla precargada.", esperado, new Plantilla("Plantilla.txt").toString()); //$NON-NLS-1$ //$NON-NLS-2$
+	}
+
+	/**
+	 * Comprueba que se lanza IllegalArgumentException al precargar una
+	 * plantilla que no existe.
+	 */
+	@Test(expected = IllegalArgumentException.class)
+	public void testPrecargaInexistente() {
+		Plantilla.precarga("inexistente.txt"); //$NON-NLS-1$
+	}
 }
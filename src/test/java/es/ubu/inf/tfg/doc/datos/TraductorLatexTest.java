@@ -1,6 +1,8 @@
 package es.ubu.inf.tfg.doc.datos;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
 import java.io.BufferedReader;
@@ -130,6 +132,22 @@ public class TraductorLatexTest {
 				esperado, encontrado);
 	}
 
+	/**
+	 * Comprueba que los estados de un problema de tipo Aho-Sethi-Ullman con más
+	 * de 26 estados se traducen con sus etiquetas de varias letras.
+	 */
+	@Test
+	public void testTraduceAhoSethiUllmanEtiquetas() {
+		AhoSethiUllman problema = new AhoSethiUllman(
+				"(a|b)*a(a|b)(a|b)(a|b)(a|b)"); //$NON-NLS-1$
+		String encontrado = traductor.traduceASUTablas(problema).toString();
+
+		assertTrue("Traducción Latex sin etiquetas de varias letras.", //$NON-NLS-1$
+				encontrado.contains("\\h{AF}")); //$NON-NLS-1$
+		assertFalse("Traducción Latex con estados no alfabéticos.", //$NON-NLS-1$
+				encontrado.contains("\\h{[}")); //$NON-NLS-1$
+	}
+
 	/**
 	 * Comprueba la correcta traducción de un problema de construcción de
 	 * subconjuntos subtipo construcción.
@@ -1,6 +1,8 @@
 package es.ubu.inf.tfg.doc.datos;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
 import java.io.BufferedReader;
@@ -11,9 +13,11 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.io.OutputStreamWriter;
+import java.io.StringWriter;
 import java.io.UnsupportedEncodingException;
 import java.io.Writer;
 import java.util.ArrayList;
+import java.util.List;
 
 import org.junit.After;
 import org.junit.Before;
@@ -51,6 +55,26 @@ public class TraductorMoodleXMLTest {
 				esperado, traductor.documento(new ArrayList<Plantilla>()));
 	}
 	
+	/**
+	 * Comprueba que escribir un documento problema a problema produce el mismo
+	 * resultado que generarlo completo en memoria.
+	 */
+	@Test
+	public void testDocumentoWriter() throws IOException {
+		List<Plantilla> problemas = new ArrayList<>();
+		problemas.add(traductor.traduceCSExpresion(new ConstruccionSubconjuntos(
+				"(a|b)*abb"))); //$NON-NLS-1$
+		problemas.add(traductor.traduceASUTablas(new AhoSethiUllman(
+				"((a|b*)a*c)*"))); //$NON-NLS-1$
+		String esperado = traductor.documento(problemas);
+
+		StringWriter writer = new StringWriter();
+		((TraductorMoodleXML) traductor).documento(problemas, writer);
+
+		assertEquals("Escritura incorrecta de documento Moodle XML.", //$NON-NLS-1$
+				esperado, writer.toString());
+	}
+
 	/**
 	 * Comprueba la correcta traducción de un problema de tipo Aho-Sethi-Ullman
 	 * subtipo construcción.
@@ -160,6 +184,22 @@ public class TraductorMoodleXMLTest {
 				esperado, encontrado);
 	}
 
+	/**
+	 * Comprueba que los estados de un problema de tipo Aho-Sethi-Ullman con más
+	 * de 26 estados se traducen con sus etiquetas de varias letras.
+	 */
+	@Test
+	public void testTraduceAhoSethiUllmanEtiquetas() {
+		AhoSethiUllman problema = new AhoSethiUllman(
+				"(a|b)*a(a|b)(a|b)(a|b)(a|b)"); //$NON-NLS-1$
+		String encontrado = traductor.traduceASUTablas(problema).toString();
+
+		assertTrue("Traducción Moodle XML sin etiquetas de varias letras.", //$NON-NLS-1$
+				encontrado.contains("<td>AF</td>")); //$NON-NLS-1$
+		assertFalse("Traducción Moodle XML con estados no alfabéticos.", //$NON-NLS-1$
+				encontrado.contains("<td>[</td>")); //$NON-NLS-1$
+	}
+
 	/**
 	 * Comprueba la correcta traducción de un problema de construcción de
 	 * subconjuntos subtipo construcción.
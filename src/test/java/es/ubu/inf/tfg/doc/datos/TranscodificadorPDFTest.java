@@ -0,0 +1,108 @@
+package es.ubu.inf.tfg.doc.datos;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import es.ubu.inf.tfg.regex.datos.ExpresionRegular;
+import es.ubu.inf.tfg.regex.thompson.datos.Automata;
+
+public class TranscodificadorPDFTest {
+
+	@Rule
+	public TemporaryFolder directorioTemporal = new TemporaryFolder();
+
+	/**
+	 * Comprueba que un documento SVG en memoria se convierte a PDF, también
+	 * al reutilizar los transcoders de la reserva.
+	 */
+	@Test
+	public void testEscribe() throws IOException {
+		String svg = svg(0);
+
+		for (int i = 0; i < 3; i++) {
+			ByteArrayOutputStream salida = new ByteArrayOutputStream();
+			TranscodificadorPDF.escribe(svg, salida);
+
+			assertTrue("Documento PDF incorrecto.", new String(
+					salida.toByteArray(), StandardCharsets.ISO_8859_1)
+					.startsWith("%PDF-")); //$NON-NLS-1$
+		}
+	}
+
+	/**
+	 * Comprueba que se lanza IOException con un documento SVG incorrecto.
+	 */
+	@Test(expected = IOException.class)
+	public void testEscribeIncorrecto() throws IOException {
+		TranscodificadorPDF.escribe("<svg", new ByteArrayOutputStream()); //$NON-NLS-1$
+	}
+
+	/**
+	 * Comprueba que la preparación de la conversión funciona y que las
+	 * conversiones posteriores siguen siendo correctas.
+	 */
+	@Test
+	public void testCalienta() throws IOException {
+		assertTrue("Preparación de la conversión fallida.",
+				TranscodificadorPDF.calienta());
+
+		ByteArrayOutputStream salida = new ByteArrayOutputStream();
+		TranscodificadorPDF.escribe(svg(0), salida);
+		assertTrue("Documento PDF incorrecto.", new String(
+				salida.toByteArray(), StandardCharsets.ISO_8859_1)
+				.startsWith("%PDF-")); //$NON-NLS-1$
+	}
+
+	/**
+	 * Comprueba que se guardan en paralelo todos los documentos.
+	 */
+	@Test
+	public void testGuarda() {
+		Map<File, String> documentos = new LinkedHashMap<>();
+		for (int i = 0; i < 8; i++)
+			documentos.put(new File(directorioTemporal.getRoot(), i + ".pdf"), //$NON-NLS-1$
+					svg(i));
+
+		assertEquals("Número de documentos guardados incorrecto.", 8,
+				TranscodificadorPDF.guarda(documentos, true));
+		for (int i = 0; i < 8; i++)
+			assertTrue("Documento PDF no guardado.", new File(
+					directorioTemporal.getRoot(), i + ".pdf").length() > 0); //$NON-NLS-1$
+	}
+
+	/**
+	 * Comprueba que un documento incorrecto no impide guardar el resto.
+	 */
+	@Test
+	public void testGuardaIncorrecto() {
+		Map<File, String> documentos = new LinkedHashMap<>();
+		documentos.put(new File(directorioTemporal.getRoot(), "error.pdf"), //$NON-NLS-1$
+				"<svg"); //$NON-NLS-1$
+		documentos.put(new File(directorioTemporal.getRoot(), "0.pdf"), //$NON-NLS-1$
+				svg(0));
+
+		assertEquals("Número de documentos guardados incorrecto.", 1,
+				TranscodificadorPDF.guarda(documentos, false));
+		assertTrue("Documento PDF no guardado.", new File(
+				directorioTemporal.getRoot(), "0.pdf").length() > 0); //$NON-NLS-1$
+	}
+
+	private static String svg(int posicion) {
+		ExpresionRegular expresion = ExpresionRegular
+				.nodoCierre(ExpresionRegular.nodoUnion(
+						ExpresionRegular.nodoSimbolo(1, 'a'),
+						ExpresionRegular.nodoSimbolo(2, 'b')));
+		return new Automata(expresion, posicion).imagenSvg();
+	}
+}
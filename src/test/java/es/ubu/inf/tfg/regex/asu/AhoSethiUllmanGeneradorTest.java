@@ -1,9 +1,14 @@
 package es.ubu.inf.tfg.regex.asu;
 
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertTrue;
 
 import java.util.Date;
 import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 import org.junit.After;
 import org.junit.Before;
@@ -34,6 +39,98 @@ public class AhoSethiUllmanGeneradorTest {
 		generador = null;
 	}
 
+	/**
+	 * Comprueba que el generador en modo paralelo devuelve un problema con los
+	 * símbolos pedidos.
+	 */
+	@Test
+	public void testNuevoParalelo() {
+		generador = new AhoSethiUllmanGenerador(4);
+		AhoSethiUllman problema = generador.nuevo(2, 4, false);
+
+		assertNotNull("El generador paralelo no devuelve problema.", problema);
+		assertEquals("Número de símbolos erróneo en generador paralelo.", 3,
+				problema.simbolos().size());
+	}
+
+	/**
+	 * Comprueba que un generador cancelado devuelve el resultado de la primera
+	 * iteración de cada búsqueda.
+	 */
+	@Test
+	public void testCancelar() {
+		generador = new AhoSethiUllmanGenerador(4);
+		generador.cancelar();
+
+		assertNotNull("El generador cancelado no devuelve problema.",
+				generador.nuevo(6, 15, true));
+	}
+
+	/**
+	 * Comprueba que un generador paralelo invocado desde un hilo interrumpido
+	 * devuelve un problema y mantiene la interrupción del hilo.
+	 */
+	@Test
+	public void testInterrumpido() {
+		generador = new AhoSethiUllmanGenerador(4);
+		AhoSethiUllman problema;
+		boolean interrumpido;
+
+		Thread.currentThread().interrupt();
+		try {
+			problema = generador.nuevo(3, 8, false);
+		} finally {
+			interrumpido = Thread.interrupted();
+		}
+
+		assertNotNull("El generador interrumpido no devuelve problema.",
+				problema);
+		assertTrue("No se mantiene la interrupción del hilo.", interrumpido);
+	}
+
+	/**
+	 * Comprueba que un generador interrumpido antes de que empiece ninguna de
+	 * sus búsquedas devuelve igualmente un problema.
+	 */
+	@Test
+	public void testInterrumpidoSinBusquedas() throws InterruptedException {
+		ExecutorService ejecutor = Executors.newSingleThreadExecutor();
+		CountDownLatch ocupado = new CountDownLatch(1);
+		ejecutor.submit(() -> {
+			ocupado.await();
+			return null;
+		});
+
+		try {
+			generador = new AhoSethiUllmanGenerador(4, ejecutor);
+			AhoSethiUllman problema;
+			boolean interrumpido;
+
+			Thread.currentThread().interrupt();
+			try {
+				problema = generador.nuevo(3, 8, false);
+			} finally {
+				interrumpido = Thread.interrupted();
+			}
+
+			assertNotNull("El generador interrumpido no devuelve problema.",
+					problema);
+			assertTrue("No se mantiene la interrupción del hilo.",
+					interrumpido);
+		} finally {
+			ocupado.countDown();
+			ejecutor.shutdown();
+		}
+	}
+
+	/**
+	 * Comprueba que no se admiten generadores sin búsquedas.
+	 */
+	@Test(expected = IllegalArgumentException.class)
+	public void testBusquedasInvalidas() {
+		generador = new AhoSethiUllmanGenerador(0);
+	}
+
 	@Ignore
 	@Test
 	public void testTime() {
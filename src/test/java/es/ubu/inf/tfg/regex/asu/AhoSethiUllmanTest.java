@@ -4,6 +4,7 @@ import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 
+import java.util.HashSet;
 import java.util.Set;
 import java.util.TreeSet;
 
@@ -196,6 +197,50 @@ public class AhoSethiUllmanTest {
 				asu.esFinal('D'));
 	}
 
+	/**
+	 * Comprueba que el ejercicio construye correctamente AFDs de cientos de
+	 * estados. La expresión (a|b)*a(a|b)^8 genera exactamente 2^9 estados, todos
+	 * ellos con conjuntos de posiciones distintos.
+	 */
+	@Test
+	public void testEstadosGrandes() {
+		StringBuilder problema = new StringBuilder("(a|b)*a");
+		for (int i = 0; i < 8; i++)
+			problema.append("(a|b)");
+		asu = new AhoSethiUllman(problema.toString());
+
+		assertEquals("Número de estados erróneo en AFD grande.", 512, asu
+				.estados().size());
+
+		Set<Set<Integer>> conjuntos = new HashSet<>();
+		for (char estado : asu.estados()) {
+			conjuntos.add(new TreeSet<>(asu.estado(estado)));
+			for (char simbolo : set('a', 'b'))
+				assertTrue("Transición a estado inexistente en AFD grande.",
+						asu.estados().contains(asu.mueve(estado, simbolo)));
+		}
+		assertEquals("Estados repetidos en AFD grande.", 512, conjuntos.size());
+	}
+
+	/**
+	 * Comprueba que el ejercicio construye AFDs de miles de estados, más allá
+	 * de los representables con una sola letra, y que los etiqueta
+	 * correctamente.
+	 */
+	@Test
+	public void testMilesDeEstados() {
+		StringBuilder problema = new StringBuilder("(a|b)*a");
+		for (int i = 0; i < 10; i++)
+			problema.append("(a|b)");
+		asu = new AhoSethiUllman(problema.toString());
+
+		assertEquals("Número de estados erróneo en AFD grande.", 2048,
+				asu.numEstados());
+		assertEquals("Etiqueta errónea en AFD grande.", "A", asu.etiqueta('A'));
+		assertEquals("Etiqueta errónea en AFD grande.", "AA",
+				asu.etiqueta((char) ('A' + 26)));
+	}
+
 	/**
 	 * Genera un set a partir de una lista de enteros de longitud variable.
 	 * 
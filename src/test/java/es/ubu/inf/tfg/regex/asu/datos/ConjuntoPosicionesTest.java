@@ -0,0 +1,155 @@
+package es.ubu.inf.tfg.regex.asu.datos;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class ConjuntoPosicionesTest {
+
+	private ConjuntoPosiciones conjunto;
+
+	@Before
+	public void setUp() throws Exception {
+		conjunto = new ConjuntoPosiciones();
+	}
+
+	@After
+	public void tearDown() throws Exception {
+		conjunto = null;
+	}
+
+	/**
+	 * Comprueba que las posiciones se añaden y consultan correctamente,
+	 * incluyendo posiciones que ocupan más de una palabra.
+	 */
+	@Test
+	public void testAdd() {
+		assertTrue("Error añadiendo posición nueva.", conjunto.add(3));
+		assertFalse("Error añadiendo posición repetida.", conjunto.add(3));
+		conjunto.add(64);
+		conjunto.add(130);
+
+		assertTrue("Error consultando posición existente.",
+				conjunto.contains(64));
+		assertFalse("Error consultando posición inexistente.",
+				conjunto.contains(65));
+		assertFalse("Error consultando posición fuera de rango.",
+				conjunto.contains(1000));
+		assertEquals("Error calculando el tamaño del conjunto.", 3,
+				conjunto.size());
+	}
+
+	/**
+	 * Comprueba que el conjunto se recorre en orden ascendente y se representa
+	 * igual que un TreeSet.
+	 */
+	@Test
+	public void testIterador() {
+		conjunto.add(130);
+		conjunto.add(1);
+		conjunto.add(64);
+		conjunto.add(63);
+
+		List<Integer> posiciones = new ArrayList<>(conjunto);
+		assertEquals("Error recorriendo el conjunto.",
+				Arrays.asList(1, 63, 64, 130), posiciones);
+		assertEquals("Error representando el conjunto.", set(1, 63, 64, 130)
+				.toString(), conjunto.toString());
+	}
+
+	/**
+	 * Comprueba que la unión de conjuntos funciona tanto entre conjuntos de
+	 * posiciones como con otros tipos de conjunto.
+	 */
+	@Test
+	public void testAddAll() {
+		conjunto.add(1);
+		ConjuntoPosiciones otro = new ConjuntoPosiciones(set(2, 100));
+
+		assertTrue("Error uniendo conjuntos de posiciones.",
+				conjunto.addAll(otro));
+		assertFalse("Error uniendo conjuntos ya contenidos.",
+				conjunto.addAll(otro.vista()));
+		assertTrue("Error uniendo conjuntos de otro tipo.",
+				conjunto.addAll(set(5)));
+		assertEquals("Error uniendo conjuntos.", set(1, 2, 5, 100), conjunto);
+	}
+
+	/**
+	 * Comprueba que la igualdad y el hash son compatibles con los de otros
+	 * conjuntos, independientemente del número de palabras utilizadas.
+	 */
+	@Test
+	public void testEquals() {
+		conjunto.add(2);
+		conjunto.add(7);
+		ConjuntoPosiciones otro = new ConjuntoPosiciones();
+		otro.add(200);
+		otro.add(2);
+		otro.add(7);
+
+		assertFalse("Error comparando conjuntos distintos.",
+				conjunto.equals(otro));
+		assertEquals("Error comparando con TreeSet.", set(2, 7), conjunto);
+		assertEquals("Error comparando TreeSet con el conjunto.", conjunto,
+				set(2, 7));
+		assertEquals("Error calculando el hash del conjunto.", set(2, 7)
+				.hashCode(), conjunto.hashCode());
+
+		ConjuntoPosiciones alto = new ConjuntoPosiciones();
+		alto.add(100);
+		ConjuntoPosiciones pequeño = new ConjuntoPosiciones(set(2, 7));
+		ConjuntoPosiciones grande = new ConjuntoPosiciones(alto);
+		grande.addAll(set(2, 7));
+		assertFalse("Error comparando conjuntos de distinta longitud.",
+				pequeño.equals(grande));
+		assertEquals("Error comparando con vista.", pequeño,
+				conjunto.vista());
+	}
+
+	/**
+	 * Comprueba que la vista refleja los cambios del conjunto, pero no permite
+	 * modificarlo.
+	 */
+	@Test(expected = UnsupportedOperationException.class)
+	public void testVista() {
+		Set<Integer> vista = conjunto.vista();
+		conjunto.add(4);
+		assertEquals("La vista no refleja los cambios del conjunto.", set(4),
+				vista);
+
+		vista.add(5);
+	}
+
+	/**
+	 * Comprueba que no se admiten posiciones negativas.
+	 */
+	@Test(expected = IllegalArgumentException.class)
+	public void testPosicionNegativa() {
+		conjunto.add(-1);
+	}
+
+	/**
+	 * Genera un set a partir de una lista de enteros de longitud variable.
+	 *
+	 * @param ns
+	 *            Lista de enteros de longitud variable.
+	 * @return Set de enteros.
+	 */
+	private static Set<Integer> set(int... ns) {
+		Set<Integer> set = new TreeSet<>();
+		for (int n : ns)
+			set.add(n);
+		return set;
+	}
+}
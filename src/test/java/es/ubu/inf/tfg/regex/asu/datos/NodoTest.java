@@ -4,14 +4,22 @@ import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Set;
 import java.util.TreeSet;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
 
 import es.ubu.inf.tfg.regex.datos.ExpresionRegular;
+import es.ubu.inf.tfg.regex.datos.Generador;
 
 @SuppressWarnings("unused")
 public class NodoTest {
@@ -269,6 +277,101 @@ public class NodoTest {
 	}
 	*/
 
+	/**
+	 * Comprueba que pueden generarse miles de imágenes TikZ de árboles desde
+	 * varios hilos a la vez, obteniendo el mismo resultado que desde un único
+	 * hilo.
+	 */
+	@Test
+	public void testConcurrencia() throws Exception {
+		Generador generador = new Generador(3, true, true);
+		List<ExpresionRegular> expresiones = new ArrayList<>();
+		List<String> esperados = new ArrayList<>();
+		for (int i = 0; i < 2000; i++) {
+			ExpresionRegular expresion = generador.arbol(3);
+			expresiones.add(expresion);
+			esperados.add(new Nodo(expresion).imagenTikZ());
+		}
+
+		ExecutorService ejecutor = Executors.newFixedThreadPool(8);
+		try {
+			List<Future<String>> resultados = new ArrayList<>();
+			for (ExpresionRegular expresion : expresiones)
+				resultados.add(ejecutor.submit(() -> new Nodo(expresion)
+						.imagenTikZ()));
+
+			for (int i = 0; i < expresiones.size(); i++)
+				assertEquals("Error generando TikZ desde varios hilos.",
+						esperados.get(i), resultados.get(i).get());
+		} finally {
+			ejecutor.shutdown();
+		}
+	}
+
+	/**
+	 * Comprueba que el programa dot escrito directamente en un destino
+	 * coincide con el generado y contiene una arista por cada hijo.
+	 */
+	@Test
+	public void testEscribeDot() throws IOException {
+		StringBuilder escrito = new StringBuilder();
+		nodo.escribeDot(escrito);
+
+		assertEquals("Programa dot escrito incorrecto.", nodo.imagenDot(),
+				escrito.toString());
+		assertEquals("Número de aristas dot incorrecto.", 11,
+				cuenta(escrito.toString(), " -> "));
+	}
+
+	/**
+	 * Comprueba que el programa SVG contiene un círculo etiquetado por cada
+	 * nodo del árbol y una arista por cada hijo, y que coincide con el escrito
+	 * directamente en un destino.
+	 */
+	@Test
+	public void testImagenSvg() throws IOException {
+		String svg = nodo.imagenSvg();
+		StringBuilder escrito = new StringBuilder();
+		nodo.escribeSvg(escrito);
+
+		assertEquals("Número de nodos SVG incorrecto.", 12,
+				cuenta(svg, "<circle"));
+		assertEquals("Número de aristas SVG incorrecto.", 11,
+				cuenta(svg, "marker-end"));
+		assertTrue("Etiqueta de nodo SVG no encontrada.",
+				svg.contains(">L</text>"));
+		assertTrue("Nodo concatenación SVG no encontrado.",
+				svg.contains(">&#8226;</text>"));
+		assertEquals("Programa SVG escrito incorrecto.", svg,
+				escrito.toString());
+	}
+
+	/**
+	 * Comprueba que la imagen del árbol se genera sin componentes gráficos y
+	 * que anota las propiedades de los nodos con sus etiquetas.
+	 */
+	@Test
+	public void testImagen() {
+		BufferedImage imagen = nodo.imagen();
+
+		assertTrue("Imagen de árbol vacía.",
+				imagen.getWidth() > 0 && imagen.getHeight() > 0);
+		assertEquals("Error anotando primera-pos del nodo raíz.",
+				nodo.primeraPos(), nodo.primeraPos('A'));
+		assertEquals("Error anotando última-pos del nodo raíz.",
+				nodo.ultimaPos(), nodo.ultimaPos('A'));
+		assertTrue("Imagen de árbol cacheada incorrectamente.",
+				imagen == nodo.imagen());
+	}
+
+	private static int cuenta(String texto, String patron) {
+		int n = 0;
+		for (int i = texto.indexOf(patron); i >= 0; i = texto.indexOf(patron,
+				i + 1))
+			n++;
+		return n;
+	}
+
 	/**
 	 * Genera un set a partir de una lista de enteros de longitud variable.
 	 * 
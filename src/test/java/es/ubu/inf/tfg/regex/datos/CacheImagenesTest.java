@@ -0,0 +1,95 @@
+package es.ubu.inf.tfg.regex.datos;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class CacheImagenesTest {
+
+	private AtomicInteger generadas;
+
+	@Before
+	public void setUp() throws Exception {
+		CacheImagenes.vacia();
+		generadas = new AtomicInteger();
+	}
+
+	@After
+	public void tearDown() throws Exception {
+		CacheImagenes.setCapacidad(256);
+		CacheImagenes.vacia();
+	}
+
+	private String genera(String valor) {
+		generadas.incrementAndGet();
+		return new String(valor);
+	}
+
+	/**
+	 * Comprueba que una misma clave y formato solo se generan una vez y
+	 * devuelven siempre la misma representación.
+	 */
+	@Test
+	public void testObtiene() {
+		String primera = CacheImagenes.obtiene("test", "a",
+				() -> genera("dot a"));
+		String segunda = CacheImagenes.obtiene("test", "a",
+				() -> genera("dot a"));
+
+		assertSame("Representación no compartida.", primera, segunda);
+		assertEquals("Representación generada varias veces.", 1,
+				generadas.get());
+	}
+
+	/**
+	 * Comprueba que la misma clave en formatos distintos ocupa entradas
+	 * distintas.
+	 */
+	@Test
+	public void testFormatos() {
+		String dot = CacheImagenes.obtiene("dot", "a", () -> genera("dot"));
+		String svg = CacheImagenes.obtiene("svg", "a", () -> genera("svg"));
+
+		assertEquals("Representación de formato incorrecta.", "dot", dot);
+		assertEquals("Representación de formato incorrecta.", "svg", svg);
+		assertEquals("Número de entradas incorrecto.", 2,
+				CacheImagenes.tamaño());
+	}
+
+	/**
+	 * Comprueba que al superar la capacidad se descarta la entrada utilizada
+	 * hace más tiempo.
+	 */
+	@Test
+	public void testCapacidad() {
+		CacheImagenes.setCapacidad(2);
+		CacheImagenes.obtiene("test", "a", () -> genera("a"));
+		CacheImagenes.obtiene("test", "b", () -> genera("b"));
+		CacheImagenes.obtiene("test", "a", () -> genera("a"));
+		CacheImagenes.obtiene("test", "c", () -> genera("c"));
+
+		assertEquals("Número de entradas incorrecto.", 2,
+				CacheImagenes.tamaño());
+		assertEquals("Generaciones incorrectas.", 3, generadas.get());
+
+		CacheImagenes.obtiene("test", "a", () -> genera("a"));
+		assertEquals("Descartada entrada utilizada recientemente.", 3,
+				generadas.get());
+		CacheImagenes.obtiene("test", "b", () -> genera("b"));
+		assertEquals("Conservada entrada más antigua.", 4, generadas.get());
+	}
+
+	/**
+	 * Comprueba que se lanza IllegalArgumentException con una capacidad
+	 * negativa.
+	 */
+	@Test(expected = IllegalArgumentException.class)
+	public void testCapacidadNegativa() {
+		CacheImagenes.setCapacidad(-1);
+	}
+}
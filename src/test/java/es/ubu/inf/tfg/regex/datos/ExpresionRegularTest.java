@@ -4,6 +4,7 @@ import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -597,4 +598,117 @@ public class ExpresionRegularTest {
 		assertEquals("Problemas en la parentización de la expresión regular.", nodoABCDE.toString2(), "a·(b·c)·(d|e)*");
 	}
 
+	/**
+	 * Comprueba que la forma canónica distingue árboles que se escriben igual
+	 * pero tienen distinta forma o distintas posiciones.
+	 */
+	@Test
+	public void testCanonica() {
+		ExpresionRegular izquierda = ExpresionRegular.nodoConcat(
+				ExpresionRegular.nodoConcat(
+						ExpresionRegular.nodoSimbolo(1, 'a'),
+						ExpresionRegular.nodoSimbolo(2, 'b')),
+				ExpresionRegular.nodoSimbolo(3, 'c'));
+		ExpresionRegular derecha = ExpresionRegular.nodoConcat(
+				ExpresionRegular.nodoSimbolo(1, 'a'),
+				ExpresionRegular.nodoConcat(
+						ExpresionRegular.nodoSimbolo(2, 'b'),
+						ExpresionRegular.nodoSimbolo(3, 'c')));
+		ExpresionRegular posiciones = ExpresionRegular.nodoConcat(
+				ExpresionRegular.nodoConcat(
+						ExpresionRegular.nodoSimbolo(4, 'a'),
+						ExpresionRegular.nodoSimbolo(5, 'b')),
+				ExpresionRegular.nodoSimbolo(6, 'c'));
+
+		assertEquals("Forma canónica incorrecta.", ".(.('a1,'b2),'c3)",
+				izquierda.canonica());
+		assertFalse("Forma canónica igual para árboles distintos.", izquierda
+				.canonica().equals(derecha.canonica()));
+		assertFalse("Forma canónica igual para posiciones distintas.",
+				izquierda.canonica().equals(posiciones.canonica()));
+	}
+
+	/**
+	 * Comprueba que un árbol se reconstruye igual a partir de su forma
+	 * canónica.
+	 */
+	@Test
+	public void testDeCanonica() {
+		Generador generador = new Generador(4, true, true, 1L);
+		for (int i = 0; i < 100; i++) {
+			ExpresionRegular expresion = generador.arbol(4);
+			ExpresionRegular reconstruida = ExpresionRegular
+					.deCanonica(expresion.canonica());
+
+			assertEquals("Forma canónica reconstruida incorrecta.",
+					expresion.canonica(), reconstruida.canonica());
+			assertEquals("Expresión reconstruida incorrecta.",
+					expresion.toString(), reconstruida.toString());
+		}
+	}
+
+	/**
+	 * Comprueba que se lanza IllegalArgumentException con una forma canónica
+	 * incorrecta.
+	 */
+	@Test(expected = IllegalArgumentException.class)
+	public void testDeCanonicaIncorrecta() {
+		ExpresionRegular.deCanonica(".('a1,'b2");
+	}
+
+	/**
+	 * Comprueba que una expresión codificada en binario se decodifica con la
+	 * misma forma canónica, y que pueden decodificarse varias expresiones
+	 * seguidas del mismo buffer.
+	 */
+	@Test
+	public void testBinaria() {
+		Generador generador = new Generador(4, true, true, 1L);
+		List<ExpresionRegular> expresiones = new ArrayList<>();
+		ByteBuffer binaria = ByteBuffer.allocate(100 * 1024);
+		for (int i = 0; i < 100; i++) {
+			ExpresionRegular expresion = generador.arbol(4);
+			expresiones.add(expresion);
+			binaria.put(expresion.binaria());
+		}
+		binaria.flip();
+
+		for (ExpresionRegular expresion : expresiones)
+			assertEquals("Expresión decodificada incorrecta.",
+					expresion.canonica(), ExpresionRegular.deBinaria(binaria)
+							.canonica());
+		assertFalse("Contenido sin decodificar.", binaria.hasRemaining());
+	}
+
+	/**
+	 * Comprueba que las posiciones que no caben en un byte se codifican y
+	 * decodifican correctamente.
+	 */
+	@Test
+	public void testBinariaPosicionGrande() {
+		ExpresionRegular expresion = ExpresionRegular.nodoConcat(
+				ExpresionRegular.nodoSimbolo(300, 'a'),
+				ExpresionRegular.nodoCierre(ExpresionRegular.nodoSimbolo(
+						100000, '\u00f1')));
+
+		assertEquals("Expresión decodificada incorrecta.",
+				expresion.canonica(),
+				ExpresionRegular.deBinaria(ByteBuffer.wrap(expresion.binaria()))
+						.canonica());
+	}
+
+	/**
+	 * Comprueba que se lanza IllegalArgumentException con una codificación
+	 * binaria incompleta.
+	 */
+	@Test(expected = IllegalArgumentException.class)
+	public void testDeBinariaIncorrecta() {
+		byte[] binaria = ExpresionRegular.nodoConcat(
+				ExpresionRegular.nodoSimbolo(1, 'a'),
+				ExpresionRegular.nodoSimbolo(2, 'b')).binaria();
+
+		ExpresionRegular.deBinaria(ByteBuffer.wrap(binaria, 0,
+				binaria.length - 1));
+	}
+
 }
@@ -65,6 +65,24 @@ public class GeneradorTest {
 				Math.abs(8 - mutante.profundidad()) <= 1);
 	}
 
+	/**
+	 * Comprueba que dos generadores con la misma semilla producen la misma
+	 * secuencia de expresiones y mutaciones.
+	 */
+	@Test
+	public void testSemilla() {
+		Generador generador = new Generador(3, true, true, 42);
+		Generador otro = new Generador(3, true, true, 42);
+
+		for (int i = 0; i < 100; i++) {
+			ExpresionRegular expresion = generador.arbol(5);
+			assertEquals("Expresión distinta con la misma semilla.",
+					expresion, otro.arbol(5));
+			assertEquals("Mutación distinta con la misma semilla.",
+					generador.mutacion(expresion), otro.mutacion(expresion));
+		}
+	}
+
 	/**
 	 * Genera una serie de problemas Aho-Sethi-Ullman a partir de expresiones
 	 * regulares aleatorias y almacena sus características.
@@ -0,0 +1,66 @@
+package es.ubu.inf.tfg.regex.datos;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.awt.image.BufferedImage;
+
+import org.junit.Test;
+
+public class LienzoImagenTest {
+
+	private static final int BLANCO = 0xffffff;
+
+	/**
+	 * Comprueba que la imagen se ajusta al rectángulo ocupado por las
+	 * primitivas más el margen, aunque tengan coordenadas negativas.
+	 */
+	@Test
+	public void testTamaño() {
+		LienzoImagen lienzo = new LienzoImagen();
+		lienzo.circulo(-10, -10, 10);
+		lienzo.linea(0, 0, 80, 20, true);
+		BufferedImage imagen = lienzo.imagen(5);
+
+		assertEquals("Ancho de imagen incorrecto.", 110, imagen.getWidth());
+		assertEquals("Alto de imagen incorrecto.", 50, imagen.getHeight());
+		assertEquals("Imagen con canal alfa.", BufferedImage.TYPE_INT_RGB,
+				imagen.getType());
+	}
+
+	/**
+	 * Comprueba que los círculos se dibujan con borde negro sobre fondo
+	 * blanco y tapan los trazos que llegan a su centro.
+	 */
+	@Test
+	public void testCirculo() {
+		LienzoImagen lienzo = new LienzoImagen();
+		lienzo.linea(0, 20, 40, 20, false);
+		lienzo.circulo(20, 20, 10);
+		BufferedImage imagen = lienzo.imagen(0);
+
+		assertEquals("Tamaño de imagen incorrecto.", 40 * 20,
+				imagen.getWidth() * imagen.getHeight());
+		assertEquals("Fondo de imagen incorrecto.", BLANCO,
+				color(imagen, 0, 0));
+		assertEquals("Interior de círculo incorrecto.", BLANCO,
+				color(imagen, 20, 10));
+		assertTrue("Borde de círculo no dibujado.",
+				color(imagen, 20, 0) != BLANCO);
+		assertTrue("Línea no dibujada.", color(imagen, 2, 10) != BLANCO);
+	}
+
+	/**
+	 * Comprueba que se lanza IllegalArgumentException con un tramo de camino
+	 * incorrecto.
+	 */
+	@Test(expected = IllegalArgumentException.class)
+	public void testCaminoIncorrecto() {
+		new LienzoImagen().camino(new double[][] { { 0, 0 }, { 1, 2, 3 } },
+				false);
+	}
+
+	private static int color(BufferedImage imagen, int x, int y) {
+		return imagen.getRGB(x, y) & 0xffffff;
+	}
+}
@@ -61,6 +61,79 @@ public class MapaEstadosTest {
 				mapaEstados.estados());
 	}
 
+	/**
+	 * Comprueba que las transiciones se añaden y obtienen correctamente
+	 * mediante índices de estado y de símbolo.
+	 */
+	@Test
+	public void testIndices() {
+		int a = mapaEstados.añadeSimbolo('a');
+		int b = mapaEstados.añadeSimbolo('b');
+		assertEquals("Símbolo registrado dos veces.", a,
+				mapaEstados.añadeSimbolo('a'));
+		assertEquals("Obtenido índice de símbolo inexistente.", -1,
+				mapaEstados.indiceSimbolo('c'));
+
+		mapaEstados.add(0, a, 1);
+		mapaEstados.add(1, b, 0);
+
+		assertEquals("Obtenida transición incorrecta.", 1,
+				mapaEstados.get(0, a));
+		assertEquals("Obtenida transición incorrecta.", 'A',
+				mapaEstados.get('B', 'b'));
+		assertEquals("Obtenida transición inexistente.", -1,
+				mapaEstados.get(0, b));
+		assertEquals("Obtenido número de estados incorrecto.", 2,
+				mapaEstados.numEstados());
+	}
+
+	/**
+	 * Comprueba que la tabla admite más estados de los representables con
+	 * letras individuales.
+	 */
+	@Test
+	public void testMuchosEstados() {
+		int a = mapaEstados.añadeSimbolo('a');
+		for (int i = 0; i < 5000; i++)
+			mapaEstados.add(i, a, (i + 1) % 5000);
+
+		assertEquals("Obtenido número de estados incorrecto.", 5000,
+				mapaEstados.numEstados());
+		assertEquals("Obtenida transición incorrecta.", 0,
+				mapaEstados.get(4999, a));
+		assertEquals("Obtenida transición incorrecta.", 4000,
+				mapaEstados.get(3999, a));
+	}
+
+	/**
+	 * Comprueba que se generan correctamente las etiquetas de los estados.
+	 */
+	@Test
+	public void testEtiqueta() {
+		assertEquals("Obtenida etiqueta incorrecta.", "A",
+				MapaEstados.etiqueta(0));
+		assertEquals("Obtenida etiqueta incorrecta.", "Z",
+				MapaEstados.etiqueta(25));
+		assertEquals("Obtenida etiqueta incorrecta.", "AA",
+				MapaEstados.etiqueta(26));
+		assertEquals("Obtenida etiqueta incorrecta.", "AZ",
+				MapaEstados.etiqueta(51));
+		assertEquals("Obtenida etiqueta incorrecta.", "BA",
+				MapaEstados.etiqueta(52));
+		assertEquals("Obtenida etiqueta incorrecta.", "AAA",
+				MapaEstados.etiqueta(702));
+	}
+
+	/**
+	 * Comprueba que se lanza IllegalArgumentException al consultar una
+	 * transición inexistente.
+	 */
+	@Test(expected = IllegalArgumentException.class)
+	public void testTransicionInexistente() {
+		mapaEstados.add('A', 'a', 'B');
+		mapaEstados.get('A', 'b');
+	}
+
 	/**
 	 * Genera un set a partir de una lista de caracteres de longitud variable.
 	 * 
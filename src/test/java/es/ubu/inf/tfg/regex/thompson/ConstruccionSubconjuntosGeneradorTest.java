@@ -1,5 +1,7 @@
 package es.ubu.inf.tfg.regex.thompson;
 
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertTrue;
 
 import java.util.Date;
@@ -29,6 +31,43 @@ public class ConstruccionSubconjuntosGeneradorTest {
 		generador = null;
 	}
 
+	/**
+	 * Comprueba que el generador almacena correctamente los parámetros de
+	 * población.
+	 */
+	@Test
+	public void testParametros() {
+		assertEquals("Tamaño de población por defecto erróneo.", 8,
+				generador.poblacion());
+
+		generador = new ConstruccionSubconjuntosGenerador(12, 3, 4);
+		assertEquals("Tamaño de población erróneo.", 12, generador.poblacion());
+		assertEquals("Elitismo erróneo.", 3, generador.elitismo());
+		assertEquals("Mutación errónea.", 4, generador.mutacion());
+	}
+
+	/**
+	 * Comprueba que no se admiten poblaciones en las que elitismo y mutación
+	 * superen al tamaño de la población.
+	 */
+	@Test(expected = IllegalArgumentException.class)
+	public void testParametrosInvalidos() {
+		generador = new ConstruccionSubconjuntosGenerador(4, 3, 2);
+	}
+
+	/**
+	 * Comprueba que un generador cancelado devuelve el mejor individuo de la
+	 * primera generación.
+	 */
+	@Test
+	public void testCancelar() {
+		generador = new ConstruccionSubconjuntosGenerador(16, 2, 2);
+		generador.cancelar();
+
+		assertNotNull("El generador cancelado no devuelve problema.",
+				generador.nuevo(3, 6, false));
+	}
+
 	/**
 	 * Comprueba que la clase genera un problema sin incluir nodos vacíos y con
 	 * los parámetros pedidos. Debe generar el problema pedido o diferir de el
@@ -0,0 +1,84 @@
+package es.ubu.inf.tfg.regex.thompson;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.StringReader;
+
+import org.junit.Test;
+
+import es.ubu.inf.tfg.regex.datos.ExpresionRegular;
+import es.ubu.inf.tfg.regex.datos.Generador;
+import es.ubu.inf.tfg.regex.parser.ExpresionRegularParser;
+import es.ubu.inf.tfg.regex.parser.JavaCharStream;
+import es.ubu.inf.tfg.regex.parser.ParseException;
+
+public class ConstruccionSubconjuntosMetricasTest {
+
+	/**
+	 * Comprueba que las métricas coinciden con las del problema completo en
+	 * una expresión conocida.
+	 */
+	@Test
+	public void testMetricas() throws ParseException {
+		compara(expresion("((a|b*)a*c)*"));
+	}
+
+	/**
+	 * Comprueba que las métricas coinciden con las del problema completo en
+	 * un AFD de cientos de estados.
+	 */
+	@Test
+	public void testEstadosGrandes() throws ParseException {
+		StringBuilder problema = new StringBuilder("(a|b)*a");
+		for (int i = 0; i < 8; i++)
+			problema.append("(a|b)");
+
+		compara(expresion(problema.toString()));
+	}
+
+	/**
+	 * Comprueba que las métricas coinciden con las del problema completo en
+	 * expresiones aleatorias, con y sin nodos vacíos.
+	 */
+	@Test
+	public void testExpresionesAleatorias() {
+		for (int profundidad = 1; profundidad <= 6; profundidad++) {
+			for (int i = 0; i < 20; i++) {
+				compara(new Generador(3, false, true).arbol(profundidad));
+				compara(new Generador(3, true, true).arbol(profundidad));
+			}
+		}
+	}
+
+	/**
+	 * Compara las métricas de una expresión con las del problema completo.
+	 *
+	 * @param expresion
+	 *            Expresión aumentada.
+	 */
+	private static void compara(ExpresionRegular expresion) {
+		ConstruccionSubconjuntos problema = new ConstruccionSubconjuntos(
+				expresion);
+		ConstruccionSubconjuntosMetricas metricas = new ConstruccionSubconjuntosMetricas(
+				expresion);
+
+		assertEquals("Número de estados erróneo para " + expresion, problema
+				.estados().size(), metricas.numEstados());
+		assertEquals("Número de símbolos erróneo para " + expresion, problema
+				.simbolos().size(), metricas.numSimbolos());
+	}
+
+	/**
+	 * Obtiene la expresión aumentada correspondiente a una cadena.
+	 *
+	 * @param problema
+	 *            Expresión regular sin aumentar.
+	 * @return Expresión aumentada.
+	 */
+	private static ExpresionRegular expresion(String problema)
+			throws ParseException {
+		ExpresionRegularParser parser = new ExpresionRegularParser(
+				new JavaCharStream(new StringReader(problema + '\n')));
+		return parser.expresion();
+	}
+}
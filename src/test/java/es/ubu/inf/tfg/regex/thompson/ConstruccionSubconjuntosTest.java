@@ -2,6 +2,7 @@ package es.ubu.inf.tfg.regex.thompson;
 
 import static org.junit.Assert.*;
 
+import java.util.HashSet;
 import java.util.Set;
 import java.util.TreeSet;
 
@@ -110,6 +111,33 @@ public class ConstruccionSubconjuntosTest {
 		assertTrue("Estado final identificado como no final.", th.esFinal('E'));
 	}
 
+	/**
+	 * Comprueba que el ejercicio construye correctamente AFDs de cientos de
+	 * estados. La expresión (a|b)*a(a|b)^8 requiere al menos 2^9 estados, todos
+	 * ellos con conjuntos de posiciones distintos.
+	 */
+	@Test
+	public void testEstadosGrandes() {
+		StringBuilder problema = new StringBuilder("(a|b)*a");
+		for (int i = 0; i < 8; i++)
+			problema.append("(a|b)");
+		th = new ConstruccionSubconjuntos(problema.toString());
+
+		Set<Character> estados = th.estados();
+		assertTrue("Número de estados erróneo en AFD grande.",
+				estados.size() >= 512);
+
+		Set<Set<Integer>> conjuntos = new HashSet<>();
+		for (char estado : estados) {
+			conjuntos.add(th.posiciones(estado));
+			for (char simbolo : set('a', 'b'))
+				assertTrue("Transición a estado inexistente en AFD grande.",
+						estados.contains(th.mueve(estado, simbolo)));
+		}
+		assertEquals("Estados repetidos en AFD grande.", estados.size(),
+				conjuntos.size());
+	}
+
 	/**
 	 * Genera un set a partir de una lista de enteros de longitud variable.
 	 * 
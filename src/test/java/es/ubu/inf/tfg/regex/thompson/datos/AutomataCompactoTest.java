@@ -0,0 +1,134 @@
+package es.ubu.inf.tfg.regex.thompson.datos;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.BitSet;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import es.ubu.inf.tfg.regex.datos.ExpresionRegular;
+
+public class AutomataCompactoTest {
+	private AutomataCompacto compacto;
+
+	@Before
+	public void setUp() throws Exception { // (a|b)*abb
+		ExpresionRegular expresion;
+
+		expresion = ExpresionRegular.nodoSimbolo(1, 'a');   // a
+		expresion = ExpresionRegular.nodoUnion(expresion,
+				ExpresionRegular.nodoSimbolo(2, 'b'));      // (a|b)
+		expresion = ExpresionRegular.nodoCierre(expresion); // (a|b)*
+		expresion = ExpresionRegular.nodoConcat(expresion,
+				ExpresionRegular.nodoSimbolo(3, 'a'));      // (a|b)*a
+		expresion = ExpresionRegular.nodoConcat(expresion,
+				ExpresionRegular.nodoSimbolo(4, 'b'));      // (a|b)*ab
+		expresion = ExpresionRegular.nodoConcat(expresion,
+				ExpresionRegular.nodoSimbolo(5, 'b'));      // (a|b)*abb
+
+		compacto = new AutomataCompacto(new Automata(expresion, 0));
+	}
+
+	@After
+	public void tearDown() throws Exception {
+		compacto = null;
+	}
+
+	/**
+	 * Comprueba que se indexan todos los nodos del autómata.
+	 */
+	@Test
+	public void testNodos() {
+		assertEquals("Error calculando el número de nodos.", 11,
+				compacto.numNodos());
+		for (int i = 0; i < compacto.numNodos(); i++)
+			assertEquals("Error indexando los nodos.", i,
+					compacto.indice(compacto.nodo(i)));
+	}
+
+	/**
+	 * Comprueba el cálculo de cierres vacíos, incluyendo llamadas sucesivas
+	 * que reutilizan la pila y el mapa de visitados.
+	 */
+	@Test
+	public void testCierreVacio() {
+		BitSet cierre = new BitSet();
+		compacto.cierreVacio(0, cierre);
+		assertEquals("Error calculando el cierre vacío del nodo inicial.",
+				set(0, 1, 2, 4, 7), cierre);
+
+		cierre = new BitSet();
+		compacto.cierreVacio(6, cierre);
+		assertEquals("Error calculando el cierre vacío de un nodo intermedio.",
+				set(1, 2, 4, 6, 7), cierre);
+
+		cierre = new BitSet();
+		compacto.cierreVacio(10, cierre);
+		assertEquals("Error calculando el cierre vacío del nodo final.",
+				set(10), cierre);
+	}
+
+	/**
+	 * Comprueba las transiciones consumiendo un símbolo.
+	 */
+	@Test
+	public void testMueve() {
+		BitSet destino = new BitSet();
+		compacto.mueve(set(0, 1, 2, 4, 7), 'a', destino);
+		assertEquals("Error calculando transiciones con entrada 'a'.",
+				set(3, 8), destino);
+
+		destino = new BitSet();
+		compacto.mueve(set(0, 1, 2, 4, 7), 'b', destino);
+		assertEquals("Error calculando transiciones con entrada 'b'.", set(5),
+				destino);
+	}
+
+	/**
+	 * Comprueba las transiciones de un estado completo, incluyendo los
+	 * cierres vacíos tras consumir el símbolo, y las de un único nodo.
+	 */
+	@Test
+	public void testTransicion() {
+		BitSet destino = new BitSet();
+		compacto.transicion(set(0, 1, 2, 4, 7), 'a', destino);
+		assertEquals("Error calculando la transición con entrada 'a'.",
+				set(1, 2, 3, 4, 6, 7, 8), destino);
+
+		destino.clear();
+		compacto.transicion(set(0, 1, 2, 4, 7), 'b', destino);
+		assertEquals("Error calculando la transición con entrada 'b'.",
+				set(1, 2, 4, 5, 6, 7), destino);
+
+		destino.clear();
+		compacto.transicion(0, 'a', destino);
+		assertEquals("Error calculando la transición de un nodo.",
+				set(1, 2, 3, 4, 6, 7, 8), destino);
+	}
+
+	/**
+	 * Comprueba que se lanza IllegalArgumentException con nodos que no
+	 * pertenecen al autómata.
+	 */
+	@Test(expected = IllegalArgumentException.class)
+	public void testNodoAjeno() {
+		compacto.indice(new Nodo(20, false));
+	}
+
+	/**
+	 * Genera un conjunto de bits a partir de una lista de índices de longitud
+	 * variable.
+	 *
+	 * @param ns
+	 *            Lista de índices de longitud variable.
+	 * @return Conjunto de bits.
+	 */
+	private static BitSet set(int... ns) {
+		BitSet set = new BitSet();
+		for (int n : ns)
+			set.set(n);
+		return set;
+	}
+}
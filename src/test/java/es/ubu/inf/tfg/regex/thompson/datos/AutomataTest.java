@@ -4,22 +4,29 @@ import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Set;
 import java.util.TreeSet;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
 
 import es.ubu.inf.tfg.regex.datos.ExpresionRegular;
+import es.ubu.inf.tfg.regex.datos.Generador;
 
 public class AutomataTest {
+	private ExpresionRegular expresion;
 	private Automata automata;
 
 	@Before
 	public void setUp() throws Exception { // (a|b)*abb
-		ExpresionRegular expresion;
-
 		expresion = ExpresionRegular.nodoSimbolo(1, 'a');   // a
 		expresion = ExpresionRegular.nodoUnion(expresion,
 				ExpresionRegular.nodoSimbolo(2, 'b'));      // (a|b)
@@ -36,6 +43,7 @@ public class AutomataTest {
 
 	@After
 	public void tearDown() throws Exception {
+		expresion = null;
 		automata = null;
 	}
 
@@ -116,6 +124,31 @@ public class AutomataTest {
 				esperadosB, inicialesB);
 	}
 
+	/**
+	 * Comprueba que los cierres vacíos se calculan una sola vez por nodo, y
+	 * que las consultas repetidas se resuelven desde la caché.
+	 */
+	@Test
+	public void testCacheCierres() {
+		Set<Nodo> primera = automata.transicion(automata.nodoInicial(), 'a');
+		long fallos = automata.fallosCierres();
+		Set<Nodo> segunda = automata.transicion(automata.nodoInicial(), 'a');
+
+		assertEquals("Error obteniendo transiciones desde la caché.", primera,
+				segunda);
+		assertEquals("Cierres recalculados pese a estar en la caché.", fallos,
+				automata.fallosCierres());
+		assertTrue("Consultas repetidas no resueltas desde la caché.",
+				automata.aciertosCierres() > 0);
+
+		for (Nodo nodo : automata.transicionVacia(automata.nodoInicial())) {
+			automata.transicion(nodo, 'a');
+			automata.transicion(nodo, 'b');
+		}
+		assertTrue("Cierres calculados más de una vez.",
+				automata.fallosCierres() <= 11);
+	}
+
 	/**
 	 * Comprueba la correcta generación del programa dot que construye la imagen
 	 * del autómata.
@@ -132,6 +165,142 @@ public class AutomataTest {
 				automata.imagenDot());
 	}
 
+	/**
+	 * Comprueba que pueden generarse miles de imágenes TikZ de autómatas desde
+	 * varios hilos a la vez, obteniendo el mismo resultado que desde un único
+	 * hilo.
+	 */
+	@Test
+	public void testConcurrencia() throws Exception {
+		Generador generador = new Generador(3, true, false);
+		List<ExpresionRegular> expresiones = new ArrayList<>();
+		List<String> esperados = new ArrayList<>();
+		for (int i = 0; i < 2000; i++) {
+			ExpresionRegular expresion = generador.arbol(3);
+			expresiones.add(expresion);
+			esperados.add(new Automata(expresion, 0).imagenTikZ());
+		}
+
+		ExecutorService ejecutor = Executors.newFixedThreadPool(8);
+		try {
+			List<Future<String>> resultados = new ArrayList<>();
+			for (ExpresionRegular expresion : expresiones)
+				resultados.add(ejecutor.submit(() -> new Automata(expresion, 0)
+						.imagenTikZ()));
+
+			for (int i = 0; i < expresiones.size(); i++)
+				assertEquals("Error generando TikZ desde varios hilos.",
+						esperados.get(i), resultados.get(i).get());
+		} finally {
+			ejecutor.shutdown();
+		}
+	}
+
+	/**
+	 * Comprueba que los autómatas construidos a partir de expresiones
+	 * equivalentes comparten el programa dot, y que cambia con la posición
+	 * inicial.
+	 */
+	@Test
+	public void testImagenDotCompartida() {
+		ExpresionRegular expresion = ExpresionRegular.nodoCierre(ExpresionRegular
+				.nodoUnion(ExpresionRegular.nodoSimbolo(1, 'a'),
+						ExpresionRegular.nodoSimbolo(2, 'b')));
+		ExpresionRegular equivalente = ExpresionRegular
+				.nodoCierre(ExpresionRegular.nodoUnion(
+						ExpresionRegular.nodoSimbolo(1, 'a'),
+						ExpresionRegular.nodoSimbolo(2, 'b')));
+
+		String dot = new Automata(expresion, 0).imagenDot();
+
+		assertTrue("Programa dot no compartido entre autómatas equivalentes.",
+				dot == new Automata(equivalente, 0).imagenDot());
+		assertFalse("Programa dot compartido con distinta posición inicial.",
+				dot.equals(new Automata(equivalente, 1).imagenDot()));
+	}
+
+	/**
+	 * Comprueba que el programa dot escrito directamente en un destino
+	 * coincide con el generado, y que se genera completo para autómatas de
+	 * miles de estados.
+	 */
+	@Test
+	public void testEscribeDot() throws IOException {
+		StringBuilder escrito = new StringBuilder();
+		automata.escribeDot(escrito);
+
+		assertEquals("Programa dot escrito incorrecto.", automata.imagenDot(),
+				escrito.toString());
+
+		String dot = new Automata(concatenacion(1, 5000), 0).imagenDot();
+
+		assertEquals("Número de transiciones dot incorrecto.", 5000,
+				cuenta(dot, "[label="));
+		assertTrue("Última transición dot no encontrada.",
+				dot.endsWith("\n\t4999 -> 5000[label=\"a\"];\n}"));
+	}
+
+	/**
+	 * Comprueba que el programa SVG contiene un estado por cada nodo del
+	 * autómata, numerado a partir de la posición inicial y con el estado
+	 * final marcado, y que coincide con el escrito directamente en un destino.
+	 */
+	@Test
+	public void testImagenSvg() throws IOException {
+		ExpresionRegular expresion = ExpresionRegular.nodoCierre(ExpresionRegular
+				.nodoUnion(ExpresionRegular.nodoSimbolo(1, 'a'),
+						ExpresionRegular.nodoSimbolo(2, 'b')));
+		Automata automata = new Automata(expresion, 3);
+		String svg = automata.imagenSvg();
+		StringBuilder escrito = new StringBuilder();
+		automata.escribeSvg(escrito);
+
+		// Ocho estados más el círculo interior del estado final
+		assertEquals("Número de estados SVG incorrecto.", 9,
+				cuenta(svg, "<circle"));
+		for (int i = 3; i <= 10; i++)
+			assertTrue("Estado SVG no encontrado.",
+					svg.contains(">" + i + "</text>"));
+		assertFalse("Estado SVG inexistente.", svg.contains(">11</text>"));
+		assertEquals("Programa SVG escrito incorrecto.", svg,
+				escrito.toString());
+	}
+
+	/**
+	 * Comprueba que la imagen del autómata se genera sin componentes gráficos
+	 * y que se comparte con los autómatas equivalentes.
+	 */
+	@Test
+	public void testImagen() {
+		BufferedImage imagen = automata.imagen();
+
+		assertTrue("Imagen de autómata vacía.",
+				imagen.getWidth() > imagen.getHeight()
+						&& imagen.getHeight() > 0);
+		assertTrue("Imagen no compartida entre autómatas equivalentes.",
+				imagen == new Automata(expresion, 0).imagen());
+	}
+
+	/**
+	 * Construye un árbol equilibrado que concatena símbolos 'a' entre dos
+	 * posiciones, para no depender de la profundidad de la recursión.
+	 */
+	private static ExpresionRegular concatenacion(int desde, int hasta) {
+		if (desde == hasta)
+			return ExpresionRegular.nodoSimbolo(desde, 'a');
+		int medio = (desde + hasta) / 2;
+		return ExpresionRegular.nodoConcat(concatenacion(desde, medio),
+				concatenacion(medio + 1, hasta));
+	}
+
+	private static int cuenta(String texto, String patron) {
+		int n = 0;
+		for (int i = texto.indexOf(patron); i >= 0; i = texto.indexOf(patron,
+				i + 1))
+			n++;
+		return n;
+	}
+
 	/**
 	 * Genera un set a partir de una lista de nodos de longitud variable.
 	 * 